@@ -1,5 +1,6 @@
 package com.microservices.email;
 
+import com.microservices.email.export.EmailExportCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -7,6 +8,8 @@ import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 @EnableKafka
 @EnableAsync
@@ -14,6 +17,11 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class EmailServiceApplication {
     public static void main(String[] args) {
-        SpringApplication.run(EmailServiceApplication.class, args);
+        SpringApplication application = new SpringApplication(EmailServiceApplication.class);
+        // A command-line export runs in its own minimal context rather than beside the live consumers and jobs
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--" + EmailExportCommand.OUTPUT_PROPERTY + "="))) {
+            application.setAdditionalProfiles(EmailExportCommand.PROFILE);
+        }
+        application.run(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.microservices.email.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-process LRU cache limited by total entry weight rather than entry count. Keys are
+ * spread over independently locked segments so concurrent readers rarely contend.
+ */
+public class WeightedLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final ToLongFunction<V> weigher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public WeightedLruCache(long maxWeight, int segmentCount, ToLongFunction<V> weigher) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two: " + segmentCount);
+        }
+        this.weigher = weigher;
+        this.segments = new Segment[segmentCount];
+        long segmentWeight = Math.max(1, maxWeight / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentWeight);
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.entries.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        Segment<K, V> segment = segmentFor(key);
+        if (weight > segment.maxWeight) {
+            // Too large to ever fit; make sure no stale copy survives either
+            invalidate(key);
+            return;
+        }
+
+        synchronized (segment) {
+            V previous = segment.entries.put(key, value);
+            if (previous != null) {
+                segment.weight -= weigher.applyAsLong(previous);
+            }
+            segment.weight += weight;
+
+            Iterator<Map.Entry<K, V>> eldest = segment.entries.entrySet().iterator();
+            while (segment.weight > segment.maxWeight && eldest.hasNext()) {
+                Map.Entry<K, V> entry = eldest.next();
+                segment.weight -= weigher.applyAsLong(entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V removed = segment.entries.remove(key);
+            if (removed != null) {
+                segment.weight -= weigher.applyAsLong(removed);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // Registers the same meter names Micrometer uses for its own cache binders
+    public WeightedLruCache<K, V> bindTo(MeterRegistry meterRegistry, String cacheName) {
+        FunctionCounter.builder("cache.gets", this, WeightedLruCache::hitCount)
+            .tags("cache", cacheName, "result", "hit")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", this, WeightedLruCache::missCount)
+            .tags("cache", cacheName, "result", "miss")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", this, WeightedLruCache::evictionCount)
+            .tags("cache", cacheName)
+            .register(meterRegistry);
+        Gauge.builder("cache.size", this, WeightedLruCache::size)
+            .tags("cache", cacheName)
+            .register(meterRegistry);
+        Gauge.builder("cache.weight", this, WeightedLruCache::weight)
+            .tags("cache", cacheName)
+            .register(meterRegistry);
+        return this;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Segment<K, V> {
+
+        private final long maxWeight;
+        private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.microservices.email.config;
+
+import com.microservices.email.dispatch.DispatchPriority;
+import com.microservices.email.dispatch.PriorityDispatchScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+public class DispatchConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public PriorityDispatchScheduler priorityDispatchScheduler(Environment environment,
+                                                               MeterRegistry meterRegistry) {
+        // Per-level budgets: email.dispatch.<level>.weight|concurrency|rate-per-second|max-wait-ms|max-queued
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = new EnumMap<>(DispatchPriority.class);
+        for (DispatchPriority priority : DispatchPriority.values()) {
+            String prefix = "email.dispatch." + priority.name().toLowerCase() + ".";
+            settings.put(priority, new PriorityDispatchScheduler.LevelSettings(
+                environment.getProperty(prefix + "weight", Integer.class, priority.getDefaultWeight()),
+                environment.getProperty(prefix + "concurrency", Integer.class, priority.getDefaultConcurrency()),
+                environment.getProperty(prefix + "rate-per-second", Integer.class, priority.getDefaultRatePerSecond()),
+                environment.getProperty(prefix + "max-wait-ms", Long.class, priority.getDefaultMaxWaitMillis()),
+                environment.getProperty(prefix + "max-queued", Integer.class, priority.getDefaultMaxQueued())
+            ));
+        }
+
+        return new PriorityDispatchScheduler(settings, meterRegistry);
+    }
+}
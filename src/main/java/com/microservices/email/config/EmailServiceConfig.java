@@ -1,7 +1,28 @@
 package com.microservices.email.config;
 
+import com.microservices.email.consumer.AdaptiveConsumerController;
+import com.microservices.email.feedback.DeliveryFeedbackAggregator;
+import com.microservices.email.lifecycle.OrderLifecycleTable;
+import com.microservices.email.lifecycle.PartitionedOrderState;
+import com.microservices.email.logging.LogSampling;
+import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.rollup.DeliveryRollupAggregator;
+import com.microservices.email.schedule.DeliveryWindowPolicy;
+import com.microservices.email.schedule.DueEmailTimer;
+import com.microservices.email.service.DeliveryFeedbackService;
+import com.microservices.email.service.DeliveryRollupService;
+import com.microservices.email.service.ScheduledEmailService;
+import com.microservices.email.suppression.SuppressionService;
+import com.microservices.email.transport.DomainBatchingMailSender;
+import com.microservices.email.transport.LatencyDistribution;
+import com.microservices.email.transport.SimulatedMailTransport;
+import com.microservices.email.transport.SmtpCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.retry.annotation.EnableRetry;
@@ -9,8 +30,10 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -19,19 +42,25 @@ import java.util.concurrent.Executor;
 public class EmailServiceConfig {
 
     @Bean
-    public JavaMailSender javaMailSender() {
+    public JavaMailSender javaMailSender(
+            @Value("${spring.mail.host:smtp.gmail.com}") String host,
+            @Value("${spring.mail.port:587}") int port,
+            @Value("${spring.mail.username:}") String username,
+            @Value("${spring.mail.password:}") String password,
+            @Value("${spring.mail.properties.mail.smtp.auth:true}") boolean smtpAuth,
+            @Value("${spring.mail.properties.mail.smtp.starttls.enable:true}") boolean startTls) {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
 
-        // For production, these should come from environment variables or application properties
-        mailSender.setHost("smtp.gmail.com");
-        mailSender.setPort(587);
-        mailSender.setUsername("${spring.mail.username:}");
-        mailSender.setPassword("${spring.mail.password:}");
+        // Connection settings come from application properties so profiles (e.g. loadtest) can redirect them
+        mailSender.setHost(host);
+        mailSender.setPort(port);
+        mailSender.setUsername(username);
+        mailSender.setPassword(password);
 
         Properties props = mailSender.getJavaMailProperties();
         props.put("mail.transport.protocol", "smtp");
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.auth", String.valueOf(smtpAuth));
+        props.put("mail.smtp.starttls.enable", String.valueOf(startTls));
         props.put("mail.smtp.timeout", "10000");
         props.put("mail.smtp.connectiontimeout", "10000");
         props.put("mail.debug", "false");
@@ -46,7 +75,133 @@ public class EmailServiceConfig {
         executor.setMaxPoolSize(10);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("EmailAsync-");
+        // Push back on the submitting thread instead of failing sends when the queue is full
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
     }
+
+    // Retry jobs are exclusive cluster-wide, so one thread is enough; the queue only holds a job waiting
+    // for a resumed one to finish on this instance
+    @Bean(name = "retryJobExecutor")
+    public Executor retryJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("EmailRetryJob-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SimulatedMailTransport simulatedMailTransport(
+            @Value("${email.mock.latency.distribution:fixed}") String distribution,
+            @Value("${email.mock.latency.fixed-ms:100}") long fixedMillis,
+            @Value("${email.mock.latency.median-ms:80}") double medianMillis,
+            @Value("${email.mock.latency.sigma:0.6}") double sigma,
+            @Value("${email.mock.latency.histogram:20:50,80:30,250:15,1000:5}") String histogram,
+            @Value("${email.mock.failure-rate:0.0}") double failureRate,
+            @Value("${email.mock.scheduler-threads:2}") int schedulerThreads) {
+        LatencyDistribution latencyDistribution =
+            LatencyDistribution.of(distribution, fixedMillis, medianMillis, sigma, histogram);
+        return new SimulatedMailTransport(latencyDistribution, failureRate, schedulerThreads);
+    }
+
+    @Bean
+    public SmtpCircuitBreaker smtpCircuitBreaker(
+            @Value("${email.smtp.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${email.smtp.circuit.open-duration-ms:30000}") long openDurationMillis,
+            @Value("${email.smtp.circuit.half-open-probes:1}") int halfOpenProbes,
+            MeterRegistry meterRegistry) {
+        return new SmtpCircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMillis), halfOpenProbes)
+            .bindTo(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public DomainBatchingMailSender domainBatchingMailSender(
+            JavaMailSender javaMailSender,
+            @Value("${email.dispatch.domain-batching.max-batch-size:20}") int maxBatchSize,
+            @Value("${email.dispatch.domain-batching.linger-ms:25}") long lingerMillis,
+            @Value("${email.dispatch.domain-batching.workers:8}") int workers,
+            MeterRegistry meterRegistry) {
+        return new DomainBatchingMailSender(javaMailSender, maxBatchSize, lingerMillis, workers, meterRegistry);
+    }
+
+    @Bean
+    public OrderLifecycleTable orderLifecycleTable(
+            @Value("${email.order-lifecycle.max-orders:200000}") int maxOrders,
+            MeterRegistry meterRegistry) {
+        return new OrderLifecycleTable(maxOrders).bindTo(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "reset")
+    public LogSampling logSampling(
+            @Value("${email.logging.sample-rates:}") String sampleRates,
+            MeterRegistry meterRegistry) {
+        return LogSampling.configure(sampleRates).bindTo(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PartitionedOrderState partitionedOrderState(
+            OrderLifecycleTable orderLifecycleTable,
+            EmailRepository emailRepository,
+            AdaptiveConsumerController adaptiveConsumerController,
+            @Value("${email.order-lifecycle.partition.max-orders:50000}") int maxOrdersPerPartition,
+            @Value("${email.order-lifecycle.partition.warmup-window-hours:72}") long warmupWindowHours,
+            @Value("${email.order-lifecycle.partition.warmup-limit:50000}") int warmupLimit,
+            @Value("${email.order-lifecycle.partition.warmup-timeout-ms:30000}") long warmupTimeoutMillis,
+            @Value("${email.order-lifecycle.partition.warmup-threads:2}") int warmupThreads,
+            MeterRegistry meterRegistry) {
+        return new PartitionedOrderState(orderLifecycleTable,
+            (partition, since, limit) -> emailRepository.findRecentOrderEmails(partition, since, PageRequest.of(0, limit)),
+            adaptiveConsumerController::setPartitionPaused, maxOrdersPerPartition,
+            Duration.ofHours(warmupWindowHours), warmupLimit, warmupTimeoutMillis, warmupThreads, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public DeliveryRollupAggregator deliveryRollupAggregator(
+            DeliveryRollupService deliveryRollupService,
+            @Value("${email.rollup.max-pending-keys:10000}") int maxPendingKeys,
+            MeterRegistry meterRegistry) {
+        return new DeliveryRollupAggregator(deliveryRollupService::add, maxPendingKeys, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public DeliveryFeedbackAggregator deliveryFeedbackAggregator(
+            DeliveryFeedbackService deliveryFeedbackService,
+            SuppressionService suppressionService,
+            @Value("${email.feedback.batch-size:1000}") int batchSize,
+            @Value("${email.feedback.max-pending-emails:200000}") int maxPendingEmails,
+            MeterRegistry meterRegistry) {
+        return new DeliveryFeedbackAggregator(deliveryFeedbackService::apply, suppressionService::suppress,
+                                              batchSize, maxPendingEmails, meterRegistry);
+    }
+
+    @Bean
+    public DeliveryWindowPolicy deliveryWindowPolicy(
+            @Value("${email.schedule.type-delays:}") String typeDelays,
+            @Value("${email.schedule.quiet-hours.start:21:00}") String quietStart,
+            @Value("${email.schedule.quiet-hours.end:08:00}") String quietEnd,
+            @Value("${email.schedule.quiet-hours.priorities:BULK}") String quietPriorities,
+            @Value("${email.schedule.default-time-zone:UTC}") String defaultTimeZone) {
+        return DeliveryWindowPolicy.of(typeDelays, quietStart, quietEnd, quietPriorities, defaultTimeZone);
+    }
+
+    // Releases due emails on its own threads once started, so it is left out of the one-shot export
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @Profile("!export")
+    public DueEmailTimer dueEmailTimer(
+            ScheduledEmailService scheduledEmailService,
+            @Value("${email.schedule.tick-ms:100}") long tickMillis,
+            @Value("${email.schedule.lookahead-ms:600000}") long lookaheadMillis,
+            @Value("${email.schedule.refill-interval-ms:10000}") long refillIntervalMillis,
+            @Value("${email.schedule.refill-batch-size:5000}") int refillBatchSize,
+            @Value("${email.schedule.release-batch-size:500}") int releaseBatchSize,
+            @Value("${email.schedule.max-wheel-entries:2000000}") long maxWheelEntries,
+            MeterRegistry meterRegistry) {
+        return new DueEmailTimer(scheduledEmailService::loadScheduled, scheduledEmailService::release,
+                                 tickMillis, lookaheadMillis, refillIntervalMillis, refillBatchSize,
+                                 releaseBatchSize, maxWheelEntries, meterRegistry);
+    }
 }
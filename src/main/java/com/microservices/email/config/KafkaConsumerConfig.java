@@ -1,6 +1,8 @@
 package com.microservices.email.config;
 
+import com.microservices.email.event.DeliveryFeedbackEvent;
 import com.microservices.email.event.OrderEvent;
+import com.microservices.email.lifecycle.PartitionedOrderState;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +30,35 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    // Starting values; the order-event container is resized at runtime by AdaptiveConsumerController
+    @Value("${email.kafka.consumer.max-poll-records:10}")
+    private int maxPollRecords;
+
+    @Value("${email.kafka.consumer.max-poll-interval-ms:300000}")
+    private int maxPollIntervalMs;
+
+    @Value("${email.kafka.consumer.session-timeout-ms:30000}")
+    private int sessionTimeoutMs;
+
+    @Value("${email.kafka.consumer.heartbeat-interval-ms:10000}")
+    private int heartbeatIntervalMs;
+
+    @Value("${email.kafka.consumer.order-events.concurrency:3}")
+    private int orderEventConcurrency;
+
+    @Value("${email.kafka.consumer.customer-events.concurrency:2}")
+    private int customerEventConcurrency;
+
+    @Value("${email.kafka.consumer.delivery-feedback.concurrency:2}")
+    private int deliveryFeedbackConcurrency;
+
+    @Value("${email.kafka.consumer.delivery-feedback.max-poll-records:2000}")
+    private int deliveryFeedbackMaxPollRecords;
+
+    // Boot's own listener properties do not reach factories declared here, so this one is applied by hand
+    @Value("${spring.kafka.listener.auto-startup:true}")
+    private boolean autoStartup;
+
     @Bean
     public ConsumerFactory<String, OrderEvent> orderEventConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -39,10 +70,10 @@ public class KafkaConsumerConfig {
         configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getCanonicalName());
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
-        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000);
-        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000);
-        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, heartbeatIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
 
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
@@ -56,25 +87,30 @@ public class KafkaConsumerConfig {
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
-        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000);
-        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000);
-        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, heartbeatIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
 
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory(
+            PartitionedOrderState partitionedOrderState) {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(orderEventConsumerFactory());
+        factory.setAutoStartup(autoStartup);
 
         // Enable manual acknowledgment
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
+        // Per-partition order state follows the assignment: warmed up on assign, dropped on revoke
+        factory.getContainerProperties().setConsumerRebalanceListener(partitionedOrderState);
+
         // Set concurrency level
-        factory.setConcurrency(3);
+        factory.setConcurrency(orderEventConcurrency);
 
         // Error handling with proper retry configuration
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(2000L, 3L));
@@ -88,12 +124,13 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(stringConsumerFactory());
+        factory.setAutoStartup(autoStartup);
 
         // Enable manual acknowledgment
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
         // Set concurrency level
-        factory.setConcurrency(2);
+        factory.setConcurrency(customerEventConcurrency);
 
         // Error handling with proper retry configuration
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(2000L, 3L));
@@ -101,4 +138,43 @@ public class KafkaConsumerConfig {
 
         return factory;
     }
+
+    // Feedback is coalesced in memory, so large polls handed over as one batch cost little per record
+    @Bean
+    public ConsumerFactory<String, DeliveryFeedbackEvent> deliveryFeedbackConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, DeliveryFeedbackEvent.class.getCanonicalName());
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, heartbeatIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, deliveryFeedbackMaxPollRecords);
+
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, DeliveryFeedbackEvent> deliveryFeedbackListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, DeliveryFeedbackEvent> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(deliveryFeedbackConsumerFactory());
+        factory.setAutoStartup(autoStartup);
+        factory.setBatchListener(true);
+
+        // The listener acknowledges a poll only once it has been flushed to the database
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConcurrency(deliveryFeedbackConcurrency);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(2000L, 3L));
+        factory.setCommonErrorHandler(errorHandler);
+
+        return factory;
+    }
 }
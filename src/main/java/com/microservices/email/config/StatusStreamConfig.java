@@ -0,0 +1,28 @@
+package com.microservices.email.config;
+
+import com.microservices.email.stream.EmailStatusHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class StatusStreamConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public EmailStatusHub emailStatusHub(
+            MeterRegistry meterRegistry,
+            @Value("${email.status-stream.buffer-size:256}") int bufferSize,
+            @Value("${email.status-stream.overflow-policy:drop-oldest}") String overflowPolicy,
+            @Value("${email.status-stream.max-subscribers:1000}") int maxSubscribers) {
+        // A client stuck in a blocking write parks a virtual thread, not a pool thread other clients need
+        return new EmailStatusHub(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("email-status-stream-", 0).factory()),
+            meterRegistry,
+            bufferSize,
+            EmailStatusHub.OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase().replace('-', '_')),
+            maxSubscribers);
+    }
+}
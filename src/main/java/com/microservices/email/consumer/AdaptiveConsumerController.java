@@ -0,0 +1,226 @@
+package com.microservices.email.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resizes the order-event listener container at runtime. The consumer reports the processing time
+ * of every record; on each evaluation the controller combines the window's average with the
+ * consumer lag from the Kafka client metrics and asks {@link ConsumerSizingPolicy} for a decision.
+ *
+ * <p>Applying a new size restarts the container, which costs a rebalance. Growth and shrink
+ * decisions are therefore only applied once they have been confirmed by consecutive evaluations and
+ * the cooldown since the previous restart has passed. Shrinking the batch to stay within
+ * max.poll.interval.ms is applied immediately.
+ */
+@Component
+public final class AdaptiveConsumerController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConsumerController.class);
+
+    public static final String ORDER_EVENT_LISTENER_ID = "orderEventListener";
+
+    private final KafkaListenerEndpointRegistry listenerEndpointRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConsumerSizingPolicy policy;
+
+    private final boolean enabled;
+
+    private final int requiredConfirmations;
+
+    private final long cooldownNanos;
+
+    private final LongAdder windowRecordNanos = new LongAdder();
+
+    private final LongAdder windowRecordCount = new LongAdder();
+
+    private final Map<String, Counter> decisionCounters = new ConcurrentHashMap<>();
+
+    private volatile ConsumerSizingPolicy.Sizing current;
+
+    private volatile long lastLag;
+
+    private volatile double lastAvgRecordMillis = Double.NaN;
+
+    // Guarded by this
+    private ConsumerSizingPolicy.Action pendingAction = ConsumerSizingPolicy.Action.HOLD;
+    private int confirmations;
+    private long lastAdjustmentNanos = System.nanoTime();
+    private boolean restarting;
+
+    public AdaptiveConsumerController(
+            KafkaListenerEndpointRegistry listenerEndpointRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${email.kafka.adaptive.enabled:true}") boolean enabled,
+            @Value("${email.kafka.consumer.max-poll-records:10}") int initialPollRecords,
+            @Value("${email.kafka.consumer.order-events.concurrency:3}") int initialConcurrency,
+            @Value("${email.kafka.consumer.max-poll-interval-ms:300000}") long maxPollIntervalMs,
+            @Value("${email.kafka.adaptive.min-poll-records:10}") int minPollRecords,
+            @Value("${email.kafka.adaptive.max-poll-records:500}") int maxPollRecords,
+            @Value("${email.kafka.adaptive.min-concurrency:1}") int minConcurrency,
+            @Value("${email.kafka.adaptive.max-concurrency:6}") int maxConcurrency,
+            @Value("${email.kafka.adaptive.poll-interval-budget:0.5}") double pollIntervalBudget,
+            @Value("${email.kafka.adaptive.confirmations:2}") int requiredConfirmations,
+            @Value("${email.kafka.adaptive.cooldown-ms:60000}") long cooldownMillis) {
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.policy = new ConsumerSizingPolicy(new ConsumerSizingPolicy.Bounds(
+            minPollRecords, maxPollRecords, minConcurrency, maxConcurrency, maxPollIntervalMs, pollIntervalBudget));
+        this.requiredConfirmations = Math.max(1, requiredConfirmations);
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.current = new ConsumerSizingPolicy.Sizing(initialPollRecords, initialConcurrency);
+
+        Gauge.builder("email.consumer.max.poll.records", this, controller -> controller.current.maxPollRecords())
+            .description("Current max.poll.records of the order-event consumers")
+            .register(meterRegistry);
+        Gauge.builder("email.consumer.concurrency", this, controller -> controller.current.concurrency())
+            .description("Current number of order-event consumers")
+            .register(meterRegistry);
+        Gauge.builder("email.consumer.lag", this, controller -> controller.lastLag)
+            .description("Order-event consumer lag at the last evaluation")
+            .register(meterRegistry);
+        Gauge.builder("email.consumer.record.time.ms", this, controller -> controller.lastAvgRecordMillis)
+            .description("Average processing time per order event over the last evaluation window")
+            .register(meterRegistry);
+    }
+
+    public void recordProcessed(long elapsedNanos) {
+        windowRecordNanos.add(elapsedNanos);
+        windowRecordCount.increment();
+    }
+
+    public synchronized ConsumerSizingPolicy.Decision evaluate() {
+        MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(ORDER_EVENT_LISTENER_ID);
+        if (!enabled || container == null || !container.isRunning() || restarting) {
+            return null;
+        }
+
+        long count = windowRecordCount.sumThenReset();
+        long nanos = windowRecordNanos.sumThenReset();
+        double avgRecordMillis = count > 0 ? nanos / (double) count / 1_000_000.0 : Double.NaN;
+        long lag = consumerLag(container);
+
+        ConsumerSizingPolicy.Decision decision = policy.decide(current,
+            new ConsumerSizingPolicy.Observation(avgRecordMillis, lag, lastLag));
+        lastLag = lag;
+        if (count > 0) {
+            lastAvgRecordMillis = avgRecordMillis;
+        }
+
+        recordDecision(decision);
+        if (decision.action() == ConsumerSizingPolicy.Action.HOLD) {
+            pendingAction = ConsumerSizingPolicy.Action.HOLD;
+            confirmations = 0;
+            return decision;
+        }
+
+        // Staying within max.poll.interval.ms is not negotiable; everything else needs confirming
+        boolean safety = "poll_interval".equals(decision.reason());
+        confirmations = decision.action() == pendingAction ? confirmations + 1 : 1;
+        pendingAction = decision.action();
+        boolean confirmed = confirmations >= requiredConfirmations;
+        boolean cooledDown = System.nanoTime() - lastAdjustmentNanos >= cooldownNanos;
+
+        if (safety || (confirmed && cooledDown)) {
+            apply(container, decision);
+        } else {
+            logger.debug("Consumer sizing {} ({}) pending: {}/{} confirmations, cooled down: {}",
+                        decision.action(), decision.reason(), confirmations, requiredConfirmations, cooledDown);
+        }
+        return decision;
+    }
+
+    public ConsumerSizingPolicy.Sizing getCurrentSizing() {
+        return current;
+    }
+
+    // Pause requests are kept by the container and applied by the owning consumer on its next poll
+    public void setPartitionPaused(TopicPartition partition, boolean paused) {
+        MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(ORDER_EVENT_LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        if (paused) {
+            container.pausePartition(partition);
+        } else {
+            container.resumePartition(partition);
+        }
+    }
+
+    private void apply(MessageListenerContainer container, ConsumerSizingPolicy.Decision decision) {
+        ConsumerSizingPolicy.Sizing target = decision.sizing();
+        logger.info("Resizing order-event consumers ({}, {}): max.poll.records {} -> {}, concurrency {} -> {}",
+                   decision.action(), decision.reason(),
+                   current.maxPollRecords(), target.maxPollRecords(), current.concurrency(), target.concurrency());
+
+        restarting = true;
+        pendingAction = ConsumerSizingPolicy.Action.HOLD;
+        confirmations = 0;
+        lastAdjustmentNanos = System.nanoTime();
+
+        // Consumers only read their properties when created, so the new size takes effect on restart
+        container.stop(() -> {
+            try {
+                container.getContainerProperties().getKafkaConsumerProperties()
+                    .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(target.maxPollRecords()));
+                if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrentContainer) {
+                    concurrentContainer.setConcurrency(target.concurrency());
+                }
+                current = target;
+            } finally {
+                container.start();
+                synchronized (this) {
+                    restarting = false;
+                }
+            }
+        });
+    }
+
+    // Sum over the container's consumers of the largest partition lag each of them sees
+    private long consumerLag(MessageListenerContainer container) {
+        long lag = 0;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : clientMetrics.entrySet()) {
+                MetricName name = metric.getKey();
+                if ("records-lag-max".equals(name.name())
+                        && "consumer-fetch-manager-metrics".equals(name.group())
+                        && !name.tags().containsKey("topic")
+                        && metric.getValue().metricValue() instanceof Double value
+                        && !value.isNaN() && value > 0) {
+                    lag += value.longValue();
+                }
+            }
+        }
+        return lag;
+    }
+
+    private void recordDecision(ConsumerSizingPolicy.Decision decision) {
+        String key = decision.action() + ":" + decision.reason();
+        decisionCounters.computeIfAbsent(key, k -> Counter.builder("email.consumer.sizing.decisions")
+                .description("Adaptive consumer sizing decisions")
+                .tag("action", decision.action().name().toLowerCase())
+                .tag("reason", decision.reason())
+                .register(meterRegistry))
+            .increment();
+    }
+}
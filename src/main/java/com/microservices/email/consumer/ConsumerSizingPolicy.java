@@ -0,0 +1,88 @@
+package com.microservices.email.consumer;
+
+/**
+ * Decides poll batch size and consumer concurrency from the measured time per record and the
+ * consumer lag. Stateless; the controller adds hysteresis and a cooldown on top.
+ *
+ * <p>The hard constraint is max.poll.interval.ms: a full batch, at the measured time per record,
+ * must finish within {@code pollIntervalBudget} of it, or the consumer would be kicked out of the
+ * group. Within that limit a backlog first grows the batch (cheap, fewer round trips) and then the
+ * concurrency; an idle consumer gives concurrency back one step at a time.
+ */
+public class ConsumerSizingPolicy {
+
+    public enum Action { HOLD, INCREASE_POLL, DECREASE_POLL, INCREASE_CONCURRENCY, DECREASE_CONCURRENCY }
+
+    public record Bounds(int minPollRecords, int maxPollRecords, int minConcurrency, int maxConcurrency,
+                         long maxPollIntervalMs, double pollIntervalBudget) {
+
+        public Bounds {
+            if (minPollRecords < 1 || maxPollRecords < minPollRecords) {
+                throw new IllegalArgumentException("Invalid poll record bounds: " + minPollRecords + ".." + maxPollRecords);
+            }
+            if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+                throw new IllegalArgumentException("Invalid concurrency bounds: " + minConcurrency + ".." + maxConcurrency);
+            }
+            if (pollIntervalBudget <= 0 || pollIntervalBudget >= 1) {
+                throw new IllegalArgumentException("pollIntervalBudget must be in (0, 1)");
+            }
+        }
+    }
+
+    public record Sizing(int maxPollRecords, int concurrency) {
+    }
+
+    // avgRecordMillis is NaN when no record was processed in the window
+    public record Observation(double avgRecordMillis, long lag, long previousLag) {
+    }
+
+    public record Decision(Action action, String reason, Sizing sizing) {
+    }
+
+    private final Bounds bounds;
+
+    public ConsumerSizingPolicy(Bounds bounds) {
+        this.bounds = bounds;
+    }
+
+    public Bounds getBounds() {
+        return bounds;
+    }
+
+    public Decision decide(Sizing current, Observation observation) {
+        int safePollRecords = safePollRecords(observation.avgRecordMillis());
+
+        if (current.maxPollRecords() > safePollRecords) {
+            return new Decision(Action.DECREASE_POLL, "poll_interval",
+                new Sizing(safePollRecords, current.concurrency()));
+        }
+
+        boolean backlog = observation.lag() > (long) current.maxPollRecords() * current.concurrency();
+        if (backlog) {
+            if (current.maxPollRecords() < safePollRecords) {
+                int grown = Math.min(safePollRecords, Math.max(current.maxPollRecords() * 2, bounds.minPollRecords()));
+                return new Decision(Action.INCREASE_POLL, "lag", new Sizing(grown, current.concurrency()));
+            }
+            if (observation.lag() >= observation.previousLag() && current.concurrency() < bounds.maxConcurrency()) {
+                return new Decision(Action.INCREASE_CONCURRENCY, "lag_growing",
+                    new Sizing(current.maxPollRecords(), current.concurrency() + 1));
+            }
+            return new Decision(Action.HOLD, "at_limit", current);
+        }
+
+        if (observation.lag() == 0 && observation.previousLag() == 0 && current.concurrency() > bounds.minConcurrency()) {
+            return new Decision(Action.DECREASE_CONCURRENCY, "idle",
+                new Sizing(current.maxPollRecords(), current.concurrency() - 1));
+        }
+
+        return new Decision(Action.HOLD, "steady", current);
+    }
+
+    int safePollRecords(double avgRecordMillis) {
+        if (Double.isNaN(avgRecordMillis) || avgRecordMillis <= 0) {
+            return bounds.maxPollRecords();
+        }
+        double records = bounds.maxPollIntervalMs() * bounds.pollIntervalBudget() / avgRecordMillis;
+        return (int) Math.max(bounds.minPollRecords(), Math.min(bounds.maxPollRecords(), records));
+    }
+}
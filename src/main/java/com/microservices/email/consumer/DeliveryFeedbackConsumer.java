@@ -0,0 +1,47 @@
+package com.microservices.email.consumer;
+
+import com.microservices.email.event.DeliveryFeedbackEvent;
+import com.microservices.email.feedback.DeliveryFeedbackAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class DeliveryFeedbackConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryFeedbackConsumer.class);
+
+    @Autowired
+    private DeliveryFeedbackAggregator deliveryFeedbackAggregator;
+
+    // Whole polls at a time, merged in memory and flushed before the offsets are committed, so
+    // feedback held in memory when the instance dies is redelivered instead of lost
+    @KafkaListener(
+        topics = "${kafka.topic.delivery-feedback:email-delivery-feedback}",
+        groupId = "${spring.kafka.consumer.group-id:email-service-group}",
+        containerFactory = "deliveryFeedbackListenerContainerFactory"
+    )
+    public void handleDeliveryFeedback(List<DeliveryFeedbackEvent> events, Acknowledgment acknowledgment) {
+        int ignored = 0;
+        for (DeliveryFeedbackEvent event : events) {
+            if (!deliveryFeedbackAggregator.record(event)) {
+                ignored++;
+            }
+        }
+        if (ignored > 0) {
+            logger.warn("Ignored {} of {} delivery feedback events without a type", ignored, events.size());
+        }
+        logger.debug("Received {} delivery feedback events", events.size());
+
+        // Left unacknowledged, the error handler redelivers the poll; re-recording it is harmless
+        if (!deliveryFeedbackAggregator.flushCompletely()) {
+            throw new IllegalStateException("Could not apply " + events.size() + " delivery feedback events");
+        }
+        acknowledgment.acknowledge();
+    }
+}
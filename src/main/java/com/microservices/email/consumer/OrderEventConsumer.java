@@ -1,7 +1,10 @@
 package com.microservices.email.consumer;
 
 import com.microservices.email.event.OrderEvent;
+import com.microservices.email.lifecycle.PartitionedOrderState;
+import com.microservices.email.logging.SampledLogger;
 import com.microservices.email.service.EmailService;
+import com.microservices.email.startup.StartupTimeRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +20,23 @@ public class OrderEventConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderEventConsumer.class);
 
+    private static final SampledLogger eventLog = SampledLogger.of(logger, "order-events");
+
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private StartupTimeRecorder startupTimeRecorder;
+
+    @Autowired
+    private AdaptiveConsumerController adaptiveConsumerController;
+
+    @Autowired
+    private PartitionedOrderState partitionedOrderState;
+
     @KafkaListener(
+        id = AdaptiveConsumerController.ORDER_EVENT_LISTENER_ID,
+        idIsGroup = false,
         topics = "${kafka.topic.order-events:order-events}",
         groupId = "${spring.kafka.consumer.group-id:email-service-group}",
         containerFactory = "kafkaListenerContainerFactory"
@@ -32,9 +48,14 @@ public class OrderEventConsumer {
             @Header(KafkaHeaders.OFFSET) long offset,
             Acknowledgment acknowledgment) {
 
+        startupTimeRecorder.recordOrderEventConsumed();
+        long startNanos = System.nanoTime();
+
         try {
-            logger.info("Received order event from topic: {}, partition: {}, offset: {}, orderId: {}, status: {}",
-                       topic, partition, offset, orderEvent.getOrderId(), orderEvent.getOrderStatus());
+            if (eventLog.sampleInfo()) {
+                logger.info("Received order event from topic: {}, partition: {}, offset: {}, orderId: {}, status: {}",
+                           topic, partition, offset, orderEvent.getOrderId(), orderEvent.getOrderStatus());
+            }
 
             // Validate the order event
             if (!isValidOrderEvent(orderEvent)) {
@@ -43,13 +64,17 @@ public class OrderEventConsumer {
                 return;
             }
 
-            // Process the order event
-            emailService.processOrderEvent(orderEvent);
+            // Records of a newly assigned partition fetched before its pause took effect wait for its warm-up
+            partitionedOrderState.awaitReady(partition);
+
+            // Process the order event and dispatch the resulting email once its record is committed
+            emailService.processOrderEvent(orderEvent, partition)
+                .ifPresent(email -> emailService.dispatchEmail(email, orderEvent));
 
             // Acknowledge the message after successful processing
             acknowledgment.acknowledge();
 
-            logger.info("Successfully processed order event for orderId: {}", orderEvent.getOrderId());
+            eventLog.info("Successfully processed order event for orderId: {}", orderEvent.getOrderId());
 
         } catch (Exception e) {
             logger.error("Error processing order event from topic: {}, orderId: {}",
@@ -63,6 +88,10 @@ public class OrderEventConsumer {
             // For now, we'll acknowledge to prevent infinite reprocessing
             // In real production, you'd implement proper error handling
             acknowledgment.acknowledge();
+
+        } finally {
+            // Feeds the poll-size controller, which keeps a full batch well inside max.poll.interval.ms
+            adaptiveConsumerController.recordProcessed(System.nanoTime() - startNanos);
         }
     }
 
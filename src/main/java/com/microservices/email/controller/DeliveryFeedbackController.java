@@ -0,0 +1,36 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.event.DeliveryFeedbackEvent;
+import com.microservices.email.feedback.DeliveryFeedbackAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// Webhook for provider notifications; events are applied asynchronously, hence 202
+@RestController
+@RequestMapping("/api/emails/feedback")
+public class DeliveryFeedbackController {
+
+    @Autowired
+    private DeliveryFeedbackAggregator deliveryFeedbackAggregator;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> ingest(@RequestBody List<DeliveryFeedbackEvent> events) {
+        int accepted = 0;
+        for (DeliveryFeedbackEvent event : events) {
+            if (deliveryFeedbackAggregator.record(event)) {
+                accepted++;
+            }
+        }
+        return ResponseEntity.accepted().body(Map.of(
+            "accepted", accepted,
+            "ignored", events.size() - accepted
+        ));
+    }
+}
@@ -0,0 +1,35 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.service.DeliveryRollupService;
+import com.microservices.email.view.DomainRollupView;
+import com.microservices.email.view.HourlyRollupView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Dashboard queries over the rollup table; figures lag live traffic by up to one flush interval
+@RestController
+@RequestMapping("/api/emails/rollups")
+public class DeliveryRollupController {
+
+    @Autowired
+    private DeliveryRollupService deliveryRollupService;
+
+    @GetMapping("/hourly")
+    public ResponseEntity<List<HourlyRollupView>> hourly(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(deliveryRollupService.hourly(from, to));
+    }
+
+    @GetMapping("/domains")
+    public ResponseEntity<List<DomainRollupView>> domains(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(deliveryRollupService.byDomain(from, to));
+    }
+}
@@ -1,14 +1,24 @@
 package com.microservices.email.controller;
 
 import com.microservices.email.entity.Email;
+import com.microservices.email.service.EmailHistoryService;
 import com.microservices.email.service.EmailService;
+import com.microservices.email.service.RetryJobService;
+import com.microservices.email.view.EmailHistoryView;
+import com.microservices.email.view.RetryJobView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+// Handler methods are mapped at startup; the controller itself is created on the first request
+@Lazy
 @RestController
 @RequestMapping("/api/emails")
 @CrossOrigin(origins = "*")
@@ -17,15 +27,21 @@ public class EmailController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private EmailHistoryService emailHistoryService;
+
+    @Autowired
+    private RetryJobService retryJobService;
+
     @GetMapping("/order/{orderId}")
-    public ResponseEntity<List<Email>> getEmailsByOrderId(@PathVariable Long orderId) {
-        List<Email> emails = emailService.getEmailsByOrderId(orderId);
+    public ResponseEntity<List<EmailHistoryView>> getEmailsByOrderId(@PathVariable Long orderId) {
+        List<EmailHistoryView> emails = emailHistoryService.findByOrderId(orderId);
         return ResponseEntity.ok(emails);
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Email>> getEmailsByCustomerId(@PathVariable String customerId) {
-        List<Email> emails = emailService.getEmailsByCustomerId(customerId);
+    public ResponseEntity<List<EmailHistoryView>> getEmailsByCustomerId(@PathVariable String customerId) {
+        List<EmailHistoryView> emails = emailHistoryService.findByCustomerId(customerId);
         return ResponseEntity.ok(emails);
     }
 
@@ -39,6 +55,7 @@ public class EmailController {
     public ResponseEntity<Map<String, Object>> getEmailStats() {
         Map<String, Object> stats = Map.of(
             "pending", emailService.getEmailCountByStatus(Email.EmailStatus.PENDING),
+            "sending", emailService.getEmailCountByStatus(Email.EmailStatus.SENDING),
             "sent", emailService.getEmailCountByStatus(Email.EmailStatus.SENT),
             "failed", emailService.getEmailCountByStatus(Email.EmailStatus.FAILED),
             "retrying", emailService.getEmailCountByStatus(Email.EmailStatus.RETRYING)
@@ -46,15 +63,33 @@ public class EmailController {
         return ResponseEntity.ok(stats);
     }
 
+    // Queues a background job and answers at once; 409 carries the job that is already running
     @PostMapping("/retry-failed")
-    public ResponseEntity<String> retryFailedEmails() {
-        try {
-            emailService.retryFailedEmails();
-            return ResponseEntity.ok("Retry process initiated successfully");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                .body("Error initiating retry process: " + e.getMessage());
+    public ResponseEntity<RetryJobView> retryFailedEmails() {
+        RetryJobService.StartResult result = retryJobService.start("api");
+        RetryJobView job = RetryJobView.of(result.job(), LocalDateTime.now());
+        if (!result.started()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job);
         }
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/emails/retry-jobs/" + job.id()))
+            .body(job);
+    }
+
+    @GetMapping("/retry-jobs/{jobId}")
+    public ResponseEntity<RetryJobView> getRetryJob(@PathVariable String jobId) {
+        return retryJobService.findJob(jobId)
+            .map(job -> ResponseEntity.ok(RetryJobView.of(job, LocalDateTime.now())))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/retry-jobs")
+    public ResponseEntity<List<RetryJobView>> getRecentRetryJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RetryJobView> jobs = retryJobService.recentJobs().stream()
+            .map(job -> RetryJobView.of(job, now))
+            .toList();
+        return ResponseEntity.ok(jobs);
     }
 
     @GetMapping("/health")
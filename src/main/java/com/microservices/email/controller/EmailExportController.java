@@ -0,0 +1,50 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.export.EmailRecordExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+@RequestMapping("/api/emails/export")
+public class EmailExportController {
+
+    private static final DateTimeFormatter FILE_NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    @Autowired
+    private EmailRecordExporter emailRecordExporter;
+
+    // A full export runs for far longer than the default async request timeout, which would cut it off midway
+    @Value("${email.export.http-timeout-ms:14400000}")
+    private long timeoutMillis = 14_400_000;
+
+    // Rows created in [from, to) as CSV, written to the response on an async thread while they are read
+    @GetMapping
+    public WebAsyncTask<Void> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "true") boolean gzip,
+            HttpServletResponse response) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+
+        String fileName = "email-records-" + FILE_NAME_TIME.format(from) + "-" + FILE_NAME_TIME.format(to)
+            + (gzip ? ".csv.gz" : ".csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setContentType(gzip ? "application/gzip" : "text/csv");
+        return new WebAsyncTask<>(timeoutMillis, () -> {
+            emailRecordExporter.export(from, to, gzip, response.getOutputStream());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.service.EmailHistoryService;
+import com.microservices.email.stream.EmailStatusHub;
+import com.microservices.email.stream.SseStatusSink;
+import com.microservices.email.view.EmailHistoryView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Pushes email status changes as server-sent events instead of having clients poll the history endpoints
+@RestController
+@RequestMapping("/api/emails/stream")
+@CrossOrigin(origins = "*")
+public class EmailStatusStreamController {
+
+    @Autowired
+    private EmailStatusHub emailStatusHub;
+
+    @Autowired
+    private EmailHistoryService emailHistoryService;
+
+    @Value("${email.status-stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAll() {
+        return stream(EmailStatusHub.Scope.all(), null);
+    }
+
+    @GetMapping(value = "/order/{orderId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrder(@PathVariable Long orderId) {
+        return stream(EmailStatusHub.Scope.order(orderId), () -> emailHistoryService.loadByOrderId(orderId));
+    }
+
+    @GetMapping(value = "/customer/{customerId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCustomer(@PathVariable String customerId) {
+        return stream(EmailStatusHub.Scope.customer(customerId), () -> emailHistoryService.loadByCustomerId(customerId));
+    }
+
+    private ResponseEntity<SseEmitter> stream(EmailStatusHub.Scope scope, Supplier<List<EmailHistoryView>> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        EmailStatusHub.Subscription subscription = emailStatusHub.subscribe(scope, new SseStatusSink(emitter));
+        if (subscription == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+
+        try {
+            // Read after subscribing so no change falls between the snapshot and the first event
+            subscription.start(snapshot != null ? snapshot.get() : null);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            throw e;
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,81 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.suppression.SuppressionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/suppressions")
+public class SuppressionController {
+
+    // Plain-text imports are applied in slices so a list of millions never sits on the heap at once
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+
+    @Autowired
+    private SuppressionService suppressionService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> suppress(@RequestBody List<String> emailAddresses) {
+        int added = suppressionService.suppress(emailAddresses);
+        return ResponseEntity.ok(result("added", added));
+    }
+
+    // One address per line
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Map<String, Object>> suppressLines(InputStream body) throws IOException {
+        long added = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<String> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    added += suppressionService.suppress(batch);
+                    batch.clear();
+                }
+            }
+            added += suppressionService.suppress(batch);
+        }
+        return ResponseEntity.ok(result("added", added));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> unsuppress(@RequestBody List<String> emailAddresses) {
+        int removed = suppressionService.unsuppress(emailAddresses);
+        return ResponseEntity.ok(result("removed", removed));
+    }
+
+    @GetMapping("/check")
+    public ResponseEntity<Map<String, Object>> check(@RequestParam String emailAddress) {
+        return ResponseEntity.ok(Map.of("suppressed", suppressionService.contains(emailAddress)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(Map.of(
+            "size", suppressionService.size(),
+            "offHeapBytes", suppressionService.offHeapBytes()
+        ));
+    }
+
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> snapshot() {
+        return ResponseEntity.ok(Map.of("written", suppressionService.snapshot()));
+    }
+
+    // Changes reach disk with the next periodic snapshot; rewriting the whole table here would block the request
+    private Map<String, Object> result(String key, long count) {
+        return Map.of(key, count, "size", suppressionService.size());
+    }
+}
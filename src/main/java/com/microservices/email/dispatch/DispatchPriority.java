@@ -0,0 +1,56 @@
+package com.microservices.email.dispatch;
+
+import com.microservices.email.entity.Email;
+
+public enum DispatchPriority {
+
+    // Time-critical mail tied to money or order state
+    TRANSACTIONAL(8, 50, 0, 1000, 10000),
+    // Informational order updates
+    STANDARD(4, 20, 0, 5000, 10000),
+    // Campaigns and other mail that can wait
+    BULK(1, 10, 50, 30000, 5000);
+
+    private final int defaultWeight;
+    private final int defaultConcurrency;
+    private final int defaultRatePerSecond;
+    private final long defaultMaxWaitMillis;
+    private final int defaultMaxQueued;
+
+    DispatchPriority(int defaultWeight, int defaultConcurrency, int defaultRatePerSecond, long defaultMaxWaitMillis,
+                     int defaultMaxQueued) {
+        this.defaultWeight = defaultWeight;
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultRatePerSecond = defaultRatePerSecond;
+        this.defaultMaxWaitMillis = defaultMaxWaitMillis;
+        this.defaultMaxQueued = defaultMaxQueued;
+    }
+
+    public static DispatchPriority forEmailType(Email.EmailType emailType) {
+        return switch (emailType) {
+            case ORDER_CONFIRMATION, PAYMENT_FAILED, ORDER_CANCELLED, ORDER_REFUNDED -> TRANSACTIONAL;
+            case ORDER_SHIPPED, ORDER_DELIVERED, SYSTEM_NOTIFICATION -> STANDARD;
+            case PROMOTIONAL -> BULK;
+        };
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public int getDefaultConcurrency() {
+        return defaultConcurrency;
+    }
+
+    public int getDefaultRatePerSecond() {
+        return defaultRatePerSecond;
+    }
+
+    public long getDefaultMaxWaitMillis() {
+        return defaultMaxWaitMillis;
+    }
+
+    public int getDefaultMaxQueued() {
+        return defaultMaxQueued;
+    }
+}
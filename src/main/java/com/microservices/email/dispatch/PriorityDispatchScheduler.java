@@ -0,0 +1,374 @@
+package com.microservices.email.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Multi-level dispatch queue. A single dispatcher thread picks the next job using smooth weighted
+ * round-robin across the levels that currently have work, a free concurrency slot and rate budget.
+ * Among the levels whose oldest job has waited longer than their max wait, the one furthest past
+ * it relative to that max wait is served first, so bulk mail keeps moving during a transactional
+ * spike and transactional mail is never stuck behind a campaign.
+ *
+ * <p>Each level holds at most {@code maxQueued} waiting jobs; {@link #submit} blocks while its level
+ * is full, which pushes back on the Kafka consumers and claim passes instead of buffering without
+ * limit. Jobs still queued at shutdown, and jobs submitted after it, fail with
+ * {@link RejectedExecutionException}, so nothing waiting on them hangs.
+ *
+ * <p>Jobs run on the scheduler's own workers, one per concurrency slot across all levels, so a job
+ * that blocks (e.g. a synchronous SMTP send) holds only its level's slot and never the dispatcher.
+ */
+public class PriorityDispatchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityDispatchScheduler.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long ENQUEUE_POLL_MILLIS = 100;
+
+    private final Level[] levels;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    private volatile boolean running;
+    // Unlike running, also false before start, when jobs may already be queued
+    private volatile boolean shutDown;
+    private volatile Thread dispatcherThread;
+
+    public PriorityDispatchScheduler(Map<DispatchPriority, LevelSettings> settings, MeterRegistry meterRegistry) {
+        this(settings, null, meterRegistry);
+    }
+
+    // The executor must not run jobs on the submitting thread, which would be the dispatcher; null for the own workers
+    PriorityDispatchScheduler(Map<DispatchPriority, LevelSettings> settings, Executor executor,
+                              MeterRegistry meterRegistry) {
+        this.levels = new Level[DispatchPriority.values().length];
+        int totalConcurrency = 0;
+        for (DispatchPriority priority : DispatchPriority.values()) {
+            LevelSettings levelSettings = settings.get(priority);
+            if (levelSettings == null) {
+                levelSettings = LevelSettings.defaults(priority);
+            }
+            Level level = new Level(priority, levelSettings, meterRegistry);
+            levels[priority.ordinal()] = level;
+            totalConcurrency += level.concurrency;
+        }
+        this.ownedExecutor = executor == null ? workers(totalConcurrency) : null;
+        this.executor = executor == null ? ownedExecutor : executor;
+    }
+
+    // Every job holds a level permit while queued or running, so the queue never exceeds the worker count
+    private static ExecutorService workers(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "EmailDispatchWorker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::dispatchLoop, "EmailDispatcher");
+        thread.setDaemon(true);
+        dispatcherThread = thread;
+        thread.start();
+    }
+
+    public synchronized void shutdown() {
+        shutDown = true;
+        running = false;
+        Thread thread = dispatcherThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        for (Level level : levels) {
+            Task task;
+            while ((task = level.poll()) != null) {
+                task.completion.completeExceptionally(rejected());
+            }
+        }
+    }
+
+    // Blocks while the level is full; fails the returned future once the scheduler is shut down
+    public CompletableFuture<Void> submit(DispatchPriority priority, Supplier<? extends CompletableFuture<?>> job) {
+        Level level = levels[priority.ordinal()];
+        try {
+            while (!level.queueSlots.tryAcquire(ENQUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (shutDown) {
+                    return CompletableFuture.failedFuture(rejected());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (shutDown) {
+            level.queueSlots.release();
+            return CompletableFuture.failedFuture(rejected());
+        }
+
+        Task task = new Task(job, System.nanoTime());
+        level.depth.incrementAndGet();
+        level.queue.add(task);
+        // Shutdown may have drained the queue between the check and the add
+        if (shutDown && level.queue.remove(task)) {
+            level.depth.decrementAndGet();
+            level.queueSlots.release();
+            task.completion.completeExceptionally(rejected());
+        }
+        wakeDispatcher();
+        return task.completion;
+    }
+
+    public int getQueueDepth(DispatchPriority priority) {
+        return levels[priority.ordinal()].depth.get();
+    }
+
+    public int getInFlight(DispatchPriority priority) {
+        return levels[priority.ordinal()].inFlight();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            long now = System.nanoTime();
+            Level level = selectLevel(now);
+            if (level == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            Task task = level.poll();
+            if (task == null) {
+                continue;
+            }
+            level.permits.acquireUninterruptibly();
+            level.consumeRateToken();
+            level.waitTimer.record(now - task.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+
+            try {
+                executor.execute(() -> run(level, task));
+            } catch (RejectedExecutionException e) {
+                // Only after shutdown; running the job here would stall every level behind it
+                level.permits.release();
+                task.completion.completeExceptionally(e);
+            }
+        }
+    }
+
+    private Level selectLevel(long now) {
+        // Starvation guard: of the levels whose head has waited too long, the one furthest past its own
+        // max wait goes next regardless of weight, so a short max wait cannot keep winning on its own
+        Level mostOverdue = null;
+        double mostOverdueRatio = 1.0;
+        for (Level level : levels) {
+            if (!level.isEligible(now)) {
+                continue;
+            }
+            Task head = level.queue.peek();
+            if (head == null) {
+                continue;
+            }
+            double ratio = (double) (now - head.enqueuedAtNanos) / Math.max(1, level.maxWaitNanos);
+            if (ratio > mostOverdueRatio) {
+                mostOverdue = level;
+                mostOverdueRatio = ratio;
+            }
+        }
+        if (mostOverdue != null) {
+            mostOverdue.starvationPromotions.increment();
+            return mostOverdue;
+        }
+
+        Level selected = null;
+        int totalWeight = 0;
+        for (Level level : levels) {
+            if (!level.isEligible(now)) {
+                continue;
+            }
+            level.currentWeight += level.weight;
+            totalWeight += level.weight;
+            if (selected == null || level.currentWeight > selected.currentWeight) {
+                selected = level;
+            }
+        }
+
+        if (selected != null) {
+            selected.currentWeight -= totalWeight;
+        }
+        return selected;
+    }
+
+    private void run(Level level, Task task) {
+        CompletableFuture<?> future;
+        try {
+            future = task.job.get();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (future == null) {
+            future = CompletableFuture.completedFuture(null);
+        }
+
+        future.whenComplete((result, error) -> {
+            level.permits.release();
+            wakeDispatcher();
+            if (error != null) {
+                logger.debug("Dispatch job at level {} failed", level.priority, error);
+                task.completion.completeExceptionally(error);
+            } else {
+                task.completion.complete(null);
+            }
+        });
+    }
+
+    private void wakeDispatcher() {
+        Thread thread = dispatcherThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static RejectedExecutionException rejected() {
+        return new RejectedExecutionException("Dispatch scheduler is shut down");
+    }
+
+    public record LevelSettings(int weight, int concurrency, int ratePerSecond, long maxWaitMillis, int maxQueued) {
+
+        public static LevelSettings defaults(DispatchPriority priority) {
+            return new LevelSettings(priority.getDefaultWeight(), priority.getDefaultConcurrency(),
+                                     priority.getDefaultRatePerSecond(), priority.getDefaultMaxWaitMillis(),
+                                     priority.getDefaultMaxQueued());
+        }
+    }
+
+    private static final class Task {
+
+        private final Supplier<? extends CompletableFuture<?>> job;
+        private final long enqueuedAtNanos;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        Task(Supplier<? extends CompletableFuture<?>> job, long enqueuedAtNanos) {
+            this.job = job;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private static final class Level {
+
+        private final DispatchPriority priority;
+        private final int weight;
+        private final int concurrency;
+        private final long maxWaitNanos;
+        private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Semaphore queueSlots;
+        private final Semaphore permits;
+
+        // Token bucket, only touched by the dispatcher thread
+        private final int ratePerSecond;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+
+        // Smooth weighted round-robin state, only touched by the dispatcher thread
+        private int currentWeight;
+
+        private final Timer waitTimer;
+        private final Counter starvationPromotions;
+
+        Level(DispatchPriority priority, LevelSettings settings, MeterRegistry meterRegistry) {
+            this.priority = priority;
+            this.weight = Math.max(1, settings.weight());
+            this.concurrency = Math.max(1, settings.concurrency());
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.maxWaitMillis());
+            this.ratePerSecond = settings.ratePerSecond();
+            this.tokens = ratePerSecond;
+            this.permits = new Semaphore(concurrency);
+            this.queueSlots = new Semaphore(Math.max(1, settings.maxQueued()));
+
+            String level = priority.name().toLowerCase();
+            Gauge.builder("email.dispatch.queue.depth", depth, AtomicInteger::get)
+                .tag("level", level)
+                .description("Emails waiting for dispatch")
+                .register(meterRegistry);
+            Gauge.builder("email.dispatch.in.flight", this, Level::inFlight)
+                .tag("level", level)
+                .description("Emails currently being sent")
+                .register(meterRegistry);
+            this.waitTimer = Timer.builder("email.dispatch.wait")
+                .tag("level", level)
+                .description("Time emails spend queued before dispatch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+            this.starvationPromotions = Counter.builder("email.dispatch.starvation.promotions")
+                .tag("level", level)
+                .description("Dispatches forced by the starvation guard")
+                .register(meterRegistry);
+        }
+
+        Task poll() {
+            Task task = queue.poll();
+            if (task != null) {
+                depth.decrementAndGet();
+                queueSlots.release();
+            }
+            return task;
+        }
+
+        int inFlight() {
+            return concurrency - permits.availablePermits();
+        }
+
+        boolean isEligible(long now) {
+            return !queue.isEmpty() && permits.availablePermits() > 0 && hasRateToken(now);
+        }
+
+        private boolean hasRateToken(long now) {
+            if (ratePerSecond <= 0) {
+                return true;
+            }
+            tokens = Math.min(ratePerSecond, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000.0);
+            lastRefillNanos = now;
+            return tokens >= 1.0;
+        }
+
+        void consumeRateToken() {
+            if (ratePerSecond > 0) {
+                tokens -= 1.0;
+            }
+        }
+    }
+}
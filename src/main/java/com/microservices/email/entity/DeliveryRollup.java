@@ -0,0 +1,107 @@
+package com.microservices.email.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Number of emails that entered a status, per hour, email type and recipient domain
+@Entity
+@Table(name = "delivery_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_delivery_rollup_bucket",
+                      columnNames = {"bucket_hour", "email_type", "email_status", "recipient_domain"})
+})
+public class DeliveryRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private LocalDateTime bucketHour;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "email_type", nullable = false)
+    private Email.EmailType emailType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "email_status", nullable = false)
+    private Email.EmailStatus emailStatus;
+
+    @Column(name = "recipient_domain", nullable = false)
+    private String recipientDomain;
+
+    @Column(name = "email_count", nullable = false)
+    private long emailCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public DeliveryRollup() {}
+
+    public DeliveryRollup(LocalDateTime bucketHour, Email.EmailType emailType, Email.EmailStatus emailStatus,
+                          String recipientDomain, long emailCount) {
+        this.bucketHour = bucketHour;
+        this.emailType = emailType;
+        this.emailStatus = emailStatus;
+        this.recipientDomain = recipientDomain;
+        this.emailCount = emailCount;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getBucketHour() {
+        return bucketHour;
+    }
+
+    public void setBucketHour(LocalDateTime bucketHour) {
+        this.bucketHour = bucketHour;
+    }
+
+    public Email.EmailType getEmailType() {
+        return emailType;
+    }
+
+    public void setEmailType(Email.EmailType emailType) {
+        this.emailType = emailType;
+    }
+
+    public Email.EmailStatus getEmailStatus() {
+        return emailStatus;
+    }
+
+    public void setEmailStatus(Email.EmailStatus emailStatus) {
+        this.emailStatus = emailStatus;
+    }
+
+    public String getRecipientDomain() {
+        return recipientDomain;
+    }
+
+    public void setRecipientDomain(String recipientDomain) {
+        this.recipientDomain = recipientDomain;
+    }
+
+    public long getEmailCount() {
+        return emailCount;
+    }
+
+    public void setEmailCount(long emailCount) {
+        this.emailCount = emailCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -4,7 +4,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "email_records")
+@Table(name = "email_records", indexes = {
+    @Index(name = "idx_email_status_created", columnList = "email_status, created_at"),
+    @Index(name = "idx_email_lease_until", columnList = "lease_until"),
+    @Index(name = "idx_email_order_id", columnList = "order_id"),
+    @Index(name = "idx_email_customer_id", columnList = "customer_id"),
+    @Index(name = "idx_email_body_hash", columnList = "body_hash"),
+    @Index(name = "idx_email_status_scheduled", columnList = "email_status, scheduled_at"),
+    @Index(name = "idx_email_partition_created", columnList = "source_partition, created_at"),
+    @Index(name = "idx_email_created_id", columnList = "created_at, id")
+})
 public class Email {
     
     @Id
@@ -27,8 +36,16 @@ public class Email {
     @Column(name = "subject", nullable = false)
     private String subject;
     
-    @Column(name = "content", nullable = false, length = 1000)
+    // Null when the body is shared: it is then stored once in email_bodies under bodyHash
+    @Column(name = "content", length = 1000)
     private String content;
+
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash;
+
+    // Applied to a shared body at send time
+    @Column(name = "customer_name")
+    private String customerName;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "email_status", nullable = false)
@@ -40,6 +57,25 @@ public class Email {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Work-claiming lease so that several instances can share dispatch and retry without double sends
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    // Set for SCHEDULED emails: the earliest time they may be sent
+    @Column(name = "scheduled_at")
+    private LocalDateTime scheduledAt;
+
+    // Order-events partition the email was created from, so a new owner of the partition can warm up from it
+    @Column(name = "source_partition")
+    private Integer sourcePartition;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -116,6 +152,22 @@ public class Email {
         this.content = content;
     }
 
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    public void setBodyHash(String bodyHash) {
+        this.bodyHash = bodyHash;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
     public EmailStatus getEmailStatus() {
         return emailStatus;
     }
@@ -140,6 +192,51 @@ public class Email {
         this.createdAt = createdAt;
     }
 
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getScheduledAt() {
+        return scheduledAt;
+    }
+
+    public void setScheduledAt(LocalDateTime scheduledAt) {
+        this.scheduledAt = scheduledAt;
+    }
+
+    public Integer getSourcePartition() {
+        return sourcePartition;
+    }
+
+    public void setSourcePartition(Integer sourcePartition) {
+        this.sourcePartition = sourcePartition;
+    }
+
+    public void releaseLease() {
+        this.claimedBy = null;
+        this.leaseUntil = null;
+    }
+
     // Enums
     public enum EmailType {
         ORDER_CONFIRMATION,
@@ -153,9 +250,14 @@ public class Email {
     }
 
     public enum EmailStatus {
+        SCHEDULED,
         PENDING,
+        SENDING,
         SENT,
         FAILED,
-        RETRYING
+        RETRYING,
+        // Reported back by the mail provider after SENT
+        BOUNCED,
+        COMPLAINED
     }
 }
@@ -0,0 +1,75 @@
+package com.microservices.email.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A body shared by many emails, stored once under the SHA-256 of its content
+@Entity
+@Table(name = "email_bodies")
+public class EmailBody {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Lob
+    @Column(name = "content", nullable = false)
+    private String content;
+
+    // Refreshed at most once per mark interval by each instance that stores an email with this body;
+    // a body unused for the grace period and referenced by no email row may be purged
+    @Column(name = "last_used_at", nullable = false)
+    private LocalDateTime lastUsedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (lastUsedAt == null) {
+            lastUsedAt = createdAt;
+        }
+    }
+
+    // Constructors
+    public EmailBody() {}
+
+    public EmailBody(String contentHash, String content) {
+        this.contentHash = contentHash;
+        this.content = content;
+    }
+
+    // Getters and Setters
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(LocalDateTime lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,58 @@
+package com.microservices.email.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rendered_messages")
+public class RenderedMessage {
+
+    @Id
+    @Column(name = "email_id")
+    private Long emailId;
+
+    @Lob
+    @Column(name = "mime_bytes", nullable = false)
+    private byte[] mimeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public RenderedMessage() {}
+
+    public RenderedMessage(Long emailId, byte[] mimeBytes) {
+        this.emailId = emailId;
+        this.mimeBytes = mimeBytes;
+    }
+
+    // Getters and Setters
+    public Long getEmailId() {
+        return emailId;
+    }
+
+    public void setEmailId(Long emailId) {
+        this.emailId = emailId;
+    }
+
+    public byte[] getMimeBytes() {
+        return mimeBytes;
+    }
+
+    public void setMimeBytes(byte[] mimeBytes) {
+        this.mimeBytes = mimeBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,243 @@
+package com.microservices.email.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "retry_jobs", indexes = {
+    @Index(name = "idx_retry_job_requested_at", columnList = "requested_at")
+})
+public class RetryJob {
+
+    // Set while the job is queued or running and cleared when it ends; the unique constraint
+    // is what keeps a second run from starting anywhere in the cluster
+    public static final String ACTIVE_KEY = "retry-failed";
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "active_key", unique = true)
+    private String activeKey;
+
+    @Column(name = "requested_by")
+    private String requestedBy;
+
+    @Column(name = "owner_instance")
+    private String ownerInstance;
+
+    // Only emails created before this are retried; fixed at submission so a resumed job sees the same set
+    @Column(name = "cutoff_time", nullable = false)
+    private LocalDateTime cutoffTime;
+
+    // Highest email id already handled; a resumed job continues after it
+    @Column(name = "checkpoint_id", nullable = false)
+    private long checkpointId;
+
+    @Column(name = "claimed_count", nullable = false)
+    private long claimedCount;
+
+    @Column(name = "sent_count", nullable = false)
+    private long sentCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    // Constructors
+    public RetryJob() {}
+
+    public RetryJob(String id, String requestedBy, String ownerInstance, LocalDateTime cutoffTime, LocalDateTime now) {
+        this.id = id;
+        this.requestedBy = requestedBy;
+        this.ownerInstance = ownerInstance;
+        this.cutoffTime = cutoffTime;
+        this.activeKey = ACTIVE_KEY;
+        this.status = JobStatus.QUEUED;
+        this.requestedAt = now;
+        this.heartbeatAt = now;
+    }
+
+    public void markRunning(LocalDateTime now) {
+        status = JobStatus.RUNNING;
+        if (startedAt == null) {
+            startedAt = now;
+        }
+        heartbeatAt = now;
+    }
+
+    public void recordBatch(long lastCandidateId, int claimed, int sent, LocalDateTime now) {
+        checkpointId = Math.max(checkpointId, lastCandidateId);
+        claimedCount += claimed;
+        sentCount += sent;
+        failedCount += claimed - sent;
+        heartbeatAt = now;
+    }
+
+    public void finish(JobStatus outcome, String error, LocalDateTime now) {
+        status = outcome;
+        errorMessage = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        activeKey = null;
+        finishedAt = now;
+        heartbeatAt = now;
+    }
+
+    public boolean isActive() {
+        return activeKey != null;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public String getActiveKey() {
+        return activeKey;
+    }
+
+    public void setActiveKey(String activeKey) {
+        this.activeKey = activeKey;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getOwnerInstance() {
+        return ownerInstance;
+    }
+
+    public void setOwnerInstance(String ownerInstance) {
+        this.ownerInstance = ownerInstance;
+    }
+
+    public LocalDateTime getCutoffTime() {
+        return cutoffTime;
+    }
+
+    public void setCutoffTime(LocalDateTime cutoffTime) {
+        this.cutoffTime = cutoffTime;
+    }
+
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    public long getClaimedCount() {
+        return claimedCount;
+    }
+
+    public void setClaimedCount(long claimedCount) {
+        this.claimedCount = claimedCount;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package com.microservices.email.event;
+
+// Delivery receipt, bounce or complaint reported by the mail provider for one sent email
+public record DeliveryFeedbackEvent(Long emailId,
+                                    String recipient,
+                                    FeedbackType type) {
+
+    public enum FeedbackType {
+        DELIVERED,
+        SOFT_BOUNCE,
+        HARD_BOUNCE,
+        COMPLAINT
+    }
+}
@@ -0,0 +1,7 @@
+package com.microservices.email.event;
+
+import java.time.LocalDateTime;
+
+// Published by EmailService when an email is created for later delivery instead of being dispatched
+public record EmailScheduledEvent(Long emailId, LocalDateTime scheduledAt) {
+}
@@ -0,0 +1,22 @@
+package com.microservices.email.event;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.util.EmailAddresses;
+
+import java.time.LocalDateTime;
+
+// Published by EmailService whenever an email record is created or changes status
+public record EmailStatusChangedEvent(Long emailId,
+                                      Long orderId,
+                                      String customerId,
+                                      String recipientDomain,
+                                      Email.EmailType emailType,
+                                      Email.EmailStatus emailStatus,
+                                      LocalDateTime occurredAt) {
+
+    public static EmailStatusChangedEvent of(Email email) {
+        return new EmailStatusChangedEvent(email.getId(), email.getOrderId(), email.getCustomerId(),
+                                           EmailAddresses.domainOf(email.getEmailAddress()),
+                                           email.getEmailType(), email.getEmailStatus(), LocalDateTime.now());
+    }
+}
@@ -52,6 +52,18 @@ public class OrderEvent {
     @JsonProperty("timestamp")
     private LocalDateTime timestamp;
 
+    // BCP 47 tag of the storefront, e.g. "de-DE"; selects the email template bundle and formats
+    @JsonProperty("locale")
+    private String locale;
+
+    // IANA zone of the recipient, e.g. "Europe/Berlin"; quiet hours are applied in it
+    @JsonProperty("timeZone")
+    private String timeZone;
+
+    // Earliest time the resulting email may be sent, e.g. a campaign start; null sends right away
+    @JsonProperty("sendAt")
+    private LocalDateTime sendAt;
+
     // Constructors
     public OrderEvent() {}
 
@@ -111,6 +123,15 @@ public class OrderEvent {
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 
+    public String getLocale() { return locale; }
+    public void setLocale(String locale) { this.locale = locale; }
+
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+
+    public LocalDateTime getSendAt() { return sendAt; }
+    public void setSendAt(LocalDateTime sendAt) { this.sendAt = sendAt; }
+
     // Nested classes
     public static class Address {
         private String street;
@@ -0,0 +1,83 @@
+package com.microservices.email.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+
+/**
+ * One-shot export from the command line: runs when {@code email.export.cli.output} is set, writes
+ * the file and exits. Gzip is used when the file name ends in {@code .gz}. Giving the output on the
+ * command line starts the application under the {@code export} profile, a non-web context without
+ * Kafka consumers or scheduled jobs, so exiting never cuts a retry pass or sweep short. For example:
+ * <pre>
+ * java -jar email-service.jar --email.export.cli.output=/data/emails-2024-01.csv.gz \
+ *      --email.export.cli.from=2024-01-01T00:00 --email.export.cli.to=2024-02-01T00:00
+ * </pre>
+ */
+@Component
+@Profile(EmailExportCommand.PROFILE)
+@ConditionalOnProperty(name = EmailExportCommand.OUTPUT_PROPERTY)
+public class EmailExportCommand implements ApplicationRunner {
+
+    public static final String PROFILE = "export";
+
+    public static final String OUTPUT_PROPERTY = "email.export.cli.output";
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailExportCommand.class);
+
+    private final EmailRecordExporter emailRecordExporter;
+
+    private final ConfigurableApplicationContext context;
+
+    private final Path output;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    public EmailExportCommand(EmailRecordExporter emailRecordExporter,
+                              ConfigurableApplicationContext context,
+                              @Value("${email.export.cli.output}") String output,
+                              @Value("${email.export.cli.from}") String from,
+                              @Value("${email.export.cli.to}") String to) {
+        this.emailRecordExporter = emailRecordExporter;
+        this.context = context;
+        this.output = Path.of(output);
+        this.from = LocalDateTime.parse(from);
+        this.to = LocalDateTime.parse(to);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int exitCode = 0;
+        // Written beside the target and moved into place, so a failed export leaves no partial file behind
+        Path partial = output.resolveSibling(output.getFileName() + ".partial");
+        try {
+            long rows;
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                rows = emailRecordExporter.export(from, to, output.getFileName().toString().endsWith(".gz"), out);
+            }
+            Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Wrote {} email records to {}", rows, output);
+        } catch (Exception e) {
+            logger.error("Export to {} failed", output, e);
+            Files.deleteIfExists(partial);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,204 @@
+package com.microservices.email.feedback;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.DeliveryFeedbackEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces provider feedback in memory and applies it in periodic flushes: per email only the
+ * most severe outcome is kept, and each flush moves all emails with the same outcome in set-based
+ * updates of up to {@code batchSize} ids. Recipients of hard bounces and complaints are collected
+ * and suppressed together.
+ *
+ * <p>Recording is a map merge, so ingestion keeps up with bursts far above what per-event row
+ * updates could take. When more than {@code maxPendingEmails} emails are waiting, the recording
+ * thread flushes itself, which pushes back on the listener or the HTTP client. The Kafka listener
+ * flushes each poll before committing its offsets, so only feedback posted over HTTP is lost if the
+ * instance dies before the next flush.
+ */
+public class DeliveryFeedbackAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryFeedbackAggregator.class);
+
+    @FunctionalInterface
+    public interface Sink {
+        // Moves the emails that are still in a status the outcome may follow; returns how many moved
+        int apply(Email.EmailStatus outcome, List<Long> emailIds);
+    }
+
+    @FunctionalInterface
+    public interface Suppressor {
+        int suppress(Collection<String> emailAddresses);
+    }
+
+    private final Sink sink;
+
+    private final Suppressor suppressor;
+
+    private final int batchSize;
+
+    private final int maxPendingEmails;
+
+    private final ConcurrentHashMap<Long, Email.EmailStatus> pendingOutcomes = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingSuppressions = ConcurrentHashMap.newKeySet();
+
+    private final Map<DeliveryFeedbackEvent.FeedbackType, Counter> received =
+        new EnumMap<>(DeliveryFeedbackEvent.FeedbackType.class);
+
+    private final Counter applied;
+
+    public DeliveryFeedbackAggregator(Sink sink, Suppressor suppressor, int batchSize, int maxPendingEmails,
+                                      MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.suppressor = suppressor;
+        this.batchSize = batchSize;
+        this.maxPendingEmails = maxPendingEmails;
+        for (DeliveryFeedbackEvent.FeedbackType type : DeliveryFeedbackEvent.FeedbackType.values()) {
+            received.put(type, Counter.builder("email.feedback.received")
+                .description("Delivery feedback events received from the mail provider")
+                .tag("type", type.name())
+                .register(meterRegistry));
+        }
+        this.applied = Counter.builder("email.feedback.applied")
+            .description("Email records moved to a new status by delivery feedback")
+            .register(meterRegistry);
+        Gauge.builder("email.feedback.pending", pendingOutcomes, Map::size)
+            .description("Emails with feedback waiting for the next flush")
+            .register(meterRegistry);
+    }
+
+    // Returns false for events that carry nothing to act on
+    public boolean record(DeliveryFeedbackEvent event) {
+        if (event == null || event.type() == null) {
+            return false;
+        }
+        received.get(event.type()).increment();
+
+        Email.EmailStatus outcome = outcomeOf(event.type());
+        boolean suppress = event.type() == DeliveryFeedbackEvent.FeedbackType.HARD_BOUNCE
+            || event.type() == DeliveryFeedbackEvent.FeedbackType.COMPLAINT;
+        if (suppress && event.recipient() != null && !event.recipient().isBlank()) {
+            pendingSuppressions.add(event.recipient());
+        }
+        if (outcome != null && event.emailId() != null) {
+            pendingOutcomes.merge(event.emailId(), outcome, DeliveryFeedbackAggregator::moreSevere);
+            if (pendingOutcomes.size() > maxPendingEmails) {
+                flush();
+            }
+        }
+        return true;
+    }
+
+    // Called by the scheduler, on overflow and on shutdown; returns the number of emails moved
+    public synchronized int flush() {
+        return applyPending().moved();
+    }
+
+    /**
+     * Flushes as {@link #flush()} does and returns whether everything taken from memory was applied,
+     * for callers that may only commit their input once it is in the database.
+     */
+    public synchronized boolean flushCompletely() {
+        return applyPending().complete();
+    }
+
+    public int getPendingCount() {
+        return pendingOutcomes.size();
+    }
+
+    public void shutdown() {
+        flush();
+    }
+
+    private Flush applyPending() {
+        boolean complete = flushSuppressions();
+
+        Map<Email.EmailStatus, List<Long>> idsByOutcome = new EnumMap<>(Email.EmailStatus.class);
+        for (Long emailId : new ArrayList<>(pendingOutcomes.keySet())) {
+            Email.EmailStatus outcome = pendingOutcomes.remove(emailId);
+            if (outcome != null) {
+                idsByOutcome.computeIfAbsent(outcome, key -> new ArrayList<>()).add(emailId);
+            }
+        }
+
+        int moved = 0;
+        for (Map.Entry<Email.EmailStatus, List<Long>> entry : idsByOutcome.entrySet()) {
+            List<Long> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                try {
+                    moved += sink.apply(entry.getKey(), batch);
+                } catch (Exception e) {
+                    complete = false;
+                    // Merged back, so a later event for the same email still wins if it is more severe
+                    for (Long emailId : batch) {
+                        pendingOutcomes.merge(emailId, entry.getKey(), DeliveryFeedbackAggregator::moreSevere);
+                    }
+                    logger.warn("Could not apply {} feedback to {} emails, retrying on the next flush",
+                               entry.getKey(), batch.size(), e);
+                }
+            }
+        }
+        applied.increment(moved);
+        if (moved > 0) {
+            logger.debug("Applied delivery feedback to {} emails", moved);
+        }
+        return new Flush(moved, complete);
+    }
+
+    private boolean flushSuppressions() {
+        if (pendingSuppressions.isEmpty()) {
+            return true;
+        }
+        List<String> addresses = new ArrayList<>(pendingSuppressions);
+        pendingSuppressions.removeAll(addresses);
+        try {
+            suppressor.suppress(addresses);
+            return true;
+        } catch (Exception e) {
+            pendingSuppressions.addAll(addresses);
+            logger.warn("Could not suppress {} bounced or complaining recipients, retrying on the next flush",
+                       addresses.size(), e);
+            return false;
+        }
+    }
+
+    // Receipts confirm SENT and change nothing; soft bounces go back to FAILED so the retry job picks them up
+    static Email.EmailStatus outcomeOf(DeliveryFeedbackEvent.FeedbackType type) {
+        return switch (type) {
+            case DELIVERED -> null;
+            case SOFT_BOUNCE -> Email.EmailStatus.FAILED;
+            case HARD_BOUNCE -> Email.EmailStatus.BOUNCED;
+            case COMPLAINT -> Email.EmailStatus.COMPLAINED;
+        };
+    }
+
+    static Email.EmailStatus moreSevere(Email.EmailStatus current, Email.EmailStatus next) {
+        return severity(next) > severity(current) ? next : current;
+    }
+
+    private static int severity(Email.EmailStatus outcome) {
+        return switch (outcome) {
+            case COMPLAINED -> 3;
+            case BOUNCED -> 2;
+            case FAILED -> 1;
+            default -> 0;
+        };
+    }
+
+    private record Flush(int moved, boolean complete) {
+    }
+}
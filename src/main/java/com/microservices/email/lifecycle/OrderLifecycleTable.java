@@ -0,0 +1,292 @@
+package com.microservices.email.lifecycle;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latest lifecycle state seen per order, used to reject events that arrive after a later state
+ * (a redelivered SHIPPED after DELIVERED, CANCELLED after REFUNDED). States are ranked along the
+ * order lifecycle; within the same rank the event timestamp decides.
+ *
+ * <p>Orders are kept in primitive open-addressing tables: a long key, a byte rank and a long
+ * timestamp per slot, spread over independently locked segments. Each segment holds two
+ * generations; when the current one is full it becomes the previous one and the old previous one
+ * is dropped, so memory is bounded and orders that keep receiving events are carried forward.
+ * An order that was evicted is simply treated as unseen.
+ *
+ * <p>Each order also carries one bit per {@link Email.EmailType} already created for it, so a
+ * redelivered event can be recognised as a duplicate without querying the email table.
+ */
+public class OrderLifecycleTable {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final Map<OrderEvent.OrderStatus, LongAdder> staleByStatus;
+
+    public OrderLifecycleTable(int maxOrders) {
+        this(maxOrders, new EnumMap<>(OrderEvent.OrderStatus.class));
+        for (OrderEvent.OrderStatus status : OrderEvent.OrderStatus.values()) {
+            staleByStatus.put(status, new LongAdder());
+        }
+    }
+
+    private OrderLifecycleTable(int maxOrders, Map<OrderEvent.OrderStatus, LongAdder> staleByStatus) {
+        // Each generation of a segment holds its share of maxOrders at a load factor of one half
+        int perSegment = Math.max(8, maxOrders / SEGMENT_COUNT);
+        int slots = Integer.highestOneBit(perSegment * 2 - 1) << 1;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(slots);
+        }
+        this.staleByStatus = staleByStatus;
+    }
+
+    // An empty table whose stale events are counted, and reported, together with this one's
+    public OrderLifecycleTable newSibling(int maxOrders) {
+        return new OrderLifecycleTable(maxOrders, staleByStatus);
+    }
+
+    // Position along the order lifecycle; a later event may only keep or raise the rank
+    public static int rankOf(OrderEvent.OrderStatus status) {
+        return switch (status) {
+            case CREATED -> 0;
+            case CONFIRMED -> 1;
+            case PAYMENT_PENDING, FAILED -> 2;
+            case PAID -> 3;
+            case PROCESSING -> 4;
+            case SHIPPED -> 5;
+            case DELIVERED -> 6;
+            case CANCELLED -> 7;
+            case REFUNDED -> 8;
+        };
+    }
+
+    /**
+     * Records the event's state and returns true, or returns false without recording if the order has
+     * already moved past it. Redeliveries of the latest state are accepted, so an event whose
+     * processing failed after this call can still be retried.
+     *
+     * @param timestampMillis event time, or {@link Long#MIN_VALUE} if unknown
+     */
+    public boolean advance(long orderId, OrderEvent.OrderStatus status, long timestampMillis) {
+        int rank = rankOf(status);
+        Segment segment = segmentFor(orderId);
+        boolean accepted;
+        synchronized (segment) {
+            accepted = segment.advance(orderId, rank, timestampMillis);
+        }
+        if (!accepted) {
+            staleByStatus.get(status).increment();
+        }
+        return accepted;
+    }
+
+    // Called once an email of this type exists for the order; a no-op for orders no longer held
+    public void markEmailed(long orderId, Email.EmailType type) {
+        Segment segment = segmentFor(orderId);
+        synchronized (segment) {
+            segment.markEmailed(orderId, emailedBit(type));
+        }
+    }
+
+    public boolean isEmailed(long orderId, Email.EmailType type) {
+        Segment segment = segmentFor(orderId);
+        synchronized (segment) {
+            return (segment.emailed(orderId) & emailedBit(type)) != 0;
+        }
+    }
+
+    /**
+     * Seeds the table from an email created for the order earlier, e.g. by the previous owner of a
+     * partition. The event time is unknown, so the restored state never makes an event of the same
+     * rank stale; it is not counted as stale if the order is already further along.
+     */
+    public void restore(long orderId, OrderEvent.OrderStatus status, Email.EmailType emailed) {
+        Segment segment = segmentFor(orderId);
+        synchronized (segment) {
+            segment.advance(orderId, rankOf(status), Long.MIN_VALUE);
+            segment.markEmailed(orderId, emailedBit(emailed));
+        }
+    }
+
+    public long staleCount() {
+        long total = 0;
+        for (LongAdder count : staleByStatus.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.current.size;
+            }
+        }
+        return size;
+    }
+
+    public OrderLifecycleTable bindTo(MeterRegistry meterRegistry) {
+        for (Map.Entry<OrderEvent.OrderStatus, LongAdder> entry : staleByStatus.entrySet()) {
+            FunctionCounter.builder("email.order.events.stale", entry.getValue(), LongAdder::sum)
+                .description("Order events dropped because the order had already moved past their state")
+                .tag("status", entry.getKey().name())
+                .register(meterRegistry);
+        }
+        Gauge.builder("email.order.lifecycle.tracked", this, OrderLifecycleTable::size)
+            .description("Orders in the current generation of the lifecycle table")
+            .register(meterRegistry);
+        return this;
+    }
+
+    // One byte per order holds the bits, which covers the eight email types
+    private static int emailedBit(Email.EmailType type) {
+        return 1 << type.ordinal();
+    }
+
+    private Segment segmentFor(long orderId) {
+        return segments[(int) (mix(orderId) >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    // Stafford variant 13 of the SplitMix64 finalizer; order ids are sequential and need spreading
+    static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    private static final class Segment {
+
+        private final int slots;
+        private Generation current;
+        private Generation previous;
+
+        Segment(int slots) {
+            this.slots = slots;
+            this.current = new Generation(slots);
+            this.previous = new Generation(slots);
+        }
+
+        boolean advance(long orderId, int rank, long timestampMillis) {
+            int slot = current.find(orderId);
+            int latestRank;
+            long latestTimestamp;
+            byte emailed = 0;
+            if (slot >= 0) {
+                latestRank = current.rank(slot);
+                latestTimestamp = current.timestamps[slot];
+            } else {
+                int previousSlot = previous.find(orderId);
+                if (previousSlot >= 0) {
+                    latestRank = previous.rank(previousSlot);
+                    latestTimestamp = previous.timestamps[previousSlot];
+                    emailed = previous.emailed[previousSlot];
+                } else {
+                    latestRank = -1;
+                    latestTimestamp = Long.MIN_VALUE;
+                }
+            }
+
+            if (rank < latestRank || (rank == latestRank && isOlder(timestampMillis, latestTimestamp))) {
+                return false;
+            }
+
+            long timestamp = rank == latestRank ? Math.max(timestampMillis, latestTimestamp) : timestampMillis;
+            if (slot >= 0) {
+                current.set(slot, rank, timestamp);
+            } else {
+                if (current.size >= slots >>> 1) {
+                    previous = current;
+                    current = new Generation(slots);
+                }
+                current.insert(orderId, rank, timestamp, emailed);
+            }
+            return true;
+        }
+
+        void markEmailed(long orderId, int bit) {
+            int slot = current.find(orderId);
+            if (slot >= 0) {
+                current.emailed[slot] |= (byte) bit;
+                return;
+            }
+            int previousSlot = previous.find(orderId);
+            if (previousSlot >= 0) {
+                previous.emailed[previousSlot] |= (byte) bit;
+            }
+        }
+
+        int emailed(long orderId) {
+            int slot = current.find(orderId);
+            if (slot >= 0) {
+                return current.emailed[slot];
+            }
+            int previousSlot = previous.find(orderId);
+            return previousSlot >= 0 ? previous.emailed[previousSlot] : 0;
+        }
+
+        private static boolean isOlder(long timestampMillis, long latestTimestamp) {
+            return timestampMillis != Long.MIN_VALUE && latestTimestamp != Long.MIN_VALUE
+                && timestampMillis < latestTimestamp;
+        }
+    }
+
+    // Linear probing; a rank byte of zero marks an empty slot, so ranks are stored plus one
+    private static final class Generation {
+
+        private final long[] keys;
+        private final byte[] ranks;
+        private final long[] timestamps;
+        private final byte[] emailed;
+        private final int mask;
+        private int size;
+
+        Generation(int slots) {
+            this.keys = new long[slots];
+            this.ranks = new byte[slots];
+            this.timestamps = new long[slots];
+            this.emailed = new byte[slots];
+            this.mask = slots - 1;
+        }
+
+        int find(long key) {
+            for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+                if (ranks[slot] == 0) {
+                    return -1;
+                }
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+        }
+
+        int rank(int slot) {
+            return ranks[slot] - 1;
+        }
+
+        void set(int slot, int rank, long timestamp) {
+            ranks[slot] = (byte) (rank + 1);
+            timestamps[slot] = timestamp;
+        }
+
+        void insert(long key, int rank, long timestamp, byte emailedTypes) {
+            int slot = (int) mix(key) & mask;
+            while (ranks[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            emailed[slot] = emailedTypes;
+            set(slot, rank, timestamp);
+            size++;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.microservices.email.lifecycle;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import com.microservices.email.view.OrderEmailView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order lifecycle and dedup state per assigned order-events partition. Order events are keyed by
+ * order, so every event of an order arrives on the same partition and its state can live with it:
+ * memory grows with the partitions this instance owns, not with total traffic.
+ *
+ * <p>On assignment the partition is paused and a fresh {@link OrderLifecycleTable} is filled in the
+ * background from the emails recently created from that partition, whichever instance created them;
+ * the partition resumes once it is warm. Records fetched in the poll that brought the assignment
+ * wait in {@link #awaitReady} instead. On revocation the partition's state is dropped. A warm-up
+ * that fails or times out leaves the partition to start cold, with the duplicate check falling back
+ * to the database as before.
+ */
+public final class PartitionedOrderState implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedOrderState.class);
+
+    @FunctionalInterface
+    public interface Loader {
+        // Orders and email types created from the partition since the given time, newest first
+        List<OrderEmailView> load(int partition, LocalDateTime since, int limit);
+    }
+
+    @FunctionalInterface
+    public interface PartitionControl {
+        void setPaused(TopicPartition partition, boolean paused);
+    }
+
+    private final OrderLifecycleTable unpartitioned;
+
+    private final Loader loader;
+
+    private final PartitionControl partitionControl;
+
+    private final int maxOrdersPerPartition;
+
+    private final Duration warmupWindow;
+
+    private final int warmupLimit;
+
+    private final long warmupTimeoutMillis;
+
+    private final ConcurrentHashMap<Integer, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    private final Timer warmupTimer;
+
+    public PartitionedOrderState(OrderLifecycleTable unpartitioned, Loader loader, PartitionControl partitionControl,
+                                 int maxOrdersPerPartition, Duration warmupWindow, int warmupLimit,
+                                 long warmupTimeoutMillis, int warmupThreads, MeterRegistry meterRegistry) {
+        this.unpartitioned = unpartitioned;
+        this.loader = loader;
+        this.partitionControl = partitionControl;
+        this.maxOrdersPerPartition = maxOrdersPerPartition;
+        this.warmupWindow = warmupWindow;
+        this.warmupLimit = warmupLimit;
+        this.warmupTimeoutMillis = warmupTimeoutMillis;
+
+        this.warmupTimer = Timer.builder("email.order.partition.warmup")
+            .description("Time to load an assigned order-events partition's working set")
+            .register(meterRegistry);
+        Gauge.builder("email.order.partitions.assigned", partitions, ConcurrentHashMap::size)
+            .description("Order-events partitions with state held by this instance")
+            .register(meterRegistry);
+        Gauge.builder("email.order.partitions.warming", this, PartitionedOrderState::warmingCount)
+            .description("Assigned order-events partitions still paused for warm-up")
+            .register(meterRegistry);
+        Gauge.builder("email.order.partitions.tracked", this, PartitionedOrderState::trackedOrders)
+            .description("Orders held in the lifecycle tables of the assigned partitions")
+            .register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(warmupThreads, runnable -> {
+            Thread thread = new Thread(runnable, "OrderStateWarmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        for (TopicPartition partition : assigned) {
+            PartitionState state = new PartitionState(unpartitioned.newSibling(maxOrdersPerPartition));
+            partitions.put(partition.partition(), state);
+            // Through the container, which then also resumes it; pausing the consumer here would not be undone
+            partitionControl.setPaused(partition, true);
+            executor.execute(() -> warmUp(partition, state));
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        drop(revoked);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        drop(lost);
+    }
+
+    // Blocks the consumer thread only for records fetched before the partition's pause took effect
+    public void awaitReady(int partition) {
+        PartitionState state = partitions.get(partition);
+        if (state == null || state.ready.isDone()) {
+            return;
+        }
+        try {
+            state.ready.get(warmupTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Order state for partition {} still warming after {} ms, processing cold",
+                       partition, warmupTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Never completed exceptionally; a failed warm-up completes normally and leaves the table cold
+        }
+    }
+
+    // Events from partitions this instance does not own (e.g. revoked mid-batch) use the shared table
+    public OrderLifecycleTable lifecycleFor(int partition) {
+        PartitionState state = partitions.get(partition);
+        return state != null ? state.lifecycle : unpartitioned;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void warmUp(TopicPartition partition, PartitionState state) {
+        long startNanos = System.nanoTime();
+        int restored = 0;
+        try {
+            List<OrderEmailView> emails = loader.load(partition.partition(),
+                LocalDateTime.now().minus(warmupWindow), warmupLimit);
+            // Oldest first, so that if the table rotates generations the most recent orders are the ones kept
+            for (int i = emails.size() - 1; i >= 0; i--) {
+                OrderEmailView email = emails.get(i);
+                OrderEvent.OrderStatus status = statusOf(email.emailType());
+                if (status != null && email.orderId() != null) {
+                    state.lifecycle.restore(email.orderId(), status, email.emailType());
+                    restored++;
+                }
+            }
+            logger.info("Warmed up order state for partition {} with {} emails in {} ms", partition.partition(),
+                       restored, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (Exception e) {
+            logger.warn("Could not warm up order state for partition {}, starting it cold", partition.partition(), e);
+        } finally {
+            warmupTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            state.ready.complete(null);
+            // A partition revoked meanwhile is no longer ours to resume; a later assignment resumes it itself
+            if (partitions.get(partition.partition()) == state) {
+                partitionControl.setPaused(partition, false);
+            }
+        }
+    }
+
+    // The earliest order state that produces the email type; a lower rank never makes a real event stale
+    static OrderEvent.OrderStatus statusOf(Email.EmailType emailType) {
+        return switch (emailType) {
+            case ORDER_CONFIRMATION -> OrderEvent.OrderStatus.CONFIRMED;
+            case ORDER_SHIPPED -> OrderEvent.OrderStatus.SHIPPED;
+            case ORDER_DELIVERED -> OrderEvent.OrderStatus.DELIVERED;
+            case ORDER_CANCELLED -> OrderEvent.OrderStatus.CANCELLED;
+            case ORDER_REFUNDED -> OrderEvent.OrderStatus.REFUNDED;
+            case PAYMENT_FAILED -> OrderEvent.OrderStatus.FAILED;
+            case PROMOTIONAL, SYSTEM_NOTIFICATION -> null;
+        };
+    }
+
+    private void drop(Collection<TopicPartition> released) {
+        for (TopicPartition partition : released) {
+            PartitionState state = partitions.remove(partition.partition());
+            if (state != null) {
+                // Lets a consumer thread still waiting on it carry on with the shared table
+                state.ready.complete(null);
+            }
+        }
+        if (!released.isEmpty()) {
+            logger.info("Dropped order state for {} revoked partitions", released.size());
+        }
+    }
+
+    private long warmingCount() {
+        return partitions.values().stream().filter(state -> !state.ready.isDone()).count();
+    }
+
+    private long trackedOrders() {
+        long tracked = 0;
+        for (PartitionState state : partitions.values()) {
+            tracked += state.lifecycle.size();
+        }
+        return tracked;
+    }
+
+    private static final class PartitionState {
+
+        private final OrderLifecycleTable lifecycle;
+
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+        PartitionState(OrderLifecycleTable lifecycle) {
+            this.lifecycle = lifecycle;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.microservices.email.loadtest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SmtpSinkServer smtpSinkServer(
+            @Value("${loadtest.smtp.port:2525}") int port,
+            @Value("${loadtest.smtp.latency-ms:0}") long latencyMillis,
+            @Value("${loadtest.smtp.error-rate:0.0}") double errorRate,
+            @Value("${loadtest.smtp.max-messages-per-second:0}") int maxMessagesPerSecond) {
+
+        SmtpSinkServer server = new SmtpSinkServer(port);
+        server.setLatencyMillis(latencyMillis);
+        server.setErrorRate(errorRate);
+        server.setMaxMessagesPerSecond(maxMessagesPerSecond);
+        return server;
+    }
+}
@@ -0,0 +1,406 @@
+package com.microservices.email.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process SMTP server that accepts and discards mail. It speaks enough of the protocol
+ * (EHLO/HELO, optional STARTTLS, AUTH PLAIN/LOGIN, MAIL, RCPT, DATA, RSET, NOOP, QUIT) for
+ * the real JavaMailSender path to run against it, and can inject latency, failures and
+ * rate limiting so load tests see realistic transport behaviour.
+ */
+public class SmtpSinkServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpSinkServer.class);
+
+    private static final String HOSTNAME = "smtp-sink.local";
+
+    private final int requestedPort;
+    private final SSLContext sslContext;
+
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private volatile int maxMessagesPerSecond;
+    private volatile Consumer<ReceivedMessage> messageListener = message -> { };
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    // Token bucket for the optional rate limit
+    private final Object rateLock = new Object();
+    private double availableTokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private ServerSocket serverSocket;
+    private ExecutorService connectionExecutor;
+    private Thread acceptorThread;
+    private volatile boolean running;
+
+    public SmtpSinkServer(int port) {
+        this(port, null);
+    }
+
+    public SmtpSinkServer(int port, SSLContext sslContext) {
+        this.requestedPort = port;
+        this.sslContext = sslContext;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverSocket = new ServerSocket(requestedPort, 512, InetAddress.getLoopbackAddress());
+        connectionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+
+        acceptorThread = new Thread(this::acceptLoop, "smtp-sink-acceptor");
+        acceptorThread.setDaemon(true);
+        acceptorThread.start();
+
+        logger.info("SMTP sink listening on port {} (latency: {}ms, errorRate: {}, maxMessagesPerSecond: {})",
+                   getPort(), latencyMillis, errorRate, maxMessagesPerSecond);
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing SMTP sink server socket", e);
+        }
+        connectionExecutor.shutdownNow();
+        try {
+            connectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("SMTP sink stopped. Connections: {}, messages: {}, injected failures: {}, rate limited: {}",
+                   connections.get(), messages.get(), injectedFailures.get(), rateLimited.get());
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : requestedPort;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setMaxMessagesPerSecond(int maxMessagesPerSecond) {
+        synchronized (rateLock) {
+            this.maxMessagesPerSecond = maxMessagesPerSecond;
+            this.availableTokens = maxMessagesPerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+    }
+
+    public void setMessageListener(Consumer<ReceivedMessage> messageListener) {
+        this.messageListener = messageListener != null ? messageListener : message -> { };
+    }
+
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getMessageCount() {
+        return messages.get();
+    }
+
+    public long getInjectedFailureCount() {
+        return injectedFailures.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public void resetCounters() {
+        connections.set(0);
+        messages.set(0);
+        injectedFailures.set(0);
+        rateLimited.set(0);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                connectionExecutor.execute(() -> handleConnection(socket));
+            } catch (SocketException e) {
+                if (running) {
+                    logger.warn("SMTP sink accept failed", e);
+                }
+            } catch (IOException e) {
+                logger.warn("SMTP sink accept failed", e);
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket) {
+            new Session(socket).run();
+        } catch (IOException e) {
+            logger.debug("SMTP sink connection closed: {}", e.getMessage());
+        }
+    }
+
+    private boolean tryAcquireRatePermit() {
+        int limit = maxMessagesPerSecond;
+        if (limit <= 0) {
+            return true;
+        }
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            availableTokens = Math.min(limit, availableTokens + (now - lastRefillNanos) * limit / 1_000_000_000.0);
+            lastRefillNanos = now;
+            if (availableTokens >= 1.0) {
+                availableTokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private boolean shouldInjectFailure() {
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    public record ReceivedMessage(String from, List<String> recipients, byte[] data, long receivedAtNanos) {
+
+        public String dataAsString() {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final class Session {
+
+        private Socket socket;
+        private InputStream in;
+        private OutputStream out;
+
+        private String mailFrom;
+        private final List<String> recipients = new ArrayList<>();
+
+        Session(Socket socket) throws IOException {
+            bind(socket);
+        }
+
+        private void bind(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void run() throws IOException {
+            reply("220 " + HOSTNAME + " ESMTP SmtpSink");
+
+            String line;
+            while ((line = readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+
+                switch (command) {
+                    case "EHLO" -> {
+                        StringBuilder response = new StringBuilder("250-").append(HOSTNAME).append("\r\n");
+                        response.append("250-AUTH PLAIN LOGIN\r\n");
+                        if (sslContext != null && !(socket instanceof SSLSocket)) {
+                            response.append("250-STARTTLS\r\n");
+                        }
+                        response.append("250-PIPELINING\r\n");
+                        response.append("250 8BITMIME");
+                        reply(response.toString());
+                    }
+                    case "HELO" -> reply("250 " + HOSTNAME);
+                    case "STAR" -> startTls();
+                    case "AUTH" -> authenticate(line);
+                    case "MAIL" -> {
+                        if (!tryAcquireRatePermit()) {
+                            rateLimited.incrementAndGet();
+                            reply("450 4.7.1 Rate limit exceeded, try again later");
+                        } else {
+                            mailFrom = extractAddress(line);
+                            recipients.clear();
+                            reply("250 2.1.0 Ok");
+                        }
+                    }
+                    case "RCPT" -> {
+                        if (mailFrom == null) {
+                            reply("503 5.5.1 Need MAIL command");
+                        } else {
+                            recipients.add(extractAddress(line));
+                            reply("250 2.1.5 Ok");
+                        }
+                    }
+                    case "DATA" -> receiveData();
+                    case "RSET" -> {
+                        mailFrom = null;
+                        recipients.clear();
+                        reply("250 2.0.0 Ok");
+                    }
+                    case "NOOP" -> reply("250 2.0.0 Ok");
+                    case "QUIT" -> {
+                        reply("221 2.0.0 Bye");
+                        return;
+                    }
+                    default -> reply("502 5.5.2 Command not implemented");
+                }
+            }
+        }
+
+        private void startTls() throws IOException {
+            if (sslContext == null) {
+                reply("502 5.5.1 STARTTLS not available");
+                return;
+            }
+            reply("220 2.0.0 Ready to start TLS");
+            SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory()
+                .createSocket(socket, socket.getInetAddress().getHostAddress(), socket.getPort(), true);
+            sslSocket.setUseClientMode(false);
+            sslSocket.startHandshake();
+            bind(sslSocket);
+            mailFrom = null;
+            recipients.clear();
+        }
+
+        private void authenticate(String line) throws IOException {
+            String[] parts = line.split(" ");
+            String mechanism = parts.length > 1 ? parts[1].toUpperCase() : "";
+
+            if ("PLAIN".equals(mechanism)) {
+                if (parts.length < 3) {
+                    reply("334 ");
+                    readLine();
+                }
+                reply("235 2.7.0 Authentication successful");
+            } else if ("LOGIN".equals(mechanism)) {
+                reply("334 VXNlcm5hbWU6");
+                readLine();
+                reply("334 UGFzc3dvcmQ6");
+                readLine();
+                reply("235 2.7.0 Authentication successful");
+            } else {
+                reply("504 5.5.4 Unrecognized authentication type");
+            }
+        }
+
+        private void receiveData() throws IOException {
+            if (mailFrom == null || recipients.isEmpty()) {
+                reply("503 5.5.1 Need RCPT command");
+                return;
+            }
+            reply("354 End data with <CR><LF>.<CR><LF>");
+
+            ByteArrayOutputStream data = new ByteArrayOutputStream(4096);
+            byte[] lineBytes;
+            while ((lineBytes = readLineBytes()) != null) {
+                if (lineBytes.length == 1 && lineBytes[0] == '.') {
+                    break;
+                }
+                // Undo dot-stuffing
+                int offset = lineBytes.length > 1 && lineBytes[0] == '.' ? 1 : 0;
+                data.write(lineBytes, offset, lineBytes.length - offset);
+                data.write('\r');
+                data.write('\n');
+            }
+
+            long latency = latencyMillis;
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while simulating latency", e);
+                }
+            }
+
+            if (shouldInjectFailure()) {
+                injectedFailures.incrementAndGet();
+                reply("451 4.3.0 Injected failure, try again later");
+            } else {
+                messages.incrementAndGet();
+                messageListener.accept(new ReceivedMessage(mailFrom, List.copyOf(recipients),
+                                                           data.toByteArray(), System.nanoTime()));
+                reply("250 2.0.0 Ok: queued");
+            }
+
+            mailFrom = null;
+            recipients.clear();
+        }
+
+        private String extractAddress(String line) {
+            int start = line.indexOf('<');
+            int end = line.indexOf('>', start + 1);
+            if (start >= 0 && end > start) {
+                return line.substring(start + 1, end);
+            }
+            int colon = line.indexOf(':');
+            return colon >= 0 ? line.substring(colon + 1).trim() : "";
+        }
+
+        private String readLine() throws IOException {
+            byte[] bytes = readLineBytes();
+            return bytes != null ? new String(bytes, StandardCharsets.US_ASCII) : null;
+        }
+
+        private byte[] readLineBytes() throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    byte[] bytes = buffer.toByteArray();
+                    int length = bytes.length;
+                    if (length > 0 && bytes[length - 1] == '\r') {
+                        return Arrays.copyOf(bytes, length - 1);
+                    }
+                    return bytes;
+                }
+                buffer.write(b);
+            }
+            return buffer.size() > 0 ? buffer.toByteArray() : null;
+        }
+
+        private void reply(String response) throws IOException {
+            out.write(response.getBytes(StandardCharsets.US_ASCII));
+            out.write('\r');
+            out.write('\n');
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.microservices.email.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies the sample rates of {@link SampledLogger} categories, given as
+ * {@code category=N,category=N}; a rate of 1 writes every line. Categories are shared by every
+ * logger in the JVM, so {@link #reset()} puts back the rates they had before, and a closed
+ * application context leaves nothing behind for the next one.
+ */
+public class LogSampling {
+
+    private final Map<SampledLogger.Category, Integer> previousRates;
+
+    private LogSampling(Map<SampledLogger.Category, Integer> previousRates) {
+        this.previousRates = previousRates;
+    }
+
+    public static LogSampling configure(String rates) {
+        // Parsed in full before any rate changes, so an invalid entry leaves every category as it was
+        Map<SampledLogger.Category, Integer> configured = new LinkedHashMap<>();
+        if (rates != null && !rates.isBlank()) {
+            for (String entry : rates.split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int separator = entry.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid log sample rate, expected category=N: " + entry);
+                }
+                int rate = Integer.parseInt(entry.substring(separator + 1).trim());
+                if (rate < 1) {
+                    throw new IllegalArgumentException("Log sample rate must be at least 1: " + entry);
+                }
+                configured.put(SampledLogger.category(entry.substring(0, separator).trim()), rate);
+            }
+        }
+        Map<SampledLogger.Category, Integer> previousRates = new LinkedHashMap<>();
+        configured.forEach((category, rate) -> {
+            previousRates.put(category, category.rate());
+            category.setRate(rate);
+        });
+        return new LogSampling(previousRates);
+    }
+
+    public void reset() {
+        previousRates.forEach(SampledLogger.Category::setRate);
+    }
+
+    public int rateOf(String category) {
+        return SampledLogger.category(category).rate();
+    }
+
+    public LogSampling bindTo(MeterRegistry meterRegistry) {
+        for (SampledLogger.Category category : previousRates.keySet()) {
+            FunctionCounter.builder("email.log.sampled.skipped", category, SampledLogger.Category::skipped)
+                .description("Per-event log lines left out by sampling")
+                .tag("category", category.name())
+                .register(meterRegistry);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,100 @@
+package com.microservices.email.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * INFO logging for per-event success lines, sampled per category: with a rate of N only every
+ * N-th line of the category is written. Failures are logged through the plain logger and are never
+ * sampled. Rates are set at startup by {@link LogSampling} and put back when the context closes;
+ * until then, and for categories without a rate, every line is written.
+ *
+ * <p>The level and the sample are checked before any formatting, and the one- and two-argument
+ * overloads avoid the varargs array, so a skipped line costs an atomic increment. Longer lines are
+ * guarded with {@link #sampleInfo()}.
+ */
+public final class SampledLogger {
+
+    private static final Map<String, Category> CATEGORIES = new ConcurrentHashMap<>();
+
+    private final Logger logger;
+
+    private final Category category;
+
+    private SampledLogger(Logger logger, Category category) {
+        this.logger = logger;
+        this.category = category;
+    }
+
+    public static SampledLogger of(Logger logger, String category) {
+        return new SampledLogger(logger, category(category));
+    }
+
+    public void info(String format, Object arg) {
+        if (logger.isInfoEnabled() && category.sample()) {
+            logger.info(format, arg);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled() && category.sample()) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    // For lines with more arguments: guard the plain logger call, so that a skipped line allocates nothing
+    public boolean sampleInfo() {
+        return logger.isInfoEnabled() && category.sample();
+    }
+
+    static Category category(String name) {
+        return CATEGORIES.computeIfAbsent(name, Category::new);
+    }
+
+    static final class Category {
+
+        private final String name;
+
+        private final AtomicLong seen = new AtomicLong();
+
+        private final LongAdder skipped = new LongAdder();
+
+        private volatile int oneIn = 1;
+
+        Category(String name) {
+            this.name = name;
+        }
+
+        boolean sample() {
+            int rate = oneIn;
+            if (rate <= 1) {
+                return true;
+            }
+            if (seen.getAndIncrement() % rate == 0) {
+                return true;
+            }
+            skipped.increment();
+            return false;
+        }
+
+        String name() {
+            return name;
+        }
+
+        int rate() {
+            return oneIn;
+        }
+
+        void setRate(int rate) {
+            this.oneIn = Math.max(1, rate);
+        }
+
+        long skipped() {
+            return skipped.sum();
+        }
+    }
+}
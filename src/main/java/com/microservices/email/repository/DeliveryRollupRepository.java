@@ -0,0 +1,48 @@
+package com.microservices.email.repository;
+
+import com.microservices.email.entity.DeliveryRollup;
+import com.microservices.email.entity.Email;
+import com.microservices.email.view.DomainRollupView;
+import com.microservices.email.view.HourlyRollupView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeliveryRollupRepository extends JpaRepository<DeliveryRollup, Long> {
+
+    // Additive update, so instances flushing into the same bucket never overwrite each other's counts
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeliveryRollup r SET r.emailCount = r.emailCount + :delta, r.updatedAt = :now " +
+           "WHERE r.bucketHour = :bucketHour AND r.emailType = :emailType AND r.emailStatus = :emailStatus " +
+           "AND r.recipientDomain = :recipientDomain")
+    int addToCount(@Param("bucketHour") LocalDateTime bucketHour,
+                   @Param("emailType") Email.EmailType emailType,
+                   @Param("emailStatus") Email.EmailStatus emailStatus,
+                   @Param("recipientDomain") String recipientDomain,
+                   @Param("delta") long delta,
+                   @Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.microservices.email.view.HourlyRollupView(r.bucketHour, r.emailType, r.emailStatus, " +
+           "SUM(r.emailCount)) FROM DeliveryRollup r WHERE r.bucketHour >= :from AND r.bucketHour < :to " +
+           "GROUP BY r.bucketHour, r.emailType, r.emailStatus ORDER BY r.bucketHour, r.emailType, r.emailStatus")
+    List<HourlyRollupView> sumByHourTypeAndStatus(@Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.microservices.email.view.DomainRollupView(r.recipientDomain, " +
+           "SUM(CASE WHEN r.emailStatus = :sent THEN r.emailCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.emailStatus = :failed THEN r.emailCount ELSE 0 END)) " +
+           "FROM DeliveryRollup r WHERE r.bucketHour >= :from AND r.bucketHour < :to " +
+           "GROUP BY r.recipientDomain ORDER BY r.recipientDomain")
+    List<DomainRollupView> sumByDomain(@Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("sent") Email.EmailStatus sent,
+                                       @Param("failed") Email.EmailStatus failed);
+}
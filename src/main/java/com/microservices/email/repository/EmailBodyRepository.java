@@ -0,0 +1,28 @@
+package com.microservices.email.repository;
+
+import com.microservices.email.entity.EmailBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface EmailBodyRepository extends JpaRepository<EmailBody, String> {
+
+    // Called in a short transaction of its own, so no lock on a shared row is held while emails commit
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailBody b SET b.lastUsedAt = :usedAt WHERE b.contentHash = :contentHash")
+    int markUsed(@Param("contentHash") String contentHash, @Param("usedAt") LocalDateTime usedAt);
+
+    // Each existence check is a lookup on idx_email_body_hash
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailBody b WHERE b.lastUsedAt < :usedBefore " +
+           "AND NOT EXISTS (SELECT 1 FROM Email e WHERE e.bodyHash = b.contentHash)")
+    int deleteUnreferenced(@Param("usedBefore") LocalDateTime usedBefore);
+}
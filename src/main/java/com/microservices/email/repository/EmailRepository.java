@@ -1,12 +1,21 @@
 package com.microservices.email.repository;
 
 import com.microservices.email.entity.Email;
+import com.microservices.email.view.EmailHistoryView;
+import com.microservices.email.view.OrderEmailView;
+import com.microservices.email.view.ScheduledEmailView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +26,14 @@ public interface EmailRepository extends JpaRepository<Email, Long> {
 
     List<Email> findByCustomerId(String customerId);
 
+    @Query("SELECT new com.microservices.email.view.EmailHistoryView(e.id, e.orderId, e.customerId, e.emailAddress, " +
+           "e.emailType, e.emailStatus, e.subject, e.createdAt, e.sentAt) FROM Email e WHERE e.orderId = :orderId ORDER BY e.id")
+    List<EmailHistoryView> findHistoryByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT new com.microservices.email.view.EmailHistoryView(e.id, e.orderId, e.customerId, e.emailAddress, " +
+           "e.emailType, e.emailStatus, e.subject, e.createdAt, e.sentAt) FROM Email e WHERE e.customerId = :customerId ORDER BY e.id")
+    List<EmailHistoryView> findHistoryByCustomerId(@Param("customerId") String customerId);
+
     List<Email> findByEmailStatus(Email.EmailStatus emailStatus);
 
     List<Email> findByEmailType(Email.EmailType emailType);
@@ -34,4 +51,110 @@ public interface EmailRepository extends JpaRepository<Email, Long> {
 
     @Query("SELECT COUNT(e) FROM Email e WHERE e.emailStatus = :status")
     long countByEmailStatus(@Param("status") Email.EmailStatus status);
+
+    @Query("SELECT e.id FROM Email e WHERE e.emailStatus IN :statuses AND e.createdAt < :cutoffTime " +
+           "AND e.id > :afterId AND (e.leaseUntil IS NULL OR e.leaseUntil < :now) ORDER BY e.id")
+    List<Long> findClaimableIds(@Param("statuses") Collection<Email.EmailStatus> statuses,
+                                @Param("cutoffTime") LocalDateTime cutoffTime,
+                                @Param("afterId") long afterId,
+                                @Param("now") LocalDateTime now,
+                                Pageable pageable);
+
+    // Conditional update: only rows whose lease is still free are claimed, so concurrent claimers never overlap
+    @Modifying
+    @Transactional
+    @Query("UPDATE Email e SET e.claimedBy = :claimToken, e.leaseUntil = :leaseUntil " +
+           "WHERE e.id IN :ids AND e.emailStatus IN :statuses AND (e.leaseUntil IS NULL OR e.leaseUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("statuses") Collection<Email.EmailStatus> statuses,
+              @Param("claimToken") String claimToken,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now);
+
+    List<Email> findByClaimedByAndIdIn(String claimedBy, Collection<Long> ids);
+
+    // Compare-and-set status transitions: a single conditional UPDATE that only applies if nobody else
+    // moved the row since it was read. Zero rows updated means the caller lost the race.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Email e SET e.emailStatus = :to, e.version = e.version + 1 " +
+           "WHERE e.id = :id AND e.version = :version AND e.emailStatus = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("version") Long version,
+                         @Param("from") Email.EmailStatus from,
+                         @Param("to") Email.EmailStatus to);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Email e SET e.emailStatus = :to, e.sentAt = :sentAt, e.claimedBy = NULL, e.leaseUntil = NULL, " +
+           "e.version = e.version + 1 WHERE e.id = :id AND e.version = :version AND e.emailStatus = :from")
+    int transitionStatusAndReleaseLease(@Param("id") Long id,
+                                        @Param("version") Long version,
+                                        @Param("from") Email.EmailStatus from,
+                                        @Param("to") Email.EmailStatus to,
+                                        @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Email e SET e.emailStatus = :to, e.leaseUntil = :leaseUntil, " +
+           "e.version = e.version + 1 WHERE e.id = :id AND e.version = :version AND e.emailStatus = :from")
+    int transitionStatusAndExtendLease(@Param("id") Long id,
+                                       @Param("version") Long version,
+                                       @Param("from") Email.EmailStatus from,
+                                       @Param("to") Email.EmailStatus to,
+                                       @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Keyset page over (scheduledAt, id), served by idx_email_status_scheduled
+    @Query("SELECT new com.microservices.email.view.ScheduledEmailView(e.id, e.scheduledAt) FROM Email e " +
+           "WHERE e.emailStatus = :status AND e.scheduledAt <= :until " +
+           "AND (e.scheduledAt > :afterAt OR (e.scheduledAt = :afterAt AND e.id > :afterId)) " +
+           "ORDER BY e.scheduledAt, e.id")
+    List<ScheduledEmailView> findScheduled(@Param("status") Email.EmailStatus status,
+                                           @Param("afterAt") LocalDateTime afterAt,
+                                           @Param("afterId") long afterId,
+                                           @Param("until") LocalDateTime until,
+                                           Pageable pageable);
+
+    // Working set of an order-events partition, newest first, served by idx_email_partition_created
+    @Query("SELECT new com.microservices.email.view.OrderEmailView(e.orderId, e.emailType) FROM Email e " +
+           "WHERE e.sourcePartition = :partition AND e.createdAt >= :since ORDER BY e.createdAt DESC")
+    List<OrderEmailView> findRecentOrderEmails(@Param("partition") int partition,
+                                               @Param("since") LocalDateTime since,
+                                               Pageable pageable);
+
+    @Query("SELECT e.id FROM Email e WHERE e.emailStatus = :status AND e.scheduledAt < :dueBefore " +
+           "ORDER BY e.scheduledAt, e.id")
+    List<Long> findScheduledIdsDueBefore(@Param("status") Email.EmailStatus status,
+                                         @Param("dueBefore") LocalDateTime dueBefore,
+                                         Pageable pageable);
+
+    // Conditional update: only emails still scheduled and actually due move on, each to exactly one claimer
+    @Modifying
+    @Transactional
+    @Query("UPDATE Email e SET e.emailStatus = :to, e.claimedBy = :claimToken, e.leaseUntil = :leaseUntil, " +
+           "e.version = e.version + 1 WHERE e.id IN :ids AND e.emailStatus = :from AND e.scheduledAt <= :now")
+    int releaseScheduled(@Param("ids") Collection<Long> ids,
+                         @Param("from") Email.EmailStatus from,
+                         @Param("to") Email.EmailStatus to,
+                         @Param("claimToken") String claimToken,
+                         @Param("leaseUntil") LocalDateTime leaseUntil,
+                         @Param("now") LocalDateTime now);
+
+    // Locks the rows feedback is about to move, so the status events published for them are exact
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Email e WHERE e.id IN :ids AND e.emailStatus IN :statuses")
+    List<Email> lockForFeedback(@Param("ids") Collection<Long> ids,
+                                @Param("statuses") Collection<Email.EmailStatus> statuses);
+
+    // Set-based: one statement per batch of feedback; detaches the locked rows so they are not flushed again
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Email e SET e.emailStatus = :to, e.version = e.version + 1 WHERE e.id IN :ids")
+    int applyFeedbackStatus(@Param("ids") Collection<Long> ids,
+                            @Param("to") Email.EmailStatus to);
+
+    // Oldest first, so each retention batch removes the emails that expired longest ago
+    @Query("SELECT e.id FROM Email e WHERE e.emailStatus IN :statuses AND e.createdAt < :cutoffTime ORDER BY e.id")
+    List<Long> findIdsForRetention(@Param("statuses") Collection<Email.EmailStatus> statuses,
+                                   @Param("cutoffTime") LocalDateTime cutoffTime,
+                                   Pageable pageable);
 }
@@ -0,0 +1,9 @@
+package com.microservices.email.repository;
+
+import com.microservices.email.entity.RenderedMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RenderedMessageRepository extends JpaRepository<RenderedMessage, Long> {
+}
@@ -0,0 +1,35 @@
+package com.microservices.email.repository;
+
+import com.microservices.email.entity.RetryJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RetryJobRepository extends JpaRepository<RetryJob, String> {
+
+    Optional<RetryJob> findByActiveKey(String activeKey);
+
+    List<RetryJob> findTop20ByOrderByRequestedAtDesc();
+
+    @Query("SELECT j.id FROM RetryJob j WHERE j.activeKey IS NOT NULL AND j.heartbeatAt < :staleBefore")
+    List<String> findStalledIds(@Param("staleBefore") LocalDateTime staleBefore);
+
+    // Conditional update: only one instance can take over a job whose owner stopped reporting progress.
+    // Bumping the version fences the previous owner, whose next checkpoint then fails.
+    @Modifying
+    @Transactional
+    @Query("UPDATE RetryJob j SET j.ownerInstance = :owner, j.heartbeatAt = :now, j.version = j.version + 1 " +
+           "WHERE j.id = :id AND j.activeKey IS NOT NULL AND j.heartbeatAt < :staleBefore")
+    int takeOver(@Param("id") String id,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+}
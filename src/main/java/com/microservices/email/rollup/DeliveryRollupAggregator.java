@@ -0,0 +1,108 @@
+package com.microservices.email.rollup;
+
+import com.microservices.email.event.EmailStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts status transitions per (hour, email type, status, recipient domain) in memory and writes
+ * the accumulated deltas to the rollup table in periodic flushes, so the write path costs one map
+ * update per transition and the table sees one additive update per bucket per flush.
+ *
+ * <p>A flush removes each bucket from the map before writing it; a transition arriving meanwhile
+ * starts a fresh delta for the next flush, so nothing is counted twice or lost. Deltas that could
+ * not be written are merged back and retried on the next flush.
+ */
+public class DeliveryRollupAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryRollupAggregator.class);
+
+    // Bucket for domains beyond the pending-key limit, so a flood of one-off domains cannot grow the map
+    static final String OTHER_DOMAIN = "(other)";
+
+    @FunctionalInterface
+    public interface Sink {
+        void add(RollupKey key, long delta);
+    }
+
+    private final Sink sink;
+
+    private final int maxPendingKeys;
+
+    private final ConcurrentHashMap<RollupKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final Counter flushedDeltas;
+
+    public DeliveryRollupAggregator(Sink sink, int maxPendingKeys, MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.maxPendingKeys = maxPendingKeys;
+        this.flushedDeltas = Counter.builder("email.rollup.flushed")
+            .description("Rollup bucket updates written to the rollup table")
+            .register(meterRegistry);
+        Gauge.builder("email.rollup.pending", pending, Map::size)
+            .description("Rollup buckets waiting for the next flush")
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailStatusChanged(EmailStatusChangedEvent event) {
+        record(event);
+    }
+
+    public void record(EmailStatusChangedEvent event) {
+        String domain = event.recipientDomain() != null && !event.recipientDomain().isEmpty()
+            ? event.recipientDomain() : OTHER_DOMAIN;
+        RollupKey key = new RollupKey(event.occurredAt().truncatedTo(ChronoUnit.HOURS),
+                                      event.emailType(), event.emailStatus(), domain);
+        if (pending.size() >= maxPendingKeys && !pending.containsKey(key)) {
+            key = new RollupKey(key.hour(), key.emailType(), key.emailStatus(), OTHER_DOMAIN);
+        }
+        pending.merge(key, 1L, Long::sum);
+    }
+
+    // Called by the scheduler and on shutdown; returns the number of buckets written
+    public synchronized int flush() {
+        List<RollupKey> keys = new ArrayList<>(pending.keySet());
+        int written = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            RollupKey key = keys.get(i);
+            Long delta = pending.remove(key);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                sink.add(key, delta);
+                written++;
+            } catch (Exception e) {
+                // Keep this and every remaining delta for the next flush
+                pending.merge(key, delta, Long::sum);
+                logger.warn("Rollup flush stopped after {} of {} buckets, retrying on the next flush",
+                           written, keys.size(), e);
+                break;
+            }
+        }
+        flushedDeltas.increment(written);
+        if (written > 0) {
+            logger.debug("Flushed {} delivery rollup buckets", written);
+        }
+        return written;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        flush();
+    }
+}
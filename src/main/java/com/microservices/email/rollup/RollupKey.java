@@ -0,0 +1,12 @@
+package com.microservices.email.rollup;
+
+import com.microservices.email.entity.Email;
+
+import java.time.LocalDateTime;
+
+// One row of the delivery rollup table
+public record RollupKey(LocalDateTime hour,
+                        Email.EmailType emailType,
+                        Email.EmailStatus emailStatus,
+                        String recipientDomain) {
+}
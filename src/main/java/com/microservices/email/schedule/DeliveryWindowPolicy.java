@@ -0,0 +1,131 @@
+package com.microservices.email.schedule;
+
+import com.microservices.email.dispatch.DispatchPriority;
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides when an email goes out: at the send time requested by the producer, no earlier than the
+ * delay configured for its type, and outside the recipient's quiet hours for the dispatch
+ * priorities that can wait. Times are server-local, like every other timestamp of the service;
+ * quiet hours are evaluated in the recipient's time zone.
+ */
+public class DeliveryWindowPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryWindowPolicy.class);
+
+    private final Map<Email.EmailType, Duration> delays;
+
+    private final LocalTime quietStart;
+
+    private final LocalTime quietEnd;
+
+    private final Set<DispatchPriority> quietPriorities;
+
+    private final ZoneId defaultRecipientZone;
+
+    private final ZoneId serverZone;
+
+    public DeliveryWindowPolicy(Map<Email.EmailType, Duration> delays, LocalTime quietStart, LocalTime quietEnd,
+                                Set<DispatchPriority> quietPriorities, ZoneId defaultRecipientZone, ZoneId serverZone) {
+        this.delays = delays.isEmpty() ? Map.of() : new EnumMap<>(delays);
+        this.quietStart = quietStart;
+        this.quietEnd = quietEnd;
+        this.quietPriorities = quietPriorities.isEmpty() ? Set.of() : EnumSet.copyOf(quietPriorities);
+        this.defaultRecipientZone = defaultRecipientZone;
+        this.serverZone = serverZone;
+    }
+
+    /**
+     * Builds the policy from property values: delays as "TYPE=ISO-8601 duration" pairs separated by
+     * commas, quiet hours as HH:mm (equal start and end disables them), priorities by name.
+     */
+    public static DeliveryWindowPolicy of(String delays, String quietStart, String quietEnd,
+                                          String quietPriorities, String defaultRecipientZone) {
+        Map<Email.EmailType, Duration> delayByType = new EnumMap<>(Email.EmailType.class);
+        for (String entry : splitList(delays)) {
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid email type delay, expected TYPE=duration: " + entry);
+            }
+            delayByType.put(Email.EmailType.valueOf(entry.substring(0, separator).trim()),
+                            Duration.parse(entry.substring(separator + 1).trim()));
+        }
+
+        Set<DispatchPriority> priorities = EnumSet.noneOf(DispatchPriority.class);
+        for (String priority : splitList(quietPriorities)) {
+            priorities.add(DispatchPriority.valueOf(priority.toUpperCase()));
+        }
+
+        return new DeliveryWindowPolicy(delayByType, LocalTime.parse(quietStart), LocalTime.parse(quietEnd),
+                                        priorities, ZoneId.of(defaultRecipientZone), ZoneId.systemDefault());
+    }
+
+    /** Returns the time to send the email at, or null to send it now. */
+    public LocalDateTime scheduledAt(Email.EmailType emailType, OrderEvent orderEvent, LocalDateTime now) {
+        LocalDateTime sendAt = now;
+        if (orderEvent.getSendAt() != null && orderEvent.getSendAt().isAfter(sendAt)) {
+            sendAt = orderEvent.getSendAt();
+        }
+        Duration delay = delays.get(emailType);
+        if (delay != null && now.plus(delay).isAfter(sendAt)) {
+            sendAt = now.plus(delay);
+        }
+        if (quietPriorities.contains(DispatchPriority.forEmailType(emailType))) {
+            sendAt = outsideQuietHours(sendAt, recipientZone(orderEvent));
+        }
+        return sendAt.isAfter(now) ? sendAt : null;
+    }
+
+    LocalDateTime outsideQuietHours(LocalDateTime sendAt, ZoneId recipientZone) {
+        if (quietStart.equals(quietEnd)) {
+            return sendAt;
+        }
+        ZonedDateTime local = sendAt.atZone(serverZone).withZoneSameInstant(recipientZone);
+        LocalTime time = local.toLocalTime();
+        boolean quiet = quietStart.isBefore(quietEnd)
+            ? !time.isBefore(quietStart) && time.isBefore(quietEnd)
+            // The window wraps past midnight, e.g. 21:00 to 08:00
+            : !time.isBefore(quietStart) || time.isBefore(quietEnd);
+        if (!quiet) {
+            return sendAt;
+        }
+
+        ZonedDateTime end = local.with(quietEnd);
+        if (!end.isAfter(local)) {
+            end = end.plusDays(1);
+        }
+        return end.withZoneSameInstant(serverZone).toLocalDateTime();
+    }
+
+    private ZoneId recipientZone(OrderEvent orderEvent) {
+        String timeZone = orderEvent.getTimeZone();
+        if (timeZone == null || timeZone.isBlank()) {
+            return defaultRecipientZone;
+        }
+        try {
+            return ZoneId.of(timeZone);
+        } catch (DateTimeException e) {
+            logger.debug("Unknown time zone {} for order {}, using {}", timeZone, orderEvent.getOrderId(),
+                         defaultRecipientZone);
+            return defaultRecipientZone;
+        }
+    }
+
+    private static String[] splitList(String value) {
+        return value == null || value.isBlank() ? new String[0] : value.trim().split("\\s*,\\s*");
+    }
+}
@@ -0,0 +1,231 @@
+package com.microservices.email.schedule;
+
+import com.microservices.email.event.EmailScheduledEvent;
+import com.microservices.email.view.ScheduledEmailView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires SCHEDULED emails within a tick of their due time from an in-memory {@link TimingWheel}.
+ * The wheel only holds emails due within the lookahead window; a refill task pages further rows in
+ * from the scheduled_at index as the window moves, so far-future emails stay in the database.
+ *
+ * <p>Rows up to a (scheduled_at, id) watermark have been loaded. An email scheduled by this
+ * instance is added once its record commits if it falls below the watermark, or inside the window
+ * of a refill that is running; otherwise a later refill loads it. Every instance loads the same
+ * rows, and the sink's conditional release lets exactly one of them send each email. Rows no wheel
+ * holds, e.g. scheduled by an instance that stopped before they were due, are left to the overdue sweep.
+ */
+public final class DueEmailTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DueEmailTimer.class);
+
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @FunctionalInterface
+    public interface Source {
+        // SCHEDULED emails after (afterAt, afterId) in (scheduled_at, id) order, due no later than until
+        List<ScheduledEmailView> loadScheduled(LocalDateTime afterAt, long afterId, LocalDateTime until, int limit);
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void release(List<Long> emailIds);
+    }
+
+    private final Source source;
+
+    private final Sink sink;
+
+    private final long tickMillis;
+
+    private final long lookaheadMillis;
+
+    private final long refillIntervalMillis;
+
+    private final int refillBatchSize;
+
+    private final int releaseBatchSize;
+
+    private final long maxEntries;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this
+    private final TimingWheel wheel;
+    private LocalDateTime loadedAt = START_OF_TIME;
+    private long loadedId;
+    private LocalDateTime refillUntil;
+
+    private final Counter fired;
+
+    private final Counter overflowed;
+
+    public DueEmailTimer(Source source, Sink sink, long tickMillis, long lookaheadMillis, long refillIntervalMillis,
+                         int refillBatchSize, int releaseBatchSize, long maxEntries, MeterRegistry meterRegistry) {
+        this.source = source;
+        this.sink = sink;
+        this.tickMillis = tickMillis;
+        this.lookaheadMillis = lookaheadMillis;
+        this.refillIntervalMillis = refillIntervalMillis;
+        this.refillBatchSize = refillBatchSize;
+        this.releaseBatchSize = releaseBatchSize;
+        this.maxEntries = maxEntries;
+        this.wheel = new TimingWheel(tickMillis, 4, System.currentTimeMillis());
+        if (lookaheadMillis > wheel.horizonMillis()) {
+            throw new IllegalArgumentException("Lookahead of " + lookaheadMillis + " ms exceeds the wheel horizon of "
+                                               + wheel.horizonMillis() + " ms");
+        }
+
+        this.fired = Counter.builder("email.schedule.fired")
+            .description("Scheduled emails handed over for release at their due time")
+            .register(meterRegistry);
+        this.overflowed = Counter.builder("email.schedule.overflowed")
+            .description("Scheduled emails left to the overdue sweep because the timing wheel was full")
+            .register(meterRegistry);
+        Gauge.builder("email.schedule.wheel.size", this, DueEmailTimer::size)
+            .description("Scheduled emails held in the timing wheel")
+            .register(meterRegistry);
+
+        // Ticks and refills on separate threads, so a slow refill query never delays firing
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "EmailDueTimer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::refill, 0, refillIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs once the creating transaction has committed, so a refill starting later is sure to see the row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailScheduled(EmailScheduledEvent event) {
+        schedule(event.emailId(), event.scheduledAt());
+    }
+
+    public synchronized void schedule(long emailId, LocalDateTime scheduledAt) {
+        boolean loaded = scheduledAt.isBefore(loadedAt) || (scheduledAt.equals(loadedAt) && emailId <= loadedId);
+        if (!loaded && (refillUntil == null || scheduledAt.isAfter(refillUntil))) {
+            return;
+        }
+        add(emailId, scheduledAt);
+    }
+
+    public synchronized long size() {
+        return wheel.size();
+    }
+
+    public void shutdown() {
+        // Whatever is still in the wheel stays SCHEDULED in the database for the next start
+        executor.shutdownNow();
+    }
+
+    void tick() {
+        try {
+            List<Long> due = new ArrayList<>();
+            synchronized (this) {
+                wheel.advance(System.currentTimeMillis(), due::add);
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            fired.increment(due.size());
+            for (int from = 0; from < due.size(); from += releaseBatchSize) {
+                List<Long> batch = due.subList(from, Math.min(due.size(), from + releaseBatchSize));
+                try {
+                    sink.release(batch);
+                } catch (Exception e) {
+                    logger.error("Could not release {} due emails, leaving them to the overdue sweep", batch.size(), e);
+                }
+            }
+        } catch (Exception e) {
+            // A periodic task that throws is never run again
+            logger.error("Timing wheel tick failed", e);
+        }
+    }
+
+    // Loads the rows that have come within the lookahead window since the last refill, page by page
+    void refill() {
+        LocalDateTime until = LocalDateTime.now().plusNanos(lookaheadMillis * 1_000_000);
+        LocalDateTime afterAt;
+        long afterId;
+        synchronized (this) {
+            refillUntil = until;
+            afterAt = loadedAt;
+            afterId = loadedId;
+        }
+
+        int loaded = 0;
+        try {
+            while (true) {
+                List<ScheduledEmailView> page = source.loadScheduled(afterAt, afterId, until, refillBatchSize);
+                boolean full = false;
+                synchronized (this) {
+                    for (ScheduledEmailView row : page) {
+                        if (wheel.size() >= maxEntries) {
+                            full = true;
+                            break;
+                        }
+                        wheel.add(row.id(), toEpochMillis(row.scheduledAt()));
+                        loadedAt = row.scheduledAt();
+                        loadedId = row.id();
+                        loaded++;
+                    }
+                    if (!full && page.size() < refillBatchSize) {
+                        loadedAt = until;
+                        loadedId = Long.MAX_VALUE;
+                    }
+                    afterAt = loadedAt;
+                    afterId = loadedId;
+                }
+                if (full) {
+                    logger.warn("Timing wheel full at {} entries, deferring further scheduled emails", maxEntries);
+                    break;
+                }
+                if (page.size() < refillBatchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Could not refill the timing wheel, retrying on the next run", e);
+        } finally {
+            synchronized (this) {
+                refillUntil = null;
+            }
+        }
+        if (loaded > 0) {
+            logger.debug("Loaded {} scheduled emails due by {} into the timing wheel", loaded, until);
+        }
+    }
+
+    private void add(long emailId, LocalDateTime scheduledAt) {
+        if (wheel.size() >= maxEntries) {
+            overflowed.increment();
+            return;
+        }
+        wheel.add(emailId, toEpochMillis(scheduledAt));
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,153 @@
+package com.microservices.email.schedule;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of (id, due time) entries. Level k has 64 slots, each spanning 64^k ticks;
+ * an entry goes into the lowest level whose range covers its distance from the current tick, and
+ * moves down a level each time the wheel reaches the slot it sits in. Inserting and expiring an
+ * entry are O(1) apart from at most one move per level.
+ *
+ * <p>Entries are kept in primitive arrays per slot, so millions of them cost 16 bytes each and no
+ * per-entry objects. Not thread-safe; callers serialize access.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+
+    private final int levels;
+
+    private final Bucket[][] buckets;
+
+    // Last tick whose level-0 slot has fired
+    private long currentTick;
+
+    private long size;
+
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis < 1 || levels < 1 || levels * SLOT_BITS > 62) {
+            throw new IllegalArgumentException("Invalid timing wheel: tick " + tickMillis + " ms, " + levels + " levels");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.buckets = new Bucket[levels][SLOTS];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets[level][slot] = new Bucket();
+            }
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /** Furthest distance ahead of the current time an entry may be added at. */
+    public long horizonMillis() {
+        return ((1L << (levels * SLOT_BITS)) - 1) * tickMillis;
+    }
+
+    /**
+     * Adds an entry, or returns false if it is due beyond the horizon. Entries already due fire on
+     * the next tick.
+     */
+    public boolean add(long id, long dueMillis) {
+        long dueTick = Math.max(Math.floorDiv(dueMillis, tickMillis), currentTick + 1);
+        if (!place(id, dueTick, currentTick)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /** Fires every entry due up to {@code nowMillis}. */
+    public void advance(long nowMillis, LongConsumer expired) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < nowTick) {
+            long tick = ++currentTick;
+            // Higher levels first, so that entries cascading down land in the level-0 slot that fires now
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((tick & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    cascade(buckets[level][(int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK], tick, expired);
+                }
+            }
+            Bucket due = buckets[0][(int) tick & SLOT_MASK];
+            for (int i = 0; i < due.size; i++) {
+                expired.accept(due.ids[i]);
+            }
+            size -= due.size;
+            due.clear();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private void cascade(Bucket bucket, long tick, LongConsumer expired) {
+        if (bucket.size == 0) {
+            return;
+        }
+        long[] ids = bucket.ids;
+        long[] dueTicks = bucket.dueTicks;
+        int count = bucket.size;
+        bucket.detach();
+        for (int i = 0; i < count; i++) {
+            if (dueTicks[i] <= tick) {
+                expired.accept(ids[i]);
+                size--;
+            } else {
+                place(ids[i], dueTicks[i], tick);
+            }
+        }
+    }
+
+    private boolean place(long id, long dueTick, long fromTick) {
+        long delta = dueTick - fromTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << ((level + 1) * SLOT_BITS)) {
+                buckets[level][(int) (dueTick >>> (level * SLOT_BITS)) & SLOT_MASK].add(id, dueTick);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Bucket {
+
+        private static final long[] EMPTY = new long[0];
+
+        private long[] ids = EMPTY;
+        private long[] dueTicks = EMPTY;
+        private int size;
+
+        void add(long id, long dueTick) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                dueTicks = Arrays.copyOf(dueTicks, capacity);
+            }
+            ids[size] = id;
+            dueTicks[size] = dueTick;
+            size++;
+        }
+
+        // Hands the arrays over to a cascade, which re-places their entries while reading them
+        void detach() {
+            ids = EMPTY;
+            dueTicks = EMPTY;
+            size = 0;
+        }
+
+        void clear() {
+            // Large slots are dropped rather than kept around at their peak size
+            if (ids.length > 1024) {
+                detach();
+            } else {
+                size = 0;
+            }
+        }
+    }
+}
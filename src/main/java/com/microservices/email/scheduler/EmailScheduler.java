@@ -1,13 +1,24 @@
 package com.microservices.email.scheduler;
 
+import com.microservices.email.consumer.AdaptiveConsumerController;
+import com.microservices.email.feedback.DeliveryFeedbackAggregator;
+import com.microservices.email.rollup.DeliveryRollupAggregator;
+import com.microservices.email.service.EmailRetentionService;
 import com.microservices.email.service.EmailService;
+import com.microservices.email.service.RetryJobService;
+import com.microservices.email.service.ScheduledEmailService;
+import com.microservices.email.stream.EmailStatusHub;
+import com.microservices.email.suppression.SuppressionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+// Not in the one-shot export, which would otherwise kill these jobs mid-run and leave their leases held
 @Component
+@Profile("!export")
 public class EmailScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailScheduler.class);
@@ -15,22 +26,123 @@ public class EmailScheduler {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private RetryJobService retryJobService;
+
+    @Autowired
+    private AdaptiveConsumerController adaptiveConsumerController;
+
+    @Autowired
+    private EmailStatusHub emailStatusHub;
+
+    @Autowired
+    private DeliveryRollupAggregator deliveryRollupAggregator;
+
+    @Autowired
+    private EmailRetentionService emailRetentionService;
+
+    @Autowired
+    private ScheduledEmailService scheduledEmailService;
+
+    @Autowired
+    private DeliveryFeedbackAggregator deliveryFeedbackAggregator;
+
+    @Autowired
+    private SuppressionService suppressionService;
+
     @Scheduled(fixedRate = 300000) // Every 5 minutes
     public void retryFailedEmails() {
         try {
-            logger.info("Starting scheduled retry of failed emails");
-            emailService.retryFailedEmails();
+            // Same job path as the API, so a scheduled run never overlaps a manual one
+            RetryJobService.StartResult result = retryJobService.start("scheduler");
+            if (result.started()) {
+                logger.info("Started scheduled retry job {}", result.job().getId());
+            } else {
+                logger.info("Retry job {} still active, skipping scheduled retry", result.job().getId());
+            }
         } catch (Exception e) {
             logger.error("Error during scheduled retry of failed emails", e);
         }
     }
 
+    @Scheduled(fixedDelayString = "${email.retry-job.stall-check-interval-ms:60000}")
+    public void resumeStalledRetryJobs() {
+        try {
+            retryJobService.resumeStalledJobs();
+        } catch (Exception e) {
+            logger.error("Error while resuming stalled retry jobs", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.lease.orphan-sweep-interval-ms:60000}")
+    public void dispatchOrphanedEmails() {
+        try {
+            emailService.dispatchOrphanedEmails();
+        } catch (Exception e) {
+            logger.error("Error during dispatch of emails with expired leases", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.schedule.sweep-interval-ms:60000}")
+    public void releaseOverdueScheduledEmails() {
+        try {
+            scheduledEmailService.releaseOverdue();
+        } catch (Exception e) {
+            logger.error("Error releasing overdue scheduled emails", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.kafka.adaptive.interval-ms:15000}")
+    public void adjustConsumerSizing() {
+        try {
+            adaptiveConsumerController.evaluate();
+        } catch (Exception e) {
+            logger.error("Error during adaptive consumer sizing", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.status-stream.heartbeat-ms:15000}")
+    public void sendStatusStreamHeartbeats() {
+        try {
+            emailStatusHub.heartbeat();
+        } catch (Exception e) {
+            logger.error("Error sending status stream heartbeats", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.rollup.flush-interval-ms:10000}")
+    public void flushDeliveryRollups() {
+        try {
+            deliveryRollupAggregator.flush();
+        } catch (Exception e) {
+            logger.error("Error flushing delivery rollups", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.feedback.flush-interval-ms:1000}")
+    public void flushDeliveryFeedback() {
+        try {
+            deliveryFeedbackAggregator.flush();
+        } catch (Exception e) {
+            logger.error("Error applying delivery feedback", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.suppression.snapshot-interval-ms:300000}")
+    public void snapshotSuppressions() {
+        try {
+            suppressionService.snapshotIfChanged();
+        } catch (Exception e) {
+            logger.error("Error writing suppression snapshot", e);
+        }
+    }
+
     @Scheduled(cron = "0 0 2 * * *") // Every day at 2 AM
     public void dailyEmailCleanup() {
         try {
             logger.info("Starting daily email cleanup process");
-            // Add cleanup logic here (e.g., archive old emails, clean up logs)
-            logger.info("Daily email cleanup completed");
+            long deleted = emailRetentionService.runRetention();
+            logger.info("Daily email cleanup completed, deleted {} emails", deleted);
         } catch (Exception e) {
             logger.error("Error during daily email cleanup", e);
         }
@@ -0,0 +1,68 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.repository.EmailRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+// Applies coalesced provider feedback to email records, one locked select and one set-based update per batch
+@Service
+public class DeliveryFeedbackService {
+
+    private static final Set<Email.EmailStatus> SOFT_BOUNCE_FROM = Set.of(Email.EmailStatus.SENT);
+
+    private static final Set<Email.EmailStatus> HARD_BOUNCE_FROM = Set.of(Email.EmailStatus.SENT, Email.EmailStatus.FAILED);
+
+    private static final Set<Email.EmailStatus> COMPLAINT_FROM =
+        Set.of(Email.EmailStatus.SENT, Email.EmailStatus.FAILED, Email.EmailStatus.BOUNCED);
+
+    private final EmailRepository emailRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DeliveryFeedbackService(EmailRepository emailRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.emailRepository = emailRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Emails in any other status (still sending, already past this outcome, unknown ids) are left alone
+    public int apply(Email.EmailStatus outcome, List<Long> emailIds) {
+        Set<Email.EmailStatus> from = sourceStatuses(outcome);
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Email> emails = emailRepository.lockForFeedback(emailIds, from);
+            if (emails.isEmpty()) {
+                return 0;
+            }
+            int updated = emailRepository.applyFeedbackStatus(emails.stream().map(Email::getId).toList(), outcome);
+
+            // Detached by the update, so these copies only feed the events, published once the batch commits
+            for (Email email : emails) {
+                email.setEmailStatus(outcome);
+                email.setVersion(email.getVersion() != null ? email.getVersion() + 1 : null);
+                eventPublisher.publishEvent(EmailStatusChangedEvent.of(email));
+            }
+            return updated;
+        });
+        return moved != null ? moved : 0;
+    }
+
+    static Set<Email.EmailStatus> sourceStatuses(Email.EmailStatus outcome) {
+        return switch (outcome) {
+            case FAILED -> SOFT_BOUNCE_FROM;
+            case BOUNCED -> HARD_BOUNCE_FROM;
+            case COMPLAINED -> COMPLAINT_FROM;
+            default -> throw new IllegalArgumentException("Not a feedback outcome: " + outcome);
+        };
+    }
+}
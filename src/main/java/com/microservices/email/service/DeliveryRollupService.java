@@ -0,0 +1,54 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.DeliveryRollup;
+import com.microservices.email.entity.Email;
+import com.microservices.email.repository.DeliveryRollupRepository;
+import com.microservices.email.rollup.RollupKey;
+import com.microservices.email.view.DomainRollupView;
+import com.microservices.email.view.HourlyRollupView;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Reads and writes the delivery rollup table; dashboard queries never touch email_records
+@Service
+public class DeliveryRollupService {
+
+    private final DeliveryRollupRepository deliveryRollupRepository;
+
+    public DeliveryRollupService(DeliveryRollupRepository deliveryRollupRepository) {
+        this.deliveryRollupRepository = deliveryRollupRepository;
+    }
+
+    // Update first, since the bucket usually exists; a concurrent first insert by another instance
+    // trips the unique constraint, after which the update applies
+    public void add(RollupKey key, long delta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (increment(key, delta, now) > 0) {
+            return;
+        }
+        try {
+            deliveryRollupRepository.saveAndFlush(new DeliveryRollup(
+                key.hour(), key.emailType(), key.emailStatus(), key.recipientDomain(), delta));
+        } catch (DataIntegrityViolationException e) {
+            if (increment(key, delta, now) == 0) {
+                throw e;
+            }
+        }
+    }
+
+    public List<HourlyRollupView> hourly(LocalDateTime from, LocalDateTime to) {
+        return deliveryRollupRepository.sumByHourTypeAndStatus(from, to);
+    }
+
+    public List<DomainRollupView> byDomain(LocalDateTime from, LocalDateTime to) {
+        return deliveryRollupRepository.sumByDomain(from, to, Email.EmailStatus.SENT, Email.EmailStatus.FAILED);
+    }
+
+    private int increment(RollupKey key, long delta, LocalDateTime now) {
+        return deliveryRollupRepository.addToCount(
+            key.hour(), key.emailType(), key.emailStatus(), key.recipientDomain(), delta, now);
+    }
+}
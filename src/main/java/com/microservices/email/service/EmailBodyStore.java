@@ -0,0 +1,116 @@
+package com.microservices.email.service;
+
+import com.microservices.email.cache.WeightedLruCache;
+import com.microservices.email.entity.EmailBody;
+import com.microservices.email.repository.EmailBodyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Content-addressable store for email bodies shared by many recipients. Each distinct body is one
+ * row keyed by its SHA-256 and email rows hold the hash. Nothing is written to the body row per
+ * email: a campaign's emails would otherwise all queue on that one row. Instead each instance marks
+ * a body used at most once per {@code markIntervalMillis}, and retention purges bodies that no email
+ * row refers to and that have not been marked for the grace period. Bodies never change, so reads
+ * are served from a byte-bounded LRU tier.
+ */
+@Service
+public class EmailBodyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailBodyStore.class);
+
+    private final EmailBodyRepository emailBodyRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    private final WeightedLruCache<String, CachedBody> memoryTier;
+
+    private final long markIntervalMillis;
+
+    public EmailBodyStore(EmailBodyRepository emailBodyRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${email.body-cache.max-bytes:16777216}") long maxBytes,
+                          @Value("${email.body-cache.mark-interval-ms:600000}") long markIntervalMillis) {
+        this.emailBodyRepository = emailBodyRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memoryTier = new WeightedLruCache<String, CachedBody>(maxBytes, 16, body -> 2L * body.content().length())
+            .bindTo(meterRegistry, "email-bodies");
+        this.markIntervalMillis = markIntervalMillis;
+    }
+
+    /**
+     * Makes sure the body is stored and returns its hash. The body is written or marked used on the
+     * side rather than in the caller's transaction, so a duplicate-key race cannot poison it and no
+     * row lock is held until the email commits; the grace period keeps the body until it has.
+     */
+    public String acquire(String content) {
+        String hash = hash(content);
+        long now = System.currentTimeMillis();
+        CachedBody cached = memoryTier.get(hash);
+        if (cached != null && now - cached.markedAt() < markIntervalMillis) {
+            return hash;
+        }
+
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                if (emailBodyRepository.markUsed(hash, LocalDateTime.now()) == 0) {
+                    emailBodyRepository.saveAndFlush(new EmailBody(hash, content));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Email body {} was inserted concurrently", hash);
+        }
+        memoryTier.put(hash, new CachedBody(content, now));
+        return hash;
+    }
+
+    public String load(String hash) {
+        CachedBody cached = memoryTier.get(hash);
+        if (cached != null) {
+            return cached.content();
+        }
+        String content = emailBodyRepository.findById(hash)
+            .map(EmailBody::getContent)
+            .orElseThrow(() -> new IllegalStateException("Email body " + hash + " not found"));
+        // Loaded for sending only, so the next acquire still marks it used
+        memoryTier.put(hash, new CachedBody(content, 0));
+        return content;
+    }
+
+    // The grace period, well above the mark interval, covers bodies taken for emails not committed yet
+    public int purgeUnreferenced(LocalDateTime usedBefore) {
+        int purged = emailBodyRepository.deleteUnreferenced(usedBefore);
+        if (purged > 0) {
+            memoryTier.invalidateAll();
+            logger.info("Purged {} unreferenced email bodies", purged);
+        }
+        return purged;
+    }
+
+    static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedBody(String content, long markedAt) {
+    }
+}
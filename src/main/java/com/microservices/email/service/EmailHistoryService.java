@@ -0,0 +1,118 @@
+package com.microservices.email.service;
+
+import com.microservices.email.cache.WeightedLruCache;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.view.EmailHistoryView;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of email history views by order and by customer, bounded by estimated bytes.
+ * Entries are dropped when EmailService reports a change to one of their emails, once that change
+ * has committed.
+ *
+ * <p>A lookup that raced with such a change may have read the old rows. Every invalidation bumps a
+ * counter for the key's stripe, and a load only populates the cache if its stripe did not move
+ * while it was querying, so the stale result is returned once but never cached.
+ */
+@Service
+public class EmailHistoryService {
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    // List overhead on top of the views themselves
+    private static final long LIST_BYTES = 64;
+
+    private final EmailRepository emailRepository;
+
+    private final WeightedLruCache<Long, List<EmailHistoryView>> byOrder;
+
+    private final WeightedLruCache<String, List<EmailHistoryView>> byCustomer;
+
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public EmailHistoryService(EmailRepository emailRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${email.history-cache.order.max-bytes:8388608}") long maxOrderBytes,
+                               @Value("${email.history-cache.customer.max-bytes:16777216}") long maxCustomerBytes) {
+        this.emailRepository = emailRepository;
+        this.byOrder = new WeightedLruCache<Long, List<EmailHistoryView>>(maxOrderBytes, 16, EmailHistoryService::weigh)
+            .bindTo(meterRegistry, "email-history-by-order");
+        this.byCustomer = new WeightedLruCache<String, List<EmailHistoryView>>(maxCustomerBytes, 16, EmailHistoryService::weigh)
+            .bindTo(meterRegistry, "email-history-by-customer");
+    }
+
+    public List<EmailHistoryView> findByOrderId(Long orderId) {
+        return readThrough(byOrder, orderId, emailRepository::findHistoryByOrderId);
+    }
+
+    public List<EmailHistoryView> findByCustomerId(String customerId) {
+        return readThrough(byCustomer, customerId, emailRepository::findHistoryByCustomerId);
+    }
+
+    // Current state straight from the database, for status subscribers that must not see a stale entry
+    public List<EmailHistoryView> loadByOrderId(Long orderId) {
+        return emailRepository.findHistoryByOrderId(orderId);
+    }
+
+    public List<EmailHistoryView> loadByCustomerId(String customerId) {
+        return emailRepository.findHistoryByCustomerId(customerId);
+    }
+
+    // Runs straight away when the change was made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailStatusChanged(EmailStatusChangedEvent event) {
+        if (event.orderId() != null) {
+            invalidations.incrementAndGet(stripe(event.orderId()));
+            byOrder.invalidate(event.orderId());
+        }
+        if (event.customerId() != null) {
+            invalidations.incrementAndGet(stripe(event.customerId()));
+            byCustomer.invalidate(event.customerId());
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        byOrder.invalidateAll();
+        byCustomer.invalidateAll();
+    }
+
+    private <K> List<EmailHistoryView> readThrough(WeightedLruCache<K, List<EmailHistoryView>> cache, K key,
+                                                   Function<K, List<EmailHistoryView>> loader) {
+        List<EmailHistoryView> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(key);
+        long generation = invalidations.get(stripe);
+        List<EmailHistoryView> loaded = List.copyOf(loader.apply(key));
+        if (invalidations.get(stripe) == generation) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private static long weigh(List<EmailHistoryView> views) {
+        long bytes = LIST_BYTES;
+        for (EmailHistoryView view : views) {
+            bytes += view.estimatedBytes();
+        }
+        return bytes;
+    }
+}
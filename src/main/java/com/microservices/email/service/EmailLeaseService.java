@@ -0,0 +1,93 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.repository.EmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class EmailLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailLeaseService.class);
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Value("${email.instance-id:}")
+    private String configuredInstanceId;
+
+    @Value("${email.lease.duration-ms:300000}")
+    private long leaseDurationMillis;
+
+    @Value("${email.lease.dispatch-duration-ms:600000}")
+    private long dispatchLeaseDurationMillis;
+
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    private volatile String instanceId;
+
+    public String getInstanceId() {
+        String id = instanceId;
+        if (id == null) {
+            id = configuredInstanceId != null && !configuredInstanceId.isBlank()
+                ? configuredInstanceId
+                : UUID.randomUUID().toString();
+            instanceId = id;
+        }
+        return id;
+    }
+
+    // Each claim gets its own token so two claimers in the same instance never see each other's rows
+    public String newClaimToken() {
+        return getInstanceId() + ":" + claimSequence.incrementAndGet();
+    }
+
+    public LocalDateTime dispatchLeaseExpiry() {
+        return LocalDateTime.now().plusNanos(dispatchLeaseDurationMillis * 1_000_000);
+    }
+
+    @Transactional
+    public ClaimedBatch claimBatch(Collection<Email.EmailStatus> statuses, LocalDateTime createdBefore,
+                                   long afterId, int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidateIds = emailRepository.findClaimableIds(
+            statuses, createdBefore, afterId, now, PageRequest.of(0, batchSize));
+
+        if (candidateIds.isEmpty()) {
+            return ClaimedBatch.EMPTY;
+        }
+
+        String claimToken = newClaimToken();
+        int claimed = emailRepository.claim(candidateIds, statuses, claimToken,
+                                            now.plusNanos(leaseDurationMillis * 1_000_000), now);
+
+        logger.debug("Claimed {} of {} candidate emails with token {}", claimed, candidateIds.size(), claimToken);
+
+        long lastCandidateId = candidateIds.get(candidateIds.size() - 1);
+        if (claimed == 0) {
+            // Every candidate was taken by another instance; callers still page past them
+            return new ClaimedBatch(List.of(), lastCandidateId);
+        }
+        return new ClaimedBatch(emailRepository.findByClaimedByAndIdIn(claimToken, candidateIds), lastCandidateId);
+    }
+
+    public record ClaimedBatch(List<Email> emails, long lastCandidateId) {
+
+        static final ClaimedBatch EMPTY = new ClaimedBatch(List.of(), -1);
+
+        public boolean isExhausted() {
+            return lastCandidateId < 0;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.repository.RenderedMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Deletes emails past the retention period in small transactions, then the shared bodies no email refers to
+@Service
+public class EmailRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailRetentionService.class);
+
+    private static final List<Email.EmailStatus> TERMINAL_STATUSES =
+        List.of(Email.EmailStatus.SENT, Email.EmailStatus.FAILED, Email.EmailStatus.BOUNCED, Email.EmailStatus.COMPLAINED);
+
+    private final EmailRepository emailRepository;
+
+    private final RenderedMessageRepository renderedMessageRepository;
+
+    private final EmailBodyStore emailBodyStore;
+
+    private final EmailHistoryService emailHistoryService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int retentionDays;
+
+    private final int batchSize;
+
+    private final long bodyGraceHours;
+
+    public EmailRetentionService(EmailRepository emailRepository,
+                                 RenderedMessageRepository renderedMessageRepository,
+                                 EmailBodyStore emailBodyStore,
+                                 EmailHistoryService emailHistoryService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${email.retention.days:0}") int retentionDays,
+                                 @Value("${email.retention.batch-size:1000}") int batchSize,
+                                 @Value("${email.retention.body-grace-hours:24}") long bodyGraceHours) {
+        this.emailRepository = emailRepository;
+        this.renderedMessageRepository = renderedMessageRepository;
+        this.emailBodyStore = emailBodyStore;
+        this.emailHistoryService = emailHistoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.bodyGraceHours = bodyGraceHours;
+    }
+
+    // Returns the number of emails deleted; unreferenced bodies are purged even when retention is off
+    public long runRetention() {
+        long deleted = 0;
+        if (retentionDays > 0) {
+            LocalDateTime cutoffTime = LocalDateTime.now().minusDays(retentionDays);
+            int batchDeleted;
+            do {
+                batchDeleted = transactionTemplate.execute(status -> deleteBatch(cutoffTime));
+                deleted += batchDeleted;
+            } while (batchDeleted == batchSize);
+
+            if (deleted > 0) {
+                emailHistoryService.invalidateAll();
+                logger.info("Deleted {} emails created before {}", deleted, cutoffTime);
+            }
+        }
+        emailBodyStore.purgeUnreferenced(LocalDateTime.now().minusHours(bodyGraceHours));
+        return deleted;
+    }
+
+    private int deleteBatch(LocalDateTime cutoffTime) {
+        List<Long> ids = emailRepository.findIdsForRetention(TERMINAL_STATUSES, cutoffTime, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        renderedMessageRepository.deleteAllByIdInBatch(ids);
+        emailRepository.deleteAllByIdInBatch(ids);
+        return ids.size();
+    }
+}
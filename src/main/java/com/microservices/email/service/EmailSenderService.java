@@ -1,19 +1,52 @@
 package com.microservices.email.service;
 
+import com.microservices.email.logging.SampledLogger;
+import com.microservices.email.template.ContentTemplate;
+import com.microservices.email.transport.CircuitBreakerOpenException;
+import com.microservices.email.transport.DomainBatchingMailSender;
+import com.microservices.email.transport.PreRenderedMimeMessage;
+import com.microservices.email.transport.SimulatedMailTransport;
+import com.microservices.email.transport.SmtpCircuitBreaker;
+import com.microservices.email.transport.StreamingMultipartMessage;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
 public class EmailSenderService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailSenderService.class);
 
+    private static final SampledLogger sendLog = SampledLogger.of(logger, "email-send");
+
     private final JavaMailSender javaMailSender;
 
+    private final SimulatedMailTransport simulatedMailTransport;
+
+    private final Executor emailTaskExecutor;
+
+    private final SmtpCircuitBreaker smtpCircuitBreaker;
+
+    private final DomainBatchingMailSender domainBatchingMailSender;
+
     @Value("${spring.mail.from:noreply@emailservice.com}")
     private String fromEmail;
 
@@ -23,8 +56,19 @@ public class EmailSenderService {
     @Value("${email.service.mock:false}")
     private boolean mockEmailSending;
 
-    public EmailSenderService(JavaMailSender javaMailSender) {
+    @Value("${email.dispatch.domain-batching.enabled:true}")
+    private boolean domainBatching;
+
+    public EmailSenderService(JavaMailSender javaMailSender,
+                              SimulatedMailTransport simulatedMailTransport,
+                              @Qualifier("emailTaskExecutor") Executor emailTaskExecutor,
+                              SmtpCircuitBreaker smtpCircuitBreaker,
+                              DomainBatchingMailSender domainBatchingMailSender) {
         this.javaMailSender = javaMailSender;
+        this.simulatedMailTransport = simulatedMailTransport;
+        this.emailTaskExecutor = emailTaskExecutor;
+        this.smtpCircuitBreaker = smtpCircuitBreaker;
+        this.domainBatchingMailSender = domainBatchingMailSender;
     }
 
     public boolean sendEmail(String to, String subject, String content) {
@@ -34,9 +78,14 @@ public class EmailSenderService {
         }
 
         if (mockEmailSending) {
-            return mockSendEmail(to, subject, content);
+            return simulatedMailTransport.send(to, subject, content).join();
         }
 
+        acquireTransportPermission();
+        return deliver(to, subject, content);
+    }
+
+    private boolean deliver(String to, String subject, String content) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setFrom(fromEmail);
@@ -45,31 +94,226 @@ public class EmailSenderService {
             message.setText(content);
 
             javaMailSender.send(message);
+            smtpCircuitBreaker.onSuccess();
 
-            logger.info("Email sent successfully to: {} with subject: {}", to, subject);
+            sendLog.info("Email sent successfully to: {} with subject: {}", to, subject);
             return true;
 
         } catch (Exception e) {
+            recordTransportFailure(e);
             logger.error("Failed to send email to: {} with subject: {}", to, subject, e);
             return false;
         }
     }
 
-    private boolean mockSendEmail(String to, String subject, String content) {
-        logger.info("MOCK EMAIL SEND:");
-        logger.info("To: {}", to);
-        logger.info("Subject: {}", subject);
-        logger.info("Content: {}", content);
-        logger.info("--- END MOCK EMAIL ---");
+    public CompletableFuture<Boolean> sendEmailAsync(String to, String subject, String content) {
+        if (!emailServiceEnabled) {
+            logger.info("Email service is disabled. Skipping email send to: {}", to);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        // Simulated sends complete on the transport's scheduler without occupying a pool thread
+        if (mockEmailSending) {
+            return simulatedMailTransport.send(to, subject, content);
+        }
+
+        // Rejected before queueing, so an open circuit costs neither a pool thread nor a timeout
+        if (!smtpCircuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(circuitOpen());
+        }
+        if (domainBatching) {
+            return deliverBatched(to, () -> buildMimeMessage(to, subject, content));
+        }
+        return CompletableFuture.supplyAsync(() -> deliver(to, subject, content), emailTaskExecutor);
+    }
+
+    // Encodes the message once into RFC 822 bytes that retries can send without re-encoding
+    public byte[] renderMimeMessage(String to, String subject, String content) {
+        try {
+            MimeMessage message = buildMimeMessage(to, subject, content);
+            message.saveChanges();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length() + 1024);
+            message.writeTo(out);
+            return out.toByteArray();
+
+        } catch (MessagingException | IOException e) {
+            logger.error("Failed to render email to: {} with subject: {}", to, subject, e);
+            return null;
+        }
+    }
+
+    // Text and HTML parts are rendered by the template while the transport writes the message
+    public boolean sendMultipart(String to, String subject, ContentTemplate body) {
+        if (!emailServiceEnabled) {
+            logger.info("Email service is disabled. Skipping email send to: {}", to);
+            return true;
+        }
+
+        if (mockEmailSending) {
+            return simulatedMailTransport.send(to, subject, null).join();
+        }
 
-        // Simulate some processing time
+        acquireTransportPermission();
+        return deliverMultipart(to, subject, body);
+    }
+
+    private boolean deliverMultipart(String to, String subject, ContentTemplate body) {
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            javaMailSender.send(new StreamingMultipartMessage(mailSession(), fromEmail, to, subject, body));
+            smtpCircuitBreaker.onSuccess();
+            sendLog.info("Multipart email sent successfully to: {} with subject: {}", to, subject);
+            return true;
+
+        } catch (Exception e) {
+            recordTransportFailure(e);
+            logger.error("Failed to send multipart email to: {} with subject: {}", to, subject, e);
+            return false;
         }
+    }
 
-        return true;
+    public CompletableFuture<Boolean> sendMultipartAsync(String to, String subject, ContentTemplate body) {
+        if (!emailServiceEnabled) {
+            return CompletableFuture.completedFuture(sendMultipart(to, subject, body));
+        }
+        if (mockEmailSending) {
+            return simulatedMailTransport.send(to, subject, null);
+        }
+        if (!smtpCircuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(circuitOpen());
+        }
+        if (domainBatching) {
+            return deliverBatched(to, () -> new StreamingMultipartMessage(mailSession(), fromEmail, to, subject, body));
+        }
+        return CompletableFuture.supplyAsync(() -> deliverMultipart(to, subject, body), emailTaskExecutor);
+    }
+
+    public byte[] renderMultipart(String to, String subject, ContentTemplate body) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+            new StreamingMultipartMessage(mailSession(), fromEmail, to, subject, body).writeTo(out);
+            return out.toByteArray();
+
+        } catch (MessagingException | IOException e) {
+            logger.error("Failed to render multipart email to: {} with subject: {}", to, subject, e);
+            return null;
+        }
+    }
+
+    public boolean sendRendered(String to, byte[] renderedMessage) {
+        if (!emailServiceEnabled) {
+            logger.info("Email service is disabled. Skipping email send to: {}", to);
+            return true;
+        }
+
+        if (mockEmailSending) {
+            return simulatedMailTransport.send(to, null, null).join();
+        }
+
+        acquireTransportPermission();
+        return deliverRendered(to, renderedMessage);
+    }
+
+    private boolean deliverRendered(String to, byte[] renderedMessage) {
+        try {
+            javaMailSender.send(new PreRenderedMimeMessage(mailSession(), fromEmail, to, renderedMessage));
+            smtpCircuitBreaker.onSuccess();
+            sendLog.info("Pre-rendered email sent successfully to: {}", to);
+            return true;
+
+        } catch (Exception e) {
+            recordTransportFailure(e);
+            logger.error("Failed to send pre-rendered email to: {}", to, e);
+            return false;
+        }
+    }
+
+    public CompletableFuture<Boolean> sendRenderedAsync(String to, byte[] renderedMessage) {
+        if (!emailServiceEnabled) {
+            return CompletableFuture.completedFuture(sendRendered(to, renderedMessage));
+        }
+        if (mockEmailSending) {
+            return simulatedMailTransport.send(to, null, null);
+        }
+        if (!smtpCircuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(circuitOpen());
+        }
+        if (domainBatching) {
+            return deliverBatched(to, () -> new PreRenderedMimeMessage(mailSession(), fromEmail, to, renderedMessage));
+        }
+        return CompletableFuture.supplyAsync(() -> deliverRendered(to, renderedMessage), emailTaskExecutor);
+    }
+
+    // Queues the message for its recipient domain's next batch; the permission already acquired is
+    // settled per message once the batch has gone out. Status updates continue on the task executor,
+    // not on the batch workers.
+    private CompletableFuture<Boolean> deliverBatched(String to, MessageFactory messageFactory) {
+        MimeMessage message;
+        try {
+            message = messageFactory.create();
+        } catch (MessagingException e) {
+            smtpCircuitBreaker.onIgnored();
+            logger.error("Failed to build email to: {}", to, e);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return domainBatchingMailSender.send(to, message).handleAsync((sent, error) -> {
+            if (error == null) {
+                smtpCircuitBreaker.onSuccess();
+                sendLog.info("Email sent successfully to: {}", to);
+                return true;
+            }
+            recordTransportFailure(error instanceof Exception e ? e : new RuntimeException(error));
+            logger.error("Failed to send email to: {}", to, error);
+            return false;
+        }, emailTaskExecutor);
+    }
+
+    private MimeMessage buildMimeMessage(String to, String subject, String content) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(content);
+        message.setSentDate(new Date());
+        return message;
+    }
+
+    @FunctionalInterface
+    private interface MessageFactory {
+        MimeMessage create() throws MessagingException;
+    }
+
+    // True while the SMTP circuit is open and sends are rejected without being attempted
+    public boolean isTransportSuspended() {
+        return emailServiceEnabled && !mockEmailSending && smtpCircuitBreaker.isOpen();
+    }
+
+    private void acquireTransportPermission() {
+        if (!smtpCircuitBreaker.tryAcquirePermission()) {
+            throw circuitOpen();
+        }
+    }
+
+    private CircuitBreakerOpenException circuitOpen() {
+        return new CircuitBreakerOpenException(smtpCircuitBreaker.getRemainingOpenDuration());
+    }
+
+    // Messages that could not be built never reached the server and say nothing about its health
+    private void recordTransportFailure(Exception e) {
+        if (e instanceof MailPreparationException || e instanceof MailParseException) {
+            smtpCircuitBreaker.onIgnored();
+        } else {
+            smtpCircuitBreaker.onFailure();
+        }
+    }
+
+    private Session mailSession() {
+        if (javaMailSender instanceof JavaMailSenderImpl mailSenderImpl) {
+            return mailSenderImpl.getSession();
+        }
+        return Session.getInstance(new Properties());
     }
 
     public boolean sendBulkEmails(java.util.List<SimpleMailMessage> messages) {
@@ -78,12 +322,19 @@ public class EmailSenderService {
             return true;
         }
 
+        if (!smtpCircuitBreaker.tryAcquirePermission()) {
+            logger.warn("SMTP circuit breaker is open. Skipping bulk send of {} emails", messages.size());
+            return false;
+        }
+
         try {
             javaMailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            smtpCircuitBreaker.onSuccess();
             logger.info("Bulk emails sent successfully. Count: {}", messages.size());
             return true;
 
         } catch (Exception e) {
+            recordTransportFailure(e);
             logger.error("Failed to send bulk emails", e);
             return false;
         }
@@ -1,21 +1,38 @@
 package com.microservices.email.service;
 
+import com.microservices.email.dispatch.DispatchPriority;
+import com.microservices.email.dispatch.PriorityDispatchScheduler;
 import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailScheduledEvent;
+import com.microservices.email.event.EmailStatusChangedEvent;
 import com.microservices.email.event.OrderEvent;
+import com.microservices.email.lifecycle.OrderLifecycleTable;
+import com.microservices.email.lifecycle.PartitionedOrderState;
+import com.microservices.email.logging.SampledLogger;
 import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.schedule.DeliveryWindowPolicy;
+import com.microservices.email.suppression.SuppressionService;
+import com.microservices.email.template.ContentTemplate;
+import com.microservices.email.transport.CircuitBreakerOpenException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Service
 @Transactional
@@ -23,6 +40,14 @@ public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
+    // Per-event success lines; failures and anything out of the ordinary go through logger unsampled
+    private static final SampledLogger eventLog = SampledLogger.of(logger, "order-events");
+
+    private static final SampledLogger sendLog = SampledLogger.of(logger, "email-send");
+
+    // Lower bound for how long a deferred email waits before the orphan sweep may pick it up again
+    private static final Duration MIN_DEFERRAL = Duration.ofSeconds(5);
+
     @Autowired
     private EmailRepository emailRepository;
 
@@ -32,37 +57,112 @@ public class EmailService {
     @Autowired
     private EmailSenderService emailSenderService;
 
-    public void processOrderEvent(OrderEvent orderEvent) {
+    @Autowired
+    private PriorityDispatchScheduler priorityDispatchScheduler;
+
+    @Autowired
+    private EmailLeaseService emailLeaseService;
+
+    @Autowired
+    private RenderedMessageStore renderedMessageStore;
+
+    @Autowired
+    private EmailBodyStore emailBodyStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SuppressionService suppressionService;
+
+    @Autowired
+    private OrderLifecycleTable orderLifecycleTable;
+
+    @Autowired
+    private PartitionedOrderState partitionedOrderState;
+
+    @Autowired
+    private DeliveryWindowPolicy deliveryWindowPolicy;
+
+    @Value("${email.lease.claim-batch-size:100}")
+    private int claimBatchSize = 100;
+
+    @Value("${email.rendering.multipart:true}")
+    private boolean multipartRendering = true;
+
+    // Returns the new email for the caller to dispatch; empty if none was created or it is scheduled for later
+    public Optional<Email> processOrderEvent(OrderEvent orderEvent) {
+        return processOrderEvent(orderEvent, null);
+    }
+
+    // With the source partition known, its own lifecycle table is used and the email is tagged for warm-up
+    public Optional<Email> processOrderEvent(OrderEvent orderEvent, Integer partition) {
+        OrderLifecycleTable lifecycle = partition != null
+            ? partitionedOrderState.lifecycleFor(partition) : orderLifecycleTable;
         try {
-            logger.info("Processing order event for order: {} with status: {}",
+            eventLog.info("Processing order event for order: {} with status: {}",
                        orderEvent.getOrderId(), orderEvent.getOrderStatus());
 
+            // Redeliveries and producer retries can arrive after a later state; drop them before any work
+            if (!lifecycle.advance(orderEvent.getOrderId(), orderEvent.getOrderStatus(),
+                                   eventTimeMillis(orderEvent))) {
+                eventLog.info("Stale {} event for order: {} ignored, the order has already moved on",
+                           orderEvent.getOrderStatus(), orderEvent.getOrderId());
+                return Optional.empty();
+            }
+
             Email.EmailType emailType = mapOrderStatusToEmailType(orderEvent.getOrderStatus());
 
             if (emailType == null) {
                 logger.warn("No email type mapping found for order status: {}", orderEvent.getOrderStatus());
-                return;
+                return Optional.empty();
+            }
+
+            // Suppressed recipients are dropped before the database is touched at all
+            if (suppressionService.isSuppressed(orderEvent.getCustomerEmail())) {
+                eventLog.info("Recipient of order: {} is suppressed, no {} email created",
+                           orderEvent.getOrderId(), emailType);
+                return Optional.empty();
             }
 
-            // Check if email already exists for this order and email type to avoid duplicates
+            // Check if email already exists for this order and email type to avoid duplicates;
+            // redeliveries of orders the lifecycle table already holds never reach the database
+            if (lifecycle.isEmailed(orderEvent.getOrderId(), emailType)) {
+                eventLog.info("Email already created for order: {} and type: {}",
+                           orderEvent.getOrderId(), emailType);
+                return Optional.empty();
+            }
             Optional<Email> existingEmail = emailRepository.findByOrderIdAndEmailType(
                 orderEvent.getOrderId(), emailType);
 
             if (existingEmail.isPresent()) {
-                logger.info("Email already exists for order: {} and type: {}",
+                eventLog.info("Email already exists for order: {} and type: {}",
                            orderEvent.getOrderId(), emailType);
-                return;
+                markEmailedOnCommit(lifecycle, orderEvent.getOrderId(), emailType);
+                return Optional.empty();
             }
 
-            // Create and send email
+            // Create the email record; the caller dispatches it once this transaction has committed
             Email email = createEmailFromOrderEvent(orderEvent, emailType);
+            email.setSourcePartition(partition);
             Email savedEmail = emailRepository.save(email);
+            eventPublisher.publishEvent(EmailStatusChangedEvent.of(savedEmail));
+            markEmailedOnCommit(lifecycle, orderEvent.getOrderId(), emailType);
+
+            // Delayed emails go to the timing wheel once committed; there is nothing to dispatch now
+            if (savedEmail.getEmailStatus() == Email.EmailStatus.SCHEDULED) {
+                eventPublisher.publishEvent(new EmailScheduledEvent(savedEmail.getId(), savedEmail.getScheduledAt()));
+                if (eventLog.sampleInfo()) {
+                    logger.info("Email record created with ID: {} for order: {}, scheduled for {}",
+                               savedEmail.getId(), orderEvent.getOrderId(), savedEmail.getScheduledAt());
+                }
+                return Optional.empty();
+            }
 
-            // Send email asynchronously
-            sendEmailAsync(savedEmail, orderEvent);
+            eventLog.info("Email record created with ID: {} for order: {}",
+                          savedEmail.getId(), orderEvent.getOrderId());
 
-            logger.info("Email record created with ID: {} for order: {}",
-                       savedEmail.getId(), orderEvent.getOrderId());
+            return Optional.of(savedEmail);
 
         } catch (Exception e) {
             logger.error("Error processing order event for order: {}", orderEvent.getOrderId(), e);
@@ -70,87 +170,251 @@ public class EmailService {
         }
     }
 
-    @Async
+    // Only once the row is committed: a redelivery after a failed commit must still create the email
+    private static void markEmailedOnCommit(OrderLifecycleTable lifecycle, long orderId, Email.EmailType emailType) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lifecycle.markEmailed(orderId, emailType);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lifecycle.markEmailed(orderId, emailType);
+            }
+        });
+    }
+
+    // Queues the email on the dispatch level for its type; transactional mail is not held up by bulk backlogs
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> dispatchEmail(Email email, OrderEvent orderEvent) {
+        DispatchPriority priority = DispatchPriority.forEmailType(email.getEmailType());
+        return priorityDispatchScheduler.submit(priority, () -> sendEmailAsync(email, orderEvent));
+    }
+
+    // Runs outside a transaction so every status write commits on its own, whichever thread completes the send
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CompletableFuture<Void> sendEmailAsync(Email email, OrderEvent orderEvent) {
         try {
-            sendEmail(email, orderEvent);
-            return CompletableFuture.completedFuture(null);
+            Email.EmailStatus claimedStatus = email.getEmailStatus();
+            if (!beginSending(email)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            sendLog.info("Attempting to send email ID: {}", email.getId());
+
+            // With the order event at hand both alternative parts are rendered straight into the transport
+            ContentTemplate body = multipartBody(email, orderEvent);
+            CompletableFuture<Boolean> send = body != null
+                ? emailSenderService.sendMultipartAsync(email.getEmailAddress(), email.getSubject(), body)
+                : emailSenderService.sendEmailAsync(email.getEmailAddress(), email.getSubject(), contentOf(email));
+
+            return send.handle((success, error) -> {
+                CircuitBreakerOpenException circuitOpen = circuitOpen(error);
+                if (circuitOpen != null) {
+                    deferSending(email, claimedStatus, circuitOpen.getRetryAfter());
+                    return null;
+                }
+                if (error != null) {
+                    logger.error("Error in async email sending for email ID: {}", email.getId(), error);
+                }
+                boolean sent = error == null && Boolean.TRUE.equals(success);
+                completeSending(email, sent, false);
+                if (!sent) {
+                    storeRenderedForRetry(email, body);
+                }
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error in async email sending for email ID: {}", email.getId(), e);
             return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 2000))
-    public void sendEmail(Email email, OrderEvent orderEvent) {
-        try {
-            logger.info("Attempting to send email ID: {}", email.getId());
-
-            // Update status to indicate sending attempt
-            email.setEmailStatus(Email.EmailStatus.RETRYING);
-            emailRepository.save(email);
-
-            // Send the email
-            boolean success = emailSenderService.sendEmail(
-                email.getEmailAddress(),
-                email.getSubject(),
-                email.getContent()
-            );
-
-            if (success) {
-                email.setEmailStatus(Email.EmailStatus.SENT);
-                email.setSentAt(LocalDateTime.now());
-                logger.info("Email sent successfully for email ID: {}", email.getId());
-            } else {
-                email.setEmailStatus(Email.EmailStatus.FAILED);
-                logger.error("Failed to send email ID: {}", email.getId());
+    // Compare-and-set into SENDING. Losing the race means another sender already owns this email.
+    private boolean beginSending(Email email) {
+        if (transition(email, Email.EmailStatus.SENDING, null, false)) {
+            return true;
+        }
+        logger.info("Email ID: {} is already being handled elsewhere, skipping send", email.getId());
+        return false;
+    }
+
+    private void completeSending(Email email, boolean success, boolean keepLeaseOnFailure) {
+        if (success) {
+            if (transition(email, Email.EmailStatus.SENT, LocalDateTime.now(), true)) {
+                sendLog.info("Email sent successfully for email ID: {}", email.getId());
             }
+        } else if (transition(email, Email.EmailStatus.FAILED, null, !keepLeaseOnFailure)) {
+            logger.error("Failed to send email ID: {}", email.getId());
+        }
+    }
 
-            emailRepository.save(email);
+    // The SMTP circuit is open: hand the email back in the status it was claimed from, without counting a failure,
+    // and keep the lease until the circuit may have closed so the orphan sweep dispatches it afterwards
+    private void deferSending(Email email, Email.EmailStatus backTo, Duration retryAfter) {
+        Long version = email.getVersion();
+        LocalDateTime leaseUntil = LocalDateTime.now()
+            .plus(retryAfter.compareTo(MIN_DEFERRAL) > 0 ? retryAfter : MIN_DEFERRAL);
+
+        int updated = emailRepository.transitionStatusAndExtendLease(
+            email.getId(), version, Email.EmailStatus.SENDING, backTo, leaseUntil);
+        if (updated == 0) {
+            logger.warn("Deferral of email ID: {} lost (version {})", email.getId(), version);
+            return;
+        }
 
-        } catch (Exception e) {
-            email.setEmailStatus(Email.EmailStatus.FAILED);
-            emailRepository.save(email);
-            logger.error("Error sending email ID: {}", email.getId(), e);
-            throw e;
-        }
-    }
-
-    public void retryFailedEmails() {
-        logger.info("Starting retry process for failed emails");
-
-        LocalDateTime cutoffTime = LocalDateTime.now().minusHours(1); // Retry emails older than 1 hour
-        List<Email> failedEmails = emailRepository.findFailedEmailsOlderThan(
-            Email.EmailStatus.FAILED, cutoffTime);
-
-        logger.info("Found {} failed emails to retry", failedEmails.size());
-
-        failedEmails.forEach(email -> {
-            try {
-                // For retry, we need to recreate the order event or store necessary data
-                // For simplicity, we'll just resend with existing content
-                boolean success = emailSenderService.sendEmail(
-                    email.getEmailAddress(),
-                    email.getSubject(),
-                    email.getContent()
-                );
-
-                if (success) {
-                    email.setEmailStatus(Email.EmailStatus.SENT);
-                    email.setSentAt(LocalDateTime.now());
-                    logger.info("Successfully retried email ID: {}", email.getId());
-                } else {
-                    logger.warn("Retry failed for email ID: {}", email.getId());
-                }
+        email.setEmailStatus(backTo);
+        email.setVersion(version != null ? version + 1 : null);
+        email.setLeaseUntil(leaseUntil);
+        eventPublisher.publishEvent(EmailStatusChangedEvent.of(email));
+        logger.info("SMTP circuit open, deferred email ID: {} as {} until {}", email.getId(), backTo, leaseUntil);
+    }
+
+    private static CircuitBreakerOpenException circuitOpen(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof CircuitBreakerOpenException open ? open : null;
+    }
+
+    // Single conditional UPDATE guarded by the current status and version; the in-memory copy follows on success
+    private boolean transition(Email email, Email.EmailStatus to, LocalDateTime sentAt, boolean releaseLease) {
+        Email.EmailStatus from = email.getEmailStatus();
+        Long version = email.getVersion();
+
+        int updated = releaseLease
+            ? emailRepository.transitionStatusAndReleaseLease(email.getId(), version, from, to, sentAt)
+            : emailRepository.transitionStatus(email.getId(), version, from, to);
+
+        if (updated == 0) {
+            logger.warn("Status transition {} -> {} lost for email ID: {} (version {})",
+                       from, to, email.getId(), version);
+            return false;
+        }
+
+        email.setEmailStatus(to);
+        email.setVersion(version != null ? version + 1 : null);
+        if (releaseLease) {
+            email.setSentAt(sentAt);
+            email.releaseLease();
+        }
+        eventPublisher.publishEvent(EmailStatusChangedEvent.of(email));
+        return true;
+    }
+
+    /** Receives each claimed batch once its sends have settled; returning false stops the pass. */
+    @FunctionalInterface
+    public interface BatchListener {
+        boolean onBatch(long lastCandidateId, List<Email> emails);
+    }
+
+    // Claims FAILED rows in leased batches so that several instances can retry the same backlog without overlap.
+    // Runs outside a transaction so each claim commits, and becomes visible to other instances, immediately.
+    // At most batchSize retries are in flight; afterId resumes a pass that was interrupted.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int retryFailedEmails(LocalDateTime cutoffTime, long afterId, int batchSize, BatchListener listener) {
+        logger.info("Starting retry process for failed emails created before {} after ID {}", cutoffTime, afterId);
+
+        int claimedCount = claimAndProcess(List.of(Email.EmailStatus.FAILED), cutoffTime, afterId, batchSize,
+                                           this::resendEmail, listener);
+
+        logger.info("Completed retry process for failed emails. Claimed: {}", claimedCount);
+        return claimedCount;
+    }
 
-                emailRepository.save(email);
+    // Picks up emails whose dispatch lease expired, e.g. because the instance that created them went away
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int dispatchOrphanedEmails() {
+        int claimedCount = claimAndProcess(
+            List.of(Email.EmailStatus.PENDING, Email.EmailStatus.SENDING, Email.EmailStatus.RETRYING),
+            LocalDateTime.now(), 0, claimBatchSize,
+            email -> sendEmailAsync(email, null), null);
+
+        if (claimedCount > 0) {
+            logger.info("Re-dispatched {} emails with expired leases", claimedCount);
+        }
+        return claimedCount;
+    }
+
+    private int claimAndProcess(List<Email.EmailStatus> statuses, LocalDateTime createdBefore, long afterId,
+                                int batchSize, Function<Email, CompletableFuture<Void>> sender,
+                                BatchListener listener) {
+        int claimedCount = 0;
+
+        while (true) {
+            // Claiming now would only hand every email straight back
+            if (emailSenderService.isTransportSuspended()) {
+                logger.info("SMTP circuit open, leaving remaining emails for a later run");
+                break;
+            }
 
-            } catch (Exception e) {
-                logger.error("Error retrying email ID: {}", email.getId(), e);
+            EmailLeaseService.ClaimedBatch batch =
+                emailLeaseService.claimBatch(statuses, createdBefore, afterId, batchSize);
+            if (batch.isExhausted()) {
+                break;
             }
+            afterId = batch.lastCandidateId();
+
+            // Wait for the batch before claiming the next one so in-memory work stays bounded
+            CompletableFuture<?>[] sends = batch.emails().stream()
+                .map(email -> priorityDispatchScheduler.submit(
+                    DispatchPriority.forEmailType(email.getEmailType()), () -> sender.apply(email)))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(sends).exceptionally(error -> null).join();
+
+            claimedCount += sends.length;
+            if (listener != null && !listener.onBatch(afterId, batch.emails())) {
+                logger.info("Claim pass stopped by its listener after ID {}", afterId);
+                break;
+            }
+        }
+        return claimedCount;
+    }
+
+    private CompletableFuture<Void> resendEmail(Email email) {
+        Email.EmailStatus claimedStatus = email.getEmailStatus();
+        if (!beginSending(email)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Stream the bytes rendered on the first failure straight to the transport instead of re-encoding
+        byte[] rendered = renderedMessageStore.find(email.getId())
+            .orElseGet(() -> storeRenderedForRetry(email, null));
+        CompletableFuture<Boolean> send = rendered != null
+            ? emailSenderService.sendRenderedAsync(email.getEmailAddress(), rendered)
+            : emailSenderService.sendEmailAsync(email.getEmailAddress(), email.getSubject(), contentOf(email));
+
+        return send.handle((success, error) -> {
+            CircuitBreakerOpenException circuitOpen = circuitOpen(error);
+            if (circuitOpen != null) {
+                deferSending(email, claimedStatus, circuitOpen.getRetryAfter());
+                return null;
+            }
+            boolean sent = error == null && Boolean.TRUE.equals(success);
+            // On failure the lease is left to expire and acts as the back-off before the next attempt
+            completeSending(email, sent, true);
+            if (sent) {
+                renderedMessageStore.remove(email.getId());
+                logger.info("Successfully retried email ID: {}", email.getId());
+            } else {
+                logger.warn("Retry failed for email ID: {}", email.getId(), error);
+            }
+            return null;
         });
+    }
 
-        logger.info("Completed retry process for failed emails");
+    private ContentTemplate multipartBody(Email email, OrderEvent orderEvent) {
+        if (!multipartRendering || orderEvent == null) {
+            return null;
+        }
+        return writer -> emailTemplateService.writeContent(email.getEmailType(), orderEvent, writer);
+    }
+
+    private byte[] storeRenderedForRetry(Email email, ContentTemplate body) {
+        byte[] rendered = body != null
+            ? emailSenderService.renderMultipart(email.getEmailAddress(), email.getSubject(), body)
+            : emailSenderService.renderMimeMessage(email.getEmailAddress(), email.getSubject(), contentOf(email));
+        if (rendered != null) {
+            renderedMessageStore.store(email.getId(), rendered);
+        }
+        return rendered;
     }
 
     public List<Email> getEmailsByOrderId(Long orderId) {
@@ -171,16 +435,50 @@ public class EmailService {
 
     private Email createEmailFromOrderEvent(OrderEvent orderEvent, Email.EmailType emailType) {
         String subject = emailTemplateService.generateSubject(emailType, orderEvent);
-        String content = emailTemplateService.generateContent(emailType, orderEvent);
+        boolean sharedBody = emailTemplateService.hasSharedBody(emailType);
+        String content = sharedBody
+            ? emailTemplateService.generateSharedContent(emailType, orderEvent)
+            : emailTemplateService.generateContent(emailType, orderEvent);
 
-        return new Email(
+        Email email = new Email(
             orderEvent.getOrderId(),
             orderEvent.getCustomerId(),
             orderEvent.getCustomerEmail(),
             emailType,
             subject,
-            content
+            sharedBody ? null : content
         );
+
+        // Bodies common to many recipients are stored once; the row keeps the hash and the name to apply
+        if (sharedBody) {
+            email.setBodyHash(emailBodyStore.acquire(content));
+            email.setCustomerName(orderEvent.getCustomerName());
+        }
+
+        // Not due yet: stored without a lease, the timing wheel releases it when it is
+        LocalDateTime scheduledAt = deliveryWindowPolicy.scheduledAt(emailType, orderEvent, LocalDateTime.now());
+        if (scheduledAt != null) {
+            email.setEmailStatus(Email.EmailStatus.SCHEDULED);
+            email.setScheduledAt(scheduledAt);
+            return email;
+        }
+
+        // Held by this instance until the send completes; another instance takes over if it expires
+        email.setClaimedBy(emailLeaseService.newClaimToken());
+        email.setLeaseUntil(emailLeaseService.dispatchLeaseExpiry());
+        return email;
+    }
+
+    private String contentOf(Email email) {
+        if (email.getBodyHash() == null) {
+            return email.getContent();
+        }
+        return emailTemplateService.personalise(emailBodyStore.load(email.getBodyHash()), email.getCustomerName());
+    }
+
+    private static long eventTimeMillis(OrderEvent orderEvent) {
+        LocalDateTime timestamp = orderEvent.getTimestamp();
+        return timestamp != null ? timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE;
     }
 
     private Email.EmailType mapOrderStatusToEmailType(OrderEvent.OrderStatus orderStatus) {
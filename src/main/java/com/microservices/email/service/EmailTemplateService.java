@@ -2,201 +2,322 @@ package com.microservices.email.service;
 
 import com.microservices.email.entity.Email;
 import com.microservices.email.event.OrderEvent;
+import com.microservices.email.template.ContentWriter;
+import com.microservices.email.template.HtmlContentWriter;
+import com.microservices.email.template.LocalizedTemplates;
+import com.microservices.email.template.PlainTextContentWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class EmailTemplateService {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm");
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateService.class);
+
+    private static final String TEMPLATE_BUNDLE = "templates/email";
+
+    // Stands in for the recipient's name in bodies shared by many recipients; replaced at send time
+    static final String CUSTOMER_NAME_PLACEHOLDER = "{{customerName}}";
+
+    // Unknown tags come from event payloads; beyond this many they are resolved without being cached
+    private static final int MAX_CACHED_LOCALE_TAGS = 256;
+
+    private static final ResourceBundle.Control BUNDLE_CONTROL =
+        ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+    private final LocalizedTemplates defaultTemplates =
+        LocalizedTemplates.defaults(ResourceBundle.getBundle(TEMPLATE_BUNDLE, Locale.ROOT, BUNDLE_CONTROL));
+
+    // Lock-free reads on the render path; entries are built once per locale tag and per bundle
+    private final ConcurrentHashMap<String, LocalizedTemplates> templatesByLocaleTag = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Locale, LocalizedTemplates.Messages> messagesByBundleLocale = new ConcurrentHashMap<>();
 
     public String generateSubject(Email.EmailType emailType, OrderEvent orderEvent) {
-        return switch (emailType) {
-            case ORDER_CONFIRMATION -> "Order Confirmation - Order #" + orderEvent.getOrderId();
-            case ORDER_SHIPPED -> "Your Order Has Been Shipped - Order #" + orderEvent.getOrderId();
-            case ORDER_DELIVERED -> "Your Order Has Been Delivered - Order #" + orderEvent.getOrderId();
-            case ORDER_CANCELLED -> "Order Cancelled - Order #" + orderEvent.getOrderId();
-            case ORDER_REFUNDED -> "Refund Processed - Order #" + orderEvent.getOrderId();
-            case PAYMENT_FAILED -> "Payment Failed - Order #" + orderEvent.getOrderId();
-            case PROMOTIONAL -> "Special Offer Just For You!";
-            case SYSTEM_NOTIFICATION -> "Important Account Notification";
-        };
+        return templatesFor(orderEvent).format("subject." + emailType.name(), String.valueOf(orderEvent.getOrderId()));
     }
 
     public String generateContent(Email.EmailType emailType, OrderEvent orderEvent) {
-        return switch (emailType) {
-            case ORDER_CONFIRMATION -> generateOrderConfirmationContent(orderEvent);
-            case ORDER_SHIPPED -> generateOrderShippedContent(orderEvent);
-            case ORDER_DELIVERED -> generateOrderDeliveredContent(orderEvent);
-            case ORDER_CANCELLED -> generateOrderCancelledContent(orderEvent);
-            case ORDER_REFUNDED -> generateOrderRefundedContent(orderEvent);
-            case PAYMENT_FAILED -> generatePaymentFailedContent(orderEvent);
-            case PROMOTIONAL -> generatePromotionalContent(orderEvent);
-            case SYSTEM_NOTIFICATION -> generateSystemNotificationContent(orderEvent);
-        };
-    }
-
-    private String generateOrderConfirmationContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("Thank you for your order! We're excited to confirm that we've received your order and it's being processed.\n\n");
-        content.append("Order Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Order Date: ").append(orderEvent.getOrderDate() != null ? orderEvent.getOrderDate().format(DATE_FORMATTER) : "N/A").append("\n");
-        content.append("Total Amount: ").append(formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency())).append("\n");
-        content.append("Payment Method: ").append(orderEvent.getPaymentMethod() != null ? orderEvent.getPaymentMethod() : "N/A").append("\n\n");
+        StringBuilder content = new StringBuilder(1024);
+        writeUnchecked(emailType, orderEvent, new PlainTextContentWriter(content));
+        return content.toString();
+    }
 
-        if (orderEvent.getItems() != null && !orderEvent.getItems().isEmpty()) {
-            content.append("Items Ordered:\n");
-            orderEvent.getItems().forEach(item -> {
-                content.append("- ").append(item.getProductName())
-                       .append(" (Qty: ").append(item.getQuantity())
-                       .append(", Price: ").append(formatCurrency(item.getUnitPrice(), orderEvent.getCurrency()))
-                       .append(")\n");
-            });
-            content.append("\n");
-        }
+    public String generateHtmlContent(Email.EmailType emailType, OrderEvent orderEvent) {
+        StringBuilder content = new StringBuilder(2048);
+        writeUnchecked(emailType, orderEvent, new HtmlContentWriter(content));
+        return content.toString();
+    }
 
-        if (orderEvent.getShippingAddress() != null) {
-            content.append("Shipping Address:\n");
-            content.append(formatAddress(orderEvent.getShippingAddress())).append("\n\n");
+    // Single template definition behind both the plain-text and the HTML part
+    public void writeContent(Email.EmailType emailType, OrderEvent orderEvent, ContentWriter writer) throws IOException {
+        LocalizedTemplates templates = templatesFor(orderEvent);
+        writer.begin();
+        switch (emailType) {
+            case ORDER_CONFIRMATION -> writeOrderConfirmationContent(orderEvent, templates, writer);
+            case ORDER_SHIPPED -> writeOrderShippedContent(orderEvent, templates, writer);
+            case ORDER_DELIVERED -> writeOrderDeliveredContent(orderEvent, templates, writer);
+            case ORDER_CANCELLED -> writeOrderCancelledContent(orderEvent, templates, writer);
+            case ORDER_REFUNDED -> writeOrderRefundedContent(orderEvent, templates, writer);
+            case PAYMENT_FAILED -> writePaymentFailedContent(orderEvent, templates, writer);
+            case PROMOTIONAL -> writePromotionalContent(orderEvent, templates, writer);
+            case SYSTEM_NOTIFICATION -> writeSystemNotificationContent(orderEvent, templates, writer);
         }
+        writer.end();
+    }
 
-        content.append("We'll send you another email with tracking information once your order ships.\n\n");
-        content.append("Thank you for choosing us!\n");
-        content.append("Customer Service Team");
+    // Campaign and notification bodies differ between recipients only in the name in the greeting
+    public boolean hasSharedBody(Email.EmailType emailType) {
+        return emailType == Email.EmailType.PROMOTIONAL || emailType == Email.EmailType.SYSTEM_NOTIFICATION;
+    }
 
+    // Plain-text body with the customer name left as a placeholder, identical for every recipient of a locale
+    public String generateSharedContent(Email.EmailType emailType, OrderEvent orderEvent) {
+        if (!hasSharedBody(emailType)) {
+            throw new IllegalArgumentException("No shared body for email type " + emailType);
+        }
+        LocalizedTemplates templates = templatesFor(orderEvent);
+        StringBuilder content = new StringBuilder(1024);
+        ContentWriter writer = new PlainTextContentWriter(content);
+        try {
+            writer.begin();
+            writer.greeting(templates.format("greeting", orderEvent.getCustomerName() != null
+                ? CUSTOMER_NAME_PLACEHOLDER : templates.text("customer.default")));
+            if (emailType == Email.EmailType.PROMOTIONAL) {
+                writePromotionalBody(templates, writer);
+            } else {
+                writeSystemNotificationBody(templates, writer);
+            }
+            writer.end();
+        } catch (IOException e) {
+            // StringBuilder targets never throw
+            throw new UncheckedIOException(e);
+        }
         return content.toString();
     }
 
-    private String generateOrderShippedContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("Great news! Your order has been shipped and is on its way to you.\n\n");
-        content.append("Order Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Tracking Number: ").append(orderEvent.getTrackingNumber() != null ? orderEvent.getTrackingNumber() : "Will be provided shortly").append("\n");
-        content.append("Estimated Delivery: 3-5 business days\n\n");
+    public String personalise(String sharedContent, String customerName) {
+        return customerName != null ? sharedContent.replace(CUSTOMER_NAME_PLACEHOLDER, customerName) : sharedContent;
+    }
 
-        if (orderEvent.getShippingAddress() != null) {
-            content.append("Shipping to:\n");
-            content.append(formatAddress(orderEvent.getShippingAddress())).append("\n\n");
+    // Events without a locale, or with one that has no bundle, keep the original English templates
+    LocalizedTemplates templatesFor(OrderEvent orderEvent) {
+        String localeTag = orderEvent.getLocale();
+        if (localeTag == null || localeTag.isBlank()) {
+            return defaultTemplates;
         }
 
-        content.append("You can track your package using the tracking number provided above.\n\n");
-        content.append("Thank you for your business!\n");
-        content.append("Customer Service Team");
+        LocalizedTemplates templates = templatesByLocaleTag.get(localeTag);
+        if (templates == null) {
+            templates = resolveTemplates(localeTag);
+            if (templatesByLocaleTag.size() < MAX_CACHED_LOCALE_TAGS) {
+                templatesByLocaleTag.putIfAbsent(localeTag, templates);
+            }
+        }
+        return templates;
+    }
 
-        return content.toString();
+    private LocalizedTemplates resolveTemplates(String localeTag) {
+        Locale locale = Locale.forLanguageTag(localeTag.replace('_', '-'));
+        ResourceBundle bundle = ResourceBundle.getBundle(TEMPLATE_BUNDLE, locale, BUNDLE_CONTROL);
+        if (bundle.getLocale().equals(Locale.ROOT)) {
+            logger.debug("No email template bundle for locale '{}', using default templates", localeTag);
+            return defaultTemplates;
+        }
+
+        // Text comes from the language bundle; dates and amounts follow the full locale (de-CH vs de-DE)
+        LocalizedTemplates.Messages messages = messagesByBundleLocale.computeIfAbsent(
+            bundle.getLocale(), bundleLocale -> LocalizedTemplates.Messages.compile(bundle));
+        return LocalizedTemplates.forLocale(locale, messages);
     }
 
-    private String generateOrderDeliveredContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("Your order has been successfully delivered!\n\n");
-        content.append("Order Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Delivered on: ").append(orderEvent.getTimestamp().format(DATE_FORMATTER)).append("\n\n");
+    private void writeUnchecked(Email.EmailType emailType, OrderEvent orderEvent, ContentWriter writer) {
+        try {
+            writeContent(emailType, orderEvent, writer);
+        } catch (IOException e) {
+            // StringBuilder targets never throw
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        content.append("We hope you're satisfied with your purchase. If you have any questions or concerns, ");
-        content.append("please don't hesitate to contact our customer service team.\n\n");
-        content.append("Thank you for choosing us and we look forward to serving you again!\n");
-        content.append("Customer Service Team");
+    private void writeOrderConfirmationContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                               ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("ORDER_CONFIRMATION.intro"));
 
-        return content.toString();
+        writer.fieldsStart(templates.text("heading.orderDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.orderDate"), templates.formatDate(orderEvent.getOrderDate()));
+        writer.field(templates.text("label.totalAmount"),
+            templates.formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency()));
+        writer.field(templates.text("label.paymentMethod"),
+            orderEvent.getPaymentMethod() != null ? orderEvent.getPaymentMethod() : templates.text("value.notAvailable"));
+        writer.fieldsEnd();
+
+        if (orderEvent.getItems() != null && !orderEvent.getItems().isEmpty()) {
+            writer.listStart(templates.text("heading.itemsOrdered"));
+            for (OrderEvent.OrderItem item : orderEvent.getItems()) {
+                writer.listItemStart();
+                templates.write(writer, "item",
+                    item.getProductName(),
+                    String.valueOf(item.getQuantity()),
+                    templates.formatCurrency(item.getUnitPrice(), orderEvent.getCurrency()));
+                writer.listItemEnd();
+            }
+            writer.listEnd();
+        }
+
+        if (orderEvent.getShippingAddress() != null) {
+            writeAddress(templates.text("heading.shippingAddress"), orderEvent.getShippingAddress(), writer);
+        }
+
+        writer.paragraph(templates.text("ORDER_CONFIRMATION.outro"));
+        writer.closing(templates.closing("ORDER_CONFIRMATION.closing"));
     }
 
-    private String generateOrderCancelledContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("We're writing to inform you that your order has been cancelled.\n\n");
-        content.append("Order Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Cancellation Date: ").append(orderEvent.getTimestamp().format(DATE_FORMATTER)).append("\n");
-        content.append("Refund Amount: ").append(formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency())).append("\n\n");
+    private void writeOrderShippedContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                          ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("ORDER_SHIPPED.intro"));
 
-        content.append("If you paid for this order, a full refund will be processed within 3-5 business days ");
-        content.append("to your original payment method.\n\n");
-        content.append("If you have any questions about this cancellation, please contact our customer service team.\n\n");
-        content.append("Thank you for your understanding.\n");
-        content.append("Customer Service Team");
+        writer.fieldsStart(templates.text("heading.orderDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.trackingNumber"),
+            orderEvent.getTrackingNumber() != null ? orderEvent.getTrackingNumber() : templates.text("value.trackingPending"));
+        writer.field(templates.text("label.estimatedDelivery"), templates.text("value.estimatedDelivery"));
+        writer.fieldsEnd();
 
-        return content.toString();
+        if (orderEvent.getShippingAddress() != null) {
+            writeAddress(templates.text("heading.shippingTo"), orderEvent.getShippingAddress(), writer);
+        }
+
+        writer.paragraph(templates.text("ORDER_SHIPPED.outro"));
+        writer.closing(templates.closing("ORDER_SHIPPED.closing"));
     }
 
-    private String generateOrderRefundedContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("Your refund has been processed successfully.\n\n");
-        content.append("Refund Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Refund Amount: ").append(formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency())).append("\n");
-        content.append("Processed Date: ").append(orderEvent.getTimestamp().format(DATE_FORMATTER)).append("\n\n");
+    private void writeOrderDeliveredContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                            ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("ORDER_DELIVERED.intro"));
 
-        content.append("The refund will appear in your account within 3-5 business days, ");
-        content.append("depending on your bank or payment provider.\n\n");
-        content.append("If you have any questions about this refund, please contact our customer service team.\n\n");
-        content.append("Thank you for your understanding.\n");
-        content.append("Customer Service Team");
+        writer.fieldsStart(templates.text("heading.orderDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.deliveredOn"), templates.formatDate(orderEvent.getTimestamp()));
+        writer.fieldsEnd();
 
-        return content.toString();
+        writer.paragraph(templates.text("ORDER_DELIVERED.outro"));
+        writer.closing(templates.closing("ORDER_DELIVERED.closing"));
     }
 
-    private String generatePaymentFailedContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("We encountered an issue processing your payment for the following order:\n\n");
-        content.append("Order Details:\n");
-        content.append("Order Number: ").append(orderEvent.getOrderId()).append("\n");
-        content.append("Amount: ").append(formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency())).append("\n");
-        content.append("Payment Method: ").append(orderEvent.getPaymentMethod() != null ? orderEvent.getPaymentMethod() : "N/A").append("\n\n");
+    private void writeOrderCancelledContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                            ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("ORDER_CANCELLED.intro"));
+
+        writer.fieldsStart(templates.text("heading.orderDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.cancellationDate"), templates.formatDate(orderEvent.getTimestamp()));
+        writer.field(templates.text("label.refundAmount"),
+            templates.formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency()));
+        writer.fieldsEnd();
+
+        writer.paragraph(templates.text("ORDER_CANCELLED.refund"));
+        writer.paragraph(templates.text("ORDER_CANCELLED.outro"));
+        writer.closing(templates.closing("ORDER_CANCELLED.closing"));
+    }
 
-        content.append("Please update your payment information and try again. Your order will be held for 24 hours.\n\n");
-        content.append("If you need assistance, please contact our customer service team.\n\n");
-        content.append("Customer Service Team");
+    private void writeOrderRefundedContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                           ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("ORDER_REFUNDED.intro"));
+
+        writer.fieldsStart(templates.text("heading.refundDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.refundAmount"),
+            templates.formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency()));
+        writer.field(templates.text("label.processedDate"), templates.formatDate(orderEvent.getTimestamp()));
+        writer.fieldsEnd();
+
+        writer.paragraph(templates.text("ORDER_REFUNDED.timing"));
+        writer.paragraph(templates.text("ORDER_REFUNDED.outro"));
+        writer.closing(templates.closing("ORDER_REFUNDED.closing"));
+    }
 
-        return content.toString();
+    private void writePaymentFailedContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                           ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writer.paragraph(templates.text("PAYMENT_FAILED.intro"));
+
+        writer.fieldsStart(templates.text("heading.orderDetails"));
+        writer.field(templates.text("label.orderNumber"), String.valueOf(orderEvent.getOrderId()));
+        writer.field(templates.text("label.amount"),
+            templates.formatCurrency(orderEvent.getTotalAmount(), orderEvent.getCurrency()));
+        writer.field(templates.text("label.paymentMethod"),
+            orderEvent.getPaymentMethod() != null ? orderEvent.getPaymentMethod() : templates.text("value.notAvailable"));
+        writer.fieldsEnd();
+
+        writer.paragraph(templates.text("PAYMENT_FAILED.action"));
+        writer.paragraph(templates.text("PAYMENT_FAILED.outro"));
+        writer.closing(templates.closing("PAYMENT_FAILED.closing"));
     }
 
-    private String generatePromotionalContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("We have an exciting offer just for you!\n\n");
-        content.append("Don't miss out on our latest deals and promotions. ");
-        content.append("Visit our website to discover amazing discounts on your favorite products.\n\n");
-        content.append("Thank you for being a valued customer!\n");
-        content.append("Marketing Team");
+    private void writePromotionalContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                         ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writePromotionalBody(templates, writer);
+    }
 
-        return content.toString();
+    private void writePromotionalBody(LocalizedTemplates templates, ContentWriter writer) throws IOException {
+        writer.paragraph(templates.text("PROMOTIONAL.intro"));
+        writer.paragraph(templates.text("PROMOTIONAL.body"));
+        writer.closing(templates.closing("PROMOTIONAL.closing"));
     }
 
-    private String generateSystemNotificationContent(OrderEvent orderEvent) {
-        StringBuilder content = new StringBuilder();
-        content.append("Dear ").append(orderEvent.getCustomerName() != null ? orderEvent.getCustomerName() : "Valued Customer").append(",\n\n");
-        content.append("This is an important notification regarding your account.\n\n");
-        content.append("Please log in to your account to view the details.\n\n");
-        content.append("If you have any questions, please contact our customer service team.\n\n");
-        content.append("Customer Service Team");
+    private void writeSystemNotificationContent(OrderEvent orderEvent, LocalizedTemplates templates,
+                                                ContentWriter writer) throws IOException {
+        writeGreeting(orderEvent, templates, writer);
+        writeSystemNotificationBody(templates, writer);
+    }
 
-        return content.toString();
+    private void writeSystemNotificationBody(LocalizedTemplates templates, ContentWriter writer) throws IOException {
+        writer.paragraph(templates.text("SYSTEM_NOTIFICATION.intro"));
+        writer.paragraph(templates.text("SYSTEM_NOTIFICATION.body"));
+        writer.paragraph(templates.text("SYSTEM_NOTIFICATION.outro"));
+        writer.closing(templates.closing("SYSTEM_NOTIFICATION.closing"));
     }
 
-    private String formatCurrency(BigDecimal amount, String currency) {
-        if (amount == null) return "N/A";
-        String currencySymbol = currency != null ? currency + " " : "$";
-        return currencySymbol + amount.toString();
+    private void writeGreeting(OrderEvent orderEvent, LocalizedTemplates templates, ContentWriter writer) throws IOException {
+        String customerName = orderEvent.getCustomerName() != null
+            ? orderEvent.getCustomerName() : templates.text("customer.default");
+        writer.greeting(templates.format("greeting", customerName));
     }
 
-    private String formatAddress(OrderEvent.Address address) {
-        StringBuilder formattedAddress = new StringBuilder();
-        if (address.getStreet() != null) formattedAddress.append(address.getStreet()).append("\n");
-        if (address.getCity() != null) formattedAddress.append(address.getCity());
-        if (address.getState() != null) formattedAddress.append(", ").append(address.getState());
-        if (address.getZipCode() != null) formattedAddress.append(" ").append(address.getZipCode());
-        if (address.getCountry() != null) formattedAddress.append("\n").append(address.getCountry());
-        return formattedAddress.toString();
+    private void writeAddress(String heading, OrderEvent.Address address, ContentWriter writer) throws IOException {
+        writer.blockStart(heading);
+        if (address.getStreet() != null) {
+            writer.text(address.getStreet());
+            writer.lineBreak();
+        }
+        if (address.getCity() != null) writer.text(address.getCity());
+        if (address.getState() != null) {
+            writer.text(", ");
+            writer.text(address.getState());
+        }
+        if (address.getZipCode() != null) {
+            writer.text(" ");
+            writer.text(address.getZipCode());
+        }
+        if (address.getCountry() != null) {
+            writer.lineBreak();
+            writer.text(address.getCountry());
+        }
+        writer.blockEnd();
     }
 }
@@ -0,0 +1,57 @@
+package com.microservices.email.service;
+
+import com.microservices.email.cache.WeightedLruCache;
+import com.microservices.email.entity.RenderedMessage;
+import com.microservices.email.repository.RenderedMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+// Rendered RFC 822 bytes of emails awaiting retry: a blob row per email, fronted by a byte-bounded LRU tier
+@Service
+public class RenderedMessageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderedMessageStore.class);
+
+    private final RenderedMessageRepository renderedMessageRepository;
+
+    private final WeightedLruCache<Long, byte[]> memoryTier;
+
+    public RenderedMessageStore(RenderedMessageRepository renderedMessageRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${email.rendered-cache.max-bytes:67108864}") long maxBytes) {
+        this.renderedMessageRepository = renderedMessageRepository;
+        this.memoryTier = new WeightedLruCache<Long, byte[]>(maxBytes, 16, bytes -> bytes.length)
+            .bindTo(meterRegistry, "rendered-messages");
+    }
+
+    public Optional<byte[]> find(Long emailId) {
+        byte[] cached = memoryTier.get(emailId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<byte[]> stored = renderedMessageRepository.findById(emailId).map(RenderedMessage::getMimeBytes);
+        stored.ifPresent(bytes -> memoryTier.put(emailId, bytes));
+        return stored;
+    }
+
+    public void store(Long emailId, byte[] mimeBytes) {
+        try {
+            renderedMessageRepository.save(new RenderedMessage(emailId, mimeBytes));
+            memoryTier.put(emailId, mimeBytes);
+        } catch (Exception e) {
+            // Retries fall back to rendering from subject and content
+            logger.warn("Could not store rendered message for email ID: {}", emailId, e);
+        }
+    }
+
+    public void remove(Long emailId) {
+        memoryTier.invalidate(emailId);
+        renderedMessageRepository.deleteById(emailId);
+    }
+}
@@ -0,0 +1,167 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.entity.RetryJob;
+import com.microservices.email.repository.RetryJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the retry of failed emails as a background job with an id, so callers get an answer at once
+ * and can poll its progress. Only one job is active across all instances at a time: the job row
+ * carries a uniquely constrained key while it is queued or running, so a second submission fails
+ * the insert instead of starting an overlapping run.
+ *
+ * <p>After every batch the job records the last email id it handled together with its counts. If
+ * the owning instance goes away, another one takes the job over once its heartbeat is stale and
+ * continues after that checkpoint.
+ */
+@Service
+public class RetryJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryJobService.class);
+
+    private final RetryJobRepository retryJobRepository;
+
+    private final EmailService emailService;
+
+    private final EmailLeaseService emailLeaseService;
+
+    private final Executor retryJobExecutor;
+
+    private final int maxInFlight;
+
+    private final long cutoffAgeMillis;
+
+    private final long stallTimeoutMillis;
+
+    public RetryJobService(RetryJobRepository retryJobRepository,
+                           EmailService emailService,
+                           EmailLeaseService emailLeaseService,
+                           @Qualifier("retryJobExecutor") Executor retryJobExecutor,
+                           @Value("${email.retry-job.max-in-flight:20}") int maxInFlight,
+                           @Value("${email.retry-job.cutoff-age-ms:3600000}") long cutoffAgeMillis,
+                           @Value("${email.retry-job.stall-timeout-ms:300000}") long stallTimeoutMillis) {
+        this.retryJobRepository = retryJobRepository;
+        this.emailService = emailService;
+        this.emailLeaseService = emailLeaseService;
+        this.retryJobExecutor = retryJobExecutor;
+        this.maxInFlight = maxInFlight;
+        this.cutoffAgeMillis = cutoffAgeMillis;
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    public record StartResult(RetryJob job, boolean started) {
+    }
+
+    /** Queues a new job, or returns the active one with {@code started == false} if a run is already underway. */
+    public StartResult start(String requestedBy) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            RetryJob job = new RetryJob(UUID.randomUUID().toString(), requestedBy, emailLeaseService.getInstanceId(),
+                                        now.minusNanos(cutoffAgeMillis * 1_000_000), now);
+            try {
+                job = retryJobRepository.saveAndFlush(job);
+            } catch (DataIntegrityViolationException e) {
+                // Another job holds the active key; it may have finished in between, so look before retrying
+                Optional<RetryJob> active = retryJobRepository.findByActiveKey(RetryJob.ACTIVE_KEY);
+                if (active.isPresent()) {
+                    logger.info("Retry job {} is already active, not starting another", active.get().getId());
+                    return new StartResult(active.get(), false);
+                }
+                continue;
+            }
+
+            logger.info("Queued retry job {} requested by {}", job.getId(), requestedBy);
+            submit(job.getId());
+            return new StartResult(job, true);
+        }
+        throw new IllegalStateException("Could not queue a retry job");
+    }
+
+    public Optional<RetryJob> findJob(String jobId) {
+        return retryJobRepository.findById(jobId);
+    }
+
+    public List<RetryJob> recentJobs() {
+        return retryJobRepository.findTop20ByOrderByRequestedAtDesc();
+    }
+
+    // Takes over active jobs whose owner has not checkpointed within the stall timeout and resumes them here
+    public int resumeStalledJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusNanos(stallTimeoutMillis * 1_000_000);
+        int resumed = 0;
+        for (String jobId : retryJobRepository.findStalledIds(staleBefore)) {
+            if (retryJobRepository.takeOver(jobId, emailLeaseService.getInstanceId(), now, staleBefore) == 1) {
+                logger.warn("Resuming stalled retry job {}", jobId);
+                submit(jobId);
+                resumed++;
+            }
+        }
+        return resumed;
+    }
+
+    private void submit(String jobId) {
+        try {
+            retryJobExecutor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            // Left active; the stall check resumes it once the heartbeat is stale
+            logger.error("Retry job {} could not be scheduled", jobId, e);
+        }
+    }
+
+    void run(String jobId) {
+        Optional<RetryJob> found = retryJobRepository.findById(jobId);
+        if (found.isEmpty() || !found.get().isActive()) {
+            return;
+        }
+
+        RetryJob[] job = { found.get() };
+        try {
+            job[0].markRunning(LocalDateTime.now());
+            job[0] = retryJobRepository.save(job[0]);
+            logger.info("Retry job {} running from checkpoint {}", jobId, job[0].getCheckpointId());
+
+            emailService.retryFailedEmails(job[0].getCutoffTime(), job[0].getCheckpointId(), maxInFlight,
+                (lastCandidateId, emails) -> {
+                    int sent = (int) emails.stream()
+                        .filter(email -> email.getEmailStatus() == Email.EmailStatus.SENT)
+                        .count();
+                    job[0].recordBatch(lastCandidateId, emails.size(), sent, LocalDateTime.now());
+                    job[0] = retryJobRepository.save(job[0]);
+                    return true;
+                });
+
+            job[0].finish(RetryJob.JobStatus.COMPLETED, null, LocalDateTime.now());
+            job[0] = retryJobRepository.save(job[0]);
+            logger.info("Retry job {} completed: claimed {}, sent {}, failed {}", jobId,
+                       job[0].getClaimedCount(), job[0].getSentCount(), job[0].getFailedCount());
+
+        } catch (OptimisticLockingFailureException e) {
+            // Another instance took the job over after our heartbeat went stale; it continues from our checkpoint
+            logger.warn("Retry job {} was taken over by another instance, stopping here", jobId);
+
+        } catch (Exception e) {
+            logger.error("Retry job {} failed", jobId, e);
+            try {
+                job[0].finish(RetryJob.JobStatus.FAILED, e.getMessage(), LocalDateTime.now());
+                retryJobRepository.save(job[0]);
+            } catch (Exception saveError) {
+                logger.error("Could not record failure of retry job {}", jobId, saveError);
+            }
+        }
+    }
+}
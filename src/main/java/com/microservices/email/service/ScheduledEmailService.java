@@ -0,0 +1,96 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.view.ScheduledEmailView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Database side of scheduled delivery: pages SCHEDULED emails into the timing wheel and releases
+ * them when they are due. Releasing moves an email to PENDING under a dispatch lease with one
+ * conditional update, so however many instances fire the same email, only one dispatches it.
+ */
+@Service
+public class ScheduledEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledEmailService.class);
+
+    private final EmailRepository emailRepository;
+
+    private final EmailLeaseService emailLeaseService;
+
+    private final EmailService emailService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final long overdueGraceMillis;
+
+    private final int sweepBatchSize;
+
+    public ScheduledEmailService(EmailRepository emailRepository,
+                                 EmailLeaseService emailLeaseService,
+                                 EmailService emailService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${email.schedule.overdue-grace-ms:30000}") long overdueGraceMillis,
+                                 @Value("${email.schedule.release-batch-size:500}") int sweepBatchSize) {
+        this.emailRepository = emailRepository;
+        this.emailLeaseService = emailLeaseService;
+        this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.overdueGraceMillis = overdueGraceMillis;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public List<ScheduledEmailView> loadScheduled(LocalDateTime afterAt, long afterId, LocalDateTime until, int limit) {
+        return emailRepository.findScheduled(Email.EmailStatus.SCHEDULED, afterAt, afterId, until,
+                                             PageRequest.of(0, limit));
+    }
+
+    // Ids that are no longer scheduled, or not due yet, are skipped; returns how many were dispatched
+    public int release(List<Long> emailIds) {
+        String claimToken = emailLeaseService.newClaimToken();
+        int released = emailRepository.releaseScheduled(emailIds, Email.EmailStatus.SCHEDULED, Email.EmailStatus.PENDING,
+                                                        claimToken, emailLeaseService.dispatchLeaseExpiry(),
+                                                        LocalDateTime.now());
+        if (released == 0) {
+            return 0;
+        }
+
+        for (Email email : emailRepository.findByClaimedByAndIdIn(claimToken, emailIds)) {
+            eventPublisher.publishEvent(EmailStatusChangedEvent.of(email));
+            emailService.dispatchEmail(email, null);
+        }
+        logger.debug("Released {} of {} due scheduled emails", released, emailIds.size());
+        return released;
+    }
+
+    // Safety net for emails no timing wheel fired, e.g. because the instance holding them went away
+    public int releaseOverdue() {
+        LocalDateTime dueBefore = LocalDateTime.now().minusNanos(overdueGraceMillis * 1_000_000);
+        int released = 0;
+        while (true) {
+            List<Long> ids = emailRepository.findScheduledIdsDueBefore(
+                Email.EmailStatus.SCHEDULED, dueBefore, PageRequest.of(0, sweepBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            released += release(ids);
+            if (ids.size() < sweepBatchSize) {
+                break;
+            }
+        }
+        if (released > 0) {
+            logger.info("Released {} overdue scheduled emails", released);
+        }
+        return released;
+    }
+}
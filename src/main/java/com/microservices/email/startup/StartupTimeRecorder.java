@@ -0,0 +1,65 @@
+package com.microservices.email.startup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures cold start from JVM launch: to application ready, and to the first OrderEvent handed to
+ * the consumer. The second figure is what matters when a replica is added during an order spike.
+ */
+@Component
+public final class StartupTimeRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeRecorder.class);
+
+    // Parsed by the startup benchmark; keep the wording stable
+    public static final String FIRST_EVENT_LOG_PREFIX = "Time to first consumed OrderEvent: ";
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final AtomicBoolean firstEventRecorded = new AtomicBoolean();
+
+    private volatile long readyMillis = -1;
+
+    private volatile long firstEventMillis = -1;
+
+    public StartupTimeRecorder(MeterRegistry meterRegistry) {
+        Gauge.builder("email.startup.ready.seconds", this, recorder -> seconds(recorder.readyMillis))
+            .description("Time from JVM start until the application was ready")
+            .register(meterRegistry);
+        Gauge.builder("email.startup.first.event.seconds", this, recorder -> seconds(recorder.firstEventMillis))
+            .description("Time from JVM start until the first OrderEvent was consumed")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readyMillis = System.currentTimeMillis() - jvmStartMillis;
+        logger.info("Application ready {} ms after JVM start", readyMillis);
+    }
+
+    // Called for every consumed event; after the first one this is a single volatile read
+    public void recordOrderEventConsumed() {
+        if (firstEventMillis >= 0 || !firstEventRecorded.compareAndSet(false, true)) {
+            return;
+        }
+        firstEventMillis = System.currentTimeMillis() - jvmStartMillis;
+        logger.info(FIRST_EVENT_LOG_PREFIX + "{} ms after JVM start (ready after {} ms)", firstEventMillis, readyMillis);
+    }
+
+    public long getFirstEventMillis() {
+        return firstEventMillis;
+    }
+
+    private static double seconds(long millis) {
+        return millis < 0 ? Double.NaN : millis / 1000.0;
+    }
+}
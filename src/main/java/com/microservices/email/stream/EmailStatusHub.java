@@ -0,0 +1,348 @@
+package com.microservices.email.stream;
+
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.view.EmailHistoryView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * In-memory fan-out of email status changes to subscribers of one order, one customer or all
+ * emails. Publishing never blocks: each subscriber has its own bounded buffer, drained by its own
+ * delivery task, so a slow client only ever holds up itself.
+ *
+ * <p>When a buffer is full the overflow policy decides: DROP_OLDEST discards the oldest buffered
+ * event and tells the client how many it missed; DISCONNECT closes the subscription so the client
+ * reconnects and re-reads the current state.
+ */
+public class EmailStatusHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailStatusHub.class);
+
+    public enum OverflowPolicy { DROP_OLDEST, DISCONNECT }
+
+    public enum ScopeType { ALL, ORDER, CUSTOMER }
+
+    public record Scope(ScopeType type, Long orderId, String customerId) {
+
+        public static Scope all() {
+            return new Scope(ScopeType.ALL, null, null);
+        }
+
+        public static Scope order(Long orderId) {
+            return new Scope(ScopeType.ORDER, orderId, null);
+        }
+
+        public static Scope customer(String customerId) {
+            return new Scope(ScopeType.CUSTOMER, null, customerId);
+        }
+    }
+
+    private final ExecutorService deliveryExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int bufferSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int maxSubscribers;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final Set<Subscription> global = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentHashMap<Long, Set<Subscription>> byOrder = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Set<Subscription>> byCustomer = new ConcurrentHashMap<>();
+
+    private final Counter droppedEvents;
+
+    private final Map<String, Counter> closedCounters = new ConcurrentHashMap<>();
+
+    public EmailStatusHub(ExecutorService deliveryExecutor, MeterRegistry meterRegistry,
+                          int bufferSize, OverflowPolicy overflowPolicy, int maxSubscribers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.deliveryExecutor = deliveryExecutor;
+        this.meterRegistry = meterRegistry;
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.maxSubscribers = maxSubscribers;
+
+        this.droppedEvents = Counter.builder("email.status.stream.dropped")
+            .description("Status events discarded because a subscriber fell behind")
+            .register(meterRegistry);
+        Gauge.builder("email.status.stream.subscribers", subscriptions, Set::size)
+            .description("Open email status subscriptions")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Registers a subscription that buffers events but delivers nothing until {@link Subscription#start}.
+     * Returns null when the subscriber limit has been reached.
+     */
+    public Subscription subscribe(Scope scope, StatusSink sink) {
+        Subscription subscription = new Subscription(scope, sink);
+        synchronized (subscriptions) {
+            if (subscriptions.size() >= maxSubscribers) {
+                return null;
+            }
+            subscriptions.add(subscription);
+        }
+
+        switch (scope.type()) {
+            case ALL -> global.add(subscription);
+            case ORDER -> byOrder.compute(scope.orderId(), (key, set) -> add(set, subscription));
+            case CUSTOMER -> byCustomer.compute(scope.customerId(), (key, set) -> add(set, subscription));
+        }
+        logger.debug("Opened status subscription for {}", scope);
+        return subscription;
+    }
+
+    // Runs on the committing thread and only enqueues, so it adds no latency to the write path
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailStatusChanged(EmailStatusChangedEvent event) {
+        publish(event);
+    }
+
+    public void publish(EmailStatusChangedEvent event) {
+        for (Subscription subscription : global) {
+            subscription.offer(event);
+        }
+        offerAll(event.orderId() != null ? byOrder.get(event.orderId()) : null, event);
+        offerAll(event.customerId() != null ? byCustomer.get(event.customerId()) : null, event);
+    }
+
+    // Keeps idle connections alive through proxies and detects clients that went away silently
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.requestHeartbeat();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            remove(subscription, "shutdown", true);
+        }
+        deliveryExecutor.shutdown();
+    }
+
+    private void offerAll(Set<Subscription> subscribers, EmailStatusChangedEvent event) {
+        if (subscribers != null) {
+            for (Subscription subscription : subscribers) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    private void remove(Subscription subscription, String reason, boolean closeSink) {
+        if (!subscription.markClosed()) {
+            return;
+        }
+        subscriptions.remove(subscription);
+        Scope scope = subscription.scope;
+        switch (scope.type()) {
+            case ALL -> global.remove(subscription);
+            case ORDER -> byOrder.computeIfPresent(scope.orderId(), (key, set) -> without(set, subscription));
+            case CUSTOMER -> byCustomer.computeIfPresent(scope.customerId(), (key, set) -> without(set, subscription));
+        }
+
+        closedCounters.computeIfAbsent(reason, r -> Counter.builder("email.status.stream.closed")
+                .description("Email status subscriptions closed")
+                .tag("reason", r)
+                .register(meterRegistry))
+            .increment();
+        logger.debug("Closed status subscription for {} ({})", scope, reason);
+
+        if (closeSink) {
+            deliveryExecutor.execute(() -> {
+                try {
+                    subscription.sink.close();
+                } catch (Exception e) {
+                    logger.debug("Error closing status subscription for {}", scope, e);
+                }
+            });
+        }
+    }
+
+    private static Set<Subscription> add(Set<Subscription> set, Subscription subscription) {
+        Set<Subscription> subscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+        subscribers.add(subscription);
+        return subscribers;
+    }
+
+    // Returning null drops the key, so the indexes never hold orders nobody listens to anymore
+    private static Set<Subscription> without(Set<Subscription> set, Subscription subscription) {
+        set.remove(subscription);
+        return set.isEmpty() ? null : set;
+    }
+
+    /**
+     * One subscriber's buffer. At most one delivery task runs per subscription, so the sink sees
+     * events in publish order and never concurrently.
+     */
+    public final class Subscription {
+
+        private final Scope scope;
+
+        private final StatusSink sink;
+
+        // Guarded by this
+        private final ArrayDeque<EmailStatusChangedEvent> buffer = new ArrayDeque<>();
+        private List<EmailHistoryView> snapshot;
+        private long droppedSinceLastNotice;
+        private boolean heartbeatDue;
+        private boolean started;
+        private boolean draining;
+        private boolean closed;
+
+        private Subscription(Scope scope, StatusSink sink) {
+            this.scope = scope;
+            this.sink = sink;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        /**
+         * Starts delivery, optionally with a snapshot of the current state. Taken after subscribing, the
+         * snapshot cannot miss a change; events buffered meanwhile follow it and may repeat what it shows.
+         */
+        public void start(List<EmailHistoryView> initialSnapshot) {
+            synchronized (this) {
+                if (closed || started) {
+                    return;
+                }
+                started = true;
+                snapshot = initialSnapshot;
+            }
+            scheduleDrain();
+        }
+
+        // Client disconnected, timed out or failed
+        public void cancel() {
+            remove(this, "client", false);
+        }
+
+        private void offer(EmailStatusChangedEvent event) {
+            boolean disconnect = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                        disconnect = true;
+                    } else {
+                        buffer.pollFirst();
+                        droppedSinceLastNotice++;
+                        droppedEvents.increment();
+                    }
+                }
+                if (!disconnect) {
+                    buffer.addLast(event);
+                }
+            }
+            if (disconnect) {
+                remove(this, "slow_consumer", true);
+            } else {
+                scheduleDrain();
+            }
+        }
+
+        private void requestHeartbeat() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                heartbeatDue = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (!started || draining || closed) {
+                    return;
+                }
+                draining = true;
+            }
+            deliveryExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<EmailHistoryView> pendingSnapshot;
+                long dropped;
+                boolean heartbeat;
+                EmailStatusChangedEvent event;
+                synchronized (this) {
+                    if (closed) {
+                        draining = false;
+                        return;
+                    }
+                    pendingSnapshot = snapshot;
+                    snapshot = null;
+                    dropped = droppedSinceLastNotice;
+                    droppedSinceLastNotice = 0;
+                    event = buffer.pollFirst();
+                    heartbeat = heartbeatDue && event == null && pendingSnapshot == null && dropped == 0;
+                    heartbeatDue = heartbeatDue && !heartbeat;
+                    if (pendingSnapshot == null && dropped == 0 && event == null && !heartbeat) {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                try {
+                    if (pendingSnapshot != null) {
+                        sink.sendSnapshot(pendingSnapshot);
+                    }
+                    if (dropped > 0) {
+                        sink.sendDropped(dropped);
+                    }
+                    if (event != null) {
+                        sink.sendStatus(event);
+                    }
+                    if (heartbeat) {
+                        sink.sendHeartbeat();
+                    }
+                } catch (Exception e) {
+                    logger.debug("Status subscription for {} failed, closing", scope, e);
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    remove(this, "send_failed", true);
+                    return;
+                }
+            }
+        }
+
+        private synchronized boolean markClosed() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            buffer.clear();
+            snapshot = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.microservices.email.stream;
+
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.view.EmailHistoryView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class SseStatusSink implements StatusSink {
+
+    private final SseEmitter emitter;
+
+    public SseStatusSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void sendSnapshot(List<EmailHistoryView> emails) throws IOException {
+        emitter.send(SseEmitter.event().name("snapshot").data(emails));
+    }
+
+    @Override
+    public void sendStatus(EmailStatusChangedEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+            .id(event.emailId() + ":" + event.emailStatus())
+            .name("status")
+            .data(event));
+    }
+
+    @Override
+    public void sendDropped(long count) throws IOException {
+        emitter.send(SseEmitter.event().name("dropped").data(Map.of("count", count)));
+    }
+
+    @Override
+    public void sendHeartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,22 @@
+package com.microservices.email.stream;
+
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.view.EmailHistoryView;
+
+import java.io.IOException;
+import java.util.List;
+
+// Client side of a status subscription; only ever called from one delivery thread at a time
+public interface StatusSink {
+
+    void sendSnapshot(List<EmailHistoryView> emails) throws IOException;
+
+    void sendStatus(EmailStatusChangedEvent event) throws IOException;
+
+    // Events were discarded because the client fell behind
+    void sendDropped(long count) throws IOException;
+
+    void sendHeartbeat() throws IOException;
+
+    void close();
+}
@@ -0,0 +1,45 @@
+package com.microservices.email.suppression;
+
+/**
+ * 64-bit hash of an email address, case-insensitive and ignoring surrounding whitespace. Only these
+ * hashes are kept, never the addresses. Hashing walks the characters in place, so checking an
+ * address allocates nothing.
+ */
+public final class AddressHasher {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private AddressHasher() {
+    }
+
+    public static long hash(CharSequence address) {
+        int start = 0;
+        int end = address.length();
+        while (start < end && Character.isWhitespace(address.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(address.charAt(end - 1))) {
+            end--;
+        }
+
+        long hash = FNV_OFFSET;
+        for (int i = start; i < end; i++) {
+            char c = address.charAt(i);
+            c = c < 128 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return OffHeapLongHashSet.normalizeKey(mix(hash ^ (end - start)));
+    }
+
+    // MurmurHash3 finalizer: FNV leaves the low bits, which pick the slot, poorly mixed
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
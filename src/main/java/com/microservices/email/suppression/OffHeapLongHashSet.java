@@ -0,0 +1,262 @@
+package com.microservices.email.suppression;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing set of non-zero 64-bit keys stored outside the Java heap, eight bytes per slot,
+ * with linear probing. At the maximum load factor of one half, tens of millions of keys take a few
+ * hundred megabytes of native memory and no GC work.
+ *
+ * <p>Reads are lock-free and allocation-free: a lookup reads the current table through a volatile
+ * field and probes it with acquire loads. Writes are serialized on the set; a write never moves a
+ * key within a table, and growing or purging tombstones builds a new table that is published
+ * whole, so readers always probe a consistent table.
+ *
+ * <p>Snapshots are the raw table behind a small header. Loading maps the file copy-on-write, so a
+ * large set is usable straight away and its pages are faulted in as lookups touch them.
+ */
+public final class OffHeapLongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+
+    private static final int MAGIC = 0x53555050; // "SUPP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    // 1 GiB of slots, i.e. up to 67M keys; one direct buffer cannot address 2 GiB
+    public static final int MAX_CAPACITY = 1 << 27;
+
+    private static final VarHandle SLOT =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private volatile Table table;
+
+    public OffHeapLongHashSet(int expectedSize) {
+        this.table = Table.allocate(capacityFor(expectedSize));
+    }
+
+    private OffHeapLongHashSet(Table table) {
+        this.table = table;
+    }
+
+    /** Keys are expected to be well mixed; 0 and -1 are reserved and mapped to other values. */
+    public static long normalizeKey(long key) {
+        return key == EMPTY || key == TOMBSTONE ? 0x9E3779B97F4A7C15L : key;
+    }
+
+    public boolean contains(long key) {
+        key = normalizeKey(key);
+        Table current = table;
+        int mask = current.capacity - 1;
+        for (int slot = current.indexFor(key), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long value = current.getAcquire(slot);
+            if (value == key) {
+                return true;
+            }
+            if (value == EMPTY) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean add(long key) {
+        key = normalizeKey(key);
+        Table current = table;
+        int mask = current.capacity - 1;
+        int firstTombstone = -1;
+        int slot = current.indexFor(key);
+        for (int probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long value = current.getPlain(slot);
+            if (value == key) {
+                return false;
+            }
+            if (value == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = slot;
+                }
+            } else if (value == EMPTY) {
+                break;
+            }
+        }
+
+        if (firstTombstone >= 0) {
+            current.setRelease(firstTombstone, key);
+            current.tombstones--;
+        } else {
+            if (current.size + current.tombstones + 1 > current.capacity >>> 1) {
+                // Rebuild first so the new key lands in a table with room to spare
+                table = current = rebuild(current, current.size + 1);
+                slot = current.indexFor(key);
+                mask = current.capacity - 1;
+                while (current.getPlain(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+            }
+            current.setRelease(slot, key);
+        }
+        current.size++;
+        return true;
+    }
+
+    // The key is replaced by a tombstone so that probe chains running through its slot stay intact
+    public synchronized boolean remove(long key) {
+        key = normalizeKey(key);
+        Table current = table;
+        int mask = current.capacity - 1;
+        for (int slot = current.indexFor(key), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long value = current.getPlain(slot);
+            if (value == key) {
+                current.setRelease(slot, TOMBSTONE);
+                current.size--;
+                current.tombstones++;
+                return true;
+            }
+            if (value == EMPTY) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public synchronized long size() {
+        return table.size;
+    }
+
+    public int capacity() {
+        return table.capacity;
+    }
+
+    public long offHeapBytes() {
+        return (long) table.capacity * Long.BYTES;
+    }
+
+    /** Writes the table to {@code file} through a temporary file, so a crash never leaves a torn snapshot. */
+    public synchronized void snapshotTo(Path file) throws IOException {
+        Table current = table;
+        long tableBytes = (long) current.capacity * Long.BYTES;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + tableBytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, FORMAT_VERSION);
+            mapped.putInt(8, current.capacity);
+            mapped.putLong(16, current.size);
+            mapped.putLong(24, current.tombstones);
+            mapped.put(HEADER_BYTES, current.buffer, 0, (int) tableBytes);
+            mapped.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static OffHeapLongHashSet loadFrom(Path file) throws IOException {
+        // A private mapping needs a channel open for writing, though nothing is ever written back
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a suppression snapshot: " + file);
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported suppression snapshot version " + header.getInt(4) + ": " + file);
+            }
+            int capacity = header.getInt(8);
+            long tableBytes = (long) capacity * Long.BYTES;
+            if (Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY || channel.size() < HEADER_BYTES + tableBytes) {
+                throw new IOException("Corrupt suppression snapshot: " + file);
+            }
+
+            // Copy-on-write: later adds and removes stay in memory and never touch the file
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, HEADER_BYTES, tableBytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            Table table = new Table(buffer, capacity);
+            table.size = header.getLong(16);
+            table.tombstones = header.getLong(24);
+            return new OffHeapLongHashSet(table);
+        }
+    }
+
+    private static Table rebuild(Table source, long minSize) {
+        // Purging tombstones alone is enough while the live keys fit comfortably
+        Table target = Table.allocate(capacityFor(Math.max(minSize, source.size + (source.size >>> 1))));
+        int mask = target.capacity - 1;
+        for (int i = 0; i < source.capacity; i++) {
+            long key = source.getPlain(i);
+            if (key != EMPTY && key != TOMBSTONE) {
+                int slot = target.indexFor(key);
+                while (target.getPlain(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                target.setPlain(slot, key);
+                target.size++;
+            }
+        }
+        return target;
+    }
+
+    // Smallest power of two that keeps the load factor at or below one half
+    private static int capacityFor(long expectedSize) {
+        long needed = Math.max(16, expectedSize * 2);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Suppression set cannot hold " + expectedSize + " keys");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static final class Table {
+
+        private final ByteBuffer buffer;
+        private final int capacity;
+        // Written only under the set's lock
+        private long size;
+        private long tombstones;
+
+        private Table(ByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Table allocate(int capacity) {
+            // Direct buffers start zeroed, i.e. every slot EMPTY
+            return new Table(ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN), capacity);
+        }
+
+        int indexFor(long key) {
+            // Keys are already hashes; fold the high bits in so small tables use them too
+            return (int) (key ^ (key >>> 32)) & (capacity - 1);
+        }
+
+        long getAcquire(int slot) {
+            return (long) SLOT.getAcquire(buffer, slot * Long.BYTES);
+        }
+
+        long getPlain(int slot) {
+            return (long) SLOT.get(buffer, slot * Long.BYTES);
+        }
+
+        void setRelease(int slot, long value) {
+            SLOT.setRelease(buffer, slot * Long.BYTES, value);
+        }
+
+        void setPlain(int slot, long value) {
+            SLOT.set(buffer, slot * Long.BYTES, value);
+        }
+    }
+}
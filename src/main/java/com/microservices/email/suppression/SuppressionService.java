@@ -0,0 +1,145 @@
+package com.microservices.email.suppression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Addresses that must not be mailed (hard bounces, unsubscribes), kept as hashes in an off-heap set
+@Service
+public class SuppressionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuppressionService.class);
+
+    private final OffHeapLongHashSet suppressed;
+
+    private final Path snapshotPath;
+
+    private final Counter suppressedSends;
+
+    // Set by every change, cleared by a snapshot
+    private final AtomicBoolean changedSinceSnapshot = new AtomicBoolean();
+
+    public SuppressionService(MeterRegistry meterRegistry,
+                              @Value("${email.suppression.snapshot-path:}") String snapshotPath,
+                              @Value("${email.suppression.initial-capacity:1000000}") int initialCapacity) {
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.suppressed = load(this.snapshotPath, initialCapacity);
+
+        this.suppressedSends = Counter.builder("email.suppression.hits")
+            .description("Emails not created because the recipient is suppressed")
+            .register(meterRegistry);
+        Gauge.builder("email.suppression.size", suppressed, OffHeapLongHashSet::size)
+            .description("Suppressed addresses")
+            .register(meterRegistry);
+        Gauge.builder("email.suppression.off.heap.bytes", suppressed, OffHeapLongHashSet::offHeapBytes)
+            .description("Native memory held by the suppression set")
+            .register(meterRegistry);
+    }
+
+    // Lock-free and allocation-free; called for every order event before anything touches the database
+    public boolean isSuppressed(String emailAddress) {
+        if (!contains(emailAddress)) {
+            return false;
+        }
+        suppressedSends.increment();
+        return true;
+    }
+
+    // Lookup only, for admin checks that must not show up as suppressed sends
+    public boolean contains(String emailAddress) {
+        return emailAddress != null && suppressed.contains(AddressHasher.hash(emailAddress));
+    }
+
+    public int suppress(Collection<String> emailAddresses) {
+        int added = 0;
+        for (String emailAddress : emailAddresses) {
+            if (emailAddress != null && !emailAddress.isBlank() && suppressed.add(AddressHasher.hash(emailAddress))) {
+                added++;
+            }
+        }
+        if (added > 0) {
+            changedSinceSnapshot.set(true);
+        }
+        logger.info("Suppressed {} new of {} submitted addresses", added, emailAddresses.size());
+        return added;
+    }
+
+    public int unsuppress(Collection<String> emailAddresses) {
+        int removed = 0;
+        for (String emailAddress : emailAddresses) {
+            if (emailAddress != null && suppressed.remove(AddressHasher.hash(emailAddress))) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            changedSinceSnapshot.set(true);
+        }
+        logger.info("Lifted suppression for {} of {} submitted addresses", removed, emailAddresses.size());
+        return removed;
+    }
+
+    public long size() {
+        return suppressed.size();
+    }
+
+    public long offHeapBytes() {
+        return suppressed.offHeapBytes();
+    }
+
+    // Returns false when no snapshot path is configured
+    public boolean snapshot() {
+        if (snapshotPath == null) {
+            return false;
+        }
+        try {
+            changedSinceSnapshot.set(false);
+            suppressed.snapshotTo(snapshotPath);
+            logger.info("Wrote suppression snapshot with {} addresses to {}", suppressed.size(), snapshotPath);
+            return true;
+        } catch (IOException e) {
+            changedSinceSnapshot.set(true);
+            throw new UncheckedIOException("Could not write suppression snapshot to " + snapshotPath, e);
+        }
+    }
+
+    // Runs on a schedule and writes out admin changes and bounce-fed suppressions alike
+    public boolean snapshotIfChanged() {
+        return changedSinceSnapshot.get() && snapshot();
+    }
+
+    // Changes since the last periodic snapshot survive a graceful shutdown
+    @PreDestroy
+    public void shutdown() {
+        try {
+            snapshotIfChanged();
+        } catch (UncheckedIOException e) {
+            logger.error("Could not write suppression snapshot on shutdown", e);
+        }
+    }
+
+    private static OffHeapLongHashSet load(Path snapshotPath, int initialCapacity) {
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                OffHeapLongHashSet loaded = OffHeapLongHashSet.loadFrom(snapshotPath);
+                logger.info("Loaded {} suppressed addresses from {}", loaded.size(), snapshotPath);
+                return loaded;
+            } catch (IOException e) {
+                // Sending to a few suppressed addresses beats refusing to start
+                logger.error("Could not load suppression snapshot {}, starting empty", snapshotPath, e);
+            }
+        }
+        return new OffHeapLongHashSet(initialCapacity);
+    }
+}
@@ -0,0 +1,13 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+
+/**
+ * A body template bound to its data. It is replayed once per alternative part, each time into a
+ * different {@link ContentWriter}.
+ */
+@FunctionalInterface
+public interface ContentTemplate {
+
+    void writeTo(ContentWriter writer) throws IOException;
+}
@@ -0,0 +1,45 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+
+/**
+ * Structural sink for email bodies. Templates describe a body once as a sequence of these calls;
+ * the plain-text and HTML implementations turn them into the two alternative parts, writing
+ * straight to their target without building the whole body as a String first.
+ */
+public interface ContentWriter {
+
+    void begin() throws IOException;
+
+    void end() throws IOException;
+
+    // The full salutation line, already localized
+    void greeting(String line) throws IOException;
+
+    void paragraph(String text) throws IOException;
+
+    void fieldsStart(String heading) throws IOException;
+
+    void field(String label, String value) throws IOException;
+
+    void fieldsEnd() throws IOException;
+
+    void listStart(String heading) throws IOException;
+
+    void listItemStart() throws IOException;
+
+    void listItemEnd() throws IOException;
+
+    void listEnd() throws IOException;
+
+    void blockStart(String heading) throws IOException;
+
+    void blockEnd() throws IOException;
+
+    // Inline content, usable inside list items and blocks
+    void text(CharSequence text) throws IOException;
+
+    void lineBreak() throws IOException;
+
+    void closing(String... lines) throws IOException;
+}
@@ -0,0 +1,104 @@
+package com.microservices.email.template;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Immutable currency formatter for one (locale, currency) pair. The affixes, separators, grouping
+ * and fraction digits are taken once from the JDK's DecimalFormat, which is not thread-safe; after
+ * that, formatting shares no mutable state and needs neither locks nor per-thread clones.
+ */
+public final class CurrencyFormatter {
+
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final int groupingSize;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final char zeroDigit;
+    private final int minimumFractionDigits;
+    private final int maximumFractionDigits;
+    private final RoundingMode roundingMode;
+
+    private CurrencyFormatter(DecimalFormat format) {
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        this.positivePrefix = format.getPositivePrefix();
+        this.positiveSuffix = format.getPositiveSuffix();
+        this.negativePrefix = format.getNegativePrefix();
+        this.negativeSuffix = format.getNegativeSuffix();
+        this.groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+        this.groupingSeparator = symbols.getMonetaryGroupingSeparator();
+        this.decimalSeparator = symbols.getMonetaryDecimalSeparator();
+        this.zeroDigit = symbols.getZeroDigit();
+        this.minimumFractionDigits = format.getMinimumFractionDigits();
+        this.maximumFractionDigits = format.getMaximumFractionDigits();
+        this.roundingMode = format.getRoundingMode();
+    }
+
+    public static CurrencyFormatter of(Locale locale, Currency currency) {
+        NumberFormat format = NumberFormat.getCurrencyInstance(locale);
+        format.setCurrency(currency);
+        if (!(format instanceof DecimalFormat decimalFormat)) {
+            throw new IllegalArgumentException("No decimal currency format for locale " + locale);
+        }
+        return new CurrencyFormatter(decimalFormat);
+    }
+
+    public String format(BigDecimal amount) {
+        StringBuilder out = new StringBuilder(24);
+        formatTo(amount, out);
+        return out.toString();
+    }
+
+    public void formatTo(BigDecimal amount, StringBuilder out) {
+        BigDecimal scaled = amount.setScale(maximumFractionDigits, roundingMode);
+        boolean negative = scaled.signum() < 0;
+        String digits = scaled.unscaledValue().abs().toString();
+
+        int fractionDigits = maximumFractionDigits;
+        // Trailing zeros beyond the minimum are dropped, as DecimalFormat does
+        while (fractionDigits > minimumFractionDigits && digits.charAt(digits.length() - 1) == '0'
+               && digits.length() > 1) {
+            digits = digits.substring(0, digits.length() - 1);
+            fractionDigits--;
+        }
+
+        int integerDigits = digits.length() - fractionDigits;
+        out.append(negative ? negativePrefix : positivePrefix);
+
+        if (integerDigits <= 0) {
+            out.append(zeroDigit);
+        } else {
+            for (int i = 0; i < integerDigits; i++) {
+                if (groupingSize > 0 && i > 0 && (integerDigits - i) % groupingSize == 0) {
+                    out.append(groupingSeparator);
+                }
+                appendDigit(out, digits.charAt(i));
+            }
+        }
+
+        if (fractionDigits > 0) {
+            out.append(decimalSeparator);
+            for (int i = integerDigits; i < 0; i++) {
+                out.append(zeroDigit);
+            }
+            for (int i = Math.max(integerDigits, 0); i < digits.length(); i++) {
+                appendDigit(out, digits.charAt(i));
+            }
+        }
+
+        out.append(negative ? negativeSuffix : positiveSuffix);
+    }
+
+    // Locales such as ar-EG render native digits
+    private void appendDigit(StringBuilder out, char asciiDigit) {
+        out.append((char) (zeroDigit + (asciiDigit - '0')));
+    }
+}
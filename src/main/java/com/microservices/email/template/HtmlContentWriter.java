@@ -0,0 +1,132 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+
+public class HtmlContentWriter implements ContentWriter {
+
+    private final Appendable out;
+
+    public HtmlContentWriter(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin() throws IOException {
+        out.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"></head>\n")
+           .append("<body style=\"font-family: Arial, sans-serif; color: #222222;\">\n");
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.append("</body></html>\n");
+    }
+
+    @Override
+    public void greeting(String line) throws IOException {
+        out.append("<p>");
+        escape(line);
+        out.append("</p>\n");
+    }
+
+    @Override
+    public void paragraph(String text) throws IOException {
+        out.append("<p>");
+        escape(text);
+        out.append("</p>\n");
+    }
+
+    @Override
+    public void fieldsStart(String heading) throws IOException {
+        heading(heading);
+        out.append("<table cellpadding=\"4\">\n");
+    }
+
+    @Override
+    public void field(String label, String value) throws IOException {
+        out.append("<tr><th align=\"left\">");
+        escape(label);
+        out.append("</th><td>");
+        escape(value);
+        out.append("</td></tr>\n");
+    }
+
+    @Override
+    public void fieldsEnd() throws IOException {
+        out.append("</table>\n");
+    }
+
+    @Override
+    public void listStart(String heading) throws IOException {
+        heading(heading);
+        out.append("<ul>\n");
+    }
+
+    @Override
+    public void listItemStart() throws IOException {
+        out.append("<li>");
+    }
+
+    @Override
+    public void listItemEnd() throws IOException {
+        out.append("</li>\n");
+    }
+
+    @Override
+    public void listEnd() throws IOException {
+        out.append("</ul>\n");
+    }
+
+    @Override
+    public void blockStart(String heading) throws IOException {
+        heading(heading);
+        out.append("<p>");
+    }
+
+    @Override
+    public void blockEnd() throws IOException {
+        out.append("</p>\n");
+    }
+
+    @Override
+    public void text(CharSequence text) throws IOException {
+        escape(text);
+    }
+
+    @Override
+    public void lineBreak() throws IOException {
+        out.append("<br>\n");
+    }
+
+    @Override
+    public void closing(String... lines) throws IOException {
+        out.append("<p>");
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                out.append("<br>\n");
+            }
+            escape(lines[i]);
+        }
+        out.append("</p>\n");
+    }
+
+    private void heading(String heading) throws IOException {
+        out.append("<h3>");
+        escape(heading);
+        out.append("</h3>\n");
+    }
+
+    // Escapes character by character so no escaped copy of the text is allocated
+    private void escape(CharSequence text) throws IOException {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Template messages of one bundle together with the date and currency formatters of one locale.
+ * Everything is compiled up front and immutable, except the per-currency formatter map, which is
+ * only written the first time a currency is seen. Rendering therefore never takes a lock.
+ */
+public final class LocalizedTemplates {
+
+    private final Locale locale;
+
+    private final Map<String, MessagePattern> messages;
+
+    private final Map<String, String[]> closings;
+
+    private final DateTimeFormatter dateFormatter;
+
+    private final String notAvailable;
+
+    private final ConcurrentHashMap<String, CurrencyFormatter> currencyFormatters = new ConcurrentHashMap<>();
+
+    private LocalizedTemplates(Locale locale, Messages messages) {
+        this.locale = locale;
+        this.messages = messages.patterns;
+        this.closings = messages.closings;
+        this.dateFormatter = locale != null
+            ? DateTimeFormatter.ofPattern(messages.datePattern, locale)
+            : DateTimeFormatter.ofPattern(messages.datePattern);
+        this.notAvailable = text("value.notAvailable");
+    }
+
+    // The default bundle keeps the original English formats: "USD 99.99" and the JVM-locale date pattern
+    public static LocalizedTemplates defaults(ResourceBundle bundle) {
+        return new LocalizedTemplates(null, Messages.compile(bundle));
+    }
+
+    public static LocalizedTemplates forLocale(Locale locale, Messages messages) {
+        return new LocalizedTemplates(locale, messages);
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public String text(String key) {
+        return pattern(key).format();
+    }
+
+    public String format(String key, CharSequence... args) {
+        return pattern(key).format(args);
+    }
+
+    public void write(ContentWriter writer, String key, CharSequence... args) throws IOException {
+        pattern(key).writeTo(writer, args);
+    }
+
+    public String[] closing(String key) {
+        String[] lines = closings.get(key);
+        if (lines == null) {
+            throw new IllegalArgumentException("No closing '" + key + "' in templates for " + locale);
+        }
+        return lines;
+    }
+
+    public String formatDate(LocalDateTime dateTime) {
+        return dateTime != null ? dateFormatter.format(dateTime) : notAvailable;
+    }
+
+    public String formatCurrency(BigDecimal amount, String currency) {
+        if (amount == null) return notAvailable;
+
+        CurrencyFormatter formatter = locale != null ? currencyFormatter(currency) : null;
+        if (formatter == null) {
+            String currencySymbol = currency != null ? currency + " " : "$";
+            return currencySymbol + amount.toString();
+        }
+        return formatter.format(amount);
+    }
+
+    private CurrencyFormatter currencyFormatter(String currency) {
+        if (currency == null) {
+            return null;
+        }
+        CurrencyFormatter formatter = currencyFormatters.get(currency);
+        if (formatter != null) {
+            return formatter;
+        }
+        // Only valid ISO 4217 codes are cached, so the map is bounded by the currency table
+        Currency isoCurrency;
+        try {
+            isoCurrency = Currency.getInstance(currency);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return currencyFormatters.computeIfAbsent(currency, code -> CurrencyFormatter.of(locale, isoCurrency));
+    }
+
+    private MessagePattern pattern(String key) {
+        MessagePattern pattern = messages.get(key);
+        if (pattern == null) {
+            throw new IllegalArgumentException("No template message '" + key + "' for " + locale);
+        }
+        return pattern;
+    }
+
+    /**
+     * The compiled messages of one resource bundle, shared by every locale rendered with it.
+     */
+    public static final class Messages {
+
+        private final Map<String, MessagePattern> patterns;
+
+        private final Map<String, String[]> closings;
+
+        private final String datePattern;
+
+        private Messages(Map<String, MessagePattern> patterns, Map<String, String[]> closings, String datePattern) {
+            this.patterns = patterns;
+            this.closings = closings;
+            this.datePattern = datePattern;
+        }
+
+        public static Messages compile(ResourceBundle bundle) {
+            Map<String, MessagePattern> patterns = new HashMap<>();
+            Map<String, String[]> closings = new HashMap<>();
+            // keySet() includes keys inherited from the parent bundle, so partial translations still render
+            for (String key : bundle.keySet()) {
+                String message = bundle.getString(key);
+                patterns.put(key, MessagePattern.compile(message));
+                if (key.endsWith(".closing")) {
+                    closings.put(key, message.split("\n"));
+                }
+            }
+            return new Messages(Map.copyOf(patterns), Map.copyOf(closings), bundle.getString("date.pattern"));
+        }
+    }
+}
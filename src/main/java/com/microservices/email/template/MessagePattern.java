@@ -0,0 +1,85 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bundle message with {@code {0}}, {@code {1}}... placeholders, split into literal segments once
+ * when the bundle is loaded. Immutable, so a single instance is shared by all rendering threads.
+ */
+public final class MessagePattern {
+
+    private final String[] literals;
+
+    private final int[] argumentIndexes;
+
+    private MessagePattern(String[] literals, int[] argumentIndexes) {
+        this.literals = literals;
+        this.argumentIndexes = argumentIndexes;
+    }
+
+    public static MessagePattern compile(String message) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+
+        int start = 0;
+        int open = message.indexOf('{');
+        while (open >= 0) {
+            int close = message.indexOf('}', open);
+            if (close < 0 || !isIndex(message, open + 1, close)) {
+                open = message.indexOf('{', open + 1);
+                continue;
+            }
+            literals.add(message.substring(start, open));
+            arguments.add(Integer.parseInt(message, open + 1, close, 10));
+            start = close + 1;
+            open = message.indexOf('{', start);
+        }
+        literals.add(message.substring(start));
+
+        return new MessagePattern(literals.toArray(String[]::new),
+            arguments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public String format(CharSequence... args) {
+        if (argumentIndexes.length == 0) {
+            return literals[0];
+        }
+        StringBuilder out = new StringBuilder(64);
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            out.append(literals[i]).append(argument(args, argumentIndexes[i]));
+        }
+        return out.append(literals[argumentIndexes.length]).toString();
+    }
+
+    public void writeTo(ContentWriter writer, CharSequence... args) throws IOException {
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            writeLiteral(writer, literals[i]);
+            writer.text(argument(args, argumentIndexes[i]));
+        }
+        writeLiteral(writer, literals[argumentIndexes.length]);
+    }
+
+    private static void writeLiteral(ContentWriter writer, String literal) throws IOException {
+        if (!literal.isEmpty()) {
+            writer.text(literal);
+        }
+    }
+
+    private static CharSequence argument(CharSequence[] args, int index) {
+        return index < args.length && args[index] != null ? args[index] : "";
+    }
+
+    private static boolean isIndex(String message, int from, int to) {
+        if (from == to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(message.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
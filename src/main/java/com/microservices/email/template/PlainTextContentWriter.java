@@ -0,0 +1,95 @@
+package com.microservices.email.template;
+
+import java.io.IOException;
+
+public class PlainTextContentWriter implements ContentWriter {
+
+    private final Appendable out;
+
+    public PlainTextContentWriter(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin() {
+    }
+
+    @Override
+    public void end() {
+    }
+
+    @Override
+    public void greeting(String line) throws IOException {
+        out.append(line).append("\n\n");
+    }
+
+    @Override
+    public void paragraph(String text) throws IOException {
+        out.append(text).append("\n\n");
+    }
+
+    @Override
+    public void fieldsStart(String heading) throws IOException {
+        out.append(heading).append(":\n");
+    }
+
+    @Override
+    public void field(String label, String value) throws IOException {
+        out.append(label).append(": ").append(value).append('\n');
+    }
+
+    @Override
+    public void fieldsEnd() throws IOException {
+        out.append('\n');
+    }
+
+    @Override
+    public void listStart(String heading) throws IOException {
+        out.append(heading).append(":\n");
+    }
+
+    @Override
+    public void listItemStart() throws IOException {
+        out.append("- ");
+    }
+
+    @Override
+    public void listItemEnd() throws IOException {
+        out.append('\n');
+    }
+
+    @Override
+    public void listEnd() throws IOException {
+        out.append('\n');
+    }
+
+    @Override
+    public void blockStart(String heading) throws IOException {
+        out.append(heading).append(":\n");
+    }
+
+    @Override
+    public void blockEnd() throws IOException {
+        out.append("\n\n");
+    }
+
+    @Override
+    public void text(CharSequence text) throws IOException {
+        out.append(text);
+    }
+
+    @Override
+    public void lineBreak() throws IOException {
+        out.append('\n');
+    }
+
+    @Override
+    public void closing(String... lines) throws IOException {
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                out.append('\n');
+            }
+            out.append(lines[i]);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.microservices.email.transport;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of attempting a send while the SMTP circuit is open. Raised on the hot path for
+ * every rejected email, so it carries no stack trace.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public CircuitBreakerOpenException(Duration retryAfter) {
+        super("SMTP circuit breaker is open", null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
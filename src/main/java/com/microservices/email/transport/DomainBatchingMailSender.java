@@ -0,0 +1,215 @@
+package com.microservices.email.transport;
+
+import com.microservices.email.util.EmailAddresses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups outgoing messages by recipient domain into micro-batches and sends each batch over a
+ * single SMTP connection, one MAIL/RCPT/DATA cycle per message. A batch closes when it reaches
+ * {@code maxBatchSize} or when its first message has waited {@code lingerMillis}, so a lone message
+ * is delayed by at most the linger time.
+ *
+ * <p>Closed batches run on a work-stealing pool: whichever worker is free picks up the next batch,
+ * whatever its domain. Every message completes individually, with the outcome JavaMail reports
+ * for it.
+ */
+public class DomainBatchingMailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainBatchingMailSender.class);
+
+    private final JavaMailSender javaMailSender;
+
+    private final int maxBatchSize;
+
+    private final long lingerMillis;
+
+    private final ForkJoinPool workers;
+
+    private final ScheduledExecutorService lingerTimer;
+
+    private final ConcurrentHashMap<String, DomainQueue> queues = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter connections;
+
+    public DomainBatchingMailSender(JavaMailSender javaMailSender, int maxBatchSize, long lingerMillis,
+                                    int workerThreads, MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.javaMailSender = javaMailSender;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        // Async mode: batches are independent, so FIFO per worker keeps latency fair
+        this.workers = new ForkJoinPool(workerThreads, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("EmailDomainBatch-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EmailDomainBatchLinger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.batchSizes = DistributionSummary.builder("email.dispatch.batch.size")
+            .description("Messages sent per SMTP connection")
+            .register(meterRegistry);
+        this.connections = Counter.builder("email.dispatch.batch.connections")
+            .description("SMTP connections opened for domain batches")
+            .register(meterRegistry);
+    }
+
+    public CompletableFuture<Boolean> send(String recipient, MimeMessage message) {
+        Pending pending = new Pending(message, new CompletableFuture<>());
+        String domain = EmailAddresses.domainOf(recipient);
+
+        while (true) {
+            DomainQueue queue = queues.computeIfAbsent(domain, DomainQueue::new);
+            List<Pending> full;
+            synchronized (queue) {
+                // Closed between lookup and lock; start the next batch
+                if (queue.retired) {
+                    continue;
+                }
+                queue.pending.add(pending);
+                if (queue.pending.size() >= maxBatchSize) {
+                    full = queue.close();
+                } else {
+                    if (queue.lingerTask == null) {
+                        queue.lingerTask = lingerTimer.schedule(() -> flush(queue), lingerMillis, TimeUnit.MILLISECONDS);
+                    }
+                    full = null;
+                }
+            }
+            if (full != null) {
+                submit(domain, full);
+            }
+            return pending.result;
+        }
+    }
+
+    public int getQueuedDomainCount() {
+        return queues.size();
+    }
+
+    public void shutdown() {
+        lingerTimer.shutdownNow();
+        // Whatever is still queued goes out now rather than being dropped
+        for (DomainQueue queue : queues.values()) {
+            flush(queue);
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(DomainQueue queue) {
+        List<Pending> batch;
+        synchronized (queue) {
+            if (queue.retired) {
+                return;
+            }
+            batch = queue.close();
+        }
+        submit(queue.domain, batch);
+    }
+
+    private void submit(String domain, List<Pending> batch) {
+        try {
+            workers.execute(() -> deliver(domain, batch));
+        } catch (RejectedExecutionException e) {
+            deliver(domain, batch);
+        }
+    }
+
+    private void deliver(String domain, List<Pending> batch) {
+        MimeMessage[] messages = new MimeMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = batch.get(i).message;
+        }
+
+        connections.increment();
+        batchSizes.record(messages.length);
+        try {
+            javaMailSender.send(messages);
+            for (Pending pending : batch) {
+                pending.result.complete(true);
+            }
+            logger.debug("Sent batch of {} emails to domain {} over one connection", messages.length, domain);
+
+        } catch (MailSendException e) {
+            // Per-message outcomes; a connection failure lists every message of the batch
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (Pending pending : batch) {
+                Exception failure = failed.get(pending.message);
+                if (failure != null) {
+                    pending.result.completeExceptionally(new MailSendException("Failed to send to " + domain, failure));
+                } else if (failed.isEmpty()) {
+                    pending.result.completeExceptionally(e);
+                } else {
+                    pending.result.complete(true);
+                }
+            }
+            logger.warn("Batch to domain {}: {} of {} emails failed", domain,
+                       failed.isEmpty() ? messages.length : failed.size(), messages.length);
+
+        } catch (Exception e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+            logger.warn("Batch of {} emails to domain {} failed", messages.length, domain, e);
+        }
+    }
+
+    private record Pending(MimeMessage message, CompletableFuture<Boolean> result) {
+    }
+
+    // The batch currently forming for one domain. Closing it removes it from the map, so domains that
+    // go quiet leave nothing behind; the next message for the domain starts a new one.
+    private final class DomainQueue {
+
+        private final String domain;
+
+        // Guarded by this
+        private final List<Pending> pending = new ArrayList<>();
+        private ScheduledFuture<?> lingerTask;
+        private boolean retired;
+
+        DomainQueue(String domain) {
+            this.domain = domain;
+        }
+
+        private List<Pending> close() {
+            retired = true;
+            queues.remove(domain, this);
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+            }
+            return pending;
+        }
+    }
+}
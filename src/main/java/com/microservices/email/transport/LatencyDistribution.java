@@ -0,0 +1,63 @@
+package com.microservices.email.transport;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of simulated transport latencies, in microseconds.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long sampleMicros(RandomGenerator random);
+
+    static LatencyDistribution fixed(long millis) {
+        long micros = millis * 1000;
+        return random -> micros;
+    }
+
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double medianMicros = medianMillis * 1000;
+        return random -> (long) (medianMicros * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    // Spec format: "latencyMs:weight,latencyMs:weight,..." e.g. "20:50,80:30,250:15,1000:5".
+    // Samples are spread uniformly between the previous bucket bound and the chosen one.
+    static LatencyDistribution histogram(String spec) {
+        String[] buckets = spec.split(",");
+        long[] boundsMicros = new long[buckets.length];
+        double[] cumulativeWeights = new double[buckets.length];
+        double total = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            String[] parts = buckets[i].trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid latency histogram bucket: " + buckets[i]);
+            }
+            boundsMicros[i] = Long.parseLong(parts[0].trim()) * 1000;
+            total += Double.parseDouble(parts[1].trim());
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Latency histogram has no weight: " + spec);
+        }
+
+        double totalWeight = total;
+        return random -> {
+            int bucket = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * totalWeight);
+            bucket = bucket >= 0 ? bucket : Math.min(-bucket - 1, boundsMicros.length - 1);
+            long lower = bucket > 0 ? boundsMicros[bucket - 1] : 0;
+            long upper = boundsMicros[bucket];
+            return upper > lower ? lower + random.nextLong(upper - lower) : upper;
+        };
+    }
+
+    static LatencyDistribution of(String type, long fixedMillis, double medianMillis, double sigma, String histogram) {
+        return switch (type.trim().toLowerCase()) {
+            case "fixed" -> fixed(fixedMillis);
+            case "lognormal", "log-normal" -> logNormal(medianMillis, sigma);
+            case "histogram" -> histogram(histogram);
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + type);
+        };
+    }
+}
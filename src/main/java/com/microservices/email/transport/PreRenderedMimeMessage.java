@@ -0,0 +1,46 @@
+package com.microservices.email.transport;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * MimeMessage backed by already-encoded RFC 822 bytes. Only the envelope addresses are set;
+ * the transport streams the stored bytes verbatim, so a resend does no MIME encoding at all.
+ */
+public final class PreRenderedMimeMessage extends MimeMessage {
+
+    private final byte[] rendered;
+
+    public PreRenderedMimeMessage(Session session, String sender, String recipient, byte[] rendered)
+            throws MessagingException {
+        super(session);
+        this.rendered = rendered;
+        setFrom(new InternetAddress(sender));
+        setRecipient(RecipientType.TO, new InternetAddress(recipient));
+    }
+
+    @Override
+    public void writeTo(OutputStream os, String[] ignoreList) throws IOException {
+        os.write(rendered);
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        os.write(rendered);
+    }
+
+    // Headers are already part of the rendered bytes
+    @Override
+    public void saveChanges() {
+    }
+
+    @Override
+    public int getSize() {
+        return rendered.length;
+    }
+}
@@ -0,0 +1,93 @@
+package com.microservices.email.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Mail transport stand-in used in mock mode. Each send completes on a small scheduler after a
+ * latency drawn from the configured distribution, so no thread is held for the simulated
+ * network time and a single instance can keep thousands of sends in flight.
+ */
+public class SimulatedMailTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedMailTransport.class);
+
+    private final LatencyDistribution latencyDistribution;
+    private final double failureRate;
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<? extends RandomGenerator> random;
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public SimulatedMailTransport(LatencyDistribution latencyDistribution, double failureRate, int schedulerThreads) {
+        this(latencyDistribution, failureRate, schedulerThreads, ThreadLocalRandom::current);
+    }
+
+    // The random source is a supplier so tests can pass a seeded generator; it must be safe for the calling threads
+    SimulatedMailTransport(LatencyDistribution latencyDistribution, double failureRate, int schedulerThreads,
+                           Supplier<? extends RandomGenerator> random) {
+        this.latencyDistribution = latencyDistribution;
+        this.failureRate = failureRate;
+        this.random = random;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(schedulerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "SimulatedMail-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    public CompletableFuture<Boolean> send(String to, String subject, String content) {
+        RandomGenerator random = this.random.get();
+        long latencyMicros = Math.max(0, latencyDistribution.sampleMicros(random));
+        boolean fail = failureRate > 0 && random.nextDouble() < failureRate;
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        scheduler.schedule(() -> {
+            inFlight.decrementAndGet();
+            if (fail) {
+                failed.incrementAndGet();
+                logger.debug("Simulated send failure to: {}", to);
+                result.complete(false);
+            } else {
+                sent.incrementAndGet();
+                logger.debug("Simulated send to: {} with subject: {} after {}us", to, subject, latencyMicros);
+                result.complete(true);
+            }
+        }, latencyMicros, TimeUnit.MICROSECONDS);
+
+        return result;
+    }
+
+    public long getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
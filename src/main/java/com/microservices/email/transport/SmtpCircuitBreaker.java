@@ -0,0 +1,203 @@
+package com.microservices.email.transport;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker in front of the SMTP server. After a run of consecutive transport failures it
+ * opens and rejects sends with a volatile read, instead of letting each one wait for the connection
+ * timeout. Once the open period has elapsed a limited number of probe sends are let through
+ * (half-open); if they all succeed the circuit closes again, otherwise it reopens.
+ */
+public class SmtpCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private final Object lock = new Object();
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // Guarded by lock
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong halfOpenedCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+
+    public SmtpCircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes) {
+        this(failureThreshold, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    SmtpCircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+        if (failureThreshold < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("failureThreshold and halfOpenProbes must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns false if the send must not reach the server. A granted permission has to be followed
+     * by exactly one of {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    public boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openUntilNanos < 0) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        synchronized (lock) {
+            if (state == State.OPEN && nanoClock.getAsLong() - openUntilNanos >= 0) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && probesInFlight + probeSuccesses < halfOpenProbes) {
+                probesInFlight++;
+                return true;
+            }
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    public void onSuccess() {
+        if (state == State.CLOSED) {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+            return;
+        }
+        synchronized (lock) {
+            if (state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+                if (++probeSuccesses >= halfOpenProbes) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+        }
+    }
+
+    public void onFailure() {
+        State current = state;
+        if (current == State.CLOSED) {
+            if (consecutiveFailures.incrementAndGet() < failureThreshold) {
+                return;
+            }
+        } else if (current == State.OPEN) {
+            // A send started before the circuit opened; nothing more to learn from it
+            return;
+        }
+        synchronized (lock) {
+            if (state != State.OPEN) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    // The send never reached the server (e.g. the message could not be built)
+    public void onIgnored() {
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+        synchronized (lock) {
+            if (state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // True while sends are being rejected without a probe
+    public boolean isOpen() {
+        return state == State.OPEN && nanoClock.getAsLong() - openUntilNanos < 0;
+    }
+
+    public Duration getRemainingOpenDuration() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openUntilNanos - nanoClock.getAsLong()));
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public SmtpCircuitBreaker bindTo(MeterRegistry meterRegistry) {
+        for (State each : State.values()) {
+            Gauge.builder("email.smtp.circuit.state", this, breaker -> breaker.state == each ? 1 : 0)
+                .description("1 for the current SMTP circuit breaker state")
+                .tag("state", each.name().toLowerCase())
+                .register(meterRegistry);
+        }
+        FunctionCounter.builder("email.smtp.circuit.transitions", openedCount, AtomicLong::get)
+            .tag("to", "open").register(meterRegistry);
+        FunctionCounter.builder("email.smtp.circuit.transitions", halfOpenedCount, AtomicLong::get)
+            .tag("to", "half_open").register(meterRegistry);
+        FunctionCounter.builder("email.smtp.circuit.transitions", closedCount, AtomicLong::get)
+            .tag("to", "closed").register(meterRegistry);
+        FunctionCounter.builder("email.smtp.circuit.rejected", rejectedCount, AtomicLong::get)
+            .description("Sends rejected without contacting the SMTP server")
+            .register(meterRegistry);
+        return this;
+    }
+
+    // Called with lock held
+    private void transitionTo(State next) {
+        State previous = state;
+        switch (next) {
+            case OPEN -> {
+                openUntilNanos = nanoClock.getAsLong() + openDurationNanos;
+                openedCount.incrementAndGet();
+            }
+            case HALF_OPEN -> halfOpenedCount.incrementAndGet();
+            case CLOSED -> closedCount.incrementAndGet();
+        }
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        consecutiveFailures.set(0);
+        state = next;
+
+        if (next == State.OPEN) {
+            logger.warn("SMTP circuit breaker {} -> OPEN; rejecting sends for {} ms",
+                       previous, Duration.ofNanos(openDurationNanos).toMillis());
+        } else {
+            logger.info("SMTP circuit breaker {} -> {}", previous, next);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.microservices.email.transport;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Always UP: an open circuit means the remote SMTP server is failing, which restarting or unreadying this
+// instance cannot fix, and every instance would report it at once. The state is left in the details.
+@Component
+public class SmtpCircuitBreakerHealthIndicator implements HealthIndicator {
+
+    private final SmtpCircuitBreaker smtpCircuitBreaker;
+
+    public SmtpCircuitBreakerHealthIndicator(SmtpCircuitBreaker smtpCircuitBreaker) {
+        this.smtpCircuitBreaker = smtpCircuitBreaker;
+    }
+
+    @Override
+    public Health health() {
+        return Health.up()
+            .withDetail("state", smtpCircuitBreaker.getState())
+            .withDetail("consecutiveFailures", smtpCircuitBreaker.getConsecutiveFailures())
+            .withDetail("rejected", smtpCircuitBreaker.getRejectedCount())
+            .withDetail("retryAfterMs", smtpCircuitBreaker.getRemainingOpenDuration().toMillis())
+            .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.microservices.email.transport;
+
+import com.microservices.email.template.ContentTemplate;
+import com.microservices.email.template.HtmlContentWriter;
+import com.microservices.email.template.PlainTextContentWriter;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.UUID;
+
+/**
+ * multipart/alternative message whose text and HTML parts are generated while the transport writes
+ * the message. Each part is rendered from the template through a quoted-printable encoder straight
+ * into the transport's output stream, so neither body ever exists as a String or a byte array.
+ */
+public final class StreamingMultipartMessage extends MimeMessage {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final ContentTemplate template;
+
+    private final String boundary;
+
+    public StreamingMultipartMessage(Session session, String sender, String recipient, String subject,
+                                     ContentTemplate template) throws MessagingException {
+        super(session);
+        this.template = template;
+        this.boundary = "=_Part_" + UUID.randomUUID();
+
+        setFrom(new InternetAddress(sender));
+        setRecipient(RecipientType.TO, new InternetAddress(recipient));
+        setSubject(subject, "UTF-8");
+        setSentDate(new Date());
+        setHeader("MIME-Version", "1.0");
+        setHeader("Content-Type", "multipart/alternative; boundary=\"" + boundary + "\"");
+        updateMessageID();
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException, MessagingException {
+        writeTo(os, null);
+    }
+
+    @Override
+    public void writeTo(OutputStream os, String[] ignoreList) throws IOException, MessagingException {
+        Enumeration<String> headerLines = getNonMatchingHeaderLines(ignoreList);
+        while (headerLines.hasMoreElements()) {
+            writeAscii(os, headerLines.nextElement());
+            os.write(CRLF);
+        }
+        os.write(CRLF);
+
+        writeAscii(os, "--" + boundary);
+        os.write(CRLF);
+        writePartHeaders(os, "text/plain");
+        try (Writer text = partWriter(os)) {
+            template.writeTo(new PlainTextContentWriter(text));
+        }
+        os.write(CRLF);
+
+        writeAscii(os, "--" + boundary);
+        os.write(CRLF);
+        writePartHeaders(os, "text/html");
+        try (Writer html = partWriter(os)) {
+            template.writeTo(new HtmlContentWriter(html));
+        }
+        os.write(CRLF);
+
+        writeAscii(os, "--" + boundary + "--");
+        os.write(CRLF);
+        os.flush();
+    }
+
+    // Headers and content are produced in writeTo
+    @Override
+    public void saveChanges() {
+    }
+
+    @Override
+    public int getSize() {
+        return -1;
+    }
+
+    private void writePartHeaders(OutputStream os, String contentType) throws IOException {
+        writeAscii(os, "Content-Type: " + contentType + "; charset=UTF-8");
+        os.write(CRLF);
+        writeAscii(os, "Content-Transfer-Encoding: quoted-printable");
+        os.write(CRLF);
+        os.write(CRLF);
+    }
+
+    // Closing the writer closes the encoder, which writes out anything it still holds, but not the transport's stream
+    private Writer partWriter(OutputStream os) throws IOException {
+        try {
+            return new OutputStreamWriter(MimeUtility.encode(new UnclosableOutputStream(os), "quoted-printable"),
+                                          StandardCharsets.UTF_8);
+        } catch (MessagingException e) {
+            throw new IOException("quoted-printable encoder unavailable", e);
+        }
+    }
+
+    private static void writeAscii(OutputStream os, String line) throws IOException {
+        os.write(line.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.microservices.email.util;
+
+import java.util.Locale;
+
+/** Helpers for the plain address strings carried on email records and events. */
+public final class EmailAddresses {
+
+    private EmailAddresses() {
+    }
+
+    /** The lower-cased domain after the last {@code @}, or an empty string if there is none. */
+    public static String domainOf(String address) {
+        int at = address != null ? address.lastIndexOf('@') : -1;
+        return at >= 0 ? address.substring(at + 1).trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,18 @@
+package com.microservices.email.view;
+
+// Send outcomes for one recipient domain; the failure rate is failed attempts over all attempts
+public record DomainRollupView(String domain,
+                               long sent,
+                               long failed,
+                               double failureRate) {
+
+    public DomainRollupView(String domain, Long sent, Long failed) {
+        this(domain, sent != null ? sent : 0, failed != null ? failed : 0, failureRate(sent, failed));
+    }
+
+    private static double failureRate(Long sent, Long failed) {
+        long s = sent != null ? sent : 0;
+        long f = failed != null ? failed : 0;
+        return s + f > 0 ? (double) f / (s + f) : 0.0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.microservices.email.view;
+
+import com.microservices.email.entity.Email;
+
+import java.time.LocalDateTime;
+
+// What the support UI shows of an email; loaded as a projection so the content column is never read
+public record EmailHistoryView(Long id,
+                               Long orderId,
+                               String customerId,
+                               String emailAddress,
+                               Email.EmailType emailType,
+                               Email.EmailStatus emailStatus,
+                               String subject,
+                               LocalDateTime createdAt,
+                               LocalDateTime sentAt) {
+
+    // Rough retained size: object headers, boxed fields, two timestamps and the strings as UTF-16
+    public long estimatedBytes() {
+        return 160 + 2L * (length(customerId) + length(emailAddress) + length(subject));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
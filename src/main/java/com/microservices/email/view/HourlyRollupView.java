@@ -0,0 +1,12 @@
+package com.microservices.email.view;
+
+import com.microservices.email.entity.Email;
+
+import java.time.LocalDateTime;
+
+// Emails that entered a status within one hour, summed over recipient domains
+public record HourlyRollupView(LocalDateTime hour,
+                               Email.EmailType emailType,
+                               Email.EmailStatus emailStatus,
+                               long count) {
+}
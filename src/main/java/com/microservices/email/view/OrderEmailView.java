@@ -0,0 +1,7 @@
+package com.microservices.email.view;
+
+import com.microservices.email.entity.Email;
+
+// Order and type of an email created from an order event, as restored into a partition's lifecycle table
+public record OrderEmailView(Long orderId, Email.EmailType emailType) {
+}
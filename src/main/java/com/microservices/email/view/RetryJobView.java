@@ -0,0 +1,36 @@
+package com.microservices.email.view;
+
+import com.microservices.email.entity.RetryJob;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Progress of a retry job as reported by the status endpoint; ratePerSecond counts claimed emails
+public record RetryJobView(String id,
+                           RetryJob.JobStatus status,
+                           String requestedBy,
+                           String ownerInstance,
+                           LocalDateTime requestedAt,
+                           LocalDateTime startedAt,
+                           LocalDateTime finishedAt,
+                           long checkpointId,
+                           long claimed,
+                           long sent,
+                           long failed,
+                           double ratePerSecond,
+                           String errorMessage) {
+
+    public static RetryJobView of(RetryJob job, LocalDateTime now) {
+        double rate = 0.0;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : now;
+            long elapsedMillis = Duration.between(job.getStartedAt(), end).toMillis();
+            if (elapsedMillis > 0) {
+                rate = job.getClaimedCount() * 1000.0 / elapsedMillis;
+            }
+        }
+        return new RetryJobView(job.getId(), job.getStatus(), job.getRequestedBy(), job.getOwnerInstance(),
+            job.getRequestedAt(), job.getStartedAt(), job.getFinishedAt(), job.getCheckpointId(),
+            job.getClaimedCount(), job.getSentCount(), job.getFailedCount(), rate, job.getErrorMessage());
+    }
+}
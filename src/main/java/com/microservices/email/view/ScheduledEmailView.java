@@ -0,0 +1,7 @@
+package com.microservices.email.view;
+
+import java.time.LocalDateTime;
+
+// Id and due time of a SCHEDULED email, as loaded into the in-memory timing wheel
+public record ScheduledEmailView(Long id, LocalDateTime scheduledAt) {
+}
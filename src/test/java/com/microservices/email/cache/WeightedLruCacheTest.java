@@ -0,0 +1,103 @@
+package com.microservices.email.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedLruCacheTest {
+
+    // One segment, so the whole limit applies to every key
+    private final WeightedLruCache<String, byte[]> cache = new WeightedLruCache<>(10, 1, bytes -> bytes.length);
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedUntilUnderWeight() {
+        // Arrange
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.get("a");
+
+        // Act: 12 bytes would not fit, so the least recently read entry goes
+        cache.put("c", new byte[4]);
+
+        // Assert
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.weight());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void testPut_LargeEntryEvictsSeveral() {
+        // Arrange
+        cache.put("a", new byte[3]);
+        cache.put("b", new byte[3]);
+        cache.put("c", new byte[3]);
+
+        // Act
+        cache.put("d", new byte[8]);
+
+        // Assert
+        assertEquals(1, cache.size());
+        assertEquals(8, cache.weight());
+        assertEquals(3, cache.evictionCount());
+    }
+
+    @Test
+    void testPut_EntryOverTheLimitIsNotCachedAndDropsStaleCopy() {
+        // Arrange
+        cache.put("a", new byte[4]);
+
+        // Act
+        cache.put("a", new byte[11]);
+
+        // Assert
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void testPut_ReplacingAdjustsWeight() {
+        // Arrange
+        cache.put("a", new byte[6]);
+
+        // Act
+        cache.put("a", new byte[2]);
+        cache.put("b", new byte[8]);
+
+        // Assert
+        assertEquals(10, cache.weight());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testGet_CountsHitsAndMisses() {
+        cache.put("a", new byte[1]);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void testInvalidate_FreesWeight() {
+        cache.put("a", new byte[5]);
+        cache.put("b", new byte[5]);
+
+        cache.invalidate("a");
+        assertEquals(5, cache.weight());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSegmentCountMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedLruCache<String, byte[]>(10, 3, b -> b.length));
+    }
+}
@@ -0,0 +1,139 @@
+package com.microservices.email.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AdaptiveConsumerControllerTest {
+
+    private final KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+
+    private final ConcurrentMessageListenerContainer<?, ?> container = mock(ConcurrentMessageListenerContainer.class);
+
+    private final ContainerProperties containerProperties = new ContainerProperties("order-events");
+
+    private final AtomicReference<Double> lag = new AtomicReference<>(0.0);
+
+    @BeforeEach
+    void setUp() {
+        when(registry.getListenerContainer(AdaptiveConsumerController.ORDER_EVENT_LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getContainerProperties()).thenReturn(containerProperties);
+
+        Metric lagMetric = mock(Metric.class);
+        when(lagMetric.metricValue()).thenAnswer(invocation -> lag.get());
+        MetricName lagName = new MetricName("records-lag-max", "consumer-fetch-manager-metrics", "", Map.of());
+        doReturn(Map.of("consumer-0", Map.of(lagName, lagMetric))).when(container).metrics();
+
+        // The container restarts synchronously
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(container).stop(any(Runnable.class));
+    }
+
+    @Test
+    void idleShrinkWaitsForConfirmationAndCooldown() throws Exception {
+        AdaptiveConsumerController controller = controller(10, 3, 200);
+
+        controller.evaluate();
+        controller.evaluate();
+        verify(container, never()).stop(any(Runnable.class));
+
+        TimeUnit.MILLISECONDS.sleep(250);
+        ConsumerSizingPolicy.Decision decision = controller.evaluate();
+
+        assertEquals(ConsumerSizingPolicy.Action.DECREASE_CONCURRENCY, decision.action());
+        verify(container).stop(any(Runnable.class));
+        verify(container).setConcurrency(2);
+        verify(container).start();
+        assertEquals(new ConsumerSizingPolicy.Sizing(10, 2), controller.getCurrentSizing());
+    }
+
+    @Test
+    void restartStartsANewCooldown() throws Exception {
+        AdaptiveConsumerController controller = controller(10, 3, 200);
+        controller.evaluate();
+        TimeUnit.MILLISECONDS.sleep(250);
+        controller.evaluate();
+        verify(container).setConcurrency(2);
+
+        // Confirmed again straight away, but each restart costs a rebalance and re-warms partition state
+        controller.evaluate();
+        controller.evaluate();
+
+        verify(container, times(1)).stop(any(Runnable.class));
+        assertEquals(2, controller.getCurrentSizing().concurrency());
+    }
+
+    @Test
+    void pollIntervalSafetyIsAppliedImmediately() {
+        AdaptiveConsumerController controller = controller(400, 3, 60_000);
+        // 2 s per record: only 75 records fit into half of the 300 s poll interval
+        controller.recordProcessed(TimeUnit.SECONDS.toNanos(2));
+
+        ConsumerSizingPolicy.Decision decision = controller.evaluate();
+
+        assertEquals("poll_interval", decision.reason());
+        assertEquals("75", containerProperties.getKafkaConsumerProperties()
+            .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+        verify(container).setConcurrency(3);
+        assertEquals(new ConsumerSizingPolicy.Sizing(75, 3), controller.getCurrentSizing());
+    }
+
+    @Test
+    void noEvaluationWhileRestarting() {
+        AdaptiveConsumerController controller = controller(400, 3, 60_000);
+        doNothing().when(container).stop(any(Runnable.class));
+        controller.recordProcessed(TimeUnit.SECONDS.toNanos(2));
+        controller.evaluate();
+
+        assertNull(controller.evaluate());
+        verify(container, times(1)).stop(any(Runnable.class));
+    }
+
+    @Test
+    void stoppedContainerIsLeftAlone() {
+        AdaptiveConsumerController controller = controller(400, 3, 0);
+        when(container.isRunning()).thenReturn(false);
+        controller.recordProcessed(TimeUnit.SECONDS.toNanos(2));
+
+        assertNull(controller.evaluate());
+        verify(container, never()).stop(any(Runnable.class));
+    }
+
+    @Test
+    void growingLagAddsConsumerOnceConfirmed() {
+        AdaptiveConsumerController controller = controller(500, 3, 0);
+        controller.recordProcessed(TimeUnit.MILLISECONDS.toNanos(20));
+        lag.set(5_000.0);
+
+        controller.evaluate();
+        verify(container, never()).stop(any(Runnable.class));
+        controller.recordProcessed(TimeUnit.MILLISECONDS.toNanos(20));
+        lag.set(6_000.0);
+        controller.evaluate();
+
+        verify(container).setConcurrency(4);
+        assertEquals(new ConsumerSizingPolicy.Sizing(500, 4), controller.getCurrentSizing());
+    }
+
+    private AdaptiveConsumerController controller(int pollRecords, int concurrency, long cooldownMillis) {
+        return new AdaptiveConsumerController(registry, new SimpleMeterRegistry(), true, pollRecords, concurrency,
+                                              300_000, 10, 500, 1, 6, 0.5, 2, cooldownMillis);
+    }
+}
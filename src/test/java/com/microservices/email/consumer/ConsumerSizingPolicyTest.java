@@ -0,0 +1,64 @@
+package com.microservices.email.consumer;
+
+import com.microservices.email.consumer.ConsumerSizingPolicy.Action;
+import com.microservices.email.consumer.ConsumerSizingPolicy.Decision;
+import com.microservices.email.consumer.ConsumerSizingPolicy.Observation;
+import com.microservices.email.consumer.ConsumerSizingPolicy.Sizing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConsumerSizingPolicyTest {
+
+    // 300 s poll interval with half of it as budget: 150 s per batch
+    private final ConsumerSizingPolicy policy = new ConsumerSizingPolicy(
+        new ConsumerSizingPolicy.Bounds(10, 500, 1, 6, 300_000, 0.5));
+
+    @Test
+    void backlogGrowsPollBatchFirst() {
+        Decision decision = policy.decide(new Sizing(50, 3), new Observation(20.0, 10_000, 8_000));
+
+        assertEquals(Action.INCREASE_POLL, decision.action());
+        assertEquals(new Sizing(100, 3), decision.sizing());
+    }
+
+    @Test
+    void pollBatchIsCappedByPollIntervalBudget() {
+        // 1 s per record: at most 150 records fit into the budget
+        Decision decision = policy.decide(new Sizing(100, 3), new Observation(1_000.0, 10_000, 8_000));
+
+        assertEquals(new Sizing(150, 3), decision.sizing());
+    }
+
+    @Test
+    void slowRecordsShrinkPollBatchImmediately() {
+        Decision decision = policy.decide(new Sizing(400, 3), new Observation(2_000.0, 0, 0));
+
+        assertEquals(Action.DECREASE_POLL, decision.action());
+        assertEquals("poll_interval", decision.reason());
+        assertEquals(new Sizing(75, 3), decision.sizing());
+    }
+
+    @Test
+    void growingBacklogAtSafeBatchAddsConsumer() {
+        Decision decision = policy.decide(new Sizing(150, 3), new Observation(1_000.0, 10_000, 8_000));
+
+        assertEquals(Action.INCREASE_CONCURRENCY, decision.action());
+        assertEquals(new Sizing(150, 4), decision.sizing());
+    }
+
+    @Test
+    void shrinkingBacklogAtSafeBatchHolds() {
+        Decision decision = policy.decide(new Sizing(150, 3), new Observation(1_000.0, 5_000, 8_000));
+
+        assertEquals(Action.HOLD, decision.action());
+    }
+
+    @Test
+    void idleConsumersGiveBackConcurrency() {
+        Decision decision = policy.decide(new Sizing(100, 3), new Observation(Double.NaN, 0, 0));
+
+        assertEquals(Action.DECREASE_CONCURRENCY, decision.action());
+        assertEquals(new Sizing(100, 2), decision.sizing());
+    }
+}
@@ -0,0 +1,58 @@
+package com.microservices.email.consumer;
+
+import com.microservices.email.event.DeliveryFeedbackEvent;
+import com.microservices.email.event.DeliveryFeedbackEvent.FeedbackType;
+import com.microservices.email.feedback.DeliveryFeedbackAggregator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryFeedbackConsumerTest {
+
+    private static final List<DeliveryFeedbackEvent> POLL = List.of(
+        new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.HARD_BOUNCE),
+        new DeliveryFeedbackEvent(2L, "b@example.com", FeedbackType.SOFT_BOUNCE));
+
+    @Mock
+    private DeliveryFeedbackAggregator deliveryFeedbackAggregator;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @InjectMocks
+    private DeliveryFeedbackConsumer consumer;
+
+    @Test
+    void testPollAcknowledgedOnlyAfterFlush() {
+        when(deliveryFeedbackAggregator.record(any())).thenReturn(true);
+        when(deliveryFeedbackAggregator.flushCompletely()).thenReturn(true);
+
+        consumer.handleDeliveryFeedback(POLL, acknowledgment);
+
+        InOrder order = inOrder(deliveryFeedbackAggregator, acknowledgment);
+        order.verify(deliveryFeedbackAggregator, times(2)).record(any());
+        order.verify(deliveryFeedbackAggregator).flushCompletely();
+        order.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testPollLeftUnacknowledgedWhenFlushFails() {
+        when(deliveryFeedbackAggregator.record(any())).thenReturn(true);
+        when(deliveryFeedbackAggregator.flushCompletely()).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> consumer.handleDeliveryFeedback(POLL, acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+}
@@ -0,0 +1,82 @@
+package com.microservices.email.controller;
+
+import com.microservices.email.export.EmailRecordExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailExportControllerTest {
+
+    @Mock
+    private EmailRecordExporter emailRecordExporter;
+
+    @InjectMocks
+    private EmailExportController emailExportController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailExportController, "timeoutMillis", 14_400_000L);
+        mockMvc = MockMvcBuilders.standaloneSetup(emailExportController).build();
+    }
+
+    @Test
+    void testExport_LongExportGetsItsOwnAsyncTimeout() throws Exception {
+        // Arrange
+        when(emailRecordExporter.export(any(), any(), eq(false), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            out.write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/emails/export")
+                .param("from", "2024-01-01T00:00:00")
+                .param("to", "2024-02-01T00:00:00")
+                .param("gzip", "false"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert - well past the 30s default, so a slow export is not aborted midway
+        assertEquals(14_400_000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition",
+                "attachment; filename=\"email-records-20240101T000000-20240201T000000.csv\""))
+            .andExpect(content().contentType("text/csv"))
+            .andExpect(content().string("id\n1\n"));
+        verify(emailRecordExporter).export(eq(LocalDateTime.of(2024, 1, 1, 0, 0)),
+            eq(LocalDateTime.of(2024, 2, 1, 0, 0)), eq(false), any());
+    }
+
+    @Test
+    void testExport_EmptyRange_BadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/emails/export")
+                .param("from", "2024-01-01T00:00:00")
+                .param("to", "2024-01-01T00:00:00"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(emailRecordExporter);
+    }
+}
@@ -0,0 +1,263 @@
+package com.microservices.email.dispatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriorityDispatchSchedulerTest {
+
+    private PriorityDispatchScheduler scheduler;
+
+    private final List<DispatchPriority> dispatchOrder = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testDispatch_TransactionalOvertakesBulkBacklog() throws Exception {
+        // Arrange
+        scheduler = new PriorityDispatchScheduler(settings(60000, 60000), Runnable::run, new SimpleMeterRegistry());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(submit(DispatchPriority.BULK));
+        }
+        futures.add(submit(DispatchPriority.TRANSACTIONAL));
+
+        // Act
+        scheduler.start();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(DispatchPriority.TRANSACTIONAL, dispatchOrder.get(0));
+        assertEquals(21, dispatchOrder.size());
+        assertEquals(0, scheduler.getQueueDepth(DispatchPriority.BULK));
+    }
+
+    @Test
+    void testDispatch_StarvedBulkIsPromoted() throws Exception {
+        // Arrange
+        scheduler = new PriorityDispatchScheduler(settings(60000, 0), Runnable::run, new SimpleMeterRegistry());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(submit(DispatchPriority.TRANSACTIONAL));
+        }
+        futures.add(submit(DispatchPriority.BULK));
+        Thread.sleep(5);
+
+        // Act
+        scheduler.start();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(DispatchPriority.BULK, dispatchOrder.get(0));
+    }
+
+    @Test
+    void testDispatch_BothOverdue_MostOverdueRelativeToItsMaxWaitGoesFirst() throws Exception {
+        // Arrange: both heads are past their max wait; transactional by 5x, bulk by 50x
+        scheduler = new PriorityDispatchScheduler(settings(10, 1), Runnable::run, new SimpleMeterRegistry());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(submit(DispatchPriority.TRANSACTIONAL));
+        }
+        futures.add(submit(DispatchPriority.BULK));
+        Thread.sleep(50);
+
+        // Act
+        scheduler.start();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert: the short transactional max wait does not win every pass just by coming first
+        assertEquals(DispatchPriority.BULK, dispatchOrder.get(0));
+        assertEquals(21, dispatchOrder.size());
+    }
+
+    @Test
+    void testShutdown_FailsQueuedAndLaterJobs() {
+        // Arrange: never started, so everything stays queued
+        scheduler = new PriorityDispatchScheduler(settings(60000, 60000), Runnable::run, new SimpleMeterRegistry());
+        CompletableFuture<Void> queued = submit(DispatchPriority.STANDARD);
+
+        // Act
+        scheduler.shutdown();
+        CompletableFuture<Void> afterShutdown = submit(DispatchPriority.TRANSACTIONAL);
+
+        // Assert
+        ExecutionException queuedFailure = assertThrows(ExecutionException.class,
+            () -> queued.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, queuedFailure.getCause());
+        ExecutionException laterFailure = assertThrows(ExecutionException.class,
+            () -> afterShutdown.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, laterFailure.getCause());
+        assertEquals(0, scheduler.getQueueDepth(DispatchPriority.STANDARD));
+        assertTrue(dispatchOrder.isEmpty());
+    }
+
+    @Test
+    void testSubmit_FullLevelBlocksUntilAJobIsDispatched() throws Exception {
+        // Arrange: room for two waiting bulk jobs
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = settings(60000, 60000);
+        settings.put(DispatchPriority.BULK, new PriorityDispatchScheduler.LevelSettings(1, 1, 0, 60000, 2));
+        scheduler = new PriorityDispatchScheduler(settings, Runnable::run, new SimpleMeterRegistry());
+        submit(DispatchPriority.BULK);
+        submit(DispatchPriority.BULK);
+
+        // Act
+        CompletableFuture<CompletableFuture<Void>> third =
+            CompletableFuture.supplyAsync(() -> submit(DispatchPriority.BULK));
+        Thread.sleep(300);
+        boolean blockedWhileFull = !third.isDone();
+        scheduler.start();
+
+        // Assert
+        assertTrue(blockedWhileFull);
+        third.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        assertEquals(3, dispatchOrder.size());
+    }
+
+    @Test
+    void testSubmit_BlockedOnFullLevelFailsOnShutdown() throws Exception {
+        // Arrange
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = settings(60000, 60000);
+        settings.put(DispatchPriority.BULK, new PriorityDispatchScheduler.LevelSettings(1, 1, 0, 60000, 1));
+        scheduler = new PriorityDispatchScheduler(settings, Runnable::run, new SimpleMeterRegistry());
+        submit(DispatchPriority.BULK);
+        CompletableFuture<CompletableFuture<Void>> blocked =
+            CompletableFuture.supplyAsync(() -> submit(DispatchPriority.BULK));
+        Thread.sleep(200);
+
+        // Act
+        scheduler.shutdown();
+
+        // Assert
+        CompletableFuture<Void> result = blocked.get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+    }
+
+    @Test
+    void testDispatch_RateLimitSpacesOutBurst() throws Exception {
+        // Arrange: 10 per second with a burst of 10, so 25 jobs need about 1.5 seconds
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = settings(60000, 60000);
+        settings.put(DispatchPriority.BULK, new PriorityDispatchScheduler.LevelSettings(1, 100, 10, 60000, 1000));
+        scheduler = new PriorityDispatchScheduler(settings, Runnable::run, new SimpleMeterRegistry());
+        List<Long> dispatchedAtNanos = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            futures.add(scheduler.submit(DispatchPriority.BULK, () -> {
+                dispatchedAtNanos.add(System.nanoTime());
+                return CompletableFuture.completedFuture(null);
+            }));
+        }
+
+        // Act
+        long start = System.nanoTime();
+        scheduler.start();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        long inFirst500Millis = dispatchedAtNanos.stream()
+            .filter(at -> at - start < TimeUnit.MILLISECONDS.toNanos(500))
+            .count();
+        assertTrue(inFirst500Millis <= 16, inFirst500Millis + " dispatched in the first 500ms");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(dispatchedAtNanos.get(24) - start);
+        assertTrue(elapsedMillis >= 1300, "25 dispatches took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testDispatch_ConcurrencyCapHoldsBackFurtherJobs() throws Exception {
+        // Arrange: the level's sends stay in flight until released
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = settings(60000, 60000);
+        settings.put(DispatchPriority.STANDARD, new PriorityDispatchScheduler.LevelSettings(4, 3, 0, 60000, 1000));
+        scheduler = new PriorityDispatchScheduler(settings, new SimpleMeterRegistry());
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.submit(DispatchPriority.STANDARD, () -> {
+                started.incrementAndGet();
+                return release;
+            }));
+        }
+
+        // Act
+        scheduler.start();
+        Thread.sleep(200);
+
+        // Assert
+        assertEquals(3, started.get());
+        assertEquals(3, scheduler.getInFlight(DispatchPriority.STANDARD));
+        assertEquals(7, scheduler.getQueueDepth(DispatchPriority.STANDARD));
+
+        release.complete(null);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(10, started.get());
+        assertEquals(0, scheduler.getInFlight(DispatchPriority.STANDARD));
+    }
+
+    @Test
+    void testDispatch_BlockingBulkJobsDoNotHoldUpTransactional() throws Exception {
+        // Arrange: bulk jobs that block their thread, as a synchronous SMTP send does
+        scheduler = new PriorityDispatchScheduler(settings(60000, 60000), new SimpleMeterRegistry());
+        CountDownLatch unblock = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(DispatchPriority.BULK, () -> {
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return CompletableFuture.completedFuture(null);
+            });
+        }
+        scheduler.start();
+        Thread.sleep(50);
+
+        try {
+            // Act
+            CompletableFuture<Void> transactional = submit(DispatchPriority.TRANSACTIONAL);
+
+            // Assert
+            transactional.get(1, TimeUnit.SECONDS);
+            assertEquals(List.of(DispatchPriority.TRANSACTIONAL), dispatchOrder);
+            assertEquals(1, scheduler.getInFlight(DispatchPriority.BULK));
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    private CompletableFuture<Void> submit(DispatchPriority priority) {
+        return scheduler.submit(priority, () -> {
+            dispatchOrder.add(priority);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings(long transactionalMaxWaitMillis,
+                                                                                    long bulkMaxWaitMillis) {
+        Map<DispatchPriority, PriorityDispatchScheduler.LevelSettings> settings = new EnumMap<>(DispatchPriority.class);
+        settings.put(DispatchPriority.TRANSACTIONAL,
+                     new PriorityDispatchScheduler.LevelSettings(1000, 1, 0, transactionalMaxWaitMillis, 1000));
+        settings.put(DispatchPriority.STANDARD, new PriorityDispatchScheduler.LevelSettings(4, 1, 0, 60000, 1000));
+        settings.put(DispatchPriority.BULK, new PriorityDispatchScheduler.LevelSettings(1, 1, 0, bulkMaxWaitMillis, 1000));
+        return settings;
+    }
+}
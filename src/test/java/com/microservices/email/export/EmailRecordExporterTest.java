@@ -0,0 +1,138 @@
+package com.microservices.email.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailRecordExporterTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE email_records (id BIGINT AUTO_INCREMENT PRIMARY KEY, order_id BIGINT, " +
+            "customer_id VARCHAR(255), email_address VARCHAR(255), email_type VARCHAR(64), " +
+            "email_status VARCHAR(64), subject VARCHAR(255), created_at TIMESTAMP, sent_at TIMESTAMP)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE email_records");
+    }
+
+    @Test
+    void testExport_SpansSlicesAndKeepsIdOrder() throws IOException {
+        // Arrange: seven rows read in slices of three
+        for (int i = 0; i < 7; i++) {
+            insert(1000L + i, "Order " + i, BASE.plusHours(i));
+        }
+        EmailRecordExporter exporter = new EmailRecordExporter(jdbcTemplate, 2, 3);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(BASE, BASE.plusDays(1), false, out);
+
+        // Assert
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(7, rows);
+        assertEquals(8, lines.size());
+        assertEquals(EmailRecordExporter.HEADER, lines.get(0));
+        for (int i = 0; i < 7; i++) {
+            assertTrue(lines.get(i + 1).startsWith((i + 1) + "," + (1000 + i) + ","), lines.get(i + 1));
+        }
+    }
+
+    @Test
+    void testExport_SlicesResumeAfterCreationTimeAndId() throws IOException {
+        // Arrange: ids out of creation order, with ties on created_at straddling the slice boundaries
+        int[] hours = {2, 1, 1, 1, 0, 0, 3};
+        for (int i = 0; i < hours.length; i++) {
+            insert(1000L + i, "Order " + i, BASE.plusHours(hours[i]));
+        }
+        EmailRecordExporter exporter = new EmailRecordExporter(jdbcTemplate, 2, 2);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(BASE, BASE.plusDays(1), false, out);
+
+        // Assert
+        List<Long> ids = out.toString(StandardCharsets.UTF_8).lines().skip(1)
+            .map(line -> Long.parseLong(line.substring(0, line.indexOf(',')))).toList();
+        assertEquals(7, rows);
+        assertEquals(List.of(5L, 6L, 2L, 3L, 4L, 1L, 7L), ids);
+    }
+
+    @Test
+    void testExport_OnlyRowsInHalfOpenRange() throws IOException {
+        // Arrange
+        insert(1L, "Before", BASE.minusSeconds(1));
+        insert(2L, "At start", BASE);
+        insert(3L, "At end", BASE.plusHours(1));
+        EmailRecordExporter exporter = new EmailRecordExporter(jdbcTemplate, 100, 100);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(BASE, BASE.plusHours(1), false, out);
+
+        // Assert
+        assertEquals(1, rows);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(",At start,"));
+    }
+
+    @Test
+    void testExport_GzipRoundTrip() throws IOException {
+        // Arrange
+        insert(42L, "Your order, \"42\" has shipped", BASE);
+        EmailRecordExporter exporter = new EmailRecordExporter(jdbcTemplate, 100, 100);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(BASE, BASE.plusDays(1), true, out);
+
+        // Assert
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(EmailRecordExporter.HEADER + "\n" +
+            "1,42,CUST001,test@example.com,ORDER_SHIPPED,SENT,\"Your order, \"\"42\"\" has shipped\"," +
+            "2024-01-01T00:00,2024-01-01T00:05\n", csv);
+    }
+
+    @Test
+    void testWriteField_QuotesOnlyWhenNeeded() throws IOException {
+        StringWriter writer = new StringWriter();
+
+        EmailRecordExporter.writeField("plain", writer);
+        writer.write('|');
+        EmailRecordExporter.writeField("line\nbreak", writer);
+        writer.write('|');
+        EmailRecordExporter.writeField(null, writer);
+
+        assertEquals("plain|\"line\nbreak\"|", writer.toString());
+    }
+
+    private void insert(long orderId, String subject, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO email_records (order_id, customer_id, email_address, email_type, " +
+                "email_status, subject, created_at, sent_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            orderId, "CUST001", "test@example.com", "ORDER_SHIPPED", "SENT", subject,
+            Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt.plusMinutes(5)));
+    }
+}
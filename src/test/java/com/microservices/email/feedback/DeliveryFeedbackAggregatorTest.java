@@ -0,0 +1,133 @@
+package com.microservices.email.feedback;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.DeliveryFeedbackEvent;
+import com.microservices.email.event.DeliveryFeedbackEvent.FeedbackType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryFeedbackAggregatorTest {
+
+    private final Map<Email.EmailStatus, List<List<Long>>> applied = new HashMap<>();
+
+    private final Set<String> suppressed = new HashSet<>();
+
+    @Test
+    void testFeedbackCoalescedToMostSevereOutcomePerEmail() {
+        DeliveryFeedbackAggregator aggregator = aggregator(100, 1000);
+
+        aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.SOFT_BOUNCE));
+        aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.HARD_BOUNCE));
+        aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.SOFT_BOUNCE));
+        aggregator.record(new DeliveryFeedbackEvent(2L, "b@example.com", FeedbackType.SOFT_BOUNCE));
+        aggregator.record(new DeliveryFeedbackEvent(3L, "c@example.com", FeedbackType.COMPLAINT));
+        aggregator.record(new DeliveryFeedbackEvent(4L, "d@example.com", FeedbackType.DELIVERED));
+
+        assertEquals(3, aggregator.flush());
+        assertEquals(List.of(List.of(1L)), applied.get(Email.EmailStatus.BOUNCED));
+        assertEquals(List.of(List.of(2L)), applied.get(Email.EmailStatus.FAILED));
+        assertEquals(List.of(List.of(3L)), applied.get(Email.EmailStatus.COMPLAINED));
+        assertEquals(Set.of("a@example.com", "c@example.com"), suppressed);
+        assertEquals(0, aggregator.getPendingCount());
+    }
+
+    @Test
+    void testOneSetBasedUpdatePerBatchOfIds() {
+        DeliveryFeedbackAggregator aggregator = aggregator(2, 1000);
+        for (long id = 1; id <= 5; id++) {
+            aggregator.record(new DeliveryFeedbackEvent(id, "x" + id + "@example.com", FeedbackType.HARD_BOUNCE));
+        }
+
+        assertEquals(5, aggregator.flush());
+        List<List<Long>> batches = applied.get(Email.EmailStatus.BOUNCED);
+        assertEquals(3, batches.size());
+        assertEquals(5, batches.stream().mapToInt(List::size).sum());
+        assertEquals(5, suppressed.size());
+    }
+
+    @Test
+    void testFailedApplyIsRetriedOnNextFlush() {
+        boolean[] down = { true };
+        DeliveryFeedbackAggregator aggregator = new DeliveryFeedbackAggregator((outcome, ids) -> {
+            if (down[0]) {
+                throw new IllegalStateException("database unavailable");
+            }
+            applied.computeIfAbsent(outcome, key -> new ArrayList<>()).add(List.copyOf(ids));
+            return ids.size();
+        }, addresses -> addresses.size(), 100, 1000, new SimpleMeterRegistry());
+
+        aggregator.record(new DeliveryFeedbackEvent(7L, "g@example.com", FeedbackType.SOFT_BOUNCE));
+        assertEquals(0, aggregator.flush());
+        assertEquals(1, aggregator.getPendingCount());
+
+        // A hard bounce arriving in between still wins over the retried soft bounce
+        aggregator.record(new DeliveryFeedbackEvent(7L, "g@example.com", FeedbackType.HARD_BOUNCE));
+        down[0] = false;
+        assertEquals(1, aggregator.flush());
+        assertEquals(List.of(List.of(7L)), applied.get(Email.EmailStatus.BOUNCED));
+        assertNull(applied.get(Email.EmailStatus.FAILED));
+    }
+
+    @Test
+    void testOverflowFlushesOnRecordingThreadAndUntypedEventsAreIgnored() {
+        DeliveryFeedbackAggregator aggregator = aggregator(100, 2);
+
+        assertFalse(aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", null)));
+        aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.SOFT_BOUNCE));
+        aggregator.record(new DeliveryFeedbackEvent(2L, "b@example.com", FeedbackType.SOFT_BOUNCE));
+        assertNull(applied.get(Email.EmailStatus.FAILED));
+
+        aggregator.record(new DeliveryFeedbackEvent(3L, "c@example.com", FeedbackType.SOFT_BOUNCE));
+        assertEquals(3, applied.get(Email.EmailStatus.FAILED).get(0).size());
+        assertEquals(0, aggregator.getPendingCount());
+    }
+
+    @Test
+    void testFlushCompletelyReportsFailedUpdatesAndSuppressions() {
+        boolean[] sinkDown = { false };
+        boolean[] suppressorDown = { true };
+        DeliveryFeedbackAggregator aggregator = new DeliveryFeedbackAggregator((outcome, ids) -> {
+            if (sinkDown[0]) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return ids.size();
+        }, addresses -> {
+            if (suppressorDown[0]) {
+                throw new IllegalStateException("suppression store unavailable");
+            }
+            return addresses.size();
+        }, 100, 1000, new SimpleMeterRegistry());
+
+        aggregator.record(new DeliveryFeedbackEvent(1L, "a@example.com", FeedbackType.HARD_BOUNCE));
+        assertFalse(aggregator.flushCompletely());
+
+        suppressorDown[0] = false;
+        sinkDown[0] = true;
+        aggregator.record(new DeliveryFeedbackEvent(2L, "b@example.com", FeedbackType.SOFT_BOUNCE));
+        assertFalse(aggregator.flushCompletely());
+        assertEquals(1, aggregator.getPendingCount());
+
+        sinkDown[0] = false;
+        assertTrue(aggregator.flushCompletely());
+        assertEquals(0, aggregator.getPendingCount());
+    }
+
+    private DeliveryFeedbackAggregator aggregator(int batchSize, int maxPendingEmails) {
+        return new DeliveryFeedbackAggregator((outcome, ids) -> {
+            applied.computeIfAbsent(outcome, key -> new ArrayList<>()).add(List.copyOf(ids));
+            return ids.size();
+        }, addresses -> {
+            suppressed.addAll(addresses);
+            return addresses.size();
+        }, batchSize, maxPendingEmails, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,112 @@
+package com.microservices.email.lifecycle;
+
+import com.microservices.email.entity.Email.EmailType;
+import com.microservices.email.event.OrderEvent.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderLifecycleTableTest {
+
+    private final OrderLifecycleTable table = new OrderLifecycleTable(1000);
+
+    @Test
+    void testLaterStatesAcceptedEarlierStatesRejected() {
+        assertTrue(table.advance(1L, OrderStatus.CONFIRMED, 1_000));
+        assertTrue(table.advance(1L, OrderStatus.SHIPPED, 2_000));
+        assertTrue(table.advance(1L, OrderStatus.DELIVERED, 3_000));
+
+        assertFalse(table.advance(1L, OrderStatus.SHIPPED, 2_000));
+        assertFalse(table.advance(1L, OrderStatus.CONFIRMED, 4_000));
+        assertEquals(2, table.staleCount());
+    }
+
+    @Test
+    void testCancelledAfterRefundedIsStale() {
+        assertTrue(table.advance(2L, OrderStatus.REFUNDED, 5_000));
+
+        assertFalse(table.advance(2L, OrderStatus.CANCELLED, 6_000));
+    }
+
+    @Test
+    void testRedeliveryOfLatestStateIsAccepted() {
+        assertTrue(table.advance(3L, OrderStatus.SHIPPED, 2_000));
+
+        assertTrue(table.advance(3L, OrderStatus.SHIPPED, 2_000));
+    }
+
+    @Test
+    void testSameRankDecidedByTimestamp() {
+        assertTrue(table.advance(4L, OrderStatus.FAILED, 2_000));
+
+        assertFalse(table.advance(4L, OrderStatus.PAYMENT_PENDING, 1_000));
+        assertTrue(table.advance(4L, OrderStatus.PAYMENT_PENDING, 3_000));
+        assertTrue(table.advance(4L, OrderStatus.PAID, 4_000));
+    }
+
+    @Test
+    void testUnknownTimestampNeverMakesAnEventStale() {
+        assertTrue(table.advance(5L, OrderStatus.FAILED, 2_000));
+
+        assertTrue(table.advance(5L, OrderStatus.PAYMENT_PENDING, Long.MIN_VALUE));
+    }
+
+    @Test
+    void testMemoryIsBoundedAndActiveOrdersSurviveEviction() {
+        table.advance(42L, OrderStatus.DELIVERED, 1_000);
+        for (long orderId = 1_000; orderId < 100_000; orderId++) {
+            table.advance(orderId, OrderStatus.CONFIRMED, 1_000);
+            // An order that keeps receiving events is carried into each new generation
+            if (orderId % 500 == 0) {
+                table.advance(42L, OrderStatus.DELIVERED, 1_000);
+            }
+        }
+
+        assertTrue(table.size() <= 2_000);
+        assertFalse(table.advance(42L, OrderStatus.SHIPPED, 1_000));
+        // Long-evicted orders are treated as unseen
+        assertTrue(table.advance(1_000L, OrderStatus.CREATED, 1_000));
+    }
+
+    @Test
+    void testEmailedTypesAreTrackedPerOrderAndCarriedAcrossGenerations() {
+        table.advance(7L, OrderStatus.SHIPPED, 1_000);
+        table.markEmailed(7L, EmailType.ORDER_SHIPPED);
+        table.markEmailed(7L, EmailType.SYSTEM_NOTIFICATION);
+
+        assertTrue(table.isEmailed(7L, EmailType.ORDER_SHIPPED));
+        assertTrue(table.isEmailed(7L, EmailType.SYSTEM_NOTIFICATION));
+        assertFalse(table.isEmailed(7L, EmailType.ORDER_DELIVERED));
+        assertFalse(table.isEmailed(8L, EmailType.ORDER_SHIPPED));
+
+        for (long orderId = 1_000; orderId < 100_000; orderId++) {
+            table.advance(orderId, OrderStatus.CONFIRMED, 1_000);
+            if (orderId % 500 == 0) {
+                table.advance(7L, OrderStatus.SHIPPED, 1_000);
+            }
+        }
+        assertTrue(table.isEmailed(7L, EmailType.ORDER_SHIPPED));
+    }
+
+    @Test
+    void testRestoredStateRejectsEarlierStatesButNotSameRank() {
+        table.restore(9L, OrderStatus.DELIVERED, EmailType.ORDER_DELIVERED);
+        table.restore(9L, OrderStatus.SHIPPED, EmailType.ORDER_SHIPPED);
+
+        assertTrue(table.isEmailed(9L, EmailType.ORDER_SHIPPED));
+        assertTrue(table.isEmailed(9L, EmailType.ORDER_DELIVERED));
+        assertEquals(0, table.staleCount());
+        assertFalse(table.advance(9L, OrderStatus.SHIPPED, 1_000));
+        assertTrue(table.advance(9L, OrderStatus.DELIVERED, 1_000));
+    }
+
+    @Test
+    void testSiblingTablesShareStaleCountsButNotOrders() {
+        OrderLifecycleTable sibling = table.newSibling(1000);
+        sibling.advance(10L, OrderStatus.REFUNDED, 1_000);
+
+        assertFalse(sibling.advance(10L, OrderStatus.SHIPPED, 2_000));
+        assertTrue(table.advance(10L, OrderStatus.SHIPPED, 2_000));
+        assertEquals(1, table.staleCount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.microservices.email.lifecycle;
+
+import com.microservices.email.entity.Email.EmailType;
+import com.microservices.email.event.OrderEvent.OrderStatus;
+import com.microservices.email.view.OrderEmailView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedOrderStateTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order-events", 3);
+
+    private final OrderLifecycleTable unpartitioned = new OrderLifecycleTable(1000);
+
+    private final Map<TopicPartition, Boolean> paused = new ConcurrentHashMap<>();
+
+    private PartitionedOrderState state;
+
+    @AfterEach
+    void tearDown() {
+        if (state != null) {
+            state.shutdown();
+        }
+    }
+
+    @Test
+    void testAssignedPartitionStaysPausedUntilWarm() {
+        CountDownLatch release = new CountDownLatch(1);
+        state = state((partition, since, limit) -> {
+            await(release);
+            return List.of(new OrderEmailView(1L, EmailType.ORDER_DELIVERED),
+                           new OrderEmailView(1L, EmailType.ORDER_SHIPPED),
+                           new OrderEmailView(2L, EmailType.PROMOTIONAL));
+        });
+
+        state.onPartitionsAssigned(null, List.of(PARTITION));
+        assertEquals(Boolean.TRUE, paused.get(PARTITION));
+
+        release.countDown();
+        state.awaitReady(3);
+        assertTrue(waitFor(() -> Boolean.FALSE.equals(paused.get(PARTITION))));
+
+        OrderLifecycleTable lifecycle = state.lifecycleFor(3);
+        assertNotSame(unpartitioned, lifecycle);
+        assertTrue(lifecycle.isEmailed(1L, EmailType.ORDER_SHIPPED));
+        assertFalse(lifecycle.advance(1L, OrderStatus.SHIPPED, 1_000));
+        // Emails that do not come from an order state are not restored
+        assertEquals(1, lifecycle.size());
+    }
+
+    @Test
+    void testRevokedPartitionStateIsDropped() {
+        state = state((partition, since, limit) -> List.of(new OrderEmailView(5L, EmailType.ORDER_CONFIRMATION)));
+        state.onPartitionsAssigned(null, List.of(PARTITION));
+        state.awaitReady(3);
+        assertTrue(state.lifecycleFor(3).isEmailed(5L, EmailType.ORDER_CONFIRMATION));
+
+        state.onPartitionsRevokedAfterCommit(null, List.of(PARTITION));
+
+        assertSame(unpartitioned, state.lifecycleFor(3));
+        assertFalse(state.lifecycleFor(3).isEmailed(5L, EmailType.ORDER_CONFIRMATION));
+    }
+
+    @Test
+    void testFailedWarmupStartsColdAndResumes() {
+        state = state((partition, since, limit) -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        state.onPartitionsAssigned(null, List.of(PARTITION));
+        state.awaitReady(3);
+
+        assertTrue(waitFor(() -> Boolean.FALSE.equals(paused.get(PARTITION))));
+        assertEquals(0, state.lifecycleFor(3).size());
+        assertNotSame(unpartitioned, state.lifecycleFor(3));
+    }
+
+    private PartitionedOrderState state(PartitionedOrderState.Loader loader) {
+        return new PartitionedOrderState(unpartitioned, loader, paused::put, 1000, Duration.ofHours(72),
+                                         1000, 5000, 1, new SimpleMeterRegistry());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+}
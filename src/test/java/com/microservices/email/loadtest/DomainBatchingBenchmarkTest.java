@@ -0,0 +1,130 @@
+package com.microservices.email.loadtest;
+
+import com.microservices.email.transport.DomainBatchingMailSender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends the same interleaved multi-domain workload to the SMTP sink once with a connection per
+ * email, as the dispatch path did before, and once through domain micro-batches, and compares
+ * connections opened and sustained throughput.
+ *
+ * <pre>
+ * mvn test -Dloadtest=true -Dtest=DomainBatchingBenchmarkTest [-Dbatching.emails=5000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class DomainBatchingBenchmarkTest {
+
+    private static final int EMAILS = Integer.getInteger("batching.emails", 2000);
+    private static final int WORKERS = 8;
+    private static final String[] DOMAINS = {"gmail.com", "yahoo.com", "outlook.com", "example.com", "icloud.com"};
+
+    private SmtpSinkServer server;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SmtpSinkServer(0);
+        server.setLatencyMillis(Long.getLong("batching.smtp.latency-ms", 2));
+        server.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        mailSender.setUsername("loadtest");
+        mailSender.setPassword("loadtest");
+        mailSender.getJavaMailProperties().put("mail.smtp.auth", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void domainBatchesOpenFewerConnections() throws Exception {
+        Result perEmail = runConnectionPerEmail();
+        Result batched = runDomainBatched();
+
+        System.out.printf("Connection per email: %d connections, %.0f emails/s%n", perEmail.connections, perEmail.throughput);
+        System.out.printf("Domain batches:       %d connections, %.0f emails/s (%.2f emails per connection)%n",
+            batched.connections, batched.throughput, (double) EMAILS / batched.connections);
+
+        assertEquals(EMAILS, perEmail.connections);
+        assertTrue(batched.connections * 5 <= perEmail.connections,
+            "Domain batching should cut SMTP connections at least five-fold");
+    }
+
+    private Result runConnectionPerEmail() throws Exception {
+        server.resetCounters();
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<?>[] sends = new CompletableFuture<?>[EMAILS];
+            for (int i = 0; i < EMAILS; i++) {
+                MimeMessage message = message(i);
+                sends[i] = CompletableFuture.runAsync(() -> mailSender.send(message), executor);
+            }
+            CompletableFuture.allOf(sends).get(5, TimeUnit.MINUTES);
+            return result(start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Result runDomainBatched() throws Exception {
+        server.resetCounters();
+        DomainBatchingMailSender batchingSender =
+            new DomainBatchingMailSender(mailSender, 20, 25, WORKERS, new SimpleMeterRegistry());
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<?>[] sends = new CompletableFuture<?>[EMAILS];
+            for (int i = 0; i < EMAILS; i++) {
+                sends[i] = batchingSender.send(recipient(i), message(i));
+            }
+            CompletableFuture.allOf(sends).get(5, TimeUnit.MINUTES);
+            return result(start);
+        } finally {
+            batchingSender.shutdown();
+        }
+    }
+
+    private Result result(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        assertEquals(EMAILS, server.getMessageCount());
+        return new Result(server.getConnectionCount(), EMAILS / seconds);
+    }
+
+    private MimeMessage message(int i) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom("noreply@emailservice.com");
+        helper.setTo(recipient(i));
+        helper.setSubject("Order Confirmation - Order #" + i);
+        helper.setText("Thank you for your order.");
+        return message;
+    }
+
+    // Consecutive emails go to different domains, as they arrive from the order stream
+    private static String recipient(int i) {
+        return "customer" + i + "@" + DOMAINS[i % DOMAINS.length];
+    }
+
+    private record Result(long connections, double throughput) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.microservices.email.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.microservices.email.event.OrderEvent;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a recorded stream of order events into Kafka and measures how long each one takes
+ * to come out the other end as a message accepted by the SMTP sink.
+ */
+public class OrderEventReplayDriver {
+
+    private static final Pattern ORDER_ID_PATTERN = Pattern.compile("Subject: [^\\r\\n]*#(\\d+)");
+    private static final long ORDER_ID_STRIDE = 1_000_000L;
+
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final String topic;
+
+    private final Map<Long, Queue<Long>> sentAtNanos = new ConcurrentHashMap<>();
+    private final Queue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger received = new AtomicInteger();
+
+    public OrderEventReplayDriver(KafkaTemplate<String, OrderEvent> kafkaTemplate, String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+    }
+
+    public static List<OrderEvent> loadRecording(String resource) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        List<OrderEvent> events = new ArrayList<>();
+
+        try (InputStream in = OrderEventReplayDriver.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Recording not found on classpath: " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    events.add(objectMapper.readValue(line, OrderEvent.class));
+                }
+            }
+        }
+        return events;
+    }
+
+    // Hooked up as the SMTP sink message listener
+    public void onMessageReceived(SmtpSinkServer.ReceivedMessage message) {
+        Matcher matcher = ORDER_ID_PATTERN.matcher(message.dataAsString());
+        if (!matcher.find()) {
+            return;
+        }
+        Queue<Long> pending = sentAtNanos.get(Long.parseLong(matcher.group(1)));
+        Long sentAt = pending != null ? pending.poll() : null;
+        if (sentAt != null) {
+            latenciesNanos.add(message.receivedAtNanos() - sentAt);
+        }
+        received.incrementAndGet();
+    }
+
+    public Report replay(List<OrderEvent> recording, int totalEvents, Duration timeout) throws InterruptedException {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < totalEvents; i++) {
+            OrderEvent recorded = recording.get(i % recording.size());
+            long iteration = i / recording.size();
+            OrderEvent event = copyWithOrderId(recorded, recorded.getOrderId() + iteration * ORDER_ID_STRIDE);
+
+            sentAtNanos.computeIfAbsent(event.getOrderId(), id -> new ConcurrentLinkedQueue<>()).add(System.nanoTime());
+            kafkaTemplate.send(topic, String.valueOf(event.getOrderId()), event);
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (received.get() < totalEvents && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        return new Report(totalEvents, received.get(), elapsedNanos, percentiles(), heapUsedAfterGc());
+    }
+
+    private long[] percentiles() {
+        long[] sorted = latenciesNanos.stream().mapToLong(Long::longValue).toArray();
+        if (sorted.length == 0) {
+            return new long[] {0, 0};
+        }
+        Arrays.sort(sorted);
+        return new long[] {
+            sorted[(int) Math.min(sorted.length - 1, Math.round(sorted.length * 0.50))],
+            sorted[(int) Math.min(sorted.length - 1, Math.round(sorted.length * 0.99))]
+        };
+    }
+
+    private static long heapUsedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static OrderEvent copyWithOrderId(OrderEvent source, long orderId) {
+        OrderEvent copy = new OrderEvent(orderId, source.getCustomerId(), source.getCustomerEmail(),
+                                         source.getOrderStatus(), source.getEventType());
+        copy.setCustomerName(source.getCustomerName());
+        copy.setTotalAmount(source.getTotalAmount());
+        copy.setCurrency(source.getCurrency());
+        copy.setOrderDate(source.getOrderDate());
+        copy.setShippingAddress(source.getShippingAddress());
+        copy.setBillingAddress(source.getBillingAddress());
+        copy.setItems(source.getItems());
+        copy.setTrackingNumber(source.getTrackingNumber());
+        copy.setPaymentMethod(source.getPaymentMethod());
+        return copy;
+    }
+
+    public record Report(int eventsSent, int emailsReceived, long elapsedNanos, long[] latencyPercentilesNanos,
+                         long heapUsedBytes) {
+
+        public double eventsPerSecond() {
+            return emailsReceived / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "events sent: %d, emails received: %d, elapsed: %d ms, throughput: %.1f events/s, " +
+                "p50: %.2f ms, p99: %.2f ms, heap used after GC: %d MB",
+                eventsSent, emailsReceived, elapsedNanos / 1_000_000, eventsPerSecond(),
+                latencyPercentilesNanos[0] / 1_000_000.0, latencyPercentilesNanos[1] / 1_000_000.0,
+                heapUsedBytes / (1024 * 1024));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.microservices.email.loadtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpSinkServerTest {
+
+    private SmtpSinkServer server;
+    private JavaMailSenderImpl mailSender;
+    private final List<SmtpSinkServer.ReceivedMessage> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SmtpSinkServer(0);
+        server.setMessageListener(received::add);
+        server.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        mailSender.setUsername("user");
+        mailSender.setPassword("secret");
+        mailSender.getJavaMailProperties().put("mail.smtp.auth", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testSend_ThroughRealJavaMailPath_MessageReceived() {
+        // Act
+        mailSender.send(createMessage("customer@example.com", "Order Confirmation - Order #42"));
+
+        // Assert
+        assertEquals(1, server.getMessageCount());
+        assertEquals(1, received.size());
+        assertEquals(List.of("customer@example.com"), received.get(0).recipients());
+        assertTrue(received.get(0).dataAsString().contains("Subject: Order Confirmation - Order #42"));
+    }
+
+    @Test
+    void testSend_BulkMessages_ShareOneConnection() {
+        // Act
+        mailSender.send(createMessage("a@example.com", "First"), createMessage("b@example.com", "Second"));
+
+        // Assert
+        assertEquals(2, server.getMessageCount());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    void testSend_ErrorInjection_FailsSend() {
+        // Arrange
+        server.setErrorRate(1.0);
+
+        // Act & Assert
+        assertThrows(MailException.class, () -> mailSender.send(createMessage("customer@example.com", "Subject")));
+        assertEquals(0, server.getMessageCount());
+        assertEquals(1, server.getInjectedFailureCount());
+    }
+
+    @Test
+    void testSend_RateLimitExceeded_RejectsMessage() {
+        // Arrange
+        server.setMaxMessagesPerSecond(1);
+
+        // Act & Assert
+        assertThrows(MailException.class, () -> mailSender.send(
+            createMessage("a@example.com", "First"), createMessage("b@example.com", "Second")));
+        assertEquals(1, server.getMessageCount());
+        assertEquals(1, server.getRateLimitedCount());
+    }
+
+    private SimpleMailMessage createMessage(String to, String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@emailservice.com");
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText("Thank you for your order");
+        return message;
+    }
+}
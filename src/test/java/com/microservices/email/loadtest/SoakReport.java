@@ -0,0 +1,115 @@
+package com.microservices.email.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Trend analysis over soak samples and the machine-readable report written for each run. Growth is
+ * the least-squares slope over the samples after warm-up, expressed per hour, so a single spike
+ * does not fail a run while a steady climb does.
+ */
+public record SoakReport(String label,
+                         String startedAt,
+                         Map<String, Object> config,
+                         List<SoakSampler.Sample> samples,
+                         List<Check> checks,
+                         boolean passed) {
+
+    public record Thresholds(double maxHeapGrowthMbPerHour,
+                             double maxThreadGrowthPerHour,
+                             double maxGcTimeRatio,
+                             double maxRecordsPerEvent,
+                             Map<String, Double> maxRowGrowthPerHour,
+                             double warmupFraction) {
+    }
+
+    public record Check(String name, double value, double limit, boolean passed) {
+    }
+
+    public static SoakReport analyse(String label, Instant startedAt, Map<String, Object> config,
+                                     List<SoakSampler.Sample> samples, Thresholds thresholds) {
+        List<SoakSampler.Sample> steady = samples.subList(
+            Math.min(samples.size(), (int) (samples.size() * thresholds.warmupFraction())), samples.size());
+        List<Check> checks = new ArrayList<>();
+
+        if (steady.size() >= 3) {
+            checks.add(upTo("heap_after_gc_mb_per_hour",
+                slopePerHour(steady, sample -> sample.heapAfterGcBytes() / (1024.0 * 1024.0)),
+                thresholds.maxHeapGrowthMbPerHour()));
+            checks.add(upTo("threads_per_hour",
+                slopePerHour(steady, SoakSampler.Sample::threadCount), thresholds.maxThreadGrowthPerHour()));
+            for (Map.Entry<String, Double> limit : thresholds.maxRowGrowthPerHour().entrySet()) {
+                String table = limit.getKey();
+                checks.add(upTo(table + "_rows_per_hour",
+                    slopePerHour(steady, sample -> sample.rowCounts().getOrDefault(table, 0L)), limit.getValue()));
+            }
+        }
+
+        if (samples.size() >= 2) {
+            SoakSampler.Sample first = samples.get(0);
+            SoakSampler.Sample last = samples.get(samples.size() - 1);
+            long wallMillis = (last.elapsedSeconds() - first.elapsedSeconds()) * 1000;
+            if (wallMillis > 0) {
+                checks.add(upTo("gc_time_ratio",
+                    (double) (last.gcTimeMillis() - first.gcTimeMillis()) / wallMillis, thresholds.maxGcTimeRatio()));
+            }
+            long events = last.eventsSent() - first.eventsSent();
+            if (events > 0) {
+                long records = last.rowCounts().getOrDefault("email_records", 0L)
+                    - first.rowCounts().getOrDefault("email_records", 0L);
+                checks.add(upTo("email_records_per_event", (double) records / events, thresholds.maxRecordsPerEvent()));
+            }
+        }
+
+        boolean passed = checks.stream().allMatch(Check::passed);
+        return new SoakReport(label, startedAt.toString(), config, List.copyOf(samples), checks, passed);
+    }
+
+    public Path writeTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("soak-report-" + label + "-" + startedAt.replace(':', '-') + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+        return file;
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Soak run ").append(label).append(passed ? " PASSED" : " FAILED");
+        for (Check check : checks) {
+            summary.append(String.format("%n  %-32s %12.3f (limit %.3f)%s", check.name(), check.value(), check.limit(),
+                                         check.passed() ? "" : "  <-- exceeded"));
+        }
+        return summary.toString();
+    }
+
+    // Least-squares slope of the metric against elapsed time, scaled to units per hour
+    static double slopePerHour(List<SoakSampler.Sample> samples, ToDoubleFunction<SoakSampler.Sample> metric) {
+        double n = samples.size();
+        double meanX = 0;
+        double meanY = 0;
+        for (SoakSampler.Sample sample : samples) {
+            meanX += sample.elapsedSeconds() / n;
+            meanY += metric.applyAsDouble(sample) / n;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (SoakSampler.Sample sample : samples) {
+            double dx = sample.elapsedSeconds() - meanX;
+            covariance += dx * (metric.applyAsDouble(sample) - meanY);
+            variance += dx * dx;
+        }
+        return variance == 0 ? 0.0 : covariance / variance * 3600.0;
+    }
+
+    private static Check upTo(String name, double value, double limit) {
+        return new Check(name, value, limit, value <= limit);
+    }
+}
@@ -0,0 +1,96 @@
+package com.microservices.email.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SoakReportTest {
+
+    private static final SoakReport.Thresholds THRESHOLDS = new SoakReport.Thresholds(
+        32, 10, 0.05, 1.0, Map.of("rendered_messages", 500.0), 0.25);
+
+    @Test
+    void testFlatMetricsPass() {
+        List<SoakSampler.Sample> samples = new ArrayList<>();
+        for (int i = 0; i <= 12; i++) {
+            // Heap oscillates around a plateau, as it does with caches that are full
+            long heap = (200L + (i % 2 == 0 ? 5 : -5)) * 1024 * 1024;
+            samples.add(sample(i * 600L, i * 30_000L, heap, 40, i * 600L, i * 30_000L, 100));
+        }
+
+        SoakReport report = SoakReport.analyse("test", Instant.EPOCH, Map.of(), samples, THRESHOLDS);
+
+        assertTrue(report.passed(), report.summary());
+        assertEquals(5, report.checks().size());
+    }
+
+    @Test
+    void testSteadyHeapAndThreadGrowthFails() {
+        List<SoakSampler.Sample> samples = new ArrayList<>();
+        for (int i = 0; i <= 12; i++) {
+            // 10 minutes apart: 64 MB and 30 threads per hour
+            samples.add(sample(i * 600L, i * 30_000L, (200L + i * 64 / 6) * 1024 * 1024, 40 + i * 5,
+                               i * 600L, i * 30_000L, 100));
+        }
+
+        SoakReport report = SoakReport.analyse("test", Instant.EPOCH, Map.of(), samples, THRESHOLDS);
+
+        assertFalse(report.passed());
+        assertFalse(check(report, "heap_after_gc_mb_per_hour").passed());
+        assertFalse(check(report, "threads_per_hour").passed());
+        assertTrue(check(report, "rendered_messages_rows_per_hour").passed());
+    }
+
+    @Test
+    void testWarmupGrowthIgnored() {
+        List<SoakSampler.Sample> samples = new ArrayList<>();
+        for (int i = 0; i <= 12; i++) {
+            // Rendered blobs pile up during the first hour until retries catch up, then stay level
+            long rendered = Math.min(i, 3) * 1_000L;
+            samples.add(sample(i * 600L, i * 30_000L, 200L * 1024 * 1024, 40, i * 600L, i * 30_000L, rendered));
+        }
+
+        SoakReport report = SoakReport.analyse("test", Instant.EPOCH, Map.of(), samples, THRESHOLDS);
+
+        assertEquals(0.0, check(report, "rendered_messages_rows_per_hour").value(), 1e-9);
+        assertTrue(report.passed(), report.summary());
+    }
+
+    @Test
+    void testMoreRecordsThanEventsFails() {
+        List<SoakSampler.Sample> samples = List.of(
+            sample(0, 0, 0, 40, 0, 0, 0),
+            sample(600, 1_000, 0, 40, 0, 1_500, 0));
+
+        SoakReport report = SoakReport.analyse("test", Instant.EPOCH, Map.of(), samples, THRESHOLDS);
+
+        assertEquals(1.5, check(report, "email_records_per_event").value(), 1e-9);
+        assertFalse(report.passed());
+    }
+
+    @Test
+    void testSlopePerHour() {
+        List<SoakSampler.Sample> samples = List.of(
+            sample(0, 0, 0, 10, 0, 0, 0),
+            sample(1800, 0, 0, 20, 0, 0, 0),
+            sample(3600, 0, 0, 30, 0, 0, 0));
+
+        assertEquals(20.0, SoakReport.slopePerHour(samples, SoakSampler.Sample::threadCount), 1e-9);
+    }
+
+    private static SoakReport.Check check(SoakReport report, String name) {
+        return report.checks().stream().filter(check -> check.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static SoakSampler.Sample sample(long elapsedSeconds, long eventsSent, long heapBytes, int threads,
+                                             long gcTimeMillis, long emailRecords, long renderedMessages) {
+        return new SoakSampler.Sample(elapsedSeconds, eventsSent, eventsSent, heapBytes, elapsedSeconds / 10,
+                                      gcTimeMillis, threads, threads,
+                                      Map.of("email_records", emailRecords, "rendered_messages", renderedMessages));
+    }
+}
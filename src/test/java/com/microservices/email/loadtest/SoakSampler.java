@@ -0,0 +1,60 @@
+package com.microservices.email.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes one health sample of the running service: heap used right after a full collection,
+ * cumulative GC count and time, live threads, and the row count of each watched table.
+ */
+public class SoakSampler {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<String> tables;
+
+    public SoakSampler(JdbcTemplate jdbcTemplate, List<String> tables) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tables = tables;
+    }
+
+    public Sample sample(long elapsedSeconds, long eventsSent, long emailsReceived) {
+        // Heap after an explicit GC is what the service actually retains, without the garbage in between
+        System.gc();
+        long heapAfterGc = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        long gcCount = 0;
+        long gcTimeMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTimeMillis += Math.max(0, collector.getCollectionTime());
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        for (String table : tables) {
+            rowCounts.put(table, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+        }
+
+        return new Sample(elapsedSeconds, eventsSent, emailsReceived, heapAfterGc, gcCount, gcTimeMillis,
+                          threads.getThreadCount(), threads.getPeakThreadCount(), rowCounts);
+    }
+
+    public record Sample(long elapsedSeconds,
+                         long eventsSent,
+                         long emailsReceived,
+                         long heapAfterGcBytes,
+                         long gcCount,
+                         long gcTimeMillis,
+                         int threadCount,
+                         int peakThreadCount,
+                         Map<String, Long> rowCounts) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.microservices.email.loadtest;
+
+import com.microservices.email.event.OrderEvent;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the whole pipeline (embedded Kafka, consumer, database, SMTP sink with injected failures,
+ * retry jobs, rollups) at a steady rate for a long time and fails if heap after GC, threads or
+ * table sizes keep growing. The JSON report in target/soak is meant to be kept per release.
+ */
+// Run with: mvn test -Dtest=SoakTest -Dsoak=true [-Dsoak.duration-minutes=240 -Dsoak.rate=100 -Dsoak.label=1.4.0]
+@SpringBootTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.datasource.url=jdbc:h2:file:./target/soak/emaildb",
+    "loadtest.smtp.latency-ms=5",
+    "loadtest.smtp.error-rate=0.02",
+    // Failed emails become eligible for retry after a minute instead of an hour, so retries run during the soak
+    "email.retry-job.cutoff-age-ms=60000",
+    "logging.level.com.microservices.email=WARN"
+})
+@EmbeddedKafka(partitions = 3, topics = {"order-events", "customer-events"})
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+public class SoakTest {
+
+    private static final int SMTP_PORT = findFreePort();
+
+    private static final long ORDER_ID_STRIDE = 1_000_000L;
+
+    private static final List<String> WATCHED_TABLES =
+        List.of("email_records", "rendered_messages", "retry_jobs", "delivery_rollups");
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private SmtpSinkServer smtpSinkServer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void smtpProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadtest.smtp.port", () -> SMTP_PORT);
+    }
+
+    @Test
+    void pipelineStaysHealthyUnderSustainedLoad() throws Exception {
+        Duration duration = Duration.ofMinutes(Long.getLong("soak.duration-minutes", 30));
+        int ratePerSecond = Integer.getInteger("soak.rate", 50);
+        long sampleIntervalSeconds = Long.getLong("soak.sample-interval-seconds", 30);
+        String label = System.getProperty("soak.label", "local");
+
+        SoakReport.Thresholds thresholds = new SoakReport.Thresholds(
+            doubleProperty("soak.max-heap-growth-mb-per-hour", 32),
+            doubleProperty("soak.max-thread-growth-per-hour", 10),
+            doubleProperty("soak.max-gc-time-ratio", 0.05),
+            doubleProperty("soak.max-records-per-event", 1.0),
+            // Rows kept only until a retry succeeds, and one retry job per scheduled run
+            Map.of("rendered_messages", doubleProperty("soak.max-rendered-growth-per-hour", 500),
+                   "retry_jobs", doubleProperty("soak.max-retry-job-growth-per-hour", 30)),
+            doubleProperty("soak.warmup-fraction", 0.25));
+
+        List<OrderEvent> recording = OrderEventReplayDriver.loadRecording("loadtest/order-events.jsonl");
+        KafkaTemplate<String, OrderEvent> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            KafkaTestUtils.producerProps(embeddedKafkaBroker), new StringSerializer(), new JsonSerializer<>()));
+        SoakSampler sampler = new SoakSampler(jdbcTemplate, WATCHED_TABLES);
+        List<SoakSampler.Sample> samples = new ArrayList<>();
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long nextSample = start;
+        long sent = 0;
+
+        // One tick per second: send the tick's events, sample when due, sleep out the rest of the second
+        for (long tick = start; tick < end; tick += 1_000_000_000L) {
+            for (int i = 0; i < ratePerSecond; i++, sent++) {
+                OrderEvent recorded = recording.get((int) (sent % recording.size()));
+                OrderEvent event = OrderEventReplayDriver.copyWithOrderId(
+                    recorded, recorded.getOrderId() + (sent / recording.size()) * ORDER_ID_STRIDE);
+                kafkaTemplate.send("order-events", String.valueOf(event.getOrderId()), event);
+            }
+            if (System.nanoTime() >= nextSample) {
+                samples.add(sampler.sample((System.nanoTime() - start) / 1_000_000_000L, sent,
+                                           smtpSinkServer.getMessageCount()));
+                nextSample += sampleIntervalSeconds * 1_000_000_000L;
+            }
+            long sleepNanos = tick + 1_000_000_000L - System.nanoTime();
+            if (sleepNanos > 0) {
+                Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            }
+        }
+        kafkaTemplate.flush();
+        samples.add(sampler.sample((System.nanoTime() - start) / 1_000_000_000L, sent,
+                                   smtpSinkServer.getMessageCount()));
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("durationMinutes", duration.toMinutes());
+        config.put("ratePerSecond", ratePerSecond);
+        config.put("sampleIntervalSeconds", sampleIntervalSeconds);
+        config.put("javaVersion", System.getProperty("java.version"));
+        config.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        config.put("thresholds", thresholds);
+
+        SoakReport report = SoakReport.analyse(label, startedAt, config, samples, thresholds);
+        Path file = report.writeTo(Path.of("target", "soak"));
+        System.out.println(report.summary() + System.lineSeparator() + "Report: " + file.toAbsolutePath());
+
+        assertTrue(smtpSinkServer.getMessageCount() > 0, "No email reached the SMTP sink");
+        assertTrue(report.passed(), report.summary());
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
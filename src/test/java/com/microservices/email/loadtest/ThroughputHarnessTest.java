@@ -0,0 +1,74 @@
+package com.microservices.email.loadtest;
+
+import com.microservices.email.event.OrderEvent;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Dtest=ThroughputHarnessTest -Dloadtest=true [-Dloadtest.events=20000]
+@SpringBootTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "loadtest.smtp.latency-ms=5"
+})
+@EmbeddedKafka(partitions = 3, topics = {"order-events", "customer-events"})
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class ThroughputHarnessTest {
+
+    private static final int SMTP_PORT = findFreePort();
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private SmtpSinkServer smtpSinkServer;
+
+    @DynamicPropertySource
+    static void smtpProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadtest.smtp.port", () -> SMTP_PORT);
+    }
+
+    @Test
+    void replayRecordedOrderEvents() throws Exception {
+        int totalEvents = Integer.getInteger("loadtest.events", 2000);
+        List<OrderEvent> recording = OrderEventReplayDriver.loadRecording("loadtest/order-events.jsonl");
+
+        KafkaTemplate<String, OrderEvent> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            KafkaTestUtils.producerProps(embeddedKafkaBroker), new StringSerializer(), new JsonSerializer<>()));
+
+        OrderEventReplayDriver driver = new OrderEventReplayDriver(kafkaTemplate, "order-events");
+        smtpSinkServer.setMessageListener(driver::onMessageReceived);
+
+        OrderEventReplayDriver.Report report = driver.replay(recording, totalEvents, Duration.ofMinutes(5));
+        System.out.println("Throughput harness: " + report);
+
+        assertEquals(totalEvents, report.emailsReceived());
+    }
+
+    private static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
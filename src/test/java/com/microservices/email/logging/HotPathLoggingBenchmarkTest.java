@@ -0,0 +1,180 @@
+package com.microservices.email.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import com.microservices.email.service.EmailTemplateService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Events per second of a per-event pipeline step (template rendering plus the six INFO lines the
+ * consumer and services write for a delivered order event) on several threads, with logging off,
+ * synchronous to a file, and asynchronous with 1-in-100 sampling. Overheads are reported as the
+ * share of the logging-off throughput lost. Run with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HotPathLoggingBenchmarkTest {
+
+    private static final int THREADS = 4;
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURED_MILLIS = 5_000;
+    // The hotpath profile's console pattern, escaping included
+    private static final String PATTERN = "ts=%d{yyyy-MM-dd'T'HH:mm:ss.SSS} level=%level thread=%thread "
+                                          + "logger=%logger{36} "
+                                          + "msg=\"%replace(%replace(%msg){'[\\\\\"]','\\\\$0'}){'\\r?\\n','\\\\n'}\"%n";
+
+    @TempDir
+    Path logDir;
+
+    private final EmailTemplateService templateService = new EmailTemplateService();
+
+    private final List<LoggerContext> contexts = new ArrayList<>();
+
+    private OrderEvent orderEvent;
+
+    @BeforeEach
+    void setUp() {
+        orderEvent = new OrderEvent(98765L, "CUST-42", "customer@example.com",
+            OrderEvent.OrderStatus.CONFIRMED, "ORDER_CONFIRMED");
+        orderEvent.setCustomerName("Jane Doe");
+        orderEvent.setTotalAmount(new BigDecimal("249.97"));
+        orderEvent.setCurrency("USD");
+        orderEvent.setOrderDate(LocalDateTime.now());
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexts.forEach(LoggerContext::stop);
+    }
+
+    @Test
+    void sampledAsyncLoggingCostsLessThroughputThanSynchronous() throws Exception {
+        double off = eventsPerSecond(logger("off", Level.OFF, false), 1);
+        double sync = eventsPerSecond(logger("sync", Level.INFO, false), 1);
+        double sampledAsync = eventsPerSecond(logger("async", Level.INFO, true), 100);
+
+        double syncOverhead = 100.0 * (off - sync) / off;
+        double sampledAsyncOverhead = 100.0 * (off - sampledAsync) / off;
+        System.out.printf("Events/s on %d threads: logging off %,.0f; sync %,.0f (%.1f%% overhead); "
+                          + "async 1-in-100 %,.0f (%.1f%% overhead)%n",
+            THREADS, off, sync, syncOverhead, sampledAsync, sampledAsyncOverhead);
+
+        assertTrue(sampledAsyncOverhead < syncOverhead,
+            "Sampled async logging should cost less throughput than synchronous logging");
+    }
+
+    private double eventsPerSecond(Logger logger, int sampleRate) throws Exception {
+        LogSampling sampling = LogSampling.configure("bench-events=" + sampleRate);
+        SampledLogger eventLog = SampledLogger.of(logger, "bench-events");
+        try {
+            run(logger, eventLog, WARMUP_MILLIS);
+            return run(logger, eventLog, MEASURED_MILLIS) * 1000.0 / MEASURED_MILLIS;
+        } finally {
+            sampling.reset();
+        }
+    }
+
+    private long run(Logger logger, SampledLogger eventLog, long millis) throws Exception {
+        LongAdder events = new LongAdder();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.currentTimeMillis() + millis;
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                long id = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    processEvent(logger, eventLog, id++);
+                    events.increment();
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+        return events.sum();
+    }
+
+    // The INFO lines of the consumer, EmailService and the sender for one delivered event, around the work
+    private void processEvent(Logger logger, SampledLogger eventLog, long id) {
+        if (eventLog.sampleInfo()) {
+            logger.info("Received order event from topic: {}, partition: {}, offset: {}, orderId: {}, status: {}",
+                        "order-events", 3, id, orderEvent.getOrderId(), orderEvent.getOrderStatus());
+        }
+        eventLog.info("Processing order event for order: {} with status: {}",
+                      orderEvent.getOrderId(), orderEvent.getOrderStatus());
+        String content = templateService.generateContent(Email.EmailType.ORDER_CONFIRMATION, orderEvent);
+        eventLog.info("Email record created with ID: {} for order: {}", id, orderEvent.getOrderId());
+        eventLog.info("Attempting to send email ID: {}", id);
+        if (content.isEmpty()) {
+            throw new IllegalStateException("Template rendered nothing");
+        }
+        eventLog.info("Email sent successfully for email ID: {}", id);
+        eventLog.info("Successfully processed order event for orderId: {}", orderEvent.getOrderId());
+    }
+
+    private Logger logger(String name, Level level, boolean async) {
+        LoggerContext context = new LoggerContext();
+        context.setName(name);
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.start();
+        contexts.add(context);
+
+        ch.qos.logback.classic.Logger logger = context.getLogger("bench." + name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        if (level != Level.OFF) {
+            Appender<ILoggingEvent> appender = fileAppender(context, name);
+            logger.addAppender(async ? asyncAppender(context, appender) : appender);
+        }
+        return logger;
+    }
+
+    private Appender<ILoggingEvent> fileAppender(LoggerContext context, String name) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName(name + "-file");
+        appender.setFile(logDir.resolve(name + ".log").toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    // Same settings as logback-spring.xml with never-block, as under the hotpath profile
+    private Appender<ILoggingEvent> asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setName("async");
+        appender.setQueueSize(8192);
+        appender.setNeverBlock(true);
+        appender.setIncludeCallerData(false);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+}
@@ -0,0 +1,108 @@
+package com.microservices.email.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SampledLoggerTest {
+
+    private final Logger logger = mock(Logger.class);
+
+    private LogSampling sampling;
+
+    @AfterEach
+    void tearDown() {
+        // Categories are process-wide; put the ones used here back as they were
+        if (sampling != null) {
+            sampling.reset();
+        }
+    }
+
+    @Test
+    void testEveryNthLineWrittenOnceConfigured() {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        SampledLogger sampled = SampledLogger.of(logger, "test-sampled");
+        sampling = LogSampling.configure("test-sampled=10");
+
+        for (int i = 0; i < 100; i++) {
+            sampled.info("Processed {}", i);
+        }
+
+        verify(logger, times(10)).info(anyString(), any(Object.class));
+    }
+
+    @Test
+    void testCategoriesWithoutRateWriteEveryLine() {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        SampledLogger sampled = SampledLogger.of(logger, "test-unsampled");
+
+        for (int i = 0; i < 5; i++) {
+            sampled.info("Processed {} of {}", i, 5);
+        }
+
+        verify(logger, times(5)).info(anyString(), any(Object.class), any(Object.class));
+    }
+
+    @Test
+    void testDisabledLevelNeitherFormatsNorConsumesSamples() {
+        when(logger.isInfoEnabled()).thenReturn(false);
+        SampledLogger sampled = SampledLogger.of(logger, "test-sampled");
+        sampling = LogSampling.configure("test-sampled=2");
+
+        assertFalse(sampled.sampleInfo());
+        sampled.info("Processed {}", 1);
+
+        verify(logger, never()).info(anyString(), any(Object.class));
+        when(logger.isInfoEnabled()).thenReturn(true);
+        assertTrue(sampled.sampleInfo());
+    }
+
+    @Test
+    void testSkippedLinesAreCounted() {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        sampling = LogSampling.configure("test-metered=4").bindTo(meterRegistry);
+        SampledLogger sampled = SampledLogger.of(logger, "test-metered");
+
+        for (int i = 0; i < 8; i++) {
+            sampled.info("Processed {}", i);
+        }
+
+        assertEquals(4, sampling.rateOf("test-metered"));
+        assertEquals(6.0, meterRegistry.get("email.log.sampled.skipped").tag("category", "test-metered")
+            .functionCounter().count());
+    }
+
+    @Test
+    void testResetRestoresPreviousRates() {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        SampledLogger sampled = SampledLogger.of(logger, "test-reset");
+        LogSampling outer = LogSampling.configure("test-reset=5");
+        LogSampling inner = LogSampling.configure("test-reset=50");
+
+        inner.reset();
+        assertEquals(5, outer.rateOf("test-reset"));
+        outer.reset();
+        assertEquals(1, outer.rateOf("test-reset"));
+
+        for (int i = 0; i < 3; i++) {
+            sampled.info("Processed {}", i);
+        }
+        verify(logger, times(3)).info(anyString(), any(Object.class));
+    }
+
+    @Test
+    void testInvalidRatesRejectedWithoutChangingAnyRate() {
+        assertThrows(IllegalArgumentException.class, () -> LogSampling.configure("order-events"));
+        assertThrows(IllegalArgumentException.class, () -> LogSampling.configure("order-events=0"));
+        assertThrows(IllegalArgumentException.class, () -> LogSampling.configure("test-invalid=7,order-events"));
+
+        assertEquals(1, SampledLogger.category("test-invalid").rate());
+    }
+}
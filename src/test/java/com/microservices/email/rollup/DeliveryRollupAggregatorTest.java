@@ -0,0 +1,103 @@
+package com.microservices.email.rollup;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryRollupAggregatorTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    private final Map<RollupKey, Long> table = new HashMap<>();
+
+    @Test
+    void testTransitionsAggregatedPerHourTypeStatusAndDomain() {
+        DeliveryRollupAggregator aggregator = aggregator(100);
+
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR.plusMinutes(5)));
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR.plusMinutes(59)));
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR.plusHours(1)));
+        aggregator.record(event("gmail.com", Email.EmailStatus.FAILED, HOUR.plusMinutes(1)));
+        aggregator.record(event("example.com", Email.EmailStatus.SENT, HOUR));
+
+        assertEquals(4, aggregator.flush());
+        assertEquals(2L, table.get(key("gmail.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(1L, table.get(key("gmail.com", Email.EmailStatus.SENT, HOUR.plusHours(1))));
+        assertEquals(1L, table.get(key("gmail.com", Email.EmailStatus.FAILED, HOUR)));
+        assertEquals(1L, table.get(key("example.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(0, aggregator.getPendingCount());
+    }
+
+    @Test
+    void testSecondFlushWritesOnlyNewDeltas() {
+        DeliveryRollupAggregator aggregator = aggregator(100);
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.flush();
+
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR));
+
+        assertEquals(1, aggregator.flush());
+        assertEquals(3L, table.get(key("gmail.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(0, aggregator.flush());
+    }
+
+    @Test
+    void testFailedWriteKeepsDeltasForNextFlush() {
+        boolean[] down = { true };
+        DeliveryRollupAggregator aggregator = new DeliveryRollupAggregator((key, delta) -> {
+            if (down[0]) {
+                throw new IllegalStateException("database unavailable");
+            }
+            table.merge(key, delta, Long::sum);
+        }, 100, new SimpleMeterRegistry());
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("example.com", Email.EmailStatus.FAILED, HOUR));
+
+        assertEquals(0, aggregator.flush());
+        aggregator.record(event("gmail.com", Email.EmailStatus.SENT, HOUR));
+        down[0] = false;
+
+        assertEquals(2, aggregator.flush());
+        assertEquals(2L, table.get(key("gmail.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(1L, table.get(key("example.com", Email.EmailStatus.FAILED, HOUR)));
+    }
+
+    @Test
+    void testDomainsBeyondPendingLimitFoldedIntoOther() {
+        DeliveryRollupAggregator aggregator = aggregator(2);
+
+        aggregator.record(event("a.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("b.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("a.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("c.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.record(event("d.com", Email.EmailStatus.SENT, HOUR));
+        aggregator.flush();
+
+        assertEquals(2L, table.get(key("a.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(1L, table.get(key("b.com", Email.EmailStatus.SENT, HOUR)));
+        assertEquals(2L, table.get(key(DeliveryRollupAggregator.OTHER_DOMAIN, Email.EmailStatus.SENT, HOUR)));
+        assertFalse(table.containsKey(key("c.com", Email.EmailStatus.SENT, HOUR)));
+    }
+
+    private DeliveryRollupAggregator aggregator(int maxPendingKeys) {
+        return new DeliveryRollupAggregator((key, delta) -> table.merge(key, delta, Long::sum),
+                                            maxPendingKeys, new SimpleMeterRegistry());
+    }
+
+    private static RollupKey key(String domain, Email.EmailStatus status, LocalDateTime hour) {
+        return new RollupKey(hour, Email.EmailType.ORDER_CONFIRMATION, status, domain);
+    }
+
+    private static EmailStatusChangedEvent event(String domain, Email.EmailStatus status, LocalDateTime occurredAt) {
+        return new EmailStatusChangedEvent(1L, 12345L, "CUST001", domain, Email.EmailType.ORDER_CONFIRMATION,
+                                           status, occurredAt);
+    }
+}
@@ -0,0 +1,85 @@
+package com.microservices.email.schedule;
+
+import com.microservices.email.dispatch.DispatchPriority;
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryWindowPolicyTest {
+
+    private DeliveryWindowPolicy policy;
+
+    private OrderEvent orderEvent;
+
+    @BeforeEach
+    void setUp() {
+        // Server clock pinned to UTC, so the expectations hold on any machine
+        policy = new DeliveryWindowPolicy(Map.of(Email.EmailType.ORDER_DELIVERED, Duration.ofDays(3)),
+                                          LocalTime.of(21, 0), LocalTime.of(8, 0), Set.of(DispatchPriority.BULK),
+                                          ZoneOffset.UTC, ZoneOffset.UTC);
+
+        orderEvent = new OrderEvent();
+        orderEvent.setOrderId(12345L);
+    }
+
+    @Test
+    void testScheduledAt_TransactionalEmailGoesOutNow() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 4, 23, 30);
+
+        assertNull(policy.scheduledAt(Email.EmailType.ORDER_CONFIRMATION, orderEvent, now));
+    }
+
+    @Test
+    void testScheduledAt_TypeDelayAndRequestedSendTime() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 4, 12, 0);
+
+        assertEquals(now.plusDays(3), policy.scheduledAt(Email.EmailType.ORDER_DELIVERED, orderEvent, now));
+
+        orderEvent.setSendAt(now.plusHours(2));
+        assertEquals(now.plusHours(2), policy.scheduledAt(Email.EmailType.ORDER_SHIPPED, orderEvent, now));
+    }
+
+    @Test
+    void testScheduledAt_QuietHoursInRecipientZone() {
+        // 20:30 UTC is 21:30 in Berlin (winter time): held until 08:00 Berlin, i.e. 07:00 UTC the next day
+        orderEvent.setTimeZone("Europe/Berlin");
+        LocalDateTime now = LocalDateTime.of(2024, 3, 4, 20, 30);
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 7, 0),
+            policy.scheduledAt(Email.EmailType.PROMOTIONAL, orderEvent, now));
+
+        // The same moment is mid-afternoon in New York
+        orderEvent.setTimeZone("America/New_York");
+        assertNull(policy.scheduledAt(Email.EmailType.PROMOTIONAL, orderEvent, now));
+    }
+
+    @Test
+    void testScheduledAt_EarlyMorningAndUnknownZoneUseDefault() {
+        orderEvent.setTimeZone("Not/AZone");
+        LocalDateTime now = LocalDateTime.of(2024, 3, 4, 5, 15);
+
+        assertEquals(LocalDateTime.of(2024, 3, 4, 8, 0),
+            policy.scheduledAt(Email.EmailType.PROMOTIONAL, orderEvent, now));
+    }
+
+    @Test
+    void testOf_ParsesPropertiesAndRejectsMalformedDelay() {
+        DeliveryWindowPolicy configured = DeliveryWindowPolicy.of("ORDER_DELIVERED=P3D, PROMOTIONAL=PT1H", "21:00", "21:00",
+                                                                  "bulk", "UTC");
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(now.plusHours(1), configured.scheduledAt(Email.EmailType.PROMOTIONAL, orderEvent, now));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> DeliveryWindowPolicy.of("ORDER_DELIVERED", "21:00", "08:00", "BULK", "UTC"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.microservices.email.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void testAdvance_FiresEntriesInTheTickTheyAreDue() {
+        TimingWheel wheel = new TimingWheel(TICK, 4, 0);
+        wheel.add(1, 250);
+        wheel.add(2, 1_000);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(199, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advance(200, fired::add);
+        assertEquals(List.of(1L), fired);
+
+        wheel.advance(1_000, fired::add);
+        assertEquals(List.of(1L, 2L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdd_OverdueEntryFiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 4, 10_000);
+        wheel.add(7, 500);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(10_100, fired::add);
+
+        assertEquals(List.of(7L), fired);
+    }
+
+    @Test
+    void testAdd_BeyondHorizonIsRejected() {
+        TimingWheel wheel = new TimingWheel(TICK, 2, 0);
+
+        assertTrue(wheel.add(1, wheel.horizonMillis()));
+        assertFalse(wheel.add(2, wheel.horizonMillis() + TICK));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testAdvance_CascadesThroughEveryLevelWithoutFiringEarlyOrLate() {
+        TimingWheel wheel = new TimingWheel(TICK, 3, 0);
+        Random random = new Random(42);
+        long[] due = new long[5_000];
+        for (int id = 0; id < due.length; id++) {
+            due[id] = 1 + random.nextLong(wheel.horizonMillis());
+            assertTrue(wheel.add(id, due[id]));
+        }
+
+        long[] firedAt = new long[due.length];
+        for (long now = 0; now <= wheel.horizonMillis() + TICK; now += TICK * 7) {
+            long firingTime = now;
+            wheel.advance(now, id -> firedAt[(int) id] = firingTime);
+        }
+
+        for (int id = 0; id < due.length; id++) {
+            long dueTick = due[id] / TICK * TICK;
+            assertTrue(firedAt[id] >= dueTick, "entry " + id + " fired early");
+            assertTrue(firedAt[id] < dueTick + TICK * 7, "entry " + id + " fired late");
+        }
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,143 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.repository.EmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against H2 without the per-test transaction, so each batch commits and publishes as in production
+@DataJpaTest
+@Import({DeliveryFeedbackService.class, DeliveryFeedbackServiceTest.CommittedEvents.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DeliveryFeedbackServiceTest {
+
+    @Autowired
+    private DeliveryFeedbackService deliveryFeedbackService;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CommittedEvents committedEvents;
+
+    @AfterEach
+    void tearDown() {
+        emailRepository.deleteAll();
+        committedEvents.events.clear();
+    }
+
+    @Test
+    void testApply_MovesOnlyEmailsInSourceStatuses() {
+        // Arrange
+        Email sent = save(Email.EmailStatus.SENT);
+        Email failed = save(Email.EmailStatus.FAILED);
+        Email sending = save(Email.EmailStatus.SENDING);
+
+        // Act
+        int moved = deliveryFeedbackService.apply(Email.EmailStatus.BOUNCED,
+                                                  List.of(sent.getId(), failed.getId(), sending.getId(), 999L));
+
+        // Assert
+        assertEquals(2, moved);
+        assertEquals(Email.EmailStatus.BOUNCED, reload(sent).getEmailStatus());
+        assertEquals(sent.getVersion() + 1, reload(sent).getVersion());
+        assertEquals(Email.EmailStatus.BOUNCED, reload(failed).getEmailStatus());
+        assertEquals(Email.EmailStatus.SENDING, reload(sending).getEmailStatus());
+        assertEquals(List.of(sent.getId(), failed.getId()),
+                     committedEvents.events.stream().map(EmailStatusChangedEvent::emailId).sorted().toList());
+        assertTrue(committedEvents.events.stream()
+                       .allMatch(event -> event.emailStatus() == Email.EmailStatus.BOUNCED));
+    }
+
+    @Test
+    void testApply_NoEventsWhenTheBatchRollsBack() {
+        // Arrange
+        Email sent = save(Email.EmailStatus.SENT);
+
+        // Act: the batch joins an outer transaction that is rolled back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deliveryFeedbackService.apply(Email.EmailStatus.COMPLAINED, List.of(sent.getId()));
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertEquals(Email.EmailStatus.SENT, reload(sent).getEmailStatus());
+        assertTrue(committedEvents.events.isEmpty());
+    }
+
+    @Test
+    void testApply_WaitsForRowLockAndSeesTheCommittedStatus() throws Exception {
+        // Arrange: another transaction locks the email and hard-bounces it
+        Email sent = save(Email.EmailStatus.SENT);
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> bounce = CompletableFuture.runAsync(() ->
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Email email = emailRepository.lockForFeedback(List.of(sent.getId()), List.of(Email.EmailStatus.SENT))
+                    .get(0);
+                email.setEmailStatus(Email.EmailStatus.BOUNCED);
+                locked.countDown();
+                sleep(200);
+            }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Act: a soft bounce for the same email arrives while the row is locked
+        int moved = deliveryFeedbackService.apply(Email.EmailStatus.FAILED, List.of(sent.getId()));
+        bounce.get(5, TimeUnit.SECONDS);
+
+        // Assert: it only applies to SENT emails, and the locked select saw the committed BOUNCED
+        assertEquals(0, moved);
+        assertEquals(Email.EmailStatus.BOUNCED, reload(sent).getEmailStatus());
+        assertTrue(committedEvents.events.isEmpty());
+    }
+
+    private Email save(Email.EmailStatus status) {
+        Email email = new Email(1L, "CUST001", "test@example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                "Order Confirmation", "Thank you for your order");
+        email.setEmailStatus(status);
+        return emailRepository.save(email);
+    }
+
+    private Email reload(Email email) {
+        return emailRepository.findById(email.getId()).orElseThrow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Component
+    static class CommittedEvents {
+
+        final List<EmailStatusChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener
+        void onCommitted(EmailStatusChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
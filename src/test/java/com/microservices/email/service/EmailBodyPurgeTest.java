@@ -0,0 +1,106 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.entity.EmailBody;
+import com.microservices.email.repository.EmailBodyRepository;
+import com.microservices.email.repository.EmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against H2 without the per-test transaction, so bodies are stored on the side as in production
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmailBodyPurgeTest {
+
+    private static final String CAMPAIGN = "Dear {{customerName}},\n\nOur sale starts today.";
+
+    private static final String OLD_CAMPAIGN = "Dear {{customerName}},\n\nOur sale ended yesterday.";
+
+    @Autowired
+    private EmailBodyRepository emailBodyRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private EmailBodyStore emailBodyStore;
+
+    @BeforeEach
+    void setUp() {
+        emailBodyStore = new EmailBodyStore(emailBodyRepository, transactionManager, new SimpleMeterRegistry(),
+                                            1024 * 1024, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailRepository.deleteAll();
+        emailBodyRepository.deleteAll();
+    }
+
+    @Test
+    void testPurge_KeepsReferencedAndRecentlyUsedBodies() {
+        // Arrange
+        String referenced = emailBodyStore.acquire(CAMPAIGN);
+        saveEmail(referenced);
+        String unreferenced = emailBodyStore.acquire(OLD_CAMPAIGN);
+
+        // Act: within the grace period nothing goes, past it only the body no email refers to
+        int withinGrace = emailBodyStore.purgeUnreferenced(LocalDateTime.now().minusHours(1));
+        int pastGrace = emailBodyStore.purgeUnreferenced(LocalDateTime.now().plusSeconds(1));
+
+        // Assert
+        assertEquals(0, withinGrace);
+        assertEquals(1, pastGrace);
+        assertTrue(emailBodyRepository.existsById(referenced));
+        assertFalse(emailBodyRepository.existsById(unreferenced));
+    }
+
+    @Test
+    void testAcquire_MarksExistingBodyUsedWithoutCounting() {
+        // Arrange
+        String hash = emailBodyStore.acquire(CAMPAIGN);
+        EmailBody stored = emailBodyRepository.findById(hash).orElseThrow();
+        stored.setLastUsedAt(LocalDateTime.now().minusDays(2));
+        emailBodyRepository.save(stored);
+
+        // Act
+        emailBodyStore.acquire(CAMPAIGN);
+
+        // Assert: reused, so it survives a purge of bodies unused for a day
+        assertEquals(1, emailBodyRepository.count());
+        assertEquals(0, emailBodyStore.purgeUnreferenced(LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void testAcquire_PurgedBodyIsStoredAgain() {
+        // Arrange
+        String hash = emailBodyStore.acquire(CAMPAIGN);
+        emailBodyStore.purgeUnreferenced(LocalDateTime.now().plusSeconds(1));
+
+        // Act
+        emailBodyStore.acquire(CAMPAIGN);
+
+        // Assert
+        assertEquals(CAMPAIGN, emailBodyRepository.findById(hash).orElseThrow().getContent());
+    }
+
+    private void saveEmail(String bodyHash) {
+        Email email = new Email(1L, "CUST001", "test@example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                "Sale", null);
+        email.setBodyHash(bodyHash);
+        emailRepository.save(email);
+    }
+}
@@ -0,0 +1,125 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.EmailBody;
+import com.microservices.email.repository.EmailBodyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailBodyStoreTest {
+
+    private static final String BODY = "Dear {{customerName}},\n\nOur sale starts today.";
+
+    @Mock
+    private EmailBodyRepository emailBodyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailBodyStore emailBodyStore;
+
+    @BeforeEach
+    void setUp() {
+        emailBodyStore = new EmailBodyStore(emailBodyRepository, transactionManager, new SimpleMeterRegistry(),
+                                            1024 * 1024, 60_000);
+    }
+
+    @Test
+    void testHash_IsStableSha256Hex() {
+        String hash = EmailBodyStore.hash(BODY);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, EmailBodyStore.hash(BODY));
+        assertNotEquals(hash, EmailBodyStore.hash(BODY + " "));
+    }
+
+    @Test
+    void testAcquire_ExistingBody_MarkedOncePerInterval() {
+        // Arrange
+        String hash = EmailBodyStore.hash(BODY);
+        when(emailBodyRepository.markUsed(eq(hash), any())).thenReturn(1);
+
+        // Act: a campaign storing many emails with the same body
+        for (int i = 0; i < 100; i++) {
+            assertEquals(hash, emailBodyStore.acquire(BODY));
+        }
+
+        // Assert
+        verify(emailBodyRepository, times(1)).markUsed(eq(hash), any());
+        verify(emailBodyRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testAcquire_NewBody_InsertsOnceThenServesFromMemory() {
+        // Arrange
+        String hash = EmailBodyStore.hash(BODY);
+        when(emailBodyRepository.markUsed(eq(hash), any())).thenReturn(0);
+
+        // Act
+        assertEquals(hash, emailBodyStore.acquire(BODY));
+        assertEquals(hash, emailBodyStore.acquire(BODY));
+
+        // Assert
+        assertEquals(BODY, emailBodyStore.load(hash));
+        verify(emailBodyRepository).saveAndFlush(any(EmailBody.class));
+        verify(emailBodyRepository, never()).findById(any());
+    }
+
+    @Test
+    void testAcquire_ConcurrentInsert_StillReturnsHash() {
+        // Arrange
+        String hash = EmailBodyStore.hash(BODY);
+        when(emailBodyRepository.markUsed(eq(hash), any())).thenReturn(0);
+        when(emailBodyRepository.saveAndFlush(any(EmailBody.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act & Assert
+        assertEquals(hash, emailBodyStore.acquire(BODY));
+    }
+
+    @Test
+    void testAcquire_AfterMarkInterval_MarksAgain() {
+        // Arrange
+        emailBodyStore = new EmailBodyStore(emailBodyRepository, transactionManager, new SimpleMeterRegistry(),
+                                            1024 * 1024, 0);
+        String hash = EmailBodyStore.hash(BODY);
+        when(emailBodyRepository.markUsed(eq(hash), any())).thenReturn(1);
+
+        // Act
+        emailBodyStore.acquire(BODY);
+        emailBodyStore.acquire(BODY);
+
+        // Assert
+        verify(emailBodyRepository, times(2)).markUsed(eq(hash), any());
+    }
+
+    @Test
+    void testLoad_ServedFromMemoryButStillMarkedOnAcquire() {
+        // Arrange
+        String hash = EmailBodyStore.hash(BODY);
+        when(emailBodyRepository.findById(hash)).thenReturn(Optional.of(new EmailBody(hash, BODY)));
+        when(emailBodyRepository.markUsed(eq(hash), any())).thenReturn(1);
+
+        // Act
+        assertEquals(BODY, emailBodyStore.load(hash));
+        assertEquals(BODY, emailBodyStore.load(hash));
+        emailBodyStore.acquire(BODY);
+
+        // Assert
+        verify(emailBodyRepository, times(1)).findById(hash);
+        verify(emailBodyRepository).markUsed(eq(hash), any());
+    }
+}
@@ -0,0 +1,113 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.view.EmailHistoryView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailHistoryServiceTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailHistoryService emailHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailHistoryService = new EmailHistoryService(emailRepository, meterRegistry, 1 << 20, 1 << 20);
+    }
+
+    @Test
+    void testFindByOrderId_SecondLookupServedFromCache() {
+        // Arrange
+        when(emailRepository.findHistoryByOrderId(12345L)).thenReturn(List.of(view(Email.EmailStatus.SENT)));
+
+        // Act
+        List<EmailHistoryView> first = emailHistoryService.findByOrderId(12345L);
+        List<EmailHistoryView> second = emailHistoryService.findByOrderId(12345L);
+
+        // Assert
+        assertEquals(first, second);
+        verify(emailRepository, times(1)).findHistoryByOrderId(12345L);
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+            .tags("cache", "email-history-by-order", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testStatusChange_InvalidatesOrderAndCustomerEntries() {
+        // Arrange
+        when(emailRepository.findHistoryByOrderId(12345L))
+            .thenReturn(List.of(view(Email.EmailStatus.PENDING)))
+            .thenReturn(List.of(view(Email.EmailStatus.SENT)));
+        when(emailRepository.findHistoryByCustomerId("CUST001"))
+            .thenReturn(List.of(view(Email.EmailStatus.PENDING)))
+            .thenReturn(List.of(view(Email.EmailStatus.SENT)));
+        emailHistoryService.findByOrderId(12345L);
+        emailHistoryService.findByCustomerId("CUST001");
+
+        // Act
+        emailHistoryService.onEmailStatusChanged(event(12345L, "CUST001"));
+
+        // Assert
+        assertEquals(Email.EmailStatus.SENT, emailHistoryService.findByOrderId(12345L).get(0).emailStatus());
+        assertEquals(Email.EmailStatus.SENT, emailHistoryService.findByCustomerId("CUST001").get(0).emailStatus());
+    }
+
+    @Test
+    void testStatusChange_OtherOrdersStayCached() {
+        // Arrange
+        when(emailRepository.findHistoryByOrderId(12345L)).thenReturn(List.of(view(Email.EmailStatus.SENT)));
+        emailHistoryService.findByOrderId(12345L);
+
+        // Act
+        emailHistoryService.onEmailStatusChanged(event(99999L, "CUST999"));
+        emailHistoryService.findByOrderId(12345L);
+
+        // Assert
+        verify(emailRepository, times(1)).findHistoryByOrderId(12345L);
+    }
+
+    @Test
+    void testLoadRacingWithStatusChange_IsNotCached() {
+        // Arrange: the change commits while the lookup is still reading the old rows
+        when(emailRepository.findHistoryByOrderId(12345L)).thenAnswer(invocation -> {
+            emailHistoryService.onEmailStatusChanged(event(12345L, "CUST001"));
+            return List.of(view(Email.EmailStatus.PENDING));
+        }).thenReturn(List.of(view(Email.EmailStatus.SENT)));
+
+        // Act
+        EmailHistoryView stale = emailHistoryService.findByOrderId(12345L).get(0);
+        EmailHistoryView fresh = emailHistoryService.findByOrderId(12345L).get(0);
+
+        // Assert
+        assertEquals(Email.EmailStatus.PENDING, stale.emailStatus());
+        assertEquals(Email.EmailStatus.SENT, fresh.emailStatus());
+        verify(emailRepository, times(2)).findHistoryByOrderId(12345L);
+    }
+
+    private EmailHistoryView view(Email.EmailStatus status) {
+        return new EmailHistoryView(1L, 12345L, "CUST001", "test@example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                    status, "Order Confirmation", LocalDateTime.now(), null);
+    }
+
+    private EmailStatusChangedEvent event(Long orderId, String customerId) {
+        return new EmailStatusChangedEvent(1L, orderId, customerId, "example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                           Email.EmailStatus.SENT, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,141 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.repository.EmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against H2 without the per-test transaction, so every claim commits as it does in production
+@DataJpaTest
+@Import(EmailLeaseService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmailLeaseServiceTest {
+
+    private static final List<Email.EmailStatus> FAILED = List.of(Email.EmailStatus.FAILED);
+
+    private static final List<Email.EmailStatus> ORPHAN_STATUSES =
+        List.of(Email.EmailStatus.PENDING, Email.EmailStatus.SENDING, Email.EmailStatus.RETRYING);
+
+    @Autowired
+    private EmailLeaseService emailLeaseService;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(emailLeaseService, "leaseDurationMillis", 300_000L);
+        emailRepository.deleteAll();
+    }
+
+    @Test
+    void testClaimBatch_ConcurrentClaimersNeverShareAnEmail() throws Exception {
+        // Arrange
+        for (int i = 0; i < 200; i++) {
+            save(Email.EmailStatus.FAILED, null);
+        }
+        ExecutorService claimers = Executors.newFixedThreadPool(4);
+
+        // Act: each claimer pages through the whole backlog as an instance's retry pass does
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(claimers.submit(claimAll(FAILED)));
+        }
+        List<Long> claimed = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            claimed.addAll(result.get());
+        }
+        claimers.shutdown();
+
+        // Assert
+        assertEquals(200, claimed.size());
+        assertEquals(200, new HashSet<>(claimed).size());
+        Set<String> tokens = new HashSet<>();
+        emailRepository.findAll().forEach(email -> tokens.add(email.getClaimedBy()));
+        assertFalse(tokens.contains(null));
+    }
+
+    @Test
+    void testClaimBatch_ExpiredLeaseIsReclaimed() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(emailLeaseService, "leaseDurationMillis", 200L);
+        Email email = save(Email.EmailStatus.FAILED, null);
+        EmailLeaseService.ClaimedBatch first = emailLeaseService.claimBatch(FAILED, LocalDateTime.now(), 0, 10);
+
+        // Act
+        EmailLeaseService.ClaimedBatch whileLeased = emailLeaseService.claimBatch(FAILED, LocalDateTime.now(), 0, 10);
+        Thread.sleep(300);
+        EmailLeaseService.ClaimedBatch afterExpiry = emailLeaseService.claimBatch(FAILED, LocalDateTime.now(), 0, 10);
+
+        // Assert
+        assertEquals(List.of(email.getId()), ids(first));
+        assertTrue(whileLeased.isExhausted());
+        assertEquals(List.of(email.getId()), ids(afterExpiry));
+        assertNotEquals(first.emails().get(0).getClaimedBy(), afterExpiry.emails().get(0).getClaimedBy());
+    }
+
+    @Test
+    void testClaimBatch_OrphanSweepTakesOnlyExpiredInFlightEmails() throws Exception {
+        // Arrange
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(5);
+        LocalDateTime live = LocalDateTime.now().plusMinutes(5);
+        Email orphanedPending = save(Email.EmailStatus.PENDING, expired);
+        Email orphanedSending = save(Email.EmailStatus.SENDING, expired);
+        save(Email.EmailStatus.SENDING, live);
+        save(Email.EmailStatus.FAILED, expired);
+        save(Email.EmailStatus.SENT, null);
+
+        // Act
+        List<Long> swept = claimAll(ORPHAN_STATUSES).call();
+
+        // Assert
+        assertEquals(List.of(orphanedPending.getId(), orphanedSending.getId()), swept);
+        assertTrue(emailLeaseService.claimBatch(ORPHAN_STATUSES, LocalDateTime.now(), 0, 10).isExhausted());
+    }
+
+    private Callable<List<Long>> claimAll(List<Email.EmailStatus> statuses) {
+        return () -> {
+            List<Long> claimed = new ArrayList<>();
+            long afterId = 0;
+            while (true) {
+                EmailLeaseService.ClaimedBatch batch =
+                    emailLeaseService.claimBatch(statuses, LocalDateTime.now(), afterId, 7);
+                if (batch.isExhausted()) {
+                    return claimed;
+                }
+                claimed.addAll(ids(batch));
+                afterId = batch.lastCandidateId();
+            }
+        };
+    }
+
+    private static List<Long> ids(EmailLeaseService.ClaimedBatch batch) {
+        return batch.emails().stream().map(Email::getId).sorted().toList();
+    }
+
+    private Email save(Email.EmailStatus status, LocalDateTime leaseUntil) {
+        Email email = new Email(1L, "CUST001", "test@example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                "Order Confirmation", "Thank you for your order");
+        email.setEmailStatus(status);
+        email.setLeaseUntil(leaseUntil);
+        return emailRepository.save(email);
+    }
+}
@@ -1,21 +1,42 @@
 package com.microservices.email.service;
 
+import com.microservices.email.dispatch.DispatchPriority;
+import com.microservices.email.dispatch.PriorityDispatchScheduler;
 import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailScheduledEvent;
 import com.microservices.email.event.OrderEvent;
+import com.microservices.email.lifecycle.OrderLifecycleTable;
+import com.microservices.email.lifecycle.PartitionedOrderState;
 import com.microservices.email.repository.EmailRepository;
+import com.microservices.email.schedule.DeliveryWindowPolicy;
+import com.microservices.email.suppression.SuppressionService;
+import com.microservices.email.transport.CircuitBreakerOpenException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +51,33 @@ public class EmailServiceTest {
     @Mock
     private EmailSenderService emailSenderService;
 
+    @Mock
+    private EmailLeaseService emailLeaseService;
+
+    @Mock
+    private RenderedMessageStore renderedMessageStore;
+
+    @Mock
+    private EmailBodyStore emailBodyStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SuppressionService suppressionService;
+
+    @Mock
+    private DeliveryWindowPolicy deliveryWindowPolicy;
+
+    @Spy
+    private OrderLifecycleTable orderLifecycleTable = new OrderLifecycleTable(1000);
+
+    @Mock
+    private PartitionedOrderState partitionedOrderState;
+
+    @Mock
+    private PriorityDispatchScheduler priorityDispatchScheduler;
+
     @InjectMocks
     private EmailService emailService;
 
@@ -68,6 +116,60 @@ public class EmailServiceTest {
         verify(emailTemplateService).generateContent(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent);
     }
 
+    @Test
+    void testProcessOrderEvent_OutsideDeliveryWindow_StoredAsScheduled() {
+        // Arrange
+        LocalDateTime sendAt = LocalDateTime.now().plusHours(9);
+        when(emailRepository.findByOrderIdAndEmailType(any(), any())).thenReturn(Optional.empty());
+        when(emailTemplateService.generateSubject(any(), any())).thenReturn("Order Confirmation");
+        when(emailTemplateService.generateContent(any(), any())).thenReturn("Thank you for your order");
+        when(deliveryWindowPolicy.scheduledAt(eq(Email.EmailType.ORDER_CONFIRMATION), eq(testOrderEvent), any()))
+            .thenReturn(sendAt);
+        when(emailRepository.save(any())).thenAnswer(invocation -> {
+            Email email = invocation.getArgument(0);
+            email.setId(1L);
+            return email;
+        });
+
+        // Act
+        Optional<Email> result = emailService.processOrderEvent(testOrderEvent);
+
+        // Assert: nothing to dispatch now, the timing wheel takes it once committed
+        assertTrue(result.isEmpty());
+        verify(emailRepository).save(argThat(email -> email.getEmailStatus() == Email.EmailStatus.SCHEDULED
+            && sendAt.equals(email.getScheduledAt()) && email.getLeaseUntil() == null));
+        verify(eventPublisher).publishEvent(new EmailScheduledEvent(1L, sendAt));
+        verifyNoInteractions(emailLeaseService);
+    }
+
+    @Test
+    void testProcessOrderEvent_StaleStatus_NoTemplateOrDatabaseWork() {
+        // Arrange: the order was already delivered when a redelivered SHIPPED event arrives
+        orderLifecycleTable.advance(12345L, OrderEvent.OrderStatus.DELIVERED, System.currentTimeMillis());
+        testOrderEvent.setOrderStatus(OrderEvent.OrderStatus.SHIPPED);
+
+        // Act
+        Optional<Email> result = emailService.processOrderEvent(testOrderEvent);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(emailRepository, emailTemplateService, suppressionService);
+        assertEquals(1, orderLifecycleTable.staleCount());
+    }
+
+    @Test
+    void testProcessOrderEvent_SuppressedRecipient_NoDatabaseAccess() {
+        // Arrange
+        when(suppressionService.isSuppressed("test@example.com")).thenReturn(true);
+
+        // Act
+        Optional<Email> result = emailService.processOrderEvent(testOrderEvent);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(emailRepository, emailTemplateService);
+    }
+
     @Test
     void testProcessOrderEvent_DuplicateEmail_SkipsCreation() {
         // Arrange
@@ -82,36 +184,375 @@ public class EmailServiceTest {
     }
 
     @Test
-    void testSendEmail_Success() {
+    void testProcessOrderEvent_FromPartition_TaggedAndRedeliveryNeverReachesDatabase() {
+        // Arrange
+        OrderLifecycleTable partitionLifecycle = new OrderLifecycleTable(1000);
+        when(partitionedOrderState.lifecycleFor(4)).thenReturn(partitionLifecycle);
+        when(emailRepository.findByOrderIdAndEmailType(any(), any())).thenReturn(Optional.empty());
+        when(emailTemplateService.generateSubject(any(), any())).thenReturn("Order Confirmation");
+        when(emailTemplateService.generateContent(any(), any())).thenReturn("Thank you for your order");
+        when(emailRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act: the event, then its redelivery after a rebalance
+        Optional<Email> first = emailService.processOrderEvent(testOrderEvent, 4);
+        Optional<Email> redelivered = emailService.processOrderEvent(testOrderEvent, 4);
+
+        // Assert
+        assertTrue(first.isPresent());
+        assertEquals(4, first.get().getSourcePartition());
+        assertTrue(redelivered.isEmpty());
+        verify(emailRepository, times(1)).findByOrderIdAndEmailType(12345L, Email.EmailType.ORDER_CONFIRMATION);
+        verify(emailRepository, times(1)).save(any(Email.class));
+        assertEquals(0, orderLifecycleTable.size());
+    }
+
+    @Test
+    void testProcessOrderEvent_SaveFails_RedeliveryCreatesEmail() {
+        // Arrange
+        when(emailRepository.findByOrderIdAndEmailType(any(), any())).thenReturn(Optional.empty());
+        when(emailTemplateService.generateSubject(any(), any())).thenReturn("Order Confirmation");
+        when(emailTemplateService.generateContent(any(), any())).thenReturn("Thank you for your order");
+        when(emailRepository.save(any()))
+            .thenThrow(new IllegalStateException("connection reset"))
+            .thenReturn(createMockEmail());
+
+        // Act
+        assertThrows(RuntimeException.class, () -> emailService.processOrderEvent(testOrderEvent));
+        Optional<Email> redelivered = emailService.processOrderEvent(testOrderEvent);
+
+        // Assert
+        assertTrue(redelivered.isPresent());
+        verify(emailRepository, times(2)).save(any(Email.class));
+    }
+
+    @Test
+    void testProcessOrderEvent_CommitFails_RedeliveryCreatesEmail() {
+        // Arrange
+        when(emailRepository.findByOrderIdAndEmailType(any(), any())).thenReturn(Optional.empty());
+        when(emailTemplateService.generateSubject(any(), any())).thenReturn("Order Confirmation");
+        when(emailTemplateService.generateContent(any(), any())).thenReturn("Thank you for your order");
+        when(emailRepository.save(any())).thenReturn(createMockEmail());
+
+        // Act: the first delivery's transaction rolls back at commit, the redelivery's commits
+        Optional<Email> rolledBack = inTransaction(false);
+        Optional<Email> redelivered = inTransaction(true);
+        Optional<Email> duplicate = emailService.processOrderEvent(testOrderEvent);
+
+        // Assert: only the committed email stops later redeliveries before the database
+        assertTrue(rolledBack.isPresent());
+        assertTrue(redelivered.isPresent());
+        assertTrue(duplicate.isEmpty());
+        verify(emailRepository, times(2)).save(any(Email.class));
+        verify(emailRepository, times(2)).findByOrderIdAndEmailType(12345L, Email.EmailType.ORDER_CONFIRMATION);
+    }
+
+    @Test
+    void testSendEmailAsync_Success() {
         // Arrange
         Email email = createMockEmail();
-        when(emailSenderService.sendEmail(any(), any(), any())).thenReturn(true);
-        when(emailRepository.save(any())).thenReturn(email);
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+        when(emailSenderService.sendEmailAsync(any(), any(), any()))
+            .thenReturn(CompletableFuture.completedFuture(true));
 
         // Act
-        emailService.sendEmail(email, testOrderEvent);
+        emailService.sendEmailAsync(email, null).join();
 
         // Assert
-        verify(emailSenderService).sendEmail(email.getEmailAddress(), email.getSubject(), email.getContent());
-        verify(emailRepository, times(2)).save(email); // Once for RETRYING, once for SENT
+        verify(emailSenderService).sendEmailAsync(email.getEmailAddress(), email.getSubject(), email.getContent());
+        verify(emailRepository, never()).save(any(Email.class)); // Transitions are conditional updates, not merges
+        verify(renderedMessageStore, never()).store(any(), any());
         assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
         assertNotNull(email.getSentAt());
+        assertEquals(2L, email.getVersion());
+    }
+
+    @Test
+    void testSendEmailAsync_SharedBody_PersonalisedAtSendTime() {
+        // Arrange
+        Email email = createMockEmail();
+        email.setEmailType(Email.EmailType.PROMOTIONAL);
+        email.setContent(null);
+        email.setBodyHash("abc123");
+        email.setCustomerName("John Doe");
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+        when(emailBodyStore.load("abc123")).thenReturn("Dear {{customerName}},\n\nOur sale starts today.");
+        when(emailTemplateService.personalise("Dear {{customerName}},\n\nOur sale starts today.", "John Doe"))
+            .thenReturn("Dear John Doe,\n\nOur sale starts today.");
+        when(emailSenderService.sendEmailAsync(any(), any(), any()))
+            .thenReturn(CompletableFuture.completedFuture(true));
+
+        // Act
+        emailService.sendEmailAsync(email, null).join();
+
+        // Assert
+        verify(emailSenderService).sendEmailAsync(email.getEmailAddress(), email.getSubject(),
+                                                  "Dear John Doe,\n\nOur sale starts today.");
+        assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
     }
 
     @Test
-    void testSendEmail_Failure() {
+    void testSendEmailAsync_Failure_StoresRenderedForRetry() {
         // Arrange
         Email email = createMockEmail();
-        when(emailSenderService.sendEmail(any(), any(), any())).thenReturn(false);
-        when(emailRepository.save(any())).thenReturn(email);
+        byte[] rendered = "rendered".getBytes();
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.FAILED), isNull())).thenReturn(1);
+        when(emailSenderService.sendEmailAsync(any(), any(), any()))
+            .thenReturn(CompletableFuture.completedFuture(false));
+        when(emailSenderService.renderMimeMessage(email.getEmailAddress(), email.getSubject(), email.getContent()))
+            .thenReturn(rendered);
 
         // Act
-        emailService.sendEmail(email, testOrderEvent);
+        emailService.sendEmailAsync(email, null).join();
 
         // Assert
-        verify(emailSenderService).sendEmail(email.getEmailAddress(), email.getSubject(), email.getContent());
-        verify(emailRepository, times(2)).save(email); // Once for RETRYING, once for FAILED
+        verify(emailSenderService).sendEmailAsync(email.getEmailAddress(), email.getSubject(), email.getContent());
+        verify(emailRepository, never()).save(any(Email.class));
+        verify(renderedMessageStore).store(1L, rendered);
         assertEquals(Email.EmailStatus.FAILED, email.getEmailStatus());
+        assertNull(email.getLeaseUntil());
+    }
+
+    @Test
+    void testSendEmailAsync_CircuitOpen_DefersAsPending() {
+        // Arrange
+        Email email = createMockEmail();
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        when(emailRepository.transitionStatusAndExtendLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.PENDING), any())).thenReturn(1);
+        when(emailSenderService.sendEmailAsync(any(), any(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new CircuitBreakerOpenException(Duration.ofSeconds(30))));
+
+        // Act
+        emailService.sendEmailAsync(email, null).join();
+
+        // Assert
+        verify(emailRepository, never()).transitionStatusAndReleaseLease(any(), any(), any(), any(), any());
+        verify(renderedMessageStore, never()).store(any(), any());
+        assertEquals(Email.EmailStatus.PENDING, email.getEmailStatus());
+        assertTrue(email.getLeaseUntil().isAfter(LocalDateTime.now().plusSeconds(25)));
+    }
+
+    @Test
+    void testSendEmailAsync_WithOrderEvent_StreamsMultipart() {
+        // Arrange
+        Email email = createMockEmail();
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+        when(emailSenderService.sendMultipartAsync(any(), any(), any()))
+            .thenReturn(CompletableFuture.completedFuture(true));
+
+        // Act
+        emailService.sendEmailAsync(email, testOrderEvent).join();
+
+        // Assert
+        verify(emailSenderService).sendMultipartAsync(eq(email.getEmailAddress()), eq(email.getSubject()), any());
+        verify(emailSenderService, never()).sendEmailAsync(any(), any(), any());
+        assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
+    }
+
+    @Test
+    void testSendEmailAsync_ConcurrentSenderOwnsEmail_SkipsSend() {
+        // Arrange
+        Email email = createMockEmail();
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.PENDING, Email.EmailStatus.SENDING))
+            .thenReturn(0);
+
+        // Act
+        emailService.sendEmailAsync(email, null).join();
+
+        // Assert
+        verify(emailSenderService, never()).sendEmailAsync(any(), any(), any());
+        verify(emailSenderService, never()).sendMultipartAsync(any(), any(), any());
+        assertEquals(Email.EmailStatus.PENDING, email.getEmailStatus());
+    }
+
+    @Test
+    void testDispatchOrphanedEmails_PagesPastEmailsTakenElsewhere() {
+        // Arrange: the second page was claimed by another instance between select and update
+        Email first = createMockEmail();
+        Email second = createMockEmail();
+        second.setId(2L);
+        when(emailLeaseService.claimBatch(any(), any(), eq(0L), anyInt()))
+            .thenReturn(new EmailLeaseService.ClaimedBatch(List.of(first, second), 2L));
+        when(emailLeaseService.claimBatch(any(), any(), eq(2L), anyInt()))
+            .thenReturn(new EmailLeaseService.ClaimedBatch(List.of(), 7L));
+        when(emailLeaseService.claimBatch(any(), any(), eq(7L), anyInt()))
+            .thenReturn(EmailLeaseService.ClaimedBatch.EMPTY);
+        when(priorityDispatchScheduler.submit(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        int claimed = emailService.dispatchOrphanedEmails();
+
+        // Assert
+        assertEquals(2, claimed);
+        verify(priorityDispatchScheduler, times(2)).submit(eq(DispatchPriority.TRANSACTIONAL), any());
+        verify(emailLeaseService, times(3)).claimBatch(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testDispatchOrphanedEmails_CircuitOpen_ClaimsNothing() {
+        // Arrange
+        when(emailSenderService.isTransportSuspended()).thenReturn(true);
+
+        // Act
+        int claimed = emailService.dispatchOrphanedEmails();
+
+        // Assert
+        assertEquals(0, claimed);
+        verifyNoInteractions(emailLeaseService, priorityDispatchScheduler);
+    }
+
+    @Test
+    void testRetryFailedEmails_StoredMessage_SentAsIsAndRemovedOnSuccess() {
+        // Arrange
+        Email email = claimForRetry();
+        byte[] rendered = "rendered".getBytes();
+        when(renderedMessageStore.find(1L)).thenReturn(Optional.of(rendered));
+        when(emailSenderService.sendRenderedAsync(email.getEmailAddress(), rendered))
+            .thenReturn(CompletableFuture.completedFuture(true));
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+
+        // Act
+        int claimed = emailService.retryFailedEmails(LocalDateTime.now(), 0, 10, null);
+
+        // Assert
+        assertEquals(1, claimed);
+        verify(emailSenderService, never()).renderMimeMessage(any(), any(), any());
+        verify(emailSenderService, never()).sendEmailAsync(any(), any(), any());
+        verify(renderedMessageStore).remove(1L);
+        assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
+        assertNull(email.getLeaseUntil());
+    }
+
+    @Test
+    void testRetryFailedEmails_SendFails_KeepsLeaseAndStoredMessage() {
+        // Arrange
+        Email email = claimForRetry();
+        LocalDateTime leaseUntil = email.getLeaseUntil();
+        byte[] rendered = "rendered".getBytes();
+        when(renderedMessageStore.find(1L)).thenReturn(Optional.of(rendered));
+        when(emailSenderService.sendRenderedAsync(email.getEmailAddress(), rendered))
+            .thenReturn(CompletableFuture.completedFuture(false));
+        when(emailRepository.transitionStatus(1L, 1L, Email.EmailStatus.SENDING, Email.EmailStatus.FAILED))
+            .thenReturn(1);
+
+        // Act
+        emailService.retryFailedEmails(LocalDateTime.now(), 0, 10, null);
+
+        // Assert: the lease left in place is the back-off before the next attempt
+        verify(emailRepository, never()).transitionStatusAndReleaseLease(any(), any(), any(), any(), any());
+        verify(renderedMessageStore, never()).remove(any());
+        verify(renderedMessageStore, never()).store(any(), any());
+        assertEquals(Email.EmailStatus.FAILED, email.getEmailStatus());
+        assertEquals(leaseUntil, email.getLeaseUntil());
+    }
+
+    @Test
+    void testRetryFailedEmails_CircuitOpen_DefersAsFailed() {
+        // Arrange
+        Email email = claimForRetry();
+        byte[] rendered = "rendered".getBytes();
+        when(renderedMessageStore.find(1L)).thenReturn(Optional.of(rendered));
+        when(emailSenderService.sendRenderedAsync(email.getEmailAddress(), rendered))
+            .thenReturn(CompletableFuture.failedFuture(new CircuitBreakerOpenException(Duration.ofSeconds(30))));
+        when(emailRepository.transitionStatusAndExtendLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.FAILED), any())).thenReturn(1);
+
+        // Act
+        emailService.retryFailedEmails(LocalDateTime.now(), 0, 10, null);
+
+        // Assert
+        verify(emailRepository, never()).transitionStatus(1L, 1L, Email.EmailStatus.SENDING, Email.EmailStatus.FAILED);
+        verify(emailRepository, never()).transitionStatusAndReleaseLease(any(), any(), any(), any(), any());
+        verify(renderedMessageStore, never()).remove(any());
+        assertEquals(Email.EmailStatus.FAILED, email.getEmailStatus());
+        assertTrue(email.getLeaseUntil().isAfter(LocalDateTime.now().plusSeconds(25)));
+    }
+
+    @Test
+    void testRetryFailedEmails_NoStoredMessage_RendersAndStoresBeforeSending() {
+        // Arrange
+        Email email = claimForRetry();
+        byte[] rendered = "rendered".getBytes();
+        when(renderedMessageStore.find(1L)).thenReturn(Optional.empty());
+        when(emailSenderService.renderMimeMessage(email.getEmailAddress(), email.getSubject(), email.getContent()))
+            .thenReturn(rendered);
+        when(emailSenderService.sendRenderedAsync(email.getEmailAddress(), rendered))
+            .thenReturn(CompletableFuture.completedFuture(true));
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+
+        // Act
+        emailService.retryFailedEmails(LocalDateTime.now(), 0, 10, null);
+
+        // Assert
+        verify(renderedMessageStore).store(1L, rendered);
+        verify(emailSenderService, never()).sendEmailAsync(any(), any(), any());
+        verify(renderedMessageStore).remove(1L);
+        assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
+    }
+
+    @Test
+    void testRetryFailedEmails_NothingRendered_SendsContent() {
+        // Arrange
+        Email email = claimForRetry();
+        when(renderedMessageStore.find(1L)).thenReturn(Optional.empty());
+        when(emailSenderService.sendEmailAsync(email.getEmailAddress(), email.getSubject(), email.getContent()))
+            .thenReturn(CompletableFuture.completedFuture(true));
+        when(emailRepository.transitionStatusAndReleaseLease(
+            eq(1L), eq(1L), eq(Email.EmailStatus.SENDING), eq(Email.EmailStatus.SENT), any())).thenReturn(1);
+
+        // Act
+        emailService.retryFailedEmails(LocalDateTime.now(), 0, 10, null);
+
+        // Assert
+        verify(emailSenderService, never()).sendRenderedAsync(any(), any());
+        assertEquals(Email.EmailStatus.SENT, email.getEmailStatus());
+    }
+
+    // Runs processOrderEvent as the transaction manager would, ending with a commit or a rollback
+    private Optional<Email> inTransaction(boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Optional<Email> result = emailService.processOrderEvent(testOrderEvent);
+            if (commit) {
+                TransactionSynchronizationUtils.triggerAfterCommit();
+            }
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // A FAILED email claimed by the retry job, with the dispatch scheduler running its send inline
+    private Email claimForRetry() {
+        Email email = createMockEmail();
+        email.setEmailStatus(Email.EmailStatus.FAILED);
+        email.setLeaseUntil(LocalDateTime.now().plusMinutes(5));
+        when(emailLeaseService.claimBatch(any(), any(), eq(0L), anyInt()))
+            .thenReturn(new EmailLeaseService.ClaimedBatch(List.of(email), 1L));
+        when(emailLeaseService.claimBatch(any(), any(), eq(1L), anyInt()))
+            .thenReturn(EmailLeaseService.ClaimedBatch.EMPTY);
+        when(priorityDispatchScheduler.submit(any(), any())).thenAnswer(invocation -> {
+            Supplier<? extends CompletableFuture<?>> job = invocation.getArgument(1);
+            return job.get().thenApply(result -> null);
+        });
+        when(emailRepository.transitionStatus(1L, 0L, Email.EmailStatus.FAILED, Email.EmailStatus.SENDING))
+            .thenReturn(1);
+        return email;
     }
 
     private Email createMockEmail() {
@@ -125,6 +566,7 @@ public class EmailServiceTest {
         email.setContent("Thank you for your order");
         email.setEmailStatus(Email.EmailStatus.PENDING);
         email.setCreatedAt(LocalDateTime.now());
+        email.setVersion(0L);
         return email;
     }
 }
@@ -0,0 +1,75 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailTemplateServiceTest {
+
+    private final EmailTemplateService emailTemplateService = new EmailTemplateService();
+
+    private OrderEvent testOrderEvent;
+
+    @BeforeEach
+    void setUp() {
+        testOrderEvent = new OrderEvent(12345L, "CUST001", "test@example.com",
+            OrderEvent.OrderStatus.CONFIRMED, "ORDER_CONFIRMED");
+        testOrderEvent.setCustomerName("John Doe");
+        testOrderEvent.setTotalAmount(new BigDecimal("1234.50"));
+        testOrderEvent.setCurrency("EUR");
+        testOrderEvent.setOrderDate(LocalDateTime.of(2024, 3, 4, 15, 30));
+        testOrderEvent.setTimestamp(LocalDateTime.of(2024, 3, 4, 15, 30));
+    }
+
+    @Test
+    void testGenerateContent_NoLocale_KeepsDefaultFormat() {
+        String content = emailTemplateService.generateContent(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent);
+
+        assertEquals("Order Confirmation - Order #12345",
+            emailTemplateService.generateSubject(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent));
+        assertTrue(content.startsWith("Dear John Doe,\n\n"));
+        assertTrue(content.contains("Total Amount: EUR 1234.50\n"));
+        assertTrue(content.endsWith("Thank you for choosing us!\nCustomer Service Team"));
+    }
+
+    @Test
+    void testGenerateContent_GermanLocale_UsesBundleAndLocaleFormats() {
+        testOrderEvent.setLocale("de-DE");
+
+        String content = emailTemplateService.generateContent(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent);
+
+        assertEquals("Bestellbestätigung - Bestellung Nr. 12345",
+            emailTemplateService.generateSubject(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent));
+        assertTrue(content.startsWith("Hallo John Doe,\n\n"));
+        assertTrue(content.contains("Gesamtbetrag: 1.234,50\u00a0€\n"));
+        assertTrue(content.contains("Bestelldatum: 04. März 2024 um 15:30\n"));
+    }
+
+    @Test
+    void testGenerateContent_LocaleWithoutBundle_FallsBackToDefault() {
+        testOrderEvent.setLocale("pt-BR");
+
+        String content = emailTemplateService.generateContent(Email.EmailType.ORDER_CONFIRMATION, testOrderEvent);
+
+        assertTrue(content.startsWith("Dear John Doe,\n\n"));
+        assertTrue(content.contains("Total Amount: EUR 1234.50\n"));
+    }
+
+    @Test
+    void testGenerateSharedContent_PersonalisedMatchesPerRecipientContent() {
+        String shared = emailTemplateService.generateSharedContent(Email.EmailType.PROMOTIONAL, testOrderEvent);
+
+        assertTrue(emailTemplateService.hasSharedBody(Email.EmailType.PROMOTIONAL));
+        assertEquals(emailTemplateService.generateContent(Email.EmailType.PROMOTIONAL, testOrderEvent),
+            emailTemplateService.personalise(shared, "John Doe"));
+
+        testOrderEvent.setCustomerName("Jane Roe");
+        assertEquals(shared, emailTemplateService.generateSharedContent(Email.EmailType.PROMOTIONAL, testOrderEvent));
+    }
+}
@@ -0,0 +1,96 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.RenderedMessage;
+import com.microservices.email.repository.RenderedMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RenderedMessageStoreTest {
+
+    private final RenderedMessageRepository renderedMessageRepository = mock(RenderedMessageRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RenderedMessageStore store = new RenderedMessageStore(renderedMessageRepository, meterRegistry, 1024);
+
+    @Test
+    void testFind_MissLoadsFromDatabaseOnceThenHits() {
+        // Arrange: rendered by another instance, or before a restart
+        byte[] bytes = "Subject: Order Confirmation\r\n\r\nThank you".getBytes();
+        when(renderedMessageRepository.findById(1L)).thenReturn(Optional.of(new RenderedMessage(1L, bytes)));
+
+        // Act
+        Optional<byte[]> first = store.find(1L);
+        Optional<byte[]> resend = store.find(1L);
+
+        // Assert
+        assertArrayEquals(bytes, first.orElseThrow());
+        assertArrayEquals(bytes, resend.orElseThrow());
+        verify(renderedMessageRepository, times(1)).findById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testStore_ResendServedFromMemory() {
+        // Arrange
+        byte[] bytes = new byte[50];
+
+        // Act
+        store.store(2L, bytes);
+        Optional<byte[]> resend = store.find(2L);
+
+        // Assert
+        assertSame(bytes, resend.orElseThrow());
+        verify(renderedMessageRepository).save(any(RenderedMessage.class));
+        verify(renderedMessageRepository, never()).findById(any());
+    }
+
+    @Test
+    void testStore_OverByteLimitKeptOnlyInDatabase() {
+        // Arrange: larger than one of the 16 segments of the 1 KiB tier
+        byte[] bytes = new byte[200];
+        when(renderedMessageRepository.findById(3L)).thenReturn(Optional.of(new RenderedMessage(3L, bytes)));
+
+        // Act
+        store.store(3L, bytes);
+        store.find(3L);
+        store.find(3L);
+
+        // Assert
+        verify(renderedMessageRepository, times(2)).findById(3L);
+    }
+
+    @Test
+    void testRemove_DropsBothTiers() {
+        // Arrange
+        store.store(4L, new byte[10]);
+        when(renderedMessageRepository.findById(4L)).thenReturn(Optional.empty());
+
+        // Act
+        store.remove(4L);
+
+        // Assert
+        assertTrue(store.find(4L).isEmpty());
+        verify(renderedMessageRepository).deleteById(4L);
+    }
+
+    @Test
+    void testStore_DatabaseFailureIsNotCachedOrThrown() {
+        // Arrange
+        when(renderedMessageRepository.save(any())).thenThrow(new IllegalStateException("database unavailable"));
+        when(renderedMessageRepository.findById(5L)).thenReturn(Optional.empty());
+
+        // Act
+        store.store(5L, new byte[10]);
+
+        // Assert: retries render again from subject and content
+        assertTrue(store.find(5L).isEmpty());
+    }
+}
@@ -0,0 +1,151 @@
+package com.microservices.email.service;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.entity.RetryJob;
+import com.microservices.email.repository.RetryJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RetryJobServiceTest {
+
+    @Mock
+    private RetryJobRepository retryJobRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private EmailLeaseService emailLeaseService;
+
+    private RetryJobService retryJobService;
+
+    @BeforeEach
+    void setUp() {
+        // Jobs run inline on the calling thread
+        retryJobService = new RetryJobService(retryJobRepository, emailService, emailLeaseService,
+                                              Runnable::run, 20, 3600000, 300000);
+    }
+
+    @Test
+    void testStart_RunsJobAndCheckpointsEachBatch() {
+        // Arrange
+        when(emailLeaseService.getInstanceId()).thenReturn("instance-1");
+        when(retryJobRepository.saveAndFlush(any(RetryJob.class))).thenAnswer(invocation -> {
+            RetryJob job = invocation.getArgument(0);
+            when(retryJobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+            return job;
+        });
+        when(retryJobRepository.save(any(RetryJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(emailService.retryFailedEmails(any(), eq(0L), eq(20), any())).thenAnswer(invocation -> {
+            EmailService.BatchListener listener = invocation.getArgument(3);
+            listener.onBatch(42L, List.of(email(Email.EmailStatus.SENT), email(Email.EmailStatus.FAILED)));
+            listener.onBatch(77L, List.of(email(Email.EmailStatus.SENT)));
+            return 3;
+        });
+
+        // Act
+        RetryJobService.StartResult result = retryJobService.start("api");
+
+        // Assert
+        assertTrue(result.started());
+        RetryJob job = result.job();
+        assertEquals(RetryJob.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(77L, job.getCheckpointId());
+        assertEquals(3, job.getClaimedCount());
+        assertEquals(2, job.getSentCount());
+        assertEquals(1, job.getFailedCount());
+        assertFalse(job.isActive());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void testStart_JobAlreadyActive_ReturnsItWithoutRunning() {
+        // Arrange
+        RetryJob active = job("existing", 0L);
+        when(emailLeaseService.getInstanceId()).thenReturn("instance-1");
+        when(retryJobRepository.saveAndFlush(any(RetryJob.class)))
+            .thenThrow(new DataIntegrityViolationException("active_key"));
+        when(retryJobRepository.findByActiveKey(RetryJob.ACTIVE_KEY)).thenReturn(Optional.of(active));
+
+        // Act
+        RetryJobService.StartResult result = retryJobService.start("api");
+
+        // Assert
+        assertFalse(result.started());
+        assertSame(active, result.job());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void testResumeStalledJobs_ContinuesAfterCheckpoint() {
+        // Arrange: two stalled jobs, another instance wins the takeover of the second
+        when(emailLeaseService.getInstanceId()).thenReturn("instance-2");
+        when(retryJobRepository.findStalledIds(any())).thenReturn(List.of("stalled", "taken"));
+        when(retryJobRepository.takeOver(eq("stalled"), eq("instance-2"), any(), any())).thenReturn(1);
+        when(retryJobRepository.takeOver(eq("taken"), eq("instance-2"), any(), any())).thenReturn(0);
+        when(retryJobRepository.findById("stalled")).thenReturn(Optional.of(job("stalled", 500L)));
+        when(retryJobRepository.save(any(RetryJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        int resumed = retryJobService.resumeStalledJobs();
+
+        // Assert
+        assertEquals(1, resumed);
+        verify(emailService).retryFailedEmails(any(), eq(500L), eq(20), any());
+        verify(retryJobRepository, never()).findById("taken");
+    }
+
+    @Test
+    void testRun_TakenOverByAnotherInstance_StopsWithoutFailingJob() {
+        // Arrange: the first checkpoint finds the row fenced by a newer owner
+        RetryJob job = job("fenced", 0L);
+        when(retryJobRepository.findById("fenced")).thenReturn(Optional.of(job));
+        when(retryJobRepository.save(any(RetryJob.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0))
+            .thenThrow(new OptimisticLockingFailureException("version"));
+        when(emailService.retryFailedEmails(any(), anyLong(), anyInt(), any())).thenAnswer(invocation -> {
+            EmailService.BatchListener listener = invocation.getArgument(3);
+            listener.onBatch(10L, List.of(email(Email.EmailStatus.SENT)));
+            fail("The pass should stop at the lost checkpoint");
+            return 1;
+        });
+
+        // Act
+        retryJobService.run("fenced");
+
+        // Assert
+        assertEquals(RetryJob.JobStatus.RUNNING, job.getStatus());
+        verify(retryJobRepository, times(2)).save(any(RetryJob.class));
+    }
+
+    private RetryJob job(String id, long checkpointId) {
+        LocalDateTime now = LocalDateTime.now();
+        RetryJob job = new RetryJob(id, "api", "instance-1", now.minusHours(1), now);
+        job.setCheckpointId(checkpointId);
+        return job;
+    }
+
+    private Email email(Email.EmailStatus status) {
+        Email email = new Email(12345L, "CUST001", "test@example.com",
+                                Email.EmailType.ORDER_CONFIRMATION, "Subject", "Content");
+        email.setEmailStatus(status);
+        return email;
+    }
+}
@@ -0,0 +1,139 @@
+package com.microservices.email.startup;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Cold-start benchmark: launches the packaged service in a fresh JVM, with and without the
+ * fast-startup artifacts, and measures JVM start to the first consumed OrderEvent. A single event
+ * is waiting on the topic before each launch.
+ *
+ * <pre>
+ * mvn -Pfaststart package -DskipTests
+ * mvn test -Dbenchmark=true -Dtest=StartupBenchmarkTest
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupBenchmarkTest {
+
+    private static final String TOPIC = "order-events";
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final long LAUNCH_TIMEOUT_SECONDS = 120;
+
+    private static final Pattern FIRST_EVENT_LINE =
+        Pattern.compile(Pattern.quote(StartupTimeRecorder.FIRST_EVENT_LOG_PREFIX) + "(\\d+) ms");
+
+    private static final Path JAR = Path.of(System.getProperty("startup.jar", "target/email-service-1.0.0.jar"));
+    private static final Path CDS_ARCHIVE = Path.of(System.getProperty("startup.cds", "target/email-service.jsa"));
+
+    private static EmbeddedKafkaZKBroker broker;
+
+    private static int launchCount;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        assumeTrue(Files.exists(JAR) && Files.exists(CDS_ARCHIVE),
+            "Build the fast-startup artifacts first: mvn -Pfaststart package -DskipTests");
+
+        broker = new EmbeddedKafkaZKBroker(1, true, 3, TOPIC);
+        broker.afterPropertiesSet();
+
+        Map<String, Object> producerProps = Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps)) {
+            producer.send(new ProducerRecord<>(TOPIC, "1", """
+                {"orderId":1,"customerId":"CUST-1","customerEmail":"startup@example.com",
+                 "orderStatus":"CONFIRMED","eventType":"ORDER_CONFIRMED"}""")).get();
+        }
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    @Test
+    void fastStartupReachesFirstEventSooner() throws Exception {
+        List<String> fastStart = List.of(
+            "-XX:SharedArchiveFile=" + CDS_ARCHIVE,
+            "-Dspring.aot.enabled=true",
+            "-Dspring.profiles.active=faststart");
+
+        long baselineMillis = medianTimeToFirstEvent(List.of());
+        long fastStartMillis = medianTimeToFirstEvent(fastStart);
+
+        System.out.printf("Time to first consumed OrderEvent (median of %d): baseline %d ms, faststart %d ms (%.0f%%)%n",
+            RUNS, baselineMillis, fastStartMillis, 100.0 * fastStartMillis / baselineMillis);
+
+        assertTrue(fastStartMillis < baselineMillis,
+            "AOT + AppCDS should reach the first event sooner than a plain start");
+    }
+
+    private long medianTimeToFirstEvent(List<String> jvmOptions) throws Exception {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            samples.add(launchAndMeasure(jvmOptions));
+        }
+        Collections.sort(samples);
+        return samples.get(samples.size() / 2);
+    }
+
+    private long launchAndMeasure(List<String> jvmOptions) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(JAR.toString());
+        command.add("--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString());
+        // A fresh group per launch so every run starts from the waiting event
+        command.add("--spring.kafka.consumer.group-id=startup-benchmark-" + (++launchCount));
+        command.add("--server.port=0");
+        command.add("--email.service.mock=true");
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(LAUNCH_TIMEOUT_SECONDS);
+            String line;
+            while (System.nanoTime() < deadline && (line = output.readLine()) != null) {
+                Matcher matcher = FIRST_EVENT_LINE.matcher(line);
+                if (matcher.find()) {
+                    return Long.parseLong(matcher.group(1));
+                }
+            }
+            throw new AssertionError("Service did not consume the first event: " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.microservices.email.stream;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.EmailStatusChangedEvent;
+import com.microservices.email.view.EmailHistoryView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailStatusHubTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testPublish_RoutesByOrderCustomerAndGlobal() {
+        // Arrange
+        EmailStatusHub hub = hub(16, EmailStatusHub.OverflowPolicy.DROP_OLDEST);
+        RecordingSink order = subscribe(hub, EmailStatusHub.Scope.order(12345L));
+        RecordingSink customer = subscribe(hub, EmailStatusHub.Scope.customer("CUST001"));
+        RecordingSink otherOrder = subscribe(hub, EmailStatusHub.Scope.order(99999L));
+        RecordingSink all = subscribe(hub, EmailStatusHub.Scope.all());
+
+        // Act
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        executor.runAll();
+
+        // Assert
+        assertEquals(List.of("status:SENT"), order.received);
+        assertEquals(List.of("status:SENT"), customer.received);
+        assertEquals(List.of("status:SENT"), all.received);
+        assertTrue(otherOrder.received.isEmpty());
+    }
+
+    @Test
+    void testStart_SnapshotPrecedesEventsBufferedWhileLoading() {
+        // Arrange
+        EmailStatusHub hub = hub(16, EmailStatusHub.OverflowPolicy.DROP_OLDEST);
+        RecordingSink sink = new RecordingSink();
+        EmailStatusHub.Subscription subscription = hub.subscribe(EmailStatusHub.Scope.order(12345L), sink);
+
+        // Act: a change commits while the snapshot is being read
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        subscription.start(List.of(view()));
+        executor.runAll();
+
+        // Assert
+        assertEquals(List.of("snapshot:1", "status:SENT"), sink.received);
+    }
+
+    @Test
+    void testSlowSubscriber_DropOldestKeepsNewestAndReportsLoss() {
+        // Arrange
+        EmailStatusHub hub = hub(2, EmailStatusHub.OverflowPolicy.DROP_OLDEST);
+        RecordingSink slow = subscribe(hub, EmailStatusHub.Scope.order(12345L));
+
+        // Act: nothing is delivered until the executor runs
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.PENDING));
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENDING));
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        executor.runAll();
+
+        // Assert
+        assertEquals(List.of("dropped:1", "status:SENDING", "status:SENT"), slow.received);
+        assertEquals(1.0, meterRegistry.get("email.status.stream.dropped").counter().count());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void testSlowSubscriber_DisconnectPolicyClosesOnlyThatSubscriber() {
+        // Arrange
+        EmailStatusHub hub = hub(1, EmailStatusHub.OverflowPolicy.DISCONNECT);
+        RecordingSink slow = subscribe(hub, EmailStatusHub.Scope.order(12345L));
+
+        // Act
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENDING));
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        executor.runAll();
+        RecordingSink other = subscribe(hub, EmailStatusHub.Scope.order(12345L));
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        executor.runAll();
+
+        // Assert
+        assertTrue(slow.closed);
+        assertTrue(slow.received.isEmpty());
+        assertEquals(List.of("status:SENT"), other.received);
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void testFailedSend_RemovesSubscription() {
+        // Arrange
+        EmailStatusHub hub = hub(16, EmailStatusHub.OverflowPolicy.DROP_OLDEST);
+        RecordingSink gone = subscribe(hub, EmailStatusHub.Scope.all());
+        gone.failing = true;
+
+        // Act
+        hub.publish(event(12345L, "CUST001", Email.EmailStatus.SENT));
+        executor.runAll();
+
+        // Assert
+        assertEquals(0, hub.getSubscriberCount());
+        assertTrue(gone.closed);
+    }
+
+    @Test
+    void testSubscribe_RejectedAboveSubscriberLimit() {
+        // Arrange
+        EmailStatusHub hub = new EmailStatusHub(executor, meterRegistry, 16, EmailStatusHub.OverflowPolicy.DROP_OLDEST, 1);
+        subscribe(hub, EmailStatusHub.Scope.all());
+
+        // Act & Assert
+        assertNull(hub.subscribe(EmailStatusHub.Scope.all(), new RecordingSink()));
+    }
+
+    private EmailStatusHub hub(int bufferSize, EmailStatusHub.OverflowPolicy policy) {
+        return new EmailStatusHub(executor, meterRegistry, bufferSize, policy, 100);
+    }
+
+    private RecordingSink subscribe(EmailStatusHub hub, EmailStatusHub.Scope scope) {
+        RecordingSink sink = new RecordingSink();
+        hub.subscribe(scope, sink).start(null);
+        executor.runAll();
+        return sink;
+    }
+
+    private EmailStatusChangedEvent event(Long orderId, String customerId, Email.EmailStatus status) {
+        return new EmailStatusChangedEvent(1L, orderId, customerId, "example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                           status, LocalDateTime.now());
+    }
+
+    private EmailHistoryView view() {
+        return new EmailHistoryView(1L, 12345L, "CUST001", "test@example.com", Email.EmailType.ORDER_CONFIRMATION,
+                                    Email.EmailStatus.PENDING, "Order Confirmation", LocalDateTime.now(), null);
+    }
+
+    private static class RecordingSink implements StatusSink {
+
+        private final List<String> received = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+        private volatile boolean closed;
+
+        @Override
+        public void sendSnapshot(List<EmailHistoryView> emails) {
+            received.add("snapshot:" + emails.size());
+        }
+
+        @Override
+        public void sendStatus(EmailStatusChangedEvent event) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            received.add("status:" + event.emailStatus());
+        }
+
+        @Override
+        public void sendDropped(long count) {
+            received.add("dropped:" + count);
+        }
+
+        @Override
+        public void sendHeartbeat() {
+            received.add("heartbeat");
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    // Runs delivery tasks only when asked, so a test controls how far subscribers fall behind
+    private static class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
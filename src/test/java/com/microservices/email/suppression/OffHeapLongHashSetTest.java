@@ -0,0 +1,144 @@
+package com.microservices.email.suppression;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapLongHashSetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAddContainsRemove() {
+        OffHeapLongHashSet set = new OffHeapLongHashSet(16);
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+
+        assertTrue(set.remove(42L));
+        assertFalse(set.remove(42L));
+        assertFalse(set.contains(42L));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testReservedKeysAreStillUsable() {
+        OffHeapLongHashSet set = new OffHeapLongHashSet(16);
+
+        set.add(0L);
+        set.add(-1L);
+
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(-1L));
+    }
+
+    @Test
+    void testGrowsAndKeepsKeysFoundThroughTombstones() {
+        OffHeapLongHashSet set = new OffHeapLongHashSet(16);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] keys = random.longs(50_000).toArray();
+
+        for (long key : keys) {
+            set.add(key);
+        }
+        // Every other key leaves a tombstone in the probe chains of the rest
+        for (int i = 0; i < keys.length; i += 2) {
+            set.remove(keys[i]);
+        }
+
+        assertEquals(keys.length / 2, set.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 2 == 1, set.contains(keys[i]), "key " + i);
+        }
+        assertTrue(set.capacity() >= 2 * set.size());
+    }
+
+    @Test
+    void testSnapshotRoundTripAndPrivateMappingStaysPrivate() throws Exception {
+        OffHeapLongHashSet set = new OffHeapLongHashSet(1_000);
+        for (long key = 1; key <= 1_000; key++) {
+            set.add(AddressHasher.hash("user" + key + "@example.com"));
+        }
+        Path file = tempDir.resolve("suppression.bin");
+        set.snapshotTo(file);
+
+        OffHeapLongHashSet loaded = OffHeapLongHashSet.loadFrom(file);
+        loaded.add(AddressHasher.hash("late@example.com"));
+
+        assertEquals(1_001, loaded.size());
+        assertTrue(loaded.contains(AddressHasher.hash("user500@example.com")));
+        assertFalse(OffHeapLongHashSet.loadFrom(file).contains(AddressHasher.hash("late@example.com")));
+    }
+
+    @Test
+    void testReadsProceedDuringSnapshotsAndRebuilds() throws Exception {
+        // Arrange: readers probe keys that are present throughout
+        OffHeapLongHashSet set = new OffHeapLongHashSet(16);
+        SplittableRandom random = new SplittableRandom(11);
+        long[] present = new long[10_000];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = random.nextLong();
+            set.add(present[i]);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder misses = new LongAdder();
+        CountDownLatch readersDone = new CountDownLatch(2);
+        for (int r = 0; r < 2; r++) {
+            Thread reader = new Thread(() -> {
+                for (int i = 0; running.get(); i = (i + 1) % present.length) {
+                    if (!set.contains(present[i])) {
+                        misses.increment();
+                    }
+                    reads.increment();
+                }
+                readersDone.countDown();
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        // Act: writers grow the table several times, remove keys and snapshot in between
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 40_000; i++) {
+                long key = random.nextLong();
+                set.add(key);
+                if (i % 3 == 0) {
+                    set.remove(key);
+                }
+            }
+            set.snapshotTo(tempDir.resolve("suppressions.bin"));
+        }
+        // A writer holding the set's lock, as a long snapshot does, does not stall readers
+        long readsWhileLocked;
+        synchronized (set) {
+            long before = reads.sum();
+            TimeUnit.MILLISECONDS.sleep(100);
+            readsWhileLocked = reads.sum() - before;
+        }
+        running.set(false);
+        assertTrue(readersDone.await(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(0, misses.sum());
+        assertTrue(readsWhileLocked > 0);
+        assertEquals(set.size(), OffHeapLongHashSet.loadFrom(tempDir.resolve("suppressions.bin")).size());
+    }
+
+    @Test
+    void testAddressHashIgnoresCaseAndSurroundingWhitespace() {
+        assertEquals(AddressHasher.hash("Jane.Doe@Example.com"), AddressHasher.hash("  jane.doe@example.com\n"));
+        assertNotEquals(AddressHasher.hash("jane.doe@example.com"), AddressHasher.hash("jane.doe@example.co"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.microservices.email.suppression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuppressionServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SuppressionService suppressionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        suppressionService = new SuppressionService(meterRegistry, "", 16);
+        suppressionService.suppress(List.of("bounced@example.com"));
+    }
+
+    @Test
+    void testIsSuppressed_CountsSuppressedSends() {
+        // Act
+        boolean suppressed = suppressionService.isSuppressed("bounced@example.com");
+        boolean other = suppressionService.isSuppressed("fine@example.com");
+
+        // Assert
+        assertTrue(suppressed);
+        assertFalse(other);
+        assertEquals(1.0, meterRegistry.counter("email.suppression.hits").count());
+    }
+
+    @Test
+    void testContains_DoesNotCountAsSuppressedSend() {
+        // Act
+        boolean suppressed = suppressionService.contains("bounced@example.com");
+
+        // Assert
+        assertTrue(suppressed);
+        assertFalse(suppressionService.contains("fine@example.com"));
+        assertFalse(suppressionService.contains(null));
+        assertEquals(0.0, meterRegistry.counter("email.suppression.hits").count());
+    }
+}
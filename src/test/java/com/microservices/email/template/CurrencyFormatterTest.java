@@ -0,0 +1,41 @@
+package com.microservices.email.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CurrencyFormatterTest {
+
+    private static final String[] AMOUNTS = {
+        "0", "0.001", "1", "12.5", "99.99", "999.995", "1234.5", "1234567.891", "-42.10", "0.5"
+    };
+
+    @Test
+    void formatsLikeNumberFormatAcrossLocalesAndCurrencies() {
+        Locale[] locales = {
+            Locale.US, Locale.UK, Locale.GERMANY, Locale.FRANCE, Locale.ITALY, Locale.JAPAN,
+            Locale.forLanguageTag("de-CH"), Locale.forLanguageTag("es-ES"), Locale.forLanguageTag("nl-NL"),
+            Locale.forLanguageTag("pl-PL"), Locale.forLanguageTag("hi-IN"), Locale.forLanguageTag("ar-EG")
+        };
+        String[] currencies = {"USD", "EUR", "GBP", "CHF", "JPY", "BHD"};
+
+        for (Locale locale : locales) {
+            for (String code : currencies) {
+                Currency currency = Currency.getInstance(code);
+                CurrencyFormatter formatter = CurrencyFormatter.of(locale, currency);
+                NumberFormat reference = NumberFormat.getCurrencyInstance(locale);
+                reference.setCurrency(currency);
+
+                for (String amount : AMOUNTS) {
+                    assertEquals(reference.format(new BigDecimal(amount)), formatter.format(new BigDecimal(amount)),
+                        () -> locale + " " + code + " " + amount);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.microservices.email.transport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class DomainBatchingMailSenderTest {
+
+    private final Session session = Session.getInstance(new Properties());
+
+    private final JavaMailSender javaMailSender = mock(JavaMailSender.class);
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private DomainBatchingMailSender sender;
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.shutdown();
+        }
+    }
+
+    @Test
+    void testFullBatchGoesOutOverOneConnection() throws Exception {
+        // Arrange: the linger is long enough that only the size bound can close a batch
+        recordBatches();
+        sender = new DomainBatchingMailSender(javaMailSender, 5, 60_000, 2, new SimpleMeterRegistry());
+
+        // Act
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(sender.send("user" + i + "@example.com", new MimeMessage(session)));
+        }
+
+        // Assert
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(5), batchSizes);
+    }
+
+    @Test
+    void testDomainsAreBatchedSeparatelyAndFlushedAfterLinger() throws Exception {
+        // Arrange
+        recordBatches();
+        sender = new DomainBatchingMailSender(javaMailSender, 100, 20, 2, new SimpleMeterRegistry());
+
+        // Act: interleaved arrival, as the dispatch queue delivers them
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String domain = i % 2 == 0 ? "gmail.com" : "Example.COM";
+            results.add(sender.send("user" + i + "@" + domain, new MimeMessage(session)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(List.of(3, 3), batchSizes);
+        assertEquals(0, sender.getQueuedDomainCount());
+    }
+
+    @Test
+    void testFailedMessagesFailIndividually() throws Exception {
+        // Arrange: the server rejects the second message of the batch only
+        doAnswer(invocation -> {
+            MimeMessage[] messages = (MimeMessage[]) invocation.getRawArguments()[0];
+            throw new MailSendException(Map.of(messages[1], new MailSendException("550 mailbox unavailable")));
+        }).when(javaMailSender).send(any(MimeMessage[].class));
+        sender = new DomainBatchingMailSender(javaMailSender, 3, 60_000, 1, new SimpleMeterRegistry());
+
+        // Act
+        CompletableFuture<Boolean> first = sender.send("a@example.com", new MimeMessage(session));
+        CompletableFuture<Boolean> second = sender.send("b@example.com", new MimeMessage(session));
+        CompletableFuture<Boolean> third = sender.send("c@example.com", new MimeMessage(session));
+
+        // Assert
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(third.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MailSendException.class, failure.getCause());
+    }
+
+    private void recordBatches() {
+        doAnswer(invocation -> {
+            MimeMessage[] messages = (MimeMessage[]) invocation.getRawArguments()[0];
+            batchSizes.add(messages.length);
+            return null;
+        }).when(javaMailSender).send(any(MimeMessage[].class));
+    }
+}
@@ -0,0 +1,71 @@
+package com.microservices.email.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyDistributionTest {
+
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    void testHistogram_PercentilesFollowBucketWeights() {
+        // Arrange
+        LatencyDistribution distribution = LatencyDistribution.histogram("20:50,80:30,250:15,1000:5");
+
+        // Act
+        long[] samples = sample(distribution, new SplittableRandom(42));
+
+        // Assert: bucket bounds fall on the cumulative weights 50/80/95/100
+        assertEquals(20_000, percentile(samples, 0.50), 1_000);
+        assertEquals(80_000, percentile(samples, 0.80), 2_000);
+        assertEquals(250_000, percentile(samples, 0.95), 8_000);
+        long p99 = percentile(samples, 0.99);
+        assertTrue(p99 > 250_000 && p99 <= 1_000_000, "p99 in the last bucket: " + p99);
+        assertTrue(samples[samples.length - 1] <= 1_000_000);
+    }
+
+    @Test
+    void testLogNormal_MedianAndTail() {
+        // Arrange
+        LatencyDistribution distribution = LatencyDistribution.logNormal(80, 0.6);
+
+        // Act
+        long[] samples = sample(distribution, new SplittableRandom(7));
+
+        // Assert: p99 of a log-normal is median * exp(2.326 * sigma)
+        assertEquals(80_000, percentile(samples, 0.50), 2_000);
+        assertEquals(80_000 * Math.exp(2.326 * 0.6), percentile(samples, 0.99), 15_000);
+    }
+
+    @Test
+    void testSameSeed_SameSamples() {
+        LatencyDistribution distribution = LatencyDistribution.of("histogram", 0, 0, 0, "10:1,100:1");
+
+        assertArrayEquals(sample(distribution, new SplittableRandom(3)), sample(distribution, new SplittableRandom(3)));
+    }
+
+    @Test
+    void testFixedAndInvalidSpecs() {
+        assertEquals(100_000, LatencyDistribution.of("fixed", 100, 0, 0, null).sampleMicros(new SplittableRandom()));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.histogram("20"));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.histogram("20:0"));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.of("uniform", 0, 0, 0, null));
+    }
+
+    private static long[] sample(LatencyDistribution distribution, SplittableRandom random) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.sampleMicros(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,117 @@
+package com.microservices.email.transport;
+
+import com.microservices.email.entity.Email;
+import com.microservices.email.event.OrderEvent;
+import com.microservices.email.service.EmailTemplateService;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated per message by the String-based path (text String, HTML String, MimeMessage,
+ * encoded bytes) against the streaming multipart path. Both write into a discarding stream, as the
+ * SMTP transport would. Run with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MultipartRenderingAllocationBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int MEASURED = 10_000;
+
+    private final EmailTemplateService templateService = new EmailTemplateService();
+    private final Session session = Session.getInstance(new Properties());
+    private final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private OrderEvent orderEvent;
+
+    @BeforeEach
+    void setUp() {
+        orderEvent = new OrderEvent(98765L, "CUST-42", "customer@example.com",
+            OrderEvent.OrderStatus.CONFIRMED, "ORDER_CONFIRMED");
+        orderEvent.setCustomerName("Jane Doe");
+        orderEvent.setTotalAmount(new BigDecimal("249.97"));
+        orderEvent.setCurrency("USD");
+        orderEvent.setOrderDate(LocalDateTime.now());
+        orderEvent.setPaymentMethod("CREDIT_CARD");
+
+        List<OrderEvent.OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            OrderEvent.OrderItem item = new OrderEvent.OrderItem();
+            item.setProductName("Product number " + i + " with a reasonably long description");
+            item.setQuantity(i + 1);
+            item.setUnitPrice(new BigDecimal("12.49"));
+            items.add(item);
+        }
+        orderEvent.setItems(items);
+
+        OrderEvent.Address address = new OrderEvent.Address();
+        address.setStreet("221B Baker Street");
+        address.setCity("London");
+        address.setZipCode("NW1 6XE");
+        address.setCountry("UK");
+        orderEvent.setShippingAddress(address);
+    }
+
+    @Test
+    void streamingPathAllocatesLessPerMessage() throws Exception {
+        long stringPath = bytesPerMessage(this::renderViaStrings);
+        long streamingPath = bytesPerMessage(this::renderStreaming);
+
+        System.out.printf("Allocation per message: string path %,d B, streaming path %,d B (%.1f%%)%n",
+            stringPath, streamingPath, 100.0 * streamingPath / stringPath);
+
+        assertTrue(streamingPath < stringPath,
+            "Streaming rendering should allocate less than building the body as Strings");
+    }
+
+    private void renderViaStrings() throws Exception {
+        String text = templateService.generateContent(Email.EmailType.ORDER_CONFIRMATION, orderEvent);
+        String html = templateService.generateHtmlContent(Email.EmailType.ORDER_CONFIRMATION, orderEvent);
+
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@emailservice.com");
+        helper.setTo(orderEvent.getCustomerEmail());
+        helper.setSubject("Order Confirmation - Order #" + orderEvent.getOrderId());
+        helper.setText(text, html);
+        message.saveChanges();
+        message.writeTo(OutputStream.nullOutputStream());
+    }
+
+    private void renderStreaming() throws Exception {
+        new StreamingMultipartMessage(session, "noreply@emailservice.com", orderEvent.getCustomerEmail(),
+            "Order Confirmation - Order #" + orderEvent.getOrderId(),
+            writer -> templateService.writeContent(Email.EmailType.ORDER_CONFIRMATION, orderEvent, writer))
+            .writeTo(OutputStream.nullOutputStream());
+    }
+
+    private long bytesPerMessage(Render render) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            render.run();
+        }
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            render.run();
+        }
+        return (threadBean.getCurrentThreadAllocatedBytes() - before) / MEASURED;
+    }
+
+    @FunctionalInterface
+    private interface Render {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,66 @@
+package com.microservices.email.transport;
+
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PreRenderedMimeMessageTest {
+
+    private final Session session = Session.getInstance(new Properties());
+
+    @Test
+    void testWriteTo_StreamsRenderedBytesVerbatim() throws Exception {
+        // Arrange
+        byte[] rendered = render("Order Confirmation", "Thank you for your order, Jöhn");
+        PreRenderedMimeMessage message =
+            new PreRenderedMimeMessage(session, "noreply@example.com", "test@example.com", rendered);
+
+        // Act: the transport calls saveChanges before writing
+        message.saveChanges();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+
+        // Assert
+        assertArrayEquals(rendered, out.toByteArray());
+        assertEquals(rendered.length, message.getSize());
+        assertEquals(new InternetAddress("test@example.com"), message.getRecipients(Message.RecipientType.TO)[0]);
+    }
+
+    @Test
+    void testWriteTo_BytesParseBackToOriginalMessage() throws Exception {
+        // Arrange
+        byte[] rendered = render("Order Confirmation", "Thank you for your order, Jöhn");
+        PreRenderedMimeMessage message =
+            new PreRenderedMimeMessage(session, "noreply@example.com", "test@example.com", rendered);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out, new String[] {"Bcc"});
+        MimeMessage parsed = new MimeMessage(session, new ByteArrayInputStream(out.toByteArray()));
+
+        // Assert
+        assertEquals("Order Confirmation", parsed.getSubject());
+        assertEquals("Thank you for your order, Jöhn", parsed.getContent());
+        assertEquals(new InternetAddress("test@example.com"), parsed.getRecipients(Message.RecipientType.TO)[0]);
+    }
+
+    private byte[] render(String subject, String content) throws Exception {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("noreply@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("test@example.com"));
+        message.setSubject(subject, "UTF-8");
+        message.setText(content, "UTF-8");
+        message.saveChanges();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toByteArray();
+    }
+}
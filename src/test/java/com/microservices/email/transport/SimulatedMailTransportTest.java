@@ -0,0 +1,70 @@
+package com.microservices.email.transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatedMailTransportTest {
+
+    private SimulatedMailTransport transport;
+
+    @AfterEach
+    void tearDown() {
+        if (transport != null) {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void testSend_FailureRateIsHonoured() throws Exception {
+        // Arrange: java.util.Random is safe to share, so a fixed seed makes the outcomes repeatable
+        Random random = new Random(42);
+        transport = new SimulatedMailTransport(LatencyDistribution.fixed(0), 0.2, 2, () -> random);
+
+        // Act
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            results.add(transport.send("user" + i + "@example.com", "Subject", "Body"));
+        }
+        int failed = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (!result.get(5, TimeUnit.SECONDS)) {
+                failed++;
+            }
+        }
+
+        // Assert
+        assertEquals(2_000, failed, 150);
+        assertEquals(failed, transport.getFailedCount());
+        assertEquals(10_000 - failed, transport.getSentCount());
+        assertEquals(0, transport.getInFlightCount());
+    }
+
+    @Test
+    void testSend_DoesNotHoldAThreadForTheLatency() throws Exception {
+        // Arrange: one scheduler thread and 1000 sends of 200ms each, 200s if they ran one after another
+        transport = new SimulatedMailTransport(LatencyDistribution.fixed(200), 0.0, 1);
+
+        // Act
+        long start = System.nanoTime();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            results.add(transport.send("user" + i + "@example.com", "Subject", "Body"));
+        }
+        long inFlightAfterSubmit = transport.getInFlightCount();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert: send returns at once and every send is in flight together
+        assertEquals(1000, inFlightAfterSubmit);
+        assertTrue(elapsedMillis < 2_000, "1000 sends took " + elapsedMillis + "ms");
+        assertEquals(1000, transport.getSentCount());
+    }
+}
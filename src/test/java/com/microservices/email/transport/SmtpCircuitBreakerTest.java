@@ -0,0 +1,105 @@
+package com.microservices.email.transport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SmtpCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new SmtpCircuitBreaker(3, Duration.ofSeconds(30), 1, clock::get);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejects() {
+        fail(2);
+        assertEquals(SmtpCircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(1);
+
+        assertEquals(SmtpCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getRejectedCount());
+        assertEquals(Duration.ofSeconds(30), breaker.getRemainingOpenDuration());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        fail(2);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+        fail(2);
+
+        assertEquals(SmtpCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbeSuccessClosesCircuit() {
+        fail(3);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(SmtpCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Only one probe at a time
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess();
+
+        assertEquals(SmtpCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpenProbeFailureReopensCircuit() {
+        fail(3);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+
+        assertEquals(SmtpCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ignoredProbeReleasesPermission() {
+        fail(3);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onIgnored();
+
+        assertEquals(SmtpCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void healthStaysUpWhileOpenWithStateInDetails() {
+        fail(3);
+
+        Health health = new SmtpCircuitBreakerHealthIndicator(breaker).health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(SmtpCircuitBreaker.State.OPEN, health.getDetails().get("state"));
+        assertEquals(30_000L, health.getDetails().get("retryAfterMs"));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.microservices.email.transport;
+
+import com.microservices.email.template.ContentTemplate;
+import com.microservices.email.template.PlainTextContentWriter;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingMultipartMessageTest {
+
+    private final Session session = Session.getInstance(new Properties());
+
+    // Long enough for soft line breaks, and ending in a space the encoder holds back until it is closed
+    private final ContentTemplate template = writer -> {
+        writer.begin();
+        writer.greeting("Dear Jöhn,");
+        writer.paragraph("Your order of " + "twelve très long product names, ".repeat(8) + "has shipped.");
+        writer.text("Thank you ");
+        writer.end();
+    };
+
+    @Test
+    void testWriteTo_PartsDecodeToTheRenderedTemplate() throws Exception {
+        // Arrange
+        StreamingMultipartMessage message = new StreamingMultipartMessage(
+            session, "noreply@example.com", "test@example.com", "Your order has shipped", template);
+        StringBuilder expectedText = new StringBuilder();
+        template.writeTo(new PlainTextContentWriter(expectedText));
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        MimeMessage parsed = new MimeMessage(session, new ByteArrayInputStream(out.toByteArray()));
+
+        // Assert
+        MimeMultipart parts = (MimeMultipart) parsed.getContent();
+        assertEquals(2, parts.getCount());
+        String text = (String) parts.getBodyPart(0).getContent();
+        assertEquals(expectedText.toString(), text.replace("\r\n", "\n"));
+        String html = (String) parts.getBodyPart(1).getContent();
+        assertTrue(html.contains("Dear Jöhn,"));
+        assertTrue(parts.getBodyPart(1).isMimeType("text/html"));
+    }
+
+    @Test
+    void testWriteTo_LeavesTransportStreamOpen() throws Exception {
+        // Arrange
+        StreamingMultipartMessage message = new StreamingMultipartMessage(
+            session, "noreply@example.com", "test@example.com", "Your order has shipped", template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("The transport's stream must not be closed by the message");
+            }
+        };
+
+        // Act
+        message.writeTo(out);
+        out.write('.');
+
+        // Assert: the closing boundary is last, after both parts
+        String written = out.toString(StandardCharsets.US_ASCII);
+        assertTrue(written.endsWith("--\r\n."));
+    }
+}
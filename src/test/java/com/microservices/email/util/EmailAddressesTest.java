@@ -0,0 +1,16 @@
+package com.microservices.email.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EmailAddressesTest {
+
+    @Test
+    void testDomainOf() {
+        assertEquals("example.com", EmailAddresses.domainOf("Jane@Example.com "));
+        assertEquals("example.com", EmailAddresses.domainOf("\"a@b\"@example.com"));
+        assertEquals("", EmailAddresses.domainOf("no-domain"));
+        assertEquals("", EmailAddresses.domainOf(null));
+    }
+}